@@ -290,6 +290,15 @@ public class MiniClusterState {
       return random;
     }
 
+    /**
+     * Gets the mini cluster, to access the cores of its nodes directly.
+     *
+     * @return the cluster
+     */
+    public MiniSolrCloudCluster getCluster() {
+      return cluster;
+    }
+
     /**
      * Create collection.
      *
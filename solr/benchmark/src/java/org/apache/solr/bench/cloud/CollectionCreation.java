@@ -0,0 +1,108 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.apache.solr.bench.cloud;
+
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import org.apache.solr.bench.MiniClusterState;
+import org.apache.solr.client.solrj.request.CollectionAdminRequest;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Threads;
+import org.openjdk.jmh.annotations.Timeout;
+import org.openjdk.jmh.annotations.Warmup;
+
+@BenchmarkMode(Mode.SingleShotTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Threads(1)
+@Warmup(iterations = 2)
+@Measurement(iterations = 5)
+@Fork(value = 1)
+@Timeout(time = 600)
+// A benchmark of the time it takes the Collection API to create a collection with many replicas, which is
+// dominated by the cluster state updates and ZooKeeper round trips of the Overseer.
+public class CollectionCreation {
+
+  @State(Scope.Benchmark)
+  public static class BenchState {
+
+    @Param("4")
+    int nodeCount;
+
+    @Param({"100", "500"})
+    int numShards;
+
+    @Param({"1", "2"})
+    int numReplicas;
+
+    @Param({"false", "true"})
+    boolean perReplicaState;
+
+    private final AtomicInteger collectionCount = new AtomicInteger();
+    private String collection;
+
+    @Setup(Level.Trial)
+    public void doSetup(MiniClusterState.MiniClusterBenchState miniClusterState) throws Exception {
+      miniClusterState.startMiniCluster(nodeCount);
+    }
+
+    @Setup(Level.Invocation)
+    public void nextCollection() {
+      collection = "collection" + collectionCount.incrementAndGet();
+    }
+
+    // delete the collection outside of the measured time, so that the cluster doesn't grow from one invocation
+    // to the next
+    @TearDown(Level.Invocation)
+    public void deleteCollection(MiniClusterState.MiniClusterBenchState miniClusterState)
+        throws Exception {
+      CollectionAdminRequest.deleteCollection(collection).process(miniClusterState.client);
+    }
+  }
+
+  @Benchmark
+  public Object createCollection(
+      MiniClusterState.MiniClusterBenchState miniClusterState, BenchState state) throws Exception {
+    CollectionAdminRequest.Create request =
+        CollectionAdminRequest.createCollection(
+                state.collection, "conf", state.numShards, state.numReplicas)
+            .setPerReplicaState(state.perReplicaState);
+    request.setBasePath(
+        miniClusterState.nodes.get(miniClusterState.getRandom().nextInt(state.nodeCount)));
+    Object response = miniClusterState.client.request(request);
+
+    miniClusterState
+        .getCluster()
+        .waitForActiveCollection(
+            state.collection,
+            5,
+            TimeUnit.MINUTES,
+            state.numShards,
+            state.numShards * state.numReplicas);
+    return response;
+  }
+}
@@ -0,0 +1,140 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.apache.solr.bench.index;
+
+import java.util.Locale;
+import org.apache.solr.bench.MiniClusterState;
+import org.apache.solr.common.params.ModifiableSolrParams;
+import org.apache.solr.common.util.ContentStreamBase;
+import org.apache.solr.core.SolrCore;
+import org.apache.solr.handler.loader.JsonLoader;
+import org.apache.solr.request.LocalSolrQueryRequest;
+import org.apache.solr.request.SolrQueryRequest;
+import org.apache.solr.response.SolrQueryResponse;
+import org.apache.solr.update.AddUpdateCommand;
+import org.apache.solr.update.processor.UpdateRequestProcessor;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Threads;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.infra.Blackhole;
+
+/**
+ * Measures {@link JsonLoader} alone: parsing a JSON array of small documents into {@link
+ * AddUpdateCommand}s, that are handed to a processor that doesn't index them. Run it with {@code
+ * -prof gc} to compare the allocation rate of loader changes.
+ */
+@Fork(value = 1)
+@Warmup(time = 1, iterations = 5)
+@Measurement(time = 1, iterations = 5)
+@Threads(value = 1)
+public class JsonLoading {
+
+  static final String COLLECTION = "c1";
+
+  @State(Scope.Benchmark)
+  public static class BenchState {
+
+    @Param({"1000"})
+    int docsPerRequest;
+
+    @Param({"10", "50"})
+    int fieldsPerDoc;
+
+    String body;
+    SolrCore core;
+
+    @Setup(Level.Trial)
+    public void setupTrial(MiniClusterState.MiniClusterBenchState miniClusterState)
+        throws Exception {
+      miniClusterState.startMiniCluster(1);
+      miniClusterState.createCollection(COLLECTION, 1, 1);
+      core =
+          miniClusterState
+              .getCluster()
+              .getJettySolrRunner(0)
+              .getCoreContainer()
+              .getCores()
+              .iterator()
+              .next();
+
+      StringBuilder sb = new StringBuilder("[");
+      for (int doc = 0; doc < docsPerRequest; doc++) {
+        if (doc > 0) {
+          sb.append(',');
+        }
+        sb.append("{\"id\":\"").append(doc).append('"');
+        for (int field = 0; field < fieldsPerDoc; field++) {
+          switch (field % 3) {
+            case 0:
+              sb.append(String.format(Locale.ROOT, ",\"f%d_s\":\"value %d\"", field, doc));
+              break;
+            case 1:
+              sb.append(String.format(Locale.ROOT, ",\"f%d_l\":%d", field, doc * 31L + field));
+              break;
+            default:
+              sb.append(String.format(Locale.ROOT, ",\"f%d_d\":%d.5", field, doc));
+              break;
+          }
+        }
+        sb.append('}');
+      }
+      body = sb.append(']').toString();
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDownTrial() {
+      core = null;
+    }
+  }
+
+  @Benchmark
+  public void load(BenchState state, Blackhole bh) throws Exception {
+    SolrQueryRequest req = new LocalSolrQueryRequest(state.core, new ModifiableSolrParams());
+    try {
+      new JsonLoader()
+          .load(
+              req,
+              new SolrQueryResponse(),
+              new ContentStreamBase.StringStream(state.body),
+              new BlackholeProcessor(bh));
+    } finally {
+      req.close();
+    }
+  }
+
+  static class BlackholeProcessor extends UpdateRequestProcessor {
+    private final Blackhole bh;
+
+    BlackholeProcessor(Blackhole bh) {
+      super(null);
+      this.bh = bh;
+    }
+
+    @Override
+    public void processAdd(AddUpdateCommand cmd) {
+      bh.consume(cmd.solrDoc);
+    }
+  }
+}
@@ -0,0 +1,102 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.apache.solr.bench.index;
+
+import java.io.IOException;
+import java.util.SplittableRandom;
+import java.util.concurrent.atomic.AtomicLong;
+import org.apache.lucene.util.BytesRef;
+import org.apache.solr.update.VersionBucket;
+import org.apache.solr.update.VersionBuckets;
+import org.apache.solr.update.processor.DistributedUpdateProcessor;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Threads;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.infra.Blackhole;
+
+/**
+ * Measures the throughput of concurrent updates contending for the version buckets, like the
+ * leader side of {@link DistributedUpdateProcessor#versionAdd} does for every document: get the
+ * bucket of the id, lock it, read the highest version of the bucket, do some work (standing in for
+ * the tlog write and the index update) and raise the highest version.
+ */
+@Fork(value = 1)
+@Warmup(time = 1, iterations = 5)
+@Measurement(time = 1, iterations = 5)
+@Threads(value = 16)
+public class VersionBucketLocking {
+
+  @State(Scope.Benchmark)
+  public static class BenchState {
+
+    @Param({VersionBuckets.FIXED, VersionBuckets.PER_ID})
+    String versionBuckets;
+
+    /** The number of buckets of the fixed implementation. */
+    @Param({"65536"})
+    int numVersionBuckets;
+
+    /** The number of distinct ids that are updated, fewer ids mean hotter ids. */
+    @Param({"100", "1000000"})
+    int numIds;
+
+    /** The amount of work done while holding the lock of a bucket. */
+    @Param({"100"})
+    int tokensInLock;
+
+    VersionBuckets buckets;
+    int[] hashes;
+    final AtomicLong clock = new AtomicLong();
+
+    @Setup(Level.Trial)
+    public void setup() {
+      buckets = VersionBuckets.create(versionBuckets, numVersionBuckets, false);
+      buckets.seedHighest(clock.incrementAndGet());
+      hashes = new int[numIds];
+      for (int i = 0; i < numIds; i++) {
+        hashes[i] = DistributedUpdateProcessor.bucketHash(new BytesRef(Integer.toString(i)));
+      }
+    }
+  }
+
+  @State(Scope.Thread)
+  public static class ThreadState {
+    final SplittableRandom random = new SplittableRandom();
+  }
+
+  @Benchmark
+  public long versionAdd(BenchState state, ThreadState threadState) throws IOException {
+    int hash = state.hashes[threadState.random.nextInt(state.hashes.length)];
+    VersionBucket bucket = state.buckets.bucket(hash);
+    return bucket.runWithLock(
+        0,
+        () -> {
+          long bucketVersion = bucket.highest;
+          long version = state.clock.incrementAndGet();
+          Blackhole.consumeCPU(state.tokensInLock);
+          bucket.updateHighest(version);
+          return bucketVersion;
+        });
+  }
+}
@@ -0,0 +1,158 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.apache.solr.bench.ltr;
+
+import java.nio.file.Paths;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.SplittableRandom;
+import org.apache.solr.bench.BaseBenchState;
+import org.apache.solr.core.SolrResourceLoader;
+import org.apache.solr.ltr.feature.Feature;
+import org.apache.solr.ltr.feature.ValueFeature;
+import org.apache.solr.ltr.model.LTRScoringModel;
+import org.apache.solr.ltr.model.MultipleAdditiveTreesModel;
+import org.apache.solr.ltr.norm.IdentityNormalizer;
+import org.apache.solr.ltr.norm.Normalizer;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Threads;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.infra.Blackhole;
+
+/**
+ * Compares the scoring of a LambdaMART like {@link MultipleAdditiveTreesModel} over a rerank
+ * window by walking the tree nodes, with the compiled arrays one document at a time, and with the
+ * compiled arrays for the whole window at once.
+ */
+@Fork(value = 1)
+@Warmup(time = 1, iterations = 5)
+@Measurement(time = 1, iterations = 5)
+@Threads(value = 1)
+public class MultipleAdditiveTreesScoring {
+
+  @State(Scope.Benchmark)
+  public static class BenchState {
+
+    @Param({"100", "800"})
+    int numTrees;
+
+    @Param("6")
+    int treeDepth;
+
+    @Param("50")
+    int numFeatures;
+
+    /** The number of documents scored per operation, as with reRankDocs */
+    @Param("500")
+    int rerankDocs;
+
+    MultipleAdditiveTreesModel model;
+    float[][] featureVectors;
+    float[] scores;
+
+    @Setup(Level.Trial)
+    public void setupTrial() throws Exception {
+      SplittableRandom random = new SplittableRandom(BaseBenchState.getRandomSeed());
+
+      List<Feature> features = new ArrayList<>();
+      for (int i = 0; i < numFeatures; i++) {
+        Map<String, Object> params = new HashMap<>();
+        params.put("value", 0);
+        ValueFeature feature = new ValueFeature("f" + i, params);
+        feature.setIndex(i);
+        features.add(feature);
+      }
+      List<Normalizer> norms =
+          new ArrayList<>(Collections.nCopies(numFeatures, IdentityNormalizer.INSTANCE));
+
+      List<Object> trees = new ArrayList<>();
+      for (int t = 0; t < numTrees; t++) {
+        Map<String, Object> tree = new HashMap<>();
+        tree.put("weight", Float.toString((float) random.nextDouble()));
+        tree.put("root", randomNode(random, treeDepth));
+        trees.add(tree);
+      }
+      Map<String, Object> params = new HashMap<>();
+      params.put("trees", trees);
+
+      try (SolrResourceLoader loader = new SolrResourceLoader(Paths.get("."))) {
+        model =
+            (MultipleAdditiveTreesModel)
+                LTRScoringModel.getInstance(
+                    loader,
+                    MultipleAdditiveTreesModel.class.getName(),
+                    "bench",
+                    features,
+                    norms,
+                    "bench",
+                    features,
+                    params);
+      }
+
+      featureVectors = new float[rerankDocs][numFeatures];
+      for (float[] featureVector : featureVectors) {
+        for (int i = 0; i < numFeatures; i++) {
+          featureVector[i] = (float) random.nextDouble();
+        }
+      }
+      scores = new float[rerankDocs];
+    }
+
+    private Map<String, Object> randomNode(SplittableRandom random, int depth) {
+      Map<String, Object> node = new HashMap<>();
+      if (depth == 0) {
+        node.put("value", Float.toString((float) random.nextDouble(-1, 1)));
+      } else {
+        node.put("feature", "f" + random.nextInt(numFeatures));
+        node.put("threshold", Float.toString((float) random.nextDouble()));
+        node.put("left", randomNode(random, depth - 1));
+        node.put("right", randomNode(random, depth - 1));
+      }
+      return node;
+    }
+  }
+
+  @Benchmark
+  public void nodes(BenchState state, Blackhole blackhole) {
+    for (float[] featureVector : state.featureVectors) {
+      blackhole.consume(state.model.scoreWithNodes(featureVector));
+    }
+  }
+
+  @Benchmark
+  public void compiled(BenchState state, Blackhole blackhole) {
+    for (float[] featureVector : state.featureVectors) {
+      blackhole.consume(state.model.score(featureVector));
+    }
+  }
+
+  @Benchmark
+  public float[] compiledBatch(BenchState state) {
+    state.model.score(state.featureVectors, state.rerankDocs, state.scores);
+    return state.scores;
+  }
+}
@@ -0,0 +1,293 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.apache.solr.bench.search;
+
+import static org.apache.solr.bench.Docs.docs;
+import static org.apache.solr.bench.generators.SourceDSL.integers;
+import static org.apache.solr.bench.generators.SourceDSL.longs;
+import static org.apache.solr.bench.generators.SourceDSL.strings;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.SplittableRandom;
+import java.util.concurrent.TimeUnit;
+import org.apache.solr.bench.BaseBenchState;
+import org.apache.solr.bench.Docs;
+import org.apache.solr.bench.MiniClusterState;
+import org.apache.solr.client.solrj.SolrQuery;
+import org.apache.solr.client.solrj.impl.NoOpResponseParser;
+import org.apache.solr.client.solrj.request.QueryRequest;
+import org.apache.solr.client.solrj.response.QueryResponse;
+import org.apache.solr.common.params.CursorMarkParams;
+import org.apache.solr.common.params.ModifiableSolrParams;
+import org.apache.solr.common.util.NamedList;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Threads;
+import org.openjdk.jmh.annotations.Timeout;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * Benchmarks for the stages of the standard distributed search request: edismax parsing, sorting
+ * and deep paging with cursorMark in the QueryComponent, stored field and docValues retrieval,
+ * response writing, and the merge of the shard responses. Each benchmark sends the kind of request
+ * that stresses one stage, so that a regression in one of them shows up on its own.
+ */
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Threads(4)
+@Warmup(time = 10, iterations = 3)
+@Measurement(time = 15, iterations = 5)
+@Fork(value = 1)
+@Timeout(time = 60)
+public class QueryPipeline {
+
+  static final String COLLECTION = "queryPipeline";
+
+  @State(Scope.Benchmark)
+  public static class BenchState {
+
+    @Param({"100000"})
+    int docCount;
+
+    @Param("2")
+    int nodeCount;
+
+    @Param("1")
+    int numReplicas;
+
+    @Param("4")
+    int numShards;
+
+    /** The number of rows returned by the retrieval, response writing and merge benchmarks. */
+    @Param({"100"})
+    int rows;
+
+    /** The response writer used by the response writing benchmark. */
+    @Param({"javabin", "json"})
+    String wt;
+
+    private final List<String> queries = new ArrayList<>();
+    private final List<String> cursorMarks = new ArrayList<>();
+
+    @Setup(Level.Trial)
+    public void setup(MiniClusterState.MiniClusterBenchState miniClusterState) throws Exception {
+      miniClusterState.startMiniCluster(nodeCount);
+      miniClusterState.createCollection(COLLECTION, numShards, numReplicas);
+
+      Docs docs =
+          docs()
+              .field("id", integers().incrementing())
+              .field("title_txt", strings().wordList().multi(8))
+              .field("body_txt", strings().wordList().multi(64))
+              .field("category_s", strings().basicLatinAlphabet().maxCardinality(50).ofLength(8))
+              .field("label_str", strings().alpha().ofLengthBetween(8, 32))
+              .field("popularity_i", integers().allWithMaxCardinality(1000))
+              .field("timestamp_l", longs().all());
+
+      miniClusterState.index(COLLECTION, docs, docCount);
+      miniClusterState.forceMerge(COLLECTION, 5);
+
+      // user queries drawn from the same word list as the indexed text
+      Docs queryDocs = docs().field("q", strings().wordList().multi(3));
+      for (int i = 0; i < 1000; i++) {
+        queries.add(queryDocs.inputDocument().getFieldValue("q").toString());
+      }
+
+      // walk the result set once to have cursorMarks pointing all over it
+      String cursorMark = CursorMarkParams.CURSOR_MARK_START;
+      for (int page = 0; page < 100; page++) {
+        cursorMarks.add(cursorMark);
+        QueryRequest queryRequest =
+            new QueryRequest(sortedQuery(cursorMark).setRows(docCount / 100));
+        queryRequest.setBasePath(miniClusterState.nodes.get(0));
+        QueryResponse response =
+            new QueryResponse(
+                miniClusterState.client.request(queryRequest, COLLECTION),
+                miniClusterState.client);
+        if (cursorMark.equals(response.getNextCursorMark())) {
+          break;
+        }
+        cursorMark = response.getNextCursorMark();
+      }
+    }
+
+    @State(Scope.Thread)
+    public static class ThreadState {
+
+      private SplittableRandom random;
+
+      @Setup(Level.Trial)
+      public void setup() {
+        this.random = new SplittableRandom(BaseBenchState.getRandomSeed());
+      }
+    }
+
+    QueryRequest request(
+        MiniClusterState.MiniClusterBenchState miniClusterState,
+        ThreadState threadState,
+        ModifiableSolrParams params) {
+      QueryRequest queryRequest = new QueryRequest(params);
+      queryRequest.setBasePath(miniClusterState.nodes.get(threadState.random.nextInt(nodeCount)));
+      return queryRequest;
+    }
+
+    String randomQuery(ThreadState threadState) {
+      return queries.get(threadState.random.nextInt(queries.size()));
+    }
+  }
+
+  static SolrQuery sortedQuery(String cursorMark) {
+    SolrQuery query = new SolrQuery("*:*");
+    query.set("sort", "popularity_i desc,id asc");
+    query.set(CursorMarkParams.CURSOR_MARK_PARAM, cursorMark);
+    query.setFields("id");
+    return query;
+  }
+
+  /** Parses a multi term user query with edismax over several weighted text fields. */
+  @Benchmark
+  public Object edismax(
+      MiniClusterState.MiniClusterBenchState miniClusterState,
+      BenchState state,
+      BenchState.ThreadState threadState)
+      throws Exception {
+    ModifiableSolrParams params = new ModifiableSolrParams();
+    MiniClusterState.params(
+        params,
+        "q",
+        state.randomQuery(threadState),
+        "defType",
+        "edismax",
+        "qf",
+        "title_txt^5 body_txt",
+        "pf",
+        "title_txt^10",
+        "mm",
+        "2<-1",
+        "fl",
+        "id,score",
+        "rows",
+        "10");
+    QueryRequest queryRequest = state.request(miniClusterState, threadState, params);
+    return miniClusterState.client.request(queryRequest, COLLECTION);
+  }
+
+  /** Sorts the whole index on a docValues field and pages deeply into it with cursorMark. */
+  @Benchmark
+  public Object sortWithCursorMark(
+      MiniClusterState.MiniClusterBenchState miniClusterState,
+      BenchState state,
+      BenchState.ThreadState threadState)
+      throws Exception {
+    String cursorMark = state.cursorMarks.get(threadState.random.nextInt(state.cursorMarks.size()));
+    SolrQuery query = sortedQuery(cursorMark).setRows(10);
+    QueryRequest queryRequest = state.request(miniClusterState, threadState, query);
+    return miniClusterState.client.request(queryRequest, COLLECTION);
+  }
+
+  /** Retrieves stored fields and docValues fields of many documents per request. */
+  @Benchmark
+  public Object fetchStoredAndDocValues(
+      MiniClusterState.MiniClusterBenchState miniClusterState,
+      BenchState state,
+      BenchState.ThreadState threadState)
+      throws Exception {
+    ModifiableSolrParams params = new ModifiableSolrParams();
+    MiniClusterState.params(
+        params,
+        "q",
+        "*:*",
+        "start",
+        Integer.toString(threadState.random.nextInt(state.docCount - state.rows)),
+        "rows",
+        Integer.toString(state.rows),
+        "sort",
+        "id asc",
+        "fl",
+        "id,title_txt,label_str,category_s,popularity_i,timestamp_l");
+    QueryRequest queryRequest = state.request(miniClusterState, threadState, params);
+    return miniClusterState.client.request(queryRequest, COLLECTION);
+  }
+
+  /**
+   * Writes large responses with the configured response writer. The response is read as raw text
+   * on the client side, so that its parsing isn't measured.
+   */
+  @Benchmark
+  public Object writeResponse(
+      MiniClusterState.MiniClusterBenchState miniClusterState,
+      BenchState state,
+      BenchState.ThreadState threadState)
+      throws Exception {
+    ModifiableSolrParams params = new ModifiableSolrParams();
+    MiniClusterState.params(
+        params,
+        "q",
+        state.randomQuery(threadState),
+        "df",
+        "body_txt",
+        "q.op",
+        "OR",
+        "rows",
+        Integer.toString(state.rows),
+        "fl",
+        "*,score");
+    QueryRequest queryRequest = state.request(miniClusterState, threadState, params);
+    queryRequest.setResponseParser(new NoOpResponseParser(state.wt));
+    NamedList<Object> result = miniClusterState.client.request(queryRequest, COLLECTION);
+    return result.get("response");
+  }
+
+  /**
+   * Sorts on fields with many ties, so that merging the shard responses in the
+   * ShardFieldSortedHitQueue has to compare on several sort fields.
+   */
+  @Benchmark
+  public Object mergeShardResponses(
+      MiniClusterState.MiniClusterBenchState miniClusterState,
+      BenchState state,
+      BenchState.ThreadState threadState)
+      throws Exception {
+    ModifiableSolrParams params = new ModifiableSolrParams();
+    MiniClusterState.params(
+        params,
+        "q",
+        state.randomQuery(threadState),
+        "df",
+        "body_txt",
+        "q.op",
+        "OR",
+        "sort",
+        "category_s asc,popularity_i desc,score desc",
+        "rows",
+        Integer.toString(state.rows * 10),
+        "fl",
+        "id");
+    QueryRequest queryRequest = state.request(miniClusterState, threadState, params);
+    return miniClusterState.client.request(queryRequest, COLLECTION);
+  }
+}
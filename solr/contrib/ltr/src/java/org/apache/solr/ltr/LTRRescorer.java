@@ -32,6 +32,7 @@ import org.apache.lucene.search.TopDocs;
 import org.apache.lucene.search.TotalHits;
 import org.apache.lucene.search.Weight;
 import org.apache.solr.ltr.interleaving.OriginalRankingLTRScoringQuery;
+import org.apache.solr.ltr.model.LTRScoringModel;
 import org.apache.solr.search.SolrIndexSearcher;
 
 
@@ -43,6 +44,12 @@ import org.apache.solr.search.SolrIndexSearcher;
  * */
 public class LTRRescorer extends Rescorer {
 
+  /**
+   * Number of documents whose features are extracted before they are scored
+   * together by the model, when the features don't need to be logged.
+   */
+  final static int SCORING_BATCH_SIZE = 256;
+
   final private LTRScoringQuery scoringQuery;
 
   public LTRRescorer() {
@@ -156,6 +163,12 @@ public class LTRRescorer extends Rescorer {
   public void scoreFeatures(IndexSearcher indexSearcher,
                             int topN, LTRScoringQuery.ModelWeight modelWeight, ScoreDoc[] hits, List<LeafReaderContext> leaves,
                             ScoreDoc[] reranked) throws IOException {
+    if (scoringQuery.getFeatureLogger() == null) {
+      // the features of the reranked documents are not needed once they are scored,
+      // so they can be extracted in blocks and scored together by the model
+      scoreFeaturesInBatches(topN, modelWeight, hits, leaves, reranked);
+      return;
+    }
 
     int readerUpto = -1;
     int endDoc = 0;
@@ -185,6 +198,62 @@ public class LTRRescorer extends Rescorer {
     }
   }
 
+  /**
+   * Extracts the normalized features of up to {@link #SCORING_BATCH_SIZE} hits
+   * of the same segment at a time into a dense matrix, and then scores the whole
+   * block with {@link org.apache.solr.ltr.model.LTRScoringModel#score(float[][], int, float[])}.
+   * The hits are sorted by docID, so the blocks never go back to a previous segment.
+   */
+  private void scoreFeaturesInBatches(int topN, LTRScoringQuery.ModelWeight modelWeight, ScoreDoc[] hits,
+      List<LeafReaderContext> leaves, ScoreDoc[] reranked) throws IOException {
+    final LTRScoringModel model = scoringQuery.getScoringModel();
+    final int batchSize = Math.min(SCORING_BATCH_SIZE, hits.length);
+    final float[][] featureValues = new float[batchSize][model.getFeatures().size()];
+    final float[] scores = new float[batchSize];
+
+    int readerUpto = -1;
+    int endDoc = 0;
+    int docBase = 0;
+
+    LTRScoringQuery.ModelWeight.ModelScorer scorer = null;
+    int hitUpto = 0;
+
+    while (hitUpto < hits.length) {
+      LeafReaderContext readerContext = null;
+      while (hits[hitUpto].doc >= endDoc) {
+        readerUpto++;
+        readerContext = leaves.get(readerUpto);
+        endDoc = readerContext.docBase + readerContext.reader().maxDoc();
+      }
+      // We advanced to another segment
+      if (readerContext != null) {
+        docBase = readerContext.docBase;
+        scorer = modelWeight.scorer(readerContext);
+      }
+      // see scoreSingleHit for why the scorer is never null
+      assert (scorer != null);
+
+      // extract the features of the next hits of this segment
+      final int batchStart = hitUpto;
+      int numDocs = 0;
+      while (numDocs < batchSize && hitUpto < hits.length && hits[hitUpto].doc < endDoc) {
+        final ScoreDoc hit = hits[hitUpto];
+        scorer.iterator().advance(hit.doc - docBase);
+        scorer.getDocInfo().setOriginalDocScore(hit.score);
+        scorer.extractNormalizedFeatures(featureValues[numDocs]);
+        numDocs++;
+        hitUpto++;
+      }
+
+      model.score(featureValues, numDocs, scores);
+      for (int i = 0; i < numDocs; i++) {
+        final ScoreDoc hit = hits[batchStart + i];
+        hit.score = scores[i];
+        addToReranked(topN, batchStart + i, hit, reranked);
+      }
+    }
+  }
+
   /**
    * Call this method if the {@link #scoreSingleHit(int, int, int, ScoreDoc, int, org.apache.solr.ltr.LTRScoringQuery.ModelWeight.ModelScorer, ScoreDoc[])}
    * method indicated that the document's feature info should be logged.
@@ -215,10 +284,17 @@ public class LTRRescorer extends Rescorer {
     scorer.docID();
     scorer.iterator().advance(targetDoc);
 
-    boolean logHit = false;
-
     scorer.getDocInfo().setOriginalDocScore(hit.score);
     hit.score = scorer.score();
+    return addToReranked(topN, hitUpto, hit, reranked);
+  }
+
+  /**
+   * Adds an already scored hit to the reranked documents, keeping only the topN
+   * best ones in a heap, and returns true if the hit was kept.
+   */
+  protected static boolean addToReranked(int topN, int hitUpto, ScoreDoc hit, ScoreDoc[] reranked) {
+    boolean logHit = false;
     if (hitUpto < topN) {
       reranked[hitUpto] = hit;
       // if the heap is not full, maybe I want to log the features for this
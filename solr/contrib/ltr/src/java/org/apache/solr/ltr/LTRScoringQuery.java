@@ -425,19 +425,27 @@ public class LTRScoringQuery extends Query implements Accountable {
      * Then calculate and return the model's score.
      */
     private float makeNormalizedFeaturesAndScore() {
+      makeNormalizedFeatures(modelFeatureValuesNormalized);
+      return ltrScoringModel.score(modelFeatureValuesNormalized);
+    }
+
+    /**
+     * Goes through all the stored feature values, and writes the normalized
+     * values for all the features that will be used for scoring to the given array.
+     */
+    private void makeNormalizedFeatures(float[] featureValuesNormalized) {
       int pos = 0;
       for (final Feature.FeatureWeight feature : modelFeatureWeights) {
         final int featureId = feature.getIndex();
         FeatureInfo fInfo = featuresInfo[featureId];
         if (fInfo.isUsed()) { // not checking for finfo == null as that would be a bug we should catch
-          modelFeatureValuesNormalized[pos] = fInfo.getValue();
+          featureValuesNormalized[pos] = fInfo.getValue();
         } else {
-          modelFeatureValuesNormalized[pos] = feature.getDefaultValue();
+          featureValuesNormalized[pos] = feature.getDefaultValue();
         }
         pos++;
       }
-      ltrScoringModel.normalizeFeaturesInPlace(modelFeatureValuesNormalized);
-      return ltrScoringModel.score(modelFeatureValuesNormalized);
+      ltrScoringModel.normalizeFeaturesInPlace(featureValuesNormalized);
     }
 
     @Override
@@ -500,7 +508,7 @@ public class LTRScoringQuery extends Query implements Accountable {
 
     public class ModelScorer extends Scorer {
       final private DocInfo docInfo;
-      final private Scorer featureTraversalScorer;
+      final private FeatureTraversalScorer featureTraversalScorer;
 
       public DocInfo getDocInfo() {
         return docInfo;
@@ -535,6 +543,22 @@ public class LTRScoringQuery extends Query implements Accountable {
         return featureTraversalScorer.score();
       }
 
+      /**
+       * Extracts the features of the current document, and writes the normalized
+       * values of the model's features to the given array, without scoring the
+       * document. This allows the rescorer to extract the features of several
+       * documents, and then score them at once with
+       * {@link LTRScoringModel#score(float[][], int, float[])}.
+       *
+       * @param featureValuesNormalized
+       *          receives the normalized feature values, its length must be the
+       *          number of features of the model
+       */
+      public void extractNormalizedFeatures(float[] featureValuesNormalized) throws IOException {
+        featureTraversalScorer.extractFeatures();
+        makeNormalizedFeatures(featureValuesNormalized);
+      }
+
       @Override
       public float getMaxScore(int upTo) throws IOException {
         return Float.POSITIVE_INFINITY;
@@ -545,7 +569,28 @@ public class LTRScoringQuery extends Query implements Accountable {
         return featureTraversalScorer.iterator();
       }
 
-      private class SparseModelScorer extends Scorer {
+      private abstract class FeatureTraversalScorer extends Scorer {
+
+        private FeatureTraversalScorer(Weight weight) {
+          super(weight);
+        }
+
+        /** Fills in the featuresInfo of the current document */
+        abstract void extractFeatures() throws IOException;
+
+        @Override
+        public float score() throws IOException {
+          extractFeatures();
+          return makeNormalizedFeaturesAndScore();
+        }
+
+        @Override
+        public float getMaxScore(int upTo) throws IOException {
+          return Float.POSITIVE_INFINITY;
+        }
+      }
+
+      private class SparseModelScorer extends FeatureTraversalScorer {
         final private DisiPriorityQueue subScorers;
         final private ScoringQuerySparseIterator itr;
 
@@ -574,7 +619,7 @@ public class LTRScoringQuery extends Query implements Accountable {
         }
 
         @Override
-        public float score() throws IOException {
+        void extractFeatures() throws IOException {
           final DisiWrapper topList = subScorers.topList();
           // If target doc we wanted to advance to matches the actual doc
           // the underlying features advanced to, perform the feature
@@ -591,12 +636,6 @@ public class LTRScoringQuery extends Query implements Accountable {
               featuresInfo[featureId].setUsed(true);
             }
           }
-          return makeNormalizedFeaturesAndScore();
-        }
-
-        @Override
-        public float getMaxScore(int upTo) throws IOException {
-          return Float.POSITIVE_INFINITY;
         }
 
         @Override
@@ -646,7 +685,7 @@ public class LTRScoringQuery extends Query implements Accountable {
 
       }
 
-      private class DenseModelScorer extends Scorer {
+      private class DenseModelScorer extends FeatureTraversalScorer {
         private int activeDoc = -1; // The doc that our scorer's are actually at
         private int targetDoc = -1; // The doc we were most recently told to go to
         private int freq = -1;
@@ -664,7 +703,7 @@ public class LTRScoringQuery extends Query implements Accountable {
         }
 
         @Override
-        public float score() throws IOException {
+        void extractFeatures() throws IOException {
           reset();
           freq = 0;
           if (targetDoc == activeDoc) {
@@ -678,12 +717,6 @@ public class LTRScoringQuery extends Query implements Accountable {
               }
             }
           }
-          return makeNormalizedFeaturesAndScore();
-        }
-
-        @Override
-        public float getMaxScore(int upTo) throws IOException {
-          return Float.POSITIVE_INFINITY;
         }
         
         @Override
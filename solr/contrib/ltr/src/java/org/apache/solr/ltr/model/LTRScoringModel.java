@@ -273,6 +273,26 @@ public abstract class LTRScoringModel implements Accountable {
    */
   public abstract float score(float[] modelFeatureValuesNormalized);
 
+  /**
+   * Calculates the scores of several documents at once. Models that can share
+   * work across documents should override this; the default implementation
+   * calls {@link #score(float[])} for each document.
+   *
+   * @param modelFeatureValuesNormalized
+   *          Normalized feature values of each document, as passed to
+   *          {@link #score(float[])}
+   * @param numDocs
+   *          Number of documents to score, starting from the first one
+   * @param scores
+   *          Receives the score of each document, at the same index as its
+   *          feature values
+   */
+  public void score(float[][] modelFeatureValuesNormalized, int numDocs, float[] scores) {
+    for (int i = 0; i < numDocs; i++) {
+      scores[i] = score(modelFeatureValuesNormalized[i]);
+    }
+  }
+
   /**
    * Similar to the score() function, except it returns an explanation of how
    * the features were used to calculate the score.
@@ -16,7 +16,10 @@
  */
 package org.apache.solr.ltr.model;
 
+import java.util.ArrayDeque;
 import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Deque;
 import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
@@ -24,6 +27,8 @@ import java.util.Stack;
 
 import org.apache.lucene.index.LeafReaderContext;
 import org.apache.lucene.search.Explanation;
+import org.apache.lucene.util.ArrayUtil;
+import org.apache.lucene.util.RamUsageEstimator;
 import org.apache.solr.ltr.feature.Feature;
 import org.apache.solr.ltr.norm.Normalizer;
 import org.apache.solr.util.SolrPluginUtils;
@@ -88,6 +93,12 @@ import org.apache.solr.util.SolrPluginUtils;
  * Z. Zheng, H. Zha, T. Zhang, O. Chapelle, K. Chen, and G. Sun. A General Boosting Method and its Application to Learning Ranking Functions for Web Search.
  * Advances in Neural Information Processing Systems (NIPS), 2007.</a>
  * </ul>
+ * <p>
+ * When the model is loaded, the trees are compiled into flat arrays, which are walked
+ * without dereferencing node objects. Each tree's nodes are stored in pre-order, so the
+ * left child of a split node is the next node, and the leaves hold the value already
+ * multiplied by the tree weight. {@link #score(float[][], int, float[])} evaluates
+ * each tree for all the documents before moving to the next tree.
  */
 public class MultipleAdditiveTreesModel extends LTRScoringModel {
 
@@ -105,6 +116,18 @@ public class MultipleAdditiveTreesModel extends LTRScoringModel {
    */
   private List<RegressionTree> trees;
 
+  /** nodeFeatures value of leaf nodes */
+  private static final int LEAF = -1;
+
+  // the trees compiled by validate(), see compileTrees()
+  private int[] treeRoots;
+  /** feature index of split nodes, or LEAF */
+  private int[] nodeFeatures;
+  /** threshold of split nodes, weighted value of leaf nodes */
+  private float[] nodeValues;
+  /** index of the right child of split nodes (the left child of node i is i+1) */
+  private int[] nodeRightChildren;
+
   private RegressionTree createRegressionTree(Map<String,Object> map) {
     final RegressionTree rt = new RegressionTree();
     if (map != null) {
@@ -271,10 +294,104 @@ public class MultipleAdditiveTreesModel extends LTRScoringModel {
     for (RegressionTree tree : trees) {
       tree.validate();
     }
+    compileTrees();
+  }
+
+  private void compileTrees() {
+    treeRoots = new int[trees.size()];
+    nodeFeatures = new int[16];
+    nodeValues = new float[16];
+    nodeRightChildren = new int[16];
+    int numNodes = 0;
+
+    // pre-order walk; each entry has the node and the index of the parent whose right child it is (or -1)
+    final Deque<RegressionTreeNode> stack = new ArrayDeque<>();
+    final Deque<Integer> rightChildOf = new ArrayDeque<>();
+    for (int t = 0; t < trees.size(); t++) {
+      final RegressionTree tree = trees.get(t);
+      final float weight = tree.weight.floatValue();
+      treeRoots[t] = numNodes;
+      stack.push(tree.root);
+      rightChildOf.push(-1);
+      while (!stack.isEmpty()) {
+        final RegressionTreeNode node = stack.pop();
+        final int parent = rightChildOf.pop();
+        final int idx = numNodes++;
+        if (numNodes > nodeFeatures.length) {
+          nodeFeatures = ArrayUtil.grow(nodeFeatures, numNodes);
+          nodeValues = ArrayUtil.grow(nodeValues, numNodes);
+          nodeRightChildren = ArrayUtil.grow(nodeRightChildren, numNodes);
+        }
+        if (parent >= 0) {
+          nodeRightChildren[parent] = idx;
+        }
+        if (node.isLeaf()) {
+          nodeFeatures[idx] = LEAF;
+          nodeValues[idx] = weight * node.value;
+        } else if (node.featureIndex < 0) {
+          // unsupported feature (tree is looking for a feature that does not exist): the tree scores zero
+          nodeFeatures[idx] = LEAF;
+          nodeValues[idx] = weight * 0f;
+        } else {
+          nodeFeatures[idx] = node.featureIndex;
+          nodeValues[idx] = node.threshold;
+          stack.push(node.right);
+          rightChildOf.push(idx);
+          stack.push(node.left);
+          rightChildOf.push(-1);
+        }
+      }
+    }
+    nodeFeatures = ArrayUtil.copyOfSubArray(nodeFeatures, 0, numNodes);
+    nodeValues = ArrayUtil.copyOfSubArray(nodeValues, 0, numNodes);
+    nodeRightChildren = ArrayUtil.copyOfSubArray(nodeRightChildren, 0, numNodes);
+  }
+
+  /** Returns the index of the leaf reached by the feature vector, from the given node */
+  private int findLeaf(float[] featureVector, int node) {
+    int featureIndex;
+    while ((featureIndex = nodeFeatures[node]) != LEAF) {
+      node = featureVector[featureIndex] <= nodeValues[node] ? node + 1 : nodeRightChildren[node];
+    }
+    return node;
   }
 
   @Override
   public float score(float[] modelFeatureValuesNormalized) {
+    if (modelFeatureValuesNormalized.length < features.size()) {
+      return scoreWithNodes(modelFeatureValuesNormalized);
+    }
+    float score = 0;
+    for (final int root : treeRoots) {
+      score += nodeValues[findLeaf(modelFeatureValuesNormalized, root)];
+    }
+    return score;
+  }
+
+  @Override
+  public void score(float[][] modelFeatureValuesNormalized, int numDocs, float[] scores) {
+    for (int d = 0; d < numDocs; d++) {
+      if (modelFeatureValuesNormalized[d].length < features.size()) {
+        super.score(modelFeatureValuesNormalized, numDocs, scores);
+        return;
+      }
+    }
+    Arrays.fill(scores, 0, numDocs, 0f);
+    // tree by tree, so that a tree's nodes stay in the CPU caches while scoring all the documents
+    for (final int root : treeRoots) {
+      for (int d = 0; d < numDocs; d++) {
+        scores[d] += nodeValues[findLeaf(modelFeatureValuesNormalized[d], root)];
+      }
+    }
+  }
+
+  /**
+   * Computes the score by walking the {@link RegressionTreeNode} objects rather
+   * than the compiled arrays; returns the same score as {@link #score(float[])}.
+   *
+   * @lucene.internal
+   */
+  public float scoreWithNodes(float[] modelFeatureValuesNormalized) {
     float score = 0;
     for (final RegressionTree t : trees) {
       score += t.score(modelFeatureValuesNormalized);
@@ -282,6 +399,15 @@ public class MultipleAdditiveTreesModel extends LTRScoringModel {
     return score;
   }
 
+  @Override
+  public long ramBytesUsed() {
+    return super.ramBytesUsed() +
+        RamUsageEstimator.sizeOf(treeRoots) +
+        RamUsageEstimator.sizeOf(nodeFeatures) +
+        RamUsageEstimator.sizeOf(nodeValues) +
+        RamUsageEstimator.sizeOf(nodeRightChildren);
+  }
+
   private static float scoreNode(float[] featureVector, RegressionTreeNode regressionTreeNode) {
     while (true) {
       if (regressionTreeNode.isLeaf()) {
@@ -140,6 +140,11 @@ public abstract class WrapperModel extends AdapterModel {
     return model.score(modelFeatureValuesNormalized);
   }
 
+  @Override
+  public void score(float[][] modelFeatureValuesNormalized, int numDocs, float[] scores) {
+    model.score(modelFeatureValuesNormalized, numDocs, scores);
+  }
+
   @Override
   public Explanation explain(LeafReaderContext context, int doc, float finalScore,
                              List<Explanation> featureExplanations) {
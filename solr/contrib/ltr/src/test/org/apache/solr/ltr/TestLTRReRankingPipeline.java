@@ -214,6 +214,57 @@ public class TestLTRReRankingPipeline extends SolrTestCaseJ4 {
     }
   }
 
+  @Test
+  public void testRescoreInBatches() throws IOException {
+    // more documents than LTRRescorer.SCORING_BATCH_SIZE, spread over several segments
+    final int numDocs = LTRRescorer.SCORING_BATCH_SIZE + random().nextInt(LTRRescorer.SCORING_BATCH_SIZE) + 1;
+    final List<Integer> values = new ArrayList<>(numDocs);
+    for (int i = 0; i < numDocs; i++) {
+      values.add(i);
+    }
+    Collections.shuffle(values, random());
+
+    assertU(delQ("*:*"));
+    for (int i = 0; i < numDocs; i++) {
+      assertU(adoc("id", Integer.toString(i), "field", "wizard oz", "finalScoreFloat", Integer.toString(values.get(i))));
+      if (random().nextInt(50) == 0) {
+        assertU(commit());
+      }
+    }
+    assertU(commit());
+
+    try (SolrQueryRequest solrQueryRequest = new LocalSolrQueryRequest(h.getCore(), new ModifiableSolrParams())) {
+      final SolrIndexSearcher searcher = solrQueryRequest.getSearcher();
+      TopDocs hits = searcher.search(new TermQuery(new Term("field", "wizard")), numDocs);
+      assertEquals(numDocs, hits.totalHits.value);
+
+      final List<Feature> features = makeFieldValueFeatures(new int[] {0, 1, 2},
+              "finalScoreFloat");
+      final List<Normalizer> norms =
+              new ArrayList<Normalizer>(
+                      Collections.nCopies(features.size(),IdentityNormalizer.INSTANCE));
+      final List<Feature> allFeatures = makeFieldValueFeatures(new int[] {0, 1,
+              2, 3, 4, 5, 6, 7, 8, 9}, "finalScoreFloat");
+      final Double featureWeight = 0.1;
+      final LTRScoringModel ltrScoringModel = TestLinearModel.createLinearModel("test",
+              features, norms, "test", allFeatures, TestLinearModel.makeFeatureWeights(features, featureWeight));
+
+      final LTRScoringQuery scoringQuery = new LTRScoringQuery(ltrScoringModel);
+      scoringQuery.setRequest(solrQueryRequest);
+      final LTRRescorer rescorer = new LTRRescorer(scoringQuery);
+
+      final int topN = random().nextInt(numDocs) + 1;
+      hits = rescorer.rescore(searcher, hits, topN);
+      assertEquals(topN, hits.scoreDocs.length);
+      for (int i = 0; i < topN; i++) {
+        final int id = Integer.parseInt(searcher.doc(hits.scoreDocs[i].doc).get("id"));
+        final int expectedValue = numDocs - 1 - i;
+        assertEquals(expectedValue, values.get(id).intValue());
+        assertEquals(expectedValue * features.size() * featureWeight, hits.scoreDocs[i].score, 0.001);
+      }
+    }
+  }
+
   @Test
   public void testDocParam() throws Exception {
     try (SolrQueryRequest solrQueryRequest = new LocalSolrQueryRequest(h.getCore(), new ModifiableSolrParams())) {
@@ -16,8 +16,17 @@
  */
 package org.apache.solr.ltr.model;
 
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
 import org.apache.solr.client.solrj.SolrQuery;
 import org.apache.solr.ltr.TestRerankBase;
+import org.apache.solr.ltr.feature.Feature;
+import org.apache.solr.ltr.norm.IdentityNormalizer;
+import org.apache.solr.ltr.norm.Normalizer;
 import org.junit.After;
 import org.junit.Before;
 import org.junit.Test;
@@ -53,6 +62,56 @@ public class TestMultipleAdditiveTreesModel extends TestRerankBase {
     doTestMultipleAdditiveTreesExplain();
   }
 
+  @Test
+  public void testCompiledTreesScoreLikeNodes() throws Exception {
+    final List<Feature> features = getFeatures(new String[] {"f0", "f1", "f2", "f3"});
+    final List<Normalizer> norms =
+        new ArrayList<Normalizer>(
+            Collections.nCopies(features.size(), IdentityNormalizer.INSTANCE));
+    final List<Object> trees = new ArrayList<>();
+    for (int t = 0; t < 50; t++) {
+      final Map<String,Object> tree = new HashMap<>();
+      tree.put("weight", Float.toString(random().nextFloat() * 2));
+      tree.put("root", makeRandomNode(features, random().nextInt(8)));
+      trees.add(tree);
+    }
+    final Map<String,Object> params = new HashMap<>();
+    params.put("trees", trees);
+    final MultipleAdditiveTreesModel model = (MultipleAdditiveTreesModel) LTRScoringModel.getInstance(
+        solrResourceLoader, MultipleAdditiveTreesModel.class.getName(), "compiledtrees",
+        features, norms, "test", features, params);
+
+    final int numDocs = random().nextInt(100) + 1;
+    final float[][] featureVectors = new float[numDocs][features.size()];
+    for (float[] featureVector : featureVectors) {
+      for (int i = 0; i < featureVector.length; i++) {
+        featureVector[i] = random().nextFloat();
+      }
+    }
+    final float[] scores = new float[numDocs];
+    model.score(featureVectors, numDocs, scores);
+    for (int d = 0; d < numDocs; d++) {
+      final float expected = model.scoreWithNodes(featureVectors[d]);
+      assertEquals(expected, model.score(featureVectors[d]), 0f);
+      assertEquals(expected, scores[d], 0f);
+    }
+  }
+
+  private static Map<String,Object> makeRandomNode(List<Feature> features, int depth) {
+    final Map<String,Object> node = new HashMap<>();
+    if (depth == 0 || random().nextInt(4) == 0) {
+      node.put("value", Float.toString(random().nextFloat() * 100 - 50));
+    } else {
+      // sometimes use a feature that the model doesn't have
+      node.put("feature", random().nextInt(20) == 0 ? "this_feature_doesnt_exist"
+          : features.get(random().nextInt(features.size())).getName());
+      node.put("threshold", Float.toString(random().nextFloat()));
+      node.put("left", makeRandomNode(features, depth - 1));
+      node.put("right", makeRandomNode(features, depth - 1));
+    }
+    return node;
+  }
+
   private void doTestMultipleAdditiveTreesScoringWithAndWithoutEfiFeatureMatches() throws Exception {
 
     final SolrQuery query = new SolrQuery();
@@ -28,6 +28,7 @@ import java.util.Map;
 import java.util.Optional;
 import java.util.Set;
 import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.ExecutorService;
 import java.util.function.BiConsumer;
 
 import com.codahale.metrics.Timer;
@@ -59,10 +60,12 @@ import org.apache.solr.common.cloud.ZkNodeProps;
 import org.apache.solr.common.cloud.ZkStateReader;
 import org.apache.solr.common.params.CollectionAdminParams;
 import org.apache.solr.common.params.CollectionParams;
+import org.apache.solr.common.util.ExecutorUtil;
 import org.apache.solr.common.util.IOUtils;
 import org.apache.solr.common.util.NamedList;
 import org.apache.solr.common.util.ObjectReleaseTracker;
 import org.apache.solr.common.util.Pair;
+import org.apache.solr.common.util.SolrNamedThreadFactory;
 import org.apache.solr.common.util.Utils;
 import org.apache.solr.core.CloudConfig;
 import org.apache.solr.core.CoreContainer;
@@ -142,6 +145,8 @@ public class Overseer implements SolrCloseable {
   public static final int STATE_UPDATE_DELAY = ZkStateReader.STATE_UPDATE_DELAY;
   public static final int STATE_UPDATE_BATCH_SIZE = Integer.getInteger("solr.OverseerStateUpdateBatchSize", 10000);
   public static final int STATE_UPDATE_MAX_QUEUE = 20000;
+  // number of threads writing the pending state updates of different collections concurrently
+  public static final int STATE_UPDATE_WRITER_THREADS = Integer.getInteger("solr.OverseerStateUpdateWriterThreads", 1);
 
   public static final int NUM_RESPONSES_TO_STORE = 10000;
   public static final String OVERSEER_ELECT = "/overseer_elect";
@@ -220,6 +225,9 @@ public class Overseer implements SolrCloseable {
       if (log.isInfoEnabled()) {
         log.info("Starting to work on the main queue : {}", LeaderElector.getNodeName(myId));
       }
+      ExecutorService writerExecutor = STATE_UPDATE_WRITER_THREADS > 1
+          ? ExecutorUtil.newMDCAwareFixedThreadPool(STATE_UPDATE_WRITER_THREADS, new SolrNamedThreadFactory("OverseerStateWriter"))
+          : null;
       try {
         ZkStateWriter zkStateWriter = null;
         ClusterState clusterState = null;
@@ -243,7 +251,7 @@ public class Overseer implements SolrCloseable {
             try {
               reader.forciblyRefreshAllClusterStateSlow();
               clusterState = reader.getClusterState();
-              zkStateWriter = new ZkStateWriter(reader, stats);
+              zkStateWriter = new ZkStateWriter(reader, stats, writerExecutor);
               refreshClusterState = false;
 
               // if there were any errors while processing
@@ -353,6 +361,9 @@ public class Overseer implements SolrCloseable {
           }
         }
       } finally {
+        if (writerExecutor != null) {
+          ExecutorUtil.shutdownNowAndAwaitTermination(writerExecutor);
+        }
         if (log.isInfoEnabled()) {
           log.info("Overseer Loop exiting : {}", LeaderElector.getNodeName(myId));
         }
@@ -1067,6 +1078,21 @@ public class Overseer implements SolrCloseable {
     getStateUpdateQueue().offer(data);
   }
 
+  /**
+   * Like {@link #offerStateUpdate(byte[])} for several messages, which are written to the state update queue in as few
+   * ZooKeeper round trips as possible. The messages are processed in order.
+   */
+  public void offerStateUpdates(List<byte[]> data) throws KeeperException, InterruptedException {
+    if (distributedClusterStateUpdater.isDistributedStateUpdate()) {
+      log.error("Received {} unexpected messages on Overseer cluster state updater when distributed updates are configured", data.size());
+      throw new RuntimeException("Messages offered to state update queue when distributed state update is configured.");
+    }
+    if (zkController.getZkClient().isClosed()) {
+      throw new AlreadyClosedException();
+    }
+    getStateUpdateQueue().offer(data);
+  }
+
   /**
    * Submit an intra-process message which will be picked up and executed when {@link ClusterStateUpdater}'s
    * loop runs next time
@@ -55,41 +55,25 @@ public class Stats {
 
   public void success(String operation) {
     String op = operation.toLowerCase(Locale.ROOT);
-    Stat stat = stats.get(op);
-    if (stat == null) {
-      stat = new Stat();
-      stats.put(op, stat);
-    }
+    Stat stat = stats.computeIfAbsent(op, k -> new Stat());
     stat.success.incrementAndGet();
   }
 
   public void error(String operation) {
     String op = operation.toLowerCase(Locale.ROOT);
-    Stat stat = stats.get(op);
-    if (stat == null) {
-      stat = new Stat();
-      stats.put(op, stat);
-    }
+    Stat stat = stats.computeIfAbsent(op, k -> new Stat());
     stat.errors.incrementAndGet();
   }
 
   public Timer.Context time(String operation) {
     String op = operation.toLowerCase(Locale.ROOT);
-    Stat stat = stats.get(op);
-    if (stat == null) {
-      stat = new Stat();
-      stats.put(op, stat);
-    }
+    Stat stat = stats.computeIfAbsent(op, k -> new Stat());
     return stat.requestTime.time();
   }
 
   public void storeFailureDetails(String operation, ZkNodeProps request, SolrResponse resp) {
     String op = operation.toLowerCase(Locale.ROOT);
-    Stat stat = stats.get(op);
-    if (stat == null) {
-      stat = new Stat();
-      stats.put(op, stat);
-    }
+    Stat stat = stats.computeIfAbsent(op, k -> new Stat());
     LinkedList<FailedOp> failedOps = stat.failureDetails;
     synchronized (failedOps)  {
       if (failedOps.size() >= MAX_STORED_FAILURES)  {
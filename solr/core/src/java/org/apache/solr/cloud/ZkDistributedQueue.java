@@ -67,6 +67,18 @@ public class ZkDistributedQueue implements DistributedQueue {
 
   static final String PREFIX = "qn-";
 
+  /**
+   * System property with the maximum estimated size, in bytes, of the elements created by one ZooKeeper multi
+   * operation of {@link #offer(List)}. The request of a multi operation must fit in the <code>jute.maxbuffer</code>
+   * of the ZooKeeper servers, so this defaults to three quarters of the client's <code>jute.maxbuffer</code>.
+   */
+  public static final String MAX_MULTI_BYTES_PROP = "solr.zkDistributedQueue.maxMultiBytes";
+
+  private static final int MAX_OPS_PER_MULTI = 1000;
+
+  /** Estimate of the bytes of a create operation besides its data and path: header, ACLs, flags */
+  private static final int CREATE_OP_OVERHEAD_BYTES = 256;
+
   /**
    * Theory of operation:
    * <p>
@@ -109,6 +121,8 @@ public class ZkDistributedQueue implements DistributedQueue {
 
   private final int maxQueueSize;
 
+  private final int maxMultiBytes;
+
   /**
    * If {@link #maxQueueSize} is set, the number of items we can queue without rechecking the server.
    */
@@ -142,6 +156,7 @@ public class ZkDistributedQueue implements DistributedQueue {
     this.zookeeper = zookeeper;
     this.stats = stats;
     this.maxQueueSize = maxQueueSize;
+    this.maxMultiBytes = Integer.getInteger(MAX_MULTI_BYTES_PROP, Integer.getInteger("jute.maxbuffer", 0xfffff) / 4 * 3);
   }
 
   /**
@@ -348,6 +363,60 @@ public class ZkDistributedQueue implements DistributedQueue {
     }
   }
 
+  /**
+   * Inserts several elements, in order. The elements are created with one ZooKeeper multi operation per batch rather
+   * than one round trip each. A batch has up to 1000 elements, and its elements add up to at most
+   * {@link #MAX_MULTI_BYTES_PROP} bytes unless it has a single element. A batch is rejected as a whole if it doesn't fit in the queue.
+   */
+  public void offer(List<byte[]> data) throws KeeperException, InterruptedException {
+    if (data.isEmpty()) return;
+    Timer.Context time = stats.time(dir + "_offer");
+    try {
+      String path = dir + "/" + PREFIX;
+      int from = 0;
+      while (from < data.size()) {
+        List<Op> ops = new ArrayList<>();
+        long bytes = 0;
+        int to = from;
+        for (; to < data.size() && ops.size() < MAX_OPS_PER_MULTI; to++) {
+          byte[] element = data.get(to);
+          long opBytes = (long) element.length + path.length() + CREATE_OP_OVERHEAD_BYTES;
+          if (!ops.isEmpty() && bytes + opBytes > maxMultiBytes) {
+            break;
+          }
+          ops.add(Op.create(path, element, zookeeper.getZkACLProvider().getACLsToAdd(path), CreateMode.PERSISTENT_SEQUENTIAL));
+          bytes += opBytes;
+        }
+        from = to;
+        while (true) {
+          try {
+            if (maxQueueSize > 0) {
+              Stat stat = zookeeper.exists(dir, null, true);
+              if (stat == null) {
+                // jump to the code below, which tries to create dir if it doesn't exist
+                throw new KeeperException.NoNodeException();
+              }
+              if (maxQueueSize - stat.getNumChildren() < ops.size()) {
+                throw new IllegalStateException("queue is full");
+              }
+            }
+            zookeeper.multi(ops, true);
+            isDirty = true;
+            break;
+          } catch (KeeperException.NoNodeException e) {
+            try {
+              zookeeper.create(dir, new byte[0], CreateMode.PERSISTENT, true);
+            } catch (KeeperException.NodeExistsException ne) {
+              // someone created it
+            }
+          }
+        }
+      }
+    } finally {
+      time.stop();
+    }
+  }
+
   public Stats getZkStats() {
     return stats;
   }
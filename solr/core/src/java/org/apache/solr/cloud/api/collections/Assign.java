@@ -70,6 +70,15 @@ public class Assign {
   }
 
   public static int incAndGetId(DistribStateManager stateManager, String collection, int defaultValue) {
+    return incAndGetIds(stateManager, collection, defaultValue, 1);
+  }
+
+  /**
+   * Reserves <code>count</code> consecutive ids of the collection's counter with a single update of the counter.
+   *
+   * @return the first reserved id
+   */
+  public static int incAndGetIds(DistribStateManager stateManager, String collection, int defaultValue, int count) {
     String path = ZkStateReader.COLLECTIONS_ZKNODE + "/"+collection;
     try {
       if (!stateManager.hasData(path)) {
@@ -103,9 +112,9 @@ public class Assign {
           currentId = NumberUtils.bytesToInt(data.getData());
           version = data.getVersion();
         }
-        byte[] bytes = NumberUtils.intToBytes(++currentId);
+        byte[] bytes = NumberUtils.intToBytes(currentId + count);
         stateManager.setData(path, bytes, version);
-        return currentId;
+        return currentId + 1;
       } catch (BadVersionException e) {
         continue;
       } catch (IOException | KeeperException e) {
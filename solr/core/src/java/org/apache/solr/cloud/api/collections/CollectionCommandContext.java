@@ -29,6 +29,7 @@ import org.apache.solr.core.CoreContainer;
 import org.apache.solr.handler.component.ShardHandler;
 import org.apache.zookeeper.KeeperException;
 
+import java.util.List;
 import java.util.concurrent.ExecutorService;
 
 /**
@@ -74,6 +75,16 @@ public interface CollectionCommandContext {
     throw new IllegalStateException("Bug! offerStateUpdate() should not be called when distributed cluster state updates are enabled");
   }
 
+  /**
+   * Enqueues several cluster state updates at once, see {@link #offerStateUpdate(byte[])}. Implementations may write
+   * them to the queue in a single ZooKeeper round trip.
+   */
+  default void offerStateUpdates(List<byte[]> data) throws KeeperException, InterruptedException {
+    for (byte[] message : data) {
+      offerStateUpdate(message);
+    }
+  }
+
   default String getOverseerId() {
     throw new IllegalStateException("Bug! getOverseerId() default implementation should never be called");
   }
@@ -227,12 +227,18 @@ public class CreateCollectionCmd implements CollApiCmds.CollectionApiCommand {
         scr = null;
       }
 
+      // Reserve the core name and core node name ids of all the replicas with a single update of the collection counter
+      // rather than two updates per replica. The collection is new, so names built from the counter can't clash.
+      int nextId = Assign.incAndGetIds(ccc.getSolrCloudManager().getDistribStateManager(), collectionName, 0,
+          2 * replicaPositions.size());
+      // Overseer based state updates of non PRS collections are enqueued all at once after the loop below
+      final List<byte[]> stateUpdates = new ArrayList<>(replicaPositions.size());
+
       for (ReplicaPosition replicaPosition : replicaPositions) {
         String nodeName = replicaPosition.node;
 
-        String coreName = Assign.buildSolrCoreName(ccc.getSolrCloudManager().getDistribStateManager(), collectionName,
-            ccc.getSolrCloudManager().getClusterStateProvider().getClusterState().getCollectionOrNull(collectionName),
-            replicaPosition.shard, replicaPosition.type, true);
+        String coreName = Assign.buildSolrCoreName(collectionName, replicaPosition.shard, replicaPosition.type, nextId++);
+        String coreNodeName = "core_node" + nextId++;
         if (log.isDebugEnabled()) {
           log.debug(formatString("Creating core {0} as part of shard {1} of collection {2} on {3}"
               , coreName, replicaPosition.shard, collectionName, nodeName));
@@ -246,6 +252,7 @@ public class CreateCollectionCmd implements CollApiCmds.CollectionApiCommand {
             ZkStateReader.COLLECTION_PROP, collectionName,
             ZkStateReader.SHARD_ID_PROP, replicaPosition.shard,
             ZkStateReader.CORE_NAME_PROP, coreName,
+            ZkStateReader.CORE_NODE_NAME_PROP, coreNodeName,
             ZkStateReader.STATE_PROP, Replica.State.DOWN.toString(),
             ZkStateReader.NODE_NAME_PROP, nodeName,
             ZkStateReader.REPLICA_TYPE, replicaPosition.type.name(),
@@ -255,19 +262,16 @@ public class CreateCollectionCmd implements CollApiCmds.CollectionApiCommand {
           // to the overseer queue.
           // TODO: Consider doing this for all collections, not just the PRS collections.
 
-          // TODO: consider doing this once after the loop for all replicas rather than writing state.json repeatedly
+          // The replicas are only added in memory here, state.json is written once after the loop.
           // This PRS specific code is compatible with both Overseer and distributed cluster state update strategies
           ZkWriteCommand command = new SliceMutator(ccc.getSolrCloudManager()).addReplica(clusterState, props);
-          byte[] data = Utils.toJSON(Collections.singletonMap(collectionName, command.collection));
-//        log.info("collection updated : {}", new String(data, StandardCharsets.UTF_8));
-          ccc.getZkStateReader().getZkClient().setData(collectionPath, data, true);
           clusterState = clusterState.copyWith(collectionName, command.collection);
           newColl = command.collection;
         } else {
           if (ccc.getDistributedClusterStateUpdater().isDistributedStateUpdate()) {
             scr.record(DistributedClusterStateUpdater.MutatingCommand.SliceAddReplica, props);
           } else {
-            ccc.offerStateUpdate(Utils.toJSON(props));
+            stateUpdates.add(Utils.toJSON(props));
           }
         }
 
@@ -301,12 +305,21 @@ public class CreateCollectionCmd implements CollApiCmds.CollectionApiCommand {
         coresToCreate.put(coreName, sreq);
       }
 
-      // PRS collections updated ZK state.json in the loop above. When Overseer is managing cluster state updates, need to
+      if (isPRS) {
+        byte[] data = Utils.toJSON(Collections.singletonMap(collectionName, newColl));
+        ccc.getZkStateReader().getZkClient().setData(collectionPath, data, true);
+      }
+
+      // PRS collections updated ZK state.json above. When Overseer is managing cluster state updates, need to
       // tell it to refresh itself to know about the replicas and be able to execute nodes shard requests regarding the replicas.
       if (isPRS && !ccc.getDistributedClusterStateUpdater().isDistributedStateUpdate()) {
         ccc.submitIntraProcessMessage(new RefreshCollectionMessage(collectionName));
       }
 
+      if (!stateUpdates.isEmpty()) {
+        ccc.offerStateUpdates(stateUpdates);
+      }
+
       // Distributed updates don't need to do anything for PRS collections that wrote state.json directly
       // For non PRS collections, distributed updates have to be executed if that's how the cluster is configured
       if (!isPRS && ccc.getDistributedClusterStateUpdater().isDistributedStateUpdate()) {
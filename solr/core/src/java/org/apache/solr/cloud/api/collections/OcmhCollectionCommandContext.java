@@ -17,6 +17,7 @@
 
 package org.apache.solr.cloud.api.collections;
 
+import java.util.List;
 import java.util.concurrent.ExecutorService;
 
 import org.apache.solr.client.solrj.cloud.SolrCloudManager;
@@ -74,6 +75,11 @@ public class OcmhCollectionCommandContext implements CollectionCommandContext {
     ocmh.overseer.offerStateUpdate(data);
   }
 
+  @Override
+  public void offerStateUpdates(List<byte[]> data) throws KeeperException, InterruptedException {
+    ocmh.overseer.offerStateUpdates(data);
+  }
+
   @Override
   public SolrCloseable getCloseableToLatchOn() {
     return ocmh;
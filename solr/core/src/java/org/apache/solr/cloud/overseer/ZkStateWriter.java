@@ -20,11 +20,15 @@ import java.lang.invoke.MethodHandles;
 import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Future;
 import java.util.concurrent.TimeUnit;
 
 import com.codahale.metrics.Timer;
 import org.apache.solr.cloud.Overseer;
 import org.apache.solr.cloud.Stats;
+import org.apache.solr.common.SolrException;
 import org.apache.solr.common.cloud.ClusterState;
 import org.apache.solr.common.cloud.DocCollection;
 import org.apache.solr.common.cloud.PerReplicaStates;
@@ -64,6 +68,8 @@ public class ZkStateWriter {
 
   protected final ZkStateReader reader;
   protected final Stats stats;
+  // writes the states of different collections concurrently, null to write them sequentially
+  private final ExecutorService writerExecutor;
 
   protected Map<String, ZkWriteCommand> updates = new HashMap<>();
   private int numUpdates = 0;
@@ -77,10 +83,19 @@ public class ZkStateWriter {
   protected boolean invalidState = false;
 
   public ZkStateWriter(ZkStateReader zkStateReader, Stats stats) {
+    this(zkStateReader, stats, null);
+  }
+
+  /**
+   * @param writerExecutor if not null, the pending updates of different collections are written concurrently
+   *                       with this executor when they are flushed
+   */
+  public ZkStateWriter(ZkStateReader zkStateReader, Stats stats, ExecutorService writerExecutor) {
     assert zkStateReader != null;
 
     this.reader = zkStateReader;
     this.stats = stats;
+    this.writerExecutor = writerExecutor;
     this.clusterState = zkStateReader.getClusterState();
   }
 
@@ -212,54 +227,12 @@ public class ZkStateWriter {
     boolean success = false;
     try {
       if (!updates.isEmpty()) {
-        for (Map.Entry<String, ZkWriteCommand> entry : updates.entrySet()) {
-          String name = entry.getKey();
-          String path = ZkStateReader.getCollectionPath(name);
-          ZkWriteCommand cmd = entry.getValue();
-          DocCollection c = cmd.collection;
-
-          // Update the Per Replica State znodes if needed
-          if (cmd.ops != null) {
-            cmd.ops.persist(path, reader.getZkClient());
-            clusterState = clusterState.copyWith(name,
-                  cmd.collection.copyWith(PerReplicaStates.fetch(cmd.collection.getZNode(), reader.getZkClient(), null)));
-          }
-
-          // Update the state.json file if needed
-          if (!cmd.persistJsonState) continue;
-          if (c == null) {
-            // let's clean up the state.json of this collection only, the rest should be cleaned by delete collection cmd
-            log.debug("going to delete state.json {}", path);
-            reader.getZkClient().clean(path);
-          } else {
-            byte[] data = Utils.toJSON(singletonMap(c.getName(), c));
-            if (reader.getZkClient().exists(path, true)) {
-              if (log.isDebugEnabled()) {
-                log.debug("going to update_collection {} version: {}", path, c.getZNodeVersion());
-              }
-              Stat stat = reader.getZkClient().setData(path, data, c.getZNodeVersion(), true);
-              DocCollection newCollection = new DocCollection(name, c.getSlicesMap(), c.getProperties(), c.getRouter(), stat.getVersion());
-              clusterState = clusterState.copyWith(name, newCollection);
-            } else {
-              log.debug("going to create_collection {}", path);
-              reader.getZkClient().create(path, data, CreateMode.PERSISTENT, true);
-              DocCollection newCollection = new DocCollection(name, c.getSlicesMap(), c.getProperties(), c.getRouter(), 0);
-              clusterState = clusterState.copyWith(name, newCollection);
-            }
-          }
-
-          // When dealing with a per replica collection that did not do any update to the per replica states znodes but did
-          // update state.json, we add then remove a dummy node to change the cversion of the parent znode.
-          // This is not needed by Solr, there's no code watching the children and not watching the state.json node itself.
-          // It would be useful for external code watching the collection's Zookeeper state.json node children but not the node itself.
-          if (cmd.ops == null && cmd.isPerReplicaStateCollection) {
-            PerReplicaStatesOps.touchChildren().persist(path, reader.getZkClient());
-            DocCollection currentCollState = clusterState.getCollection(cmd.name);
-            if (currentCollState != null) {
-              clusterState = clusterState.copyWith(name,
-                      currentCollState.copyWith(PerReplicaStates.fetch(currentCollState.getZNode(), reader.getZkClient(), null)));
-            }
+        if (writerExecutor == null || updates.size() == 1) {
+          for (Map.Entry<String, ZkWriteCommand> entry : updates.entrySet()) {
+            applyWrittenState(entry.getKey(), writeCollectionState(entry.getKey(), entry.getValue()));
           }
+        } else {
+          writeCollectionStatesConcurrently(updates);
         }
 
         updates.clear();
@@ -285,6 +258,114 @@ public class ZkStateWriter {
     return clusterState;
   }
 
+  /**
+   * Writes the state of each collection on {@link #writerExecutor}: collections have their own state.json and
+   * per-replica states znodes, and there is at most one pending update per collection. The states written
+   * successfully are applied to {@link #clusterState} before the first failure is thrown, preferring a
+   * {@link org.apache.zookeeper.KeeperException.BadVersionException}.
+   */
+  private void writeCollectionStatesConcurrently(Map<String, ZkWriteCommand> updates) throws KeeperException, InterruptedException {
+    Map<String, Future<DocCollection>> futures = new HashMap<>();
+    for (Map.Entry<String, ZkWriteCommand> entry : updates.entrySet()) {
+      futures.put(entry.getKey(), writerExecutor.submit(() -> writeCollectionState(entry.getKey(), entry.getValue())));
+    }
+    Throwable failure = null;
+    try {
+      for (Map.Entry<String, Future<DocCollection>> entry : futures.entrySet()) {
+        try {
+          applyWrittenState(entry.getKey(), entry.getValue().get());
+        } catch (ExecutionException e) {
+          if (failure == null || e.getCause() instanceof KeeperException.BadVersionException) {
+            failure = e.getCause();
+          }
+        }
+      }
+    } catch (InterruptedException e) {
+      for (Future<DocCollection> future : futures.values()) {
+        future.cancel(true);
+      }
+      throw e;
+    }
+    if (failure instanceof KeeperException) {
+      throw (KeeperException) failure;
+    } else if (failure instanceof InterruptedException) {
+      throw (InterruptedException) failure;
+    } else if (failure instanceof RuntimeException) {
+      throw (RuntimeException) failure;
+    } else if (failure instanceof Error) {
+      throw (Error) failure;
+    } else if (failure != null) {
+      throw new SolrException(SolrException.ErrorCode.SERVER_ERROR, failure);
+    }
+  }
+
+  private void applyWrittenState(String name, DocCollection written) {
+    if (written != null) {
+      clusterState = clusterState.copyWith(name, written);
+    }
+  }
+
+  /**
+   * Writes the pending update of one collection to ZooKeeper
+   *
+   * @return the new state of the collection, or null if the cluster state doesn't need to be modified
+   */
+  private DocCollection writeCollectionState(String name, ZkWriteCommand cmd) throws KeeperException, InterruptedException {
+    Timer.Context timerContext = stats.time("update_collection_state");
+    boolean success = false;
+    try {
+      String path = ZkStateReader.getCollectionPath(name);
+      DocCollection c = cmd.collection;
+      DocCollection written = null;
+
+      // Update the Per Replica State znodes if needed
+      if (cmd.ops != null) {
+        cmd.ops.persist(path, reader.getZkClient());
+        written = cmd.collection.copyWith(PerReplicaStates.fetch(cmd.collection.getZNode(), reader.getZkClient(), null));
+      }
+
+      // Update the state.json file if needed
+      if (cmd.persistJsonState) {
+        if (c == null) {
+          // let's clean up the state.json of this collection only, the rest should be cleaned by delete collection cmd
+          log.debug("going to delete state.json {}", path);
+          reader.getZkClient().clean(path);
+        } else {
+          byte[] data = Utils.toJSON(singletonMap(c.getName(), c));
+          if (reader.getZkClient().exists(path, true)) {
+            if (log.isDebugEnabled()) {
+              log.debug("going to update_collection {} version: {}", path, c.getZNodeVersion());
+            }
+            Stat stat = reader.getZkClient().setData(path, data, c.getZNodeVersion(), true);
+            written = new DocCollection(name, c.getSlicesMap(), c.getProperties(), c.getRouter(), stat.getVersion());
+          } else {
+            log.debug("going to create_collection {}", path);
+            reader.getZkClient().create(path, data, CreateMode.PERSISTENT, true);
+            written = new DocCollection(name, c.getSlicesMap(), c.getProperties(), c.getRouter(), 0);
+          }
+
+          // When dealing with a per replica collection that did not do any update to the per replica states znodes but did
+          // update state.json, we add then remove a dummy node to change the cversion of the parent znode.
+          // This is not needed by Solr, there's no code watching the children and not watching the state.json node itself.
+          // It would be useful for external code watching the collection's Zookeeper state.json node children but not the node itself.
+          if (cmd.ops == null && cmd.isPerReplicaStateCollection) {
+            PerReplicaStatesOps.touchChildren().persist(path, reader.getZkClient());
+            written = written.copyWith(PerReplicaStates.fetch(written.getZNode(), reader.getZkClient(), null));
+          }
+        }
+      }
+      success = true;
+      return written;
+    } finally {
+      timerContext.stop();
+      if (success) {
+        stats.success("update_collection_state");
+      } else {
+        stats.error("update_collection_state");
+      }
+    }
+  }
+
   /**
    * @return the most up-to-date cluster state until the last enqueueUpdate operation
    */
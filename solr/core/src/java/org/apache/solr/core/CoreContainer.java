@@ -206,6 +206,8 @@ public class CoreContainer {
 
   private final OrderedExecutor replayUpdatesExecutor;
 
+  private volatile ExecutorService collectorExecutor;
+
   protected volatile LogWatcher<?> logging = null;
 
   private volatile CloserThread backgroundCloser = null;
@@ -638,6 +640,14 @@ public class CoreContainer {
     return replayUpdatesExecutor;
   }
 
+  /**
+   * The executor used by the searchers to collect the slices of the index concurrently, or null if
+   * {@link NodeConfig#getIndexSearcherExecutorThreads()} is 0.
+   */
+  public ExecutorService getCollectorExecutor() {
+    return collectorExecutor;
+  }
+
   public PackageLoader getPackageLoader() {
     return packageLoader;
   }
@@ -709,6 +719,15 @@ public class CoreContainer {
         metricManager.registry(SolrMetricManager.getRegistryName(SolrInfoBean.Group.node)),
         SolrMetricManager.mkName("coreContainerWorkExecutor", SolrInfoBean.Category.CONTAINER.toString(), "threadPool"));
 
+    if (cfg.getIndexSearcherExecutorThreads() > 0) {
+      collectorExecutor = MetricUtils.instrumentedExecutorService(
+          ExecutorUtil.newMDCAwareFixedThreadPool(
+              cfg.getIndexSearcherExecutorThreads(),
+              new SolrNamedThreadFactory("searcherCollectorExecutor")), null,
+          metricManager.registry(SolrMetricManager.getRegistryName(SolrInfoBean.Group.node)),
+          SolrMetricManager.mkName("searcherCollectorExecutor", SolrInfoBean.Category.CONTAINER.toString(), "threadPool"));
+    }
+
     shardHandlerFactory = ShardHandlerFactory.newInstance(cfg.getShardHandlerFactoryPluginInfo(), loader);
     if (shardHandlerFactory instanceof SolrMetricProducer) {
       SolrMetricProducer metricProducer = (SolrMetricProducer) shardHandlerFactory;
@@ -1084,6 +1103,10 @@ public class CoreContainer {
         replayUpdatesExecutor.shutdownAndAwaitTermination();
       });
 
+      if (collectorExecutor != null) {
+        ExecutorUtil.shutdownAndAwaitTermination(collectorExecutor);
+      }
+
       if (metricManager != null) {
         metricManager.closeReporters(SolrMetricManager.getRegistryName(SolrInfoBean.Group.node));
         metricManager.closeReporters(SolrMetricManager.getRegistryName(SolrInfoBean.Group.jvm));
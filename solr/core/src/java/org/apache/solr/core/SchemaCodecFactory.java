@@ -22,12 +22,15 @@ import java.util.Locale;
 
 import org.apache.lucene.codecs.Codec;
 import org.apache.lucene.codecs.DocValuesFormat;
+import org.apache.lucene.codecs.KnnVectorsFormat;
 import org.apache.lucene.codecs.PostingsFormat;
 import org.apache.lucene.codecs.lucene90.Lucene90Codec;
 import org.apache.lucene.codecs.lucene90.Lucene90Codec.Mode;
 import org.apache.solr.common.SolrException;
 import org.apache.solr.common.SolrException.ErrorCode;
 import org.apache.solr.common.util.NamedList;
+import org.apache.solr.schema.DenseVectorField;
+import org.apache.solr.schema.FieldType;
 import org.apache.solr.schema.SchemaField;
 import org.apache.solr.util.plugin.SolrCoreAware;
 import org.slf4j.Logger;
@@ -41,6 +44,9 @@ import org.slf4j.LoggerFactory;
  * Also, a string argument with name <code>compressionMode</code> can be
  * provided to chose between the different compression options for
  * stored fields
+ * <br>
+ * Fields of type {@link DenseVectorField} get a vectors format built with
+ * the HNSW parameters of their field type.
  * 
  * @lucene.experimental
  */
@@ -114,6 +120,17 @@ public class SchemaCodecFactory extends CodecFactory implements SolrCoreAware {
         }
         return super.getDocValuesFormatForField(field);
       }
+      @Override
+      public KnnVectorsFormat getKnnVectorsFormatForField(String field) {
+        final SchemaField schemaField = core.getLatestSchema().getFieldOrNull(field);
+        if (schemaField != null) {
+          FieldType fieldType = schemaField.getType();
+          if (fieldType instanceof DenseVectorField) {
+            return ((DenseVectorField) fieldType).getKnnVectorsFormat();
+          }
+        }
+        return super.getKnnVectorsFormatForField(field);
+      }
     };
   }
 
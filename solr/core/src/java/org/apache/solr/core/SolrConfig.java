@@ -291,6 +291,7 @@ public class SolrConfig implements MapSerializable {
       queryResultWindowSize = Math.max(1, get("query").get("queryResultWindowSize").intVal(1));
       queryResultMaxDocsCached = get("query").get("queryResultMaxDocsCached").intVal(Integer.MAX_VALUE);
       enableLazyFieldLoading = get("query").get("enableLazyFieldLoading").boolVal(false);
+      compactFilterCacheEntries = get("query").get("compactFilterCacheEntries").boolVal(false);
 
       filterCacheConfig = CacheConfig.getConfig(this, get("query").get("filterCache"), "query/filterCache");
       queryResultCacheConfig = CacheConfig.getConfig(this, get("query").get("queryResultCache"), "query/queryResultCache");
@@ -319,6 +320,8 @@ public class SolrConfig implements MapSerializable {
       httpCachingConfig = new HttpCachingConfig(this);
 
       maxWarmingSearchers = get("query").get("maxWarmingSearchers").intVal(1);
+      maxWarmingTime = get("query").get("maxWarmingTime").intVal(-1);
+      warmingThreads = Math.max(1, get("query").get("warmingThreads").intVal(1));
       slowQueryThresholdMillis = get("query").get("slowQueryThresholdMillis").intVal(-1);
       for (SolrPluginInfo plugin : plugins) loadPluginInfo(plugin);
 
@@ -517,6 +520,7 @@ public class SolrConfig implements MapSerializable {
         autoCommit.get("openSearcher").boolVal(true),
         updateHandler.get("autoSoftCommit").get("maxDocs").intVal(-1),
         updateHandler.get("autoSoftCommit").get("maxTime").intVal(-1),
+        updateHandler.get("autoSoftCommit").get("minTime").intVal(-1),
         updateHandler.get("commitWithin").get("softCommit").boolVal(true));
   }
 
@@ -603,6 +607,7 @@ public class SolrConfig implements MapSerializable {
   public final int queryResultWindowSize;
   public final int queryResultMaxDocsCached;
   public final boolean enableLazyFieldLoading;
+  public final boolean compactFilterCacheEntries;
 
   // IndexConfig settings
   public final SolrIndexConfig indexConfig;
@@ -612,6 +617,8 @@ public class SolrConfig implements MapSerializable {
   private Map<String, List<PluginInfo>> pluginStore = new LinkedHashMap<>();
 
   public final int maxWarmingSearchers;
+  public final int maxWarmingTime;  // autowarming time budget in ms, or -1 for none
+  public final int warmingThreads;  // number of caches autowarmed concurrently
   public final boolean useColdSearcher;
   public final Version luceneMatchVersion;
   protected String dataDir;
@@ -731,6 +738,7 @@ public class SolrConfig implements MapSerializable {
     public final long autoCommitMaxSizeBytes;
     public final boolean openSearcher;  // is opening a new searcher part of hard autocommit?
     public final boolean commitWithinSoftCommit;
+    public final int autoSoftCommitMinTime; // if positive, the soft autoCommit time adapts between this and maxTime
 
     /**
      * @param autoCommmitMaxDocs       set -1 as default
@@ -739,6 +747,16 @@ public class SolrConfig implements MapSerializable {
      */
     public UpdateHandlerInfo(String className, int autoCommmitMaxDocs, int autoCommmitMaxTime, long autoCommitMaxSize, boolean openSearcher,
                              int autoSoftCommmitMaxDocs, int autoSoftCommmitMaxTime, boolean commitWithinSoftCommit) {
+      this(className, autoCommmitMaxDocs, autoCommmitMaxTime, autoCommitMaxSize, openSearcher,
+          autoSoftCommmitMaxDocs, autoSoftCommmitMaxTime, -1, commitWithinSoftCommit);
+    }
+
+    /**
+     * @param autoSoftCommitMinTime    set -1 as default
+     */
+    public UpdateHandlerInfo(String className, int autoCommmitMaxDocs, int autoCommmitMaxTime, long autoCommitMaxSize, boolean openSearcher,
+                             int autoSoftCommmitMaxDocs, int autoSoftCommmitMaxTime, int autoSoftCommitMinTime,
+                             boolean commitWithinSoftCommit) {
       this.className = className;
       this.autoCommmitMaxDocs = autoCommmitMaxDocs;
       this.autoCommmitMaxTime = autoCommmitMaxTime;
@@ -747,6 +765,7 @@ public class SolrConfig implements MapSerializable {
 
       this.autoSoftCommmitMaxDocs = autoSoftCommmitMaxDocs;
       this.autoSoftCommmitMaxTime = autoSoftCommmitMaxTime;
+      this.autoSoftCommitMinTime = autoSoftCommitMinTime;
 
       this.commitWithinSoftCommit = commitWithinSoftCommit;
     }
@@ -760,8 +779,11 @@ public class SolrConfig implements MapSerializable {
           "maxTime", autoCommmitMaxTime,
           "openSearcher", openSearcher
       ));
-      map.put("autoSoftCommit",
-          Map.of("maxDocs", autoSoftCommmitMaxDocs,
+      map.put("autoSoftCommit", autoSoftCommitMinTime > 0
+          ? Map.of("maxDocs", autoSoftCommmitMaxDocs,
+              "maxTime", autoSoftCommmitMaxTime,
+              "minTime", autoSoftCommitMinTime)
+          : Map.of("maxDocs", autoSoftCommmitMaxDocs,
               "maxTime", autoSoftCommmitMaxTime));
       return map;
     }
@@ -918,6 +940,9 @@ public class SolrConfig implements MapSerializable {
     m.put("queryResultWindowSize", queryResultWindowSize);
     m.put("queryResultMaxDocsCached", queryResultMaxDocsCached);
     m.put("enableLazyFieldLoading", enableLazyFieldLoading);
+    m.put("compactFilterCacheEntries", compactFilterCacheEntries);
+    m.put("maxWarmingTime", maxWarmingTime);
+    m.put("warmingThreads", warmingThreads);
     m.put("maxBooleanClauses", booleanQueryMaxClauseCount);
 
     for (SolrPluginInfo plugin : plugins) {
@@ -137,6 +137,7 @@ import org.apache.solr.response.transform.TransformerFactory;
 import org.apache.solr.rest.ManagedResourceStorage;
 import org.apache.solr.rest.ManagedResourceStorage.StorageIO;
 import org.apache.solr.rest.RestManager;
+import org.apache.solr.schema.DenseVectorField;
 import org.apache.solr.schema.FieldType;
 import org.apache.solr.schema.IndexSchema;
 import org.apache.solr.schema.ManagedIndexSchema;
@@ -283,6 +284,9 @@ public final class SolrCore implements SolrInfoBean, Closeable {
 
   private ExecutorService coreAsyncTaskExecutor = ExecutorUtil.newMDCAwareCachedThreadPool("Core Async Task");
 
+  // warms the caches of the new searchers concurrently, null unless <warmingThreads> is greater than 1
+  private ExecutorService autowarmingExecutor;
+
   public  final SolrCore.Provider coreProvider;
 
   /**
@@ -984,6 +988,10 @@ public final class SolrCore implements SolrInfoBean, Closeable {
       coreProvider = new Provider(coreContainer, getName(), uniqueId);
 
       this.solrConfig = configSet.getSolrConfig();
+      if (solrConfig.warmingThreads > 1) {
+        autowarmingExecutor = ExecutorUtil.newMDCAwareFixedThreadPool(solrConfig.warmingThreads,
+            new SolrNamedThreadFactory("autowarming"));
+      }
       this.resourceLoader = configSet.getSolrConfig().getResourceLoader();
       this.resourceLoader.initCore(this);
       IndexSchema schema = configSet.getIndexSchema();
@@ -1456,6 +1464,14 @@ public final class SolrCore implements SolrInfoBean, Closeable {
           log.error(msg);
           throw new SolrException(ErrorCode.SERVER_ERROR, msg);
         }
+        if (ft instanceof DenseVectorField) {
+          DenseVectorField vectorType = (DenseVectorField) ft;
+          if (vectorType.getHnswMaxConnections() != DenseVectorField.DEFAULT_MAX_CONNECTIONS
+              || vectorType.getHnswBeamWidth() != DenseVectorField.DEFAULT_BEAM_WIDTH) {
+            log.warn("FieldType '{}' is configured with HNSW parameters, but the codec does not support them: {}",
+                ft.getTypeName(), factory.getClass());
+          }
+        }
       }
     }
     return factory.getCodec();
@@ -1659,6 +1675,11 @@ public final class SolrCore implements SolrInfoBean, Closeable {
     }
     assert ObjectReleaseTracker.release(searcherExecutor);
 
+    if (autowarmingExecutor != null) {
+      // after the searcherExecutor, as it is the one that warms the searchers
+      ExecutorUtil.shutdownAndAwaitTermination(autowarmingExecutor);
+    }
+
     try {
       // Since we waited for the searcherExecutor to shut down,
       // there should be no more searchers warming in the background
@@ -3300,6 +3321,15 @@ public final class SolrCore implements SolrInfoBean, Closeable {
     coreAsyncTaskExecutor.submit(r);
   }
 
+  /**
+   * The executor that warms the caches of the new searchers of this core concurrently, or null if they are warmed
+   * one after the other.
+   * @see SolrIndexSearcher#warm(SolrIndexSearcher)
+   */
+  public ExecutorService getAutowarmingExecutor() {
+    return autowarmingExecutor;
+  }
+
   /**Provides the core instance if the core instance is still alive.
    * This helps to not hold on to a live {@link SolrCore} instance
    * even after it's unloaded
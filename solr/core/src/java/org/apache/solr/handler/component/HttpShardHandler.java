@@ -22,6 +22,7 @@ import java.util.Map;
 import java.util.concurrent.BlockingQueue;
 import java.util.concurrent.LinkedBlockingQueue;
 import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
 import java.util.concurrent.atomic.AtomicInteger;
 
 import io.opentracing.Span;
@@ -32,6 +33,7 @@ import org.apache.solr.client.solrj.SolrResponse;
 import org.apache.solr.client.solrj.impl.LBHttp2SolrClient;
 import org.apache.solr.client.solrj.impl.LBSolrClient;
 import org.apache.solr.client.solrj.request.QueryRequest;
+import org.apache.solr.client.solrj.routing.LatencyAwareReplicaListTransformerFactory;
 import org.apache.solr.client.solrj.routing.ReplicaListTransformer;
 import org.apache.solr.client.solrj.util.Cancellable;
 import org.apache.solr.client.solrj.util.AsyncListener;
@@ -156,8 +158,14 @@ public class HttpShardHandler extends ShardHandler {
       return;
     }
 
+    // the first URL is the one the load balancer tries first, which is where the request will most likely go
+    final String preferredUrl = urls.get(0);
+    final LatencyAwareReplicaListTransformerFactory latencyTracker = httpShardHandlerFactory.latencyRltFactory;
+    final AtomicBoolean outstanding = new AtomicBoolean(true);
+    latencyTracker.requestStarted(preferredUrl);
+
     // all variables that set inside this listener must be at least volatile
-    responseCancellableMap.put(srsp, this.lbClient.asyncReq(lbReq, new AsyncListener<>() {
+    AsyncListener<LBSolrClient.Rsp> listener = new AsyncListener<>() {
       volatile long startTime = System.nanoTime();
 
       @Override
@@ -173,19 +181,45 @@ public class HttpShardHandler extends ShardHandler {
       public void onSuccess(LBSolrClient.Rsp rsp) {
         ssr.nl = rsp.getResponse();
         srsp.setShardAddress(rsp.getServer());
-        ssr.elapsedTime = TimeUnit.MILLISECONDS.convert(System.nanoTime() - startTime, TimeUnit.NANOSECONDS);
+        long elapsedNanos = System.nanoTime() - startTime;
+        ssr.elapsedTime = TimeUnit.MILLISECONDS.convert(elapsedNanos, TimeUnit.NANOSECONDS);
+        if (outstanding.compareAndSet(true, false)) {
+          // a response from another server means the preferred one failed
+          latencyTracker.requestFinished(preferredUrl, elapsedNanos, !preferredUrl.equals(rsp.getServer()));
+        }
         responses.add(srsp);
       }
 
       public void onFailure(Throwable throwable) {
-        ssr.elapsedTime = TimeUnit.MILLISECONDS.convert(System.nanoTime() - startTime, TimeUnit.NANOSECONDS);
+        long elapsedNanos = System.nanoTime() - startTime;
+        ssr.elapsedTime = TimeUnit.MILLISECONDS.convert(elapsedNanos, TimeUnit.NANOSECONDS);
+        if (outstanding.compareAndSet(true, false)) {
+          latencyTracker.requestFinished(preferredUrl, elapsedNanos, true);
+        }
         srsp.setException(throwable);
         if (throwable instanceof SolrException) {
           srsp.setResponseCode(((SolrException) throwable).code());
         }
         responses.add(srsp);
       }
-    }));
+    };
+    Cancellable cancellable;
+    try {
+      cancellable = this.lbClient.asyncReq(lbReq, listener);
+    } catch (RuntimeException | Error e) {
+      // the request was never sent, so the listener won't be called
+      if (outstanding.compareAndSet(true, false)) {
+        latencyTracker.requestCancelled(preferredUrl);
+      }
+      throw e;
+    }
+    responseCancellableMap.put(srsp, () -> {
+      cancellable.cancel();
+      // a cancelled request doesn't tell anything about the response time of the replica
+      if (outstanding.compareAndSet(true, false)) {
+        latencyTracker.requestCancelled(preferredUrl);
+      }
+    });
   }
 
   /**
@@ -235,6 +269,7 @@ public class HttpShardHandler extends ShardHandler {
         // for a request was received.  Otherwise we might return the same
         // request more than once.
         rsp.getShardRequest().responses.add(rsp);
+        notifyShardResponseListener(rsp);
         if (rsp.getShardRequest().responses.size() == rsp.getShardRequest().actualShards.length) {
           return rsp;
         }
@@ -128,6 +128,7 @@ public class QueryComponent extends SearchComponent
 {
   public static final String COMPONENT_NAME = "query";
   private static final Logger log = LoggerFactory.getLogger(MethodHandles.lookup().lookupClass());
+  private static final String TOP_IDS_MERGER_KEY = QueryComponent.class.getName() + ".topIdsMerger";
 
   @Override
   public void prepare(ResponseBuilder rb) throws IOException
@@ -390,6 +391,7 @@ public class QueryComponent extends SearchComponent
     QueryResult result = new QueryResult();
 
     cmd.setSegmentTerminateEarly(params.getBool(CommonParams.SEGMENT_TERMINATE_EARLY, CommonParams.SEGMENT_TERMINATE_EARLY_DEFAULT));
+    cmd.setMultiThreaded(params.getBool(CommonParams.MULTI_THREADED, CommonParams.MULTI_THREADED_DEFAULT));
     if (cmd.getSegmentTerminateEarly()) {
       result.setSegmentTerminatedEarly(Boolean.FALSE);
     }
@@ -830,6 +832,25 @@ public class QueryComponent extends SearchComponent
     return true;
   }
 
+  @Override
+  public void handleShardResponse(ResponseBuilder rb, ShardResponse srsp) {
+    ShardRequest sreq = srsp.getShardRequest();
+    if (rb.grouping() || (sreq.purpose & ShardRequest.PURPOSE_GET_TOP_IDS) == 0 || rb.getMergeStrategies() != null) {
+      return;
+    }
+    // merge the ids of this shard while waiting for the others, mergeIds will only have to merge the remaining ones
+    getTopIdsMerger(rb, sreq).mergeNewResponses();
+  }
+
+  private TopIdsMerger getTopIdsMerger(ResponseBuilder rb, ShardRequest sreq) {
+    TopIdsMerger merger = (TopIdsMerger) rb.req.getContext().get(TOP_IDS_MERGER_KEY);
+    if (merger == null || merger.sreq != sreq) {
+      merger = new TopIdsMerger(rb, sreq);
+      rb.req.getContext().put(TOP_IDS_MERGER_KEY, merger);
+    }
+    return merger;
+  }
+
   protected void mergeIds(ResponseBuilder rb, ShardRequest sreq) {
       List<MergeStrategy> mergeStrategies = rb.getMergeStrategies();
       if(mergeStrategies != null) {
@@ -847,173 +868,19 @@ public class QueryComponent extends SearchComponent
         }
       }
 
-      SortSpec ss = rb.getSortSpec();
-      Sort sort = ss.getSort();
-
-      SortField[] sortFields = null;
-      if(sort != null) sortFields = sort.getSort();
-      else {
-        sortFields = new SortField[]{SortField.FIELD_SCORE};
-      }
- 
-      IndexSchema schema = rb.req.getSchema();
-      SchemaField uniqueKeyField = schema.getUniqueKeyField();
-
+      // the responses may already have been merged as they were received, see handleShardResponse
+      final TopIdsMerger merger = getTopIdsMerger(rb, sreq);
+      rb.req.getContext().remove(TOP_IDS_MERGER_KEY);
+      merger.mergeNewResponses();
 
-      // id to shard mapping, to eliminate any accidental dups
-      HashMap<Object,String> uniqueDoc = new HashMap<>();
+      SortSpec ss = merger.ss;
+      final ShardFieldSortedHitQueue queue = merger.queue;
+      long numFound = merger.numFound;
 
-      // Merge the docs via a priority queue so we don't have to sort *all* of the
-      // documents... we only need to order the top (rows+start)
-      final ShardFieldSortedHitQueue queue = new ShardFieldSortedHitQueue(sortFields, ss.getOffset() + ss.getCount(), rb.req.getSearcher());
-
-      NamedList<Object> shardInfo = null;
-      if(rb.req.getParams().getBool(ShardParams.SHARDS_INFO, false)) {
-        shardInfo = new SimpleOrderedMap<>();
-        rb.rsp.getValues().add(ShardParams.SHARDS_INFO,shardInfo);
+      if (merger.shardInfo != null) {
+        rb.rsp.getValues().add(ShardParams.SHARDS_INFO, merger.shardInfo);
       }
       
-      long numFound = 0;
-      boolean hitCountIsExact = true;
-      Float maxScore=null;
-      boolean thereArePartialResults = false;
-      Boolean segmentTerminatedEarly = null;
-      for (ShardResponse srsp : sreq.responses) {
-        SolrDocumentList docs = null;
-        NamedList<?> responseHeader = null;
-
-        if(shardInfo!=null) {
-          SimpleOrderedMap<Object> nl = new SimpleOrderedMap<>();
-          
-          if (srsp.getException() != null) {
-            Throwable t = srsp.getException();
-            if(t instanceof SolrServerException) {
-              t = ((SolrServerException)t).getCause();
-            }
-            nl.add("error", t.toString() );
-            StringWriter trace = new StringWriter();
-            t.printStackTrace(new PrintWriter(trace));
-            nl.add("trace", trace.toString() );
-            if (srsp.getShardAddress() != null) {
-              nl.add("shardAddress", srsp.getShardAddress());
-            }
-          }
-          else {
-            responseHeader = (NamedList<?>)srsp.getSolrResponse().getResponse().get("responseHeader");
-            final Object rhste = responseHeader.get(SolrQueryResponse.RESPONSE_HEADER_SEGMENT_TERMINATED_EARLY_KEY);
-            if (rhste != null) {
-              nl.add(SolrQueryResponse.RESPONSE_HEADER_SEGMENT_TERMINATED_EARLY_KEY, rhste);
-            }
-            docs = (SolrDocumentList)srsp.getSolrResponse().getResponse().get("response");
-            nl.add("numFound", docs.getNumFound());
-            nl.add("numFoundExact", docs.getNumFoundExact());
-            nl.add("maxScore", docs.getMaxScore());
-            nl.add("shardAddress", srsp.getShardAddress());
-          }
-          if(srsp.getSolrResponse()!=null) {
-            nl.add("time", srsp.getSolrResponse().getElapsedTime());
-          }
-
-          shardInfo.add(srsp.getShard(), nl);
-        }
-        // now that we've added the shard info, let's only proceed if we have no error.
-        if (srsp.getException() != null) {
-          thereArePartialResults = true;
-          continue;
-        }
-
-        if (docs == null) { // could have been initialized in the shards info block above
-          docs = (SolrDocumentList)srsp.getSolrResponse().getResponse().get("response");
-        }
-        
-        if (responseHeader == null) { // could have been initialized in the shards info block above
-          responseHeader = (NamedList<?>)srsp.getSolrResponse().getResponse().get("responseHeader");
-        }
-
-        final boolean thisResponseIsPartial;
-        thisResponseIsPartial = Boolean.TRUE.equals(responseHeader.getBooleanArg(SolrQueryResponse.RESPONSE_HEADER_PARTIAL_RESULTS_KEY));
-        thereArePartialResults |= thisResponseIsPartial;
-        
-        if (!Boolean.TRUE.equals(segmentTerminatedEarly)) {
-          final Object ste = responseHeader.get(SolrQueryResponse.RESPONSE_HEADER_SEGMENT_TERMINATED_EARLY_KEY);
-          if (Boolean.TRUE.equals(ste)) {
-            segmentTerminatedEarly = Boolean.TRUE;
-          } else if (Boolean.FALSE.equals(ste)) {
-            segmentTerminatedEarly = Boolean.FALSE;
-          }
-        }
-        
-        // calculate global maxScore and numDocsFound
-        if (docs.getMaxScore() != null) {
-          maxScore = maxScore==null ? docs.getMaxScore() : Math.max(maxScore, docs.getMaxScore());
-        }
-        numFound += docs.getNumFound();
-        
-        if (hitCountIsExact && Boolean.FALSE.equals(docs.getNumFoundExact())) {
-          hitCountIsExact = false;
-        }
-
-        @SuppressWarnings("unchecked")
-        NamedList<List<Object>> sortFieldValues = (NamedList<List<Object>>)(srsp.getSolrResponse().getResponse().get("sort_values"));
-        if (null == sortFieldValues) {
-          sortFieldValues = new NamedList<>();
-        }
-
-        // if the SortSpec contains a field besides score or the Lucene docid, then the values will need to be unmarshalled from
-        // sortFieldValues.
-        boolean needsUnmarshalling = ss.includesNonScoreOrDocField();
-
-        // if we need to unmarshal the sortFieldValues for sorting but we have none, which can happen if partial results are
-        // being returned from the shard, then skip merging the results for the shard. This avoids an exception below.
-        // if the shard returned partial results but we don't need to unmarshal (a normal scoring query), then merge what we got.
-        if (thisResponseIsPartial && sortFieldValues.size() == 0 && needsUnmarshalling) {
-          continue;
-        }
-
-        // Checking needsUnmarshalling saves on iterating the SortFields in the SortSpec again.
-        NamedList<List<Object>> unmarshalledSortFieldValues = needsUnmarshalling ? unmarshalSortValues(ss, sortFieldValues, schema) : new NamedList<>();
-
-        // go through every doc in this response, construct a ShardDoc, and
-        // put it in the priority queue so it can be ordered.
-        for (int i=0; i<docs.size(); i++) {
-          SolrDocument doc = docs.get(i);
-          Object id = doc.getFieldValue(uniqueKeyField.getName());
-
-          String prevShard = uniqueDoc.put(id, srsp.getShard());
-          if (prevShard != null) {
-            // duplicate detected
-            numFound--;
-
-            // For now, just always use the first encountered since we can't currently
-            // remove the previous one added to the priority queue.  If we switched
-            // to the Java5 PriorityQueue, this would be easier.
-            continue;
-            // make which duplicate is used deterministic based on shard
-            // if (prevShard.compareTo(srsp.shard) >= 0) {
-            //  TODO: remove previous from priority queue
-            //  continue;
-            // }
-          }
-
-          ShardDoc shardDoc = new ShardDoc();
-          shardDoc.id = id;
-          shardDoc.shard = srsp.getShard();
-          shardDoc.orderInShard = i;
-          Object scoreObj = doc.getFieldValue("score");
-          if (scoreObj != null) {
-            if (scoreObj instanceof String) {
-              shardDoc.score = Float.parseFloat((String)scoreObj);
-            } else {
-              shardDoc.score = (Float)scoreObj;
-            }
-          }
-
-          shardDoc.sortFieldValues = unmarshalledSortFieldValues;
-
-          queue.insertWithOverflow(shardDoc);
-        } // end for-each-doc-in-response
-      } // end for-each-response
-      
       // The queue now has 0 -> queuesize docs, where queuesize <= start + rows
       // So we want to pop the last documents off the queue to get
       // the docs offset -> queuesize
@@ -1034,9 +901,9 @@ public class QueryComponent extends SearchComponent
       rb.rsp.addToLog("hits", numFound);
 
       SolrDocumentList responseDocs = new SolrDocumentList();
-      if (maxScore!=null) responseDocs.setMaxScore(maxScore);
+      if (merger.maxScore!=null) responseDocs.setMaxScore(merger.maxScore);
       responseDocs.setNumFound(numFound);
-      responseDocs.setNumFoundExact(hitCountIsExact);
+      responseDocs.setNumFoundExact(merger.hitCountIsExact);
       responseDocs.setStart(ss.getOffset());
       // size appropriately
       for (int i=0; i<resultSize; i++) responseDocs.add(null);
@@ -1049,10 +916,11 @@ public class QueryComponent extends SearchComponent
 
       populateNextCursorMarkFromMergedShards(rb);
 
-      if (thereArePartialResults) {
+      if (merger.thereArePartialResults) {
          rb.rsp.getResponseHeader().asShallowMap()
                    .put(SolrQueryResponse.RESPONSE_HEADER_PARTIAL_RESULTS_KEY, Boolean.TRUE);
       }
+      Boolean segmentTerminatedEarly = merger.segmentTerminatedEarly;
       if (segmentTerminatedEarly != null) {
         final Object existingSegmentTerminatedEarly = rb.rsp.getResponseHeader().get(SolrQueryResponse.RESPONSE_HEADER_SEGMENT_TERMINATED_EARLY_KEY);
         if (existingSegmentTerminatedEarly == null) {
@@ -1064,6 +932,191 @@ public class QueryComponent extends SearchComponent
       }
   }
 
+  /**
+   * Merges the top ids of the responses to a {@link ShardRequest#PURPOSE_GET_TOP_IDS} request into a priority queue,
+   * one response at a time, in the order they were received.
+   */
+  private class TopIdsMerger {
+    final ShardRequest sreq;
+    final SortSpec ss;
+    final IndexSchema schema;
+    final SchemaField uniqueKeyField;
+    // id to shard mapping, to eliminate any accidental dups
+    final HashMap<Object,String> uniqueDoc = new HashMap<>();
+    final ShardFieldSortedHitQueue queue;
+    final NamedList<Object> shardInfo;
+
+    int merged = 0; // the number of responses of sreq merged so far
+    long numFound = 0;
+    boolean hitCountIsExact = true;
+    Float maxScore=null;
+    boolean thereArePartialResults = false;
+    Boolean segmentTerminatedEarly = null;
+
+    TopIdsMerger(ResponseBuilder rb, ShardRequest sreq) {
+      this.sreq = sreq;
+      this.ss = rb.getSortSpec();
+      Sort sort = ss.getSort();
+
+      SortField[] sortFields = null;
+      if(sort != null) sortFields = sort.getSort();
+      else {
+        sortFields = new SortField[]{SortField.FIELD_SCORE};
+      }
+ 
+      this.schema = rb.req.getSchema();
+      this.uniqueKeyField = schema.getUniqueKeyField();
+
+      // Merge the docs via a priority queue so we don't have to sort *all* of the
+      // documents... we only need to order the top (rows+start)
+      this.queue = new ShardFieldSortedHitQueue(sortFields, ss.getOffset() + ss.getCount(), rb.req.getSearcher());
+
+      this.shardInfo = rb.req.getParams().getBool(ShardParams.SHARDS_INFO, false) ? new SimpleOrderedMap<>() : null;
+    }
+
+    void mergeNewResponses() {
+      for (; merged < sreq.responses.size(); merged++) {
+        merge(sreq.responses.get(merged));
+      }
+    }
+
+    private void merge(ShardResponse srsp) {
+      SolrDocumentList docs = null;
+      NamedList<?> responseHeader = null;
+
+      if(shardInfo!=null) {
+        SimpleOrderedMap<Object> nl = new SimpleOrderedMap<>();
+        
+        if (srsp.getException() != null) {
+          Throwable t = srsp.getException();
+          if(t instanceof SolrServerException) {
+            t = ((SolrServerException)t).getCause();
+          }
+          nl.add("error", t.toString() );
+          StringWriter trace = new StringWriter();
+          t.printStackTrace(new PrintWriter(trace));
+          nl.add("trace", trace.toString() );
+          if (srsp.getShardAddress() != null) {
+            nl.add("shardAddress", srsp.getShardAddress());
+          }
+        }
+        else {
+          responseHeader = (NamedList<?>)srsp.getSolrResponse().getResponse().get("responseHeader");
+          final Object rhste = responseHeader.get(SolrQueryResponse.RESPONSE_HEADER_SEGMENT_TERMINATED_EARLY_KEY);
+          if (rhste != null) {
+            nl.add(SolrQueryResponse.RESPONSE_HEADER_SEGMENT_TERMINATED_EARLY_KEY, rhste);
+          }
+          docs = (SolrDocumentList)srsp.getSolrResponse().getResponse().get("response");
+          nl.add("numFound", docs.getNumFound());
+          nl.add("numFoundExact", docs.getNumFoundExact());
+          nl.add("maxScore", docs.getMaxScore());
+          nl.add("shardAddress", srsp.getShardAddress());
+        }
+        if(srsp.getSolrResponse()!=null) {
+          nl.add("time", srsp.getSolrResponse().getElapsedTime());
+        }
+
+        shardInfo.add(srsp.getShard(), nl);
+      }
+      // now that we've added the shard info, let's only proceed if we have no error.
+      if (srsp.getException() != null) {
+        thereArePartialResults = true;
+        return;
+      }
+
+      if (docs == null) { // could have been initialized in the shards info block above
+        docs = (SolrDocumentList)srsp.getSolrResponse().getResponse().get("response");
+      }
+      
+      if (responseHeader == null) { // could have been initialized in the shards info block above
+        responseHeader = (NamedList<?>)srsp.getSolrResponse().getResponse().get("responseHeader");
+      }
+
+      final boolean thisResponseIsPartial;
+      thisResponseIsPartial = Boolean.TRUE.equals(responseHeader.getBooleanArg(SolrQueryResponse.RESPONSE_HEADER_PARTIAL_RESULTS_KEY));
+      thereArePartialResults |= thisResponseIsPartial;
+      
+      if (!Boolean.TRUE.equals(segmentTerminatedEarly)) {
+        final Object ste = responseHeader.get(SolrQueryResponse.RESPONSE_HEADER_SEGMENT_TERMINATED_EARLY_KEY);
+        if (Boolean.TRUE.equals(ste)) {
+          segmentTerminatedEarly = Boolean.TRUE;
+        } else if (Boolean.FALSE.equals(ste)) {
+          segmentTerminatedEarly = Boolean.FALSE;
+        }
+      }
+      
+      // calculate global maxScore and numDocsFound
+      if (docs.getMaxScore() != null) {
+        maxScore = maxScore==null ? docs.getMaxScore() : Math.max(maxScore, docs.getMaxScore());
+      }
+      numFound += docs.getNumFound();
+      
+      if (hitCountIsExact && Boolean.FALSE.equals(docs.getNumFoundExact())) {
+        hitCountIsExact = false;
+      }
+
+      @SuppressWarnings("unchecked")
+      NamedList<List<Object>> sortFieldValues = (NamedList<List<Object>>)(srsp.getSolrResponse().getResponse().get("sort_values"));
+      if (null == sortFieldValues) {
+        sortFieldValues = new NamedList<>();
+      }
+
+      // if the SortSpec contains a field besides score or the Lucene docid, then the values will need to be unmarshalled from
+      // sortFieldValues.
+      boolean needsUnmarshalling = ss.includesNonScoreOrDocField();
+
+      // if we need to unmarshal the sortFieldValues for sorting but we have none, which can happen if partial results are
+      // being returned from the shard, then skip merging the results for the shard. This avoids an exception below.
+      // if the shard returned partial results but we don't need to unmarshal (a normal scoring query), then merge what we got.
+      if (thisResponseIsPartial && sortFieldValues.size() == 0 && needsUnmarshalling) {
+        return;
+      }
+
+      // Checking needsUnmarshalling saves on iterating the SortFields in the SortSpec again.
+      NamedList<List<Object>> unmarshalledSortFieldValues = needsUnmarshalling ? unmarshalSortValues(ss, sortFieldValues, schema) : new NamedList<>();
+
+      // go through every doc in this response, construct a ShardDoc, and
+      // put it in the priority queue so it can be ordered.
+      for (int i=0; i<docs.size(); i++) {
+        SolrDocument doc = docs.get(i);
+        Object id = doc.getFieldValue(uniqueKeyField.getName());
+
+        String prevShard = uniqueDoc.put(id, srsp.getShard());
+        if (prevShard != null) {
+          // duplicate detected
+          numFound--;
+
+          // For now, just always use the first encountered since we can't currently
+          // remove the previous one added to the priority queue.  If we switched
+          // to the Java5 PriorityQueue, this would be easier.
+          continue;
+          // make which duplicate is used deterministic based on shard
+          // if (prevShard.compareTo(srsp.shard) >= 0) {
+          //  TODO: remove previous from priority queue
+          //  continue;
+          // }
+        }
+
+        ShardDoc shardDoc = new ShardDoc();
+        shardDoc.id = id;
+        shardDoc.shard = srsp.getShard();
+        shardDoc.orderInShard = i;
+        Object scoreObj = doc.getFieldValue("score");
+        if (scoreObj != null) {
+          if (scoreObj instanceof String) {
+            shardDoc.score = Float.parseFloat((String)scoreObj);
+          } else {
+            shardDoc.score = (Float)scoreObj;
+          }
+        }
+
+        shardDoc.sortFieldValues = unmarshalledSortFieldValues;
+
+        queue.insertWithOverflow(shardDoc);
+      } // end for-each-doc-in-response
+    }
+  }
+
   /**
    * Inspects the state of the {@link ResponseBuilder} and populates the next 
    * {@link ResponseBuilder#setNextCursorMark} as appropriate based on the merged 
@@ -70,6 +70,15 @@ public abstract class SearchComponent implements SolrInfoBean, NamedListInitiali
   public void modifyRequest(ResponseBuilder rb, SearchComponent who, ShardRequest sreq) {
   }
 
+  /**
+   * Called for each shard response as soon as it was received, before {@link #handleResponses} is called with all the
+   * responses of the same request. This lets components start merging while slower shards are still responding, but
+   * it's not guaranteed to be called (e.g. for a custom {@link ShardHandler}), so {@link #handleResponses} must still
+   * handle the responses this method didn't see.
+   */
+  public void handleShardResponse(ResponseBuilder rb, ShardResponse srsp) {
+  }
+
   /** Called after all responses for a single request were received */
   public void handleResponses(ResponseBuilder rb, ShardRequest sreq) {
   }
@@ -413,6 +413,12 @@ public class SearchHandler extends RequestHandlerBase implements SolrCoreAware,
       }
       rb.finished = new ArrayList<>();
 
+      shardHandler1.setShardResponseListener(srsp -> {
+        for (SearchComponent c : components) {
+          c.handleShardResponse(rb, srsp);
+        }
+      });
+
       int nextStage = 0;
       do {
         rb.stage = nextStage;
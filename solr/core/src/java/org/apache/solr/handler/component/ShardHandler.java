@@ -15,13 +15,31 @@
  * limitations under the License.
  */
 package org.apache.solr.handler.component;
+import java.util.function.Consumer;
+
 import org.apache.solr.common.params.ModifiableSolrParams;
 
 public abstract class ShardHandler {
+  private Consumer<ShardResponse> shardResponseListener;
+
   public abstract void prepDistributed(ResponseBuilder rb);
   public abstract void submit(ShardRequest sreq, String shard, ModifiableSolrParams params);
   public abstract ShardResponse takeCompletedIncludingErrors();
   public abstract ShardResponse takeCompletedOrError();
   public abstract void cancelAll();
   public abstract ShardHandlerFactory getShardHandlerFactory();
+
+  /**
+   * Sets a listener that implementations notify, on the thread taking the responses, of each response as soon as it
+   * was added to the responses of its {@link ShardRequest}.
+   */
+  public void setShardResponseListener(Consumer<ShardResponse> shardResponseListener) {
+    this.shardResponseListener = shardResponseListener;
+  }
+
+  protected void notifyShardResponseListener(ShardResponse rsp) {
+    if (shardResponseListener != null) {
+      shardResponseListener.accept(rsp);
+    }
+  }
 }
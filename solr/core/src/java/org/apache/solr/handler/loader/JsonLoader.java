@@ -51,6 +51,7 @@ import org.apache.solr.update.DeleteUpdateCommand;
 import org.apache.solr.update.RollbackUpdateCommand;
 import org.apache.solr.update.processor.UpdateRequestProcessor;
 import org.apache.solr.util.RecordingJSONParser;
+import org.noggit.CharArr;
 import org.noggit.JSONParser;
 import org.noggit.JSONParser.ParseException;
 import org.noggit.ObjectBuilder;
@@ -120,6 +121,9 @@ public class JsonLoader extends ContentStreamLoader {
   }
 
   static class SingleThreadedJsonLoader extends ContentStreamLoader {
+    private static final int FIELD_NAMES_CACHE_SIZE = 256; // must be a power of 2
+    // the max number of documents of an array that are handed to the processors together
+    private static final int ADD_BATCH_SIZE = 100;
 
     protected final UpdateRequestProcessor processor;
     protected final SolrQueryRequest req;
@@ -128,6 +132,11 @@ public class JsonLoader extends ContentStreamLoader {
     protected final int commitWithin;
     protected final boolean overwrite;
 
+    // the field names read so far, so that the same keys of every document don't allocate a new String each time
+    private final String[] fieldNames = new String[FIELD_NAMES_CACHE_SIZE];
+    // the number of fields of the last top level document, to size the next one
+    private int lastDocSize;
+
     SingleThreadedJsonLoader(SolrQueryRequest req, SolrQueryResponse rsp, UpdateRequestProcessor processor) {
       this.processor = processor;
       this.req = req;
@@ -470,7 +479,7 @@ public class JsonLoader extends ContentStreamLoader {
                     + " add command at [" + parser.getPosition() + "]");
               }
               ev = assertNextEvent(JSONParser.OBJECT_START);
-              cmd.solrDoc = parseDoc(ev);
+              cmd.solrDoc = parseTopLevelDoc(ev);
             } else if (UpdateRequestHandler.OVERWRITE.equals(key)) {
               cmd.overwrite = parser.getBoolean(); // reads next boolean
             } else if (UpdateRequestHandler.COMMIT_WITHIN.equals(key)) {
@@ -506,17 +515,33 @@ public class JsonLoader extends ContentStreamLoader {
 
 
     void handleAdds() throws IOException {
+      List<AddUpdateCommand> batch = new ArrayList<>(ADD_BATCH_SIZE);
       while (true) {
         AddUpdateCommand cmd = new AddUpdateCommand(req);
         cmd.commitWithin = commitWithin;
         cmd.overwrite = overwrite;
 
-        int ev = parser.nextEvent();
-        if (ev == JSONParser.ARRAY_END) break;
+        try {
+          int ev = parser.nextEvent();
+          if (ev == JSONParser.ARRAY_END) break;
 
-        assertEvent(ev, JSONParser.OBJECT_START);
-        cmd.solrDoc = parseDoc(ev);
-        processor.processAdd(cmd);
+          assertEvent(ev, JSONParser.OBJECT_START);
+          cmd.solrDoc = parseTopLevelDoc(ev);
+        } catch (IOException | RuntimeException e) {
+          // the documents before the one that can't be parsed are still added
+          if (!batch.isEmpty()) {
+            processor.processAddBatch(batch);
+          }
+          throw e;
+        }
+        batch.add(cmd);
+        if (batch.size() >= ADD_BATCH_SIZE) {
+          processor.processAddBatch(batch);
+          batch = new ArrayList<>(ADD_BATCH_SIZE);
+        }
+      }
+      if (!batch.isEmpty()) {
+        processor.processAddBatch(batch);
       }
     }
 
@@ -537,16 +562,27 @@ public class JsonLoader extends ContentStreamLoader {
     }
 
 
+    private SolrInputDocument parseTopLevelDoc(int ev) throws IOException {
+      // documents of a request usually have about the same fields, avoid growing the map field by field
+      int capacity = Math.max(16, (int) (lastDocSize / 0.75f) + 1);
+      SolrInputDocument sdoc = parseDoc(ev, new SolrInputDocument(new LinkedHashMap<>(capacity)));
+      lastDocSize = sdoc.size();
+      return sdoc;
+    }
+
     private SolrInputDocument parseDoc(int ev) throws IOException {
+      return parseDoc(ev, new SolrInputDocument());
+    }
+
+    private SolrInputDocument parseDoc(int ev, SolrInputDocument sdoc) throws IOException {
       assert ev == JSONParser.OBJECT_START;
 
-      SolrInputDocument sdoc = new SolrInputDocument();
       for (; ; ) {
         ev = parser.nextEvent();
         if (ev == JSONParser.OBJECT_END) {
           return sdoc;
         }
-        String fieldName = parser.getString();
+        String fieldName = readFieldName();
 
         if (fieldName.equals(JsonLoader.CHILD_DOC_KEY)) { // somewhat legacy
           ev = parser.nextEvent();
@@ -568,6 +604,32 @@ public class JsonLoader extends ContentStreamLoader {
       }
     }
 
+    /**
+     * Reads the current key, reusing the String of a previous document with the same key if possible. Names of
+     * fields of the schema resolve to the name of the {@link SchemaField} itself, so that later lookups by name can
+     * compare the strings by reference.
+     */
+    private String readFieldName() throws IOException {
+      CharArr chars = parser.getStringChars();
+      char[] arr = chars.getArray();
+      int hash = 0;
+      for (int i = chars.getStart(); i < chars.getEnd(); i++) {
+        hash = 31 * hash + arr[i];
+      }
+      int slot = (hash ^ (hash >>> 16)) & (fieldNames.length - 1);
+      String name = fieldNames[slot];
+      if (name != null && name.hashCode() == hash && name.contentEquals(chars)) {
+        return name;
+      }
+      name = chars.toString();
+      SchemaField field = req.getSchema().getFields().get(name);
+      if (field != null) {
+        name = field.getName();
+      }
+      fieldNames[slot] = name;
+      return name;
+    }
+
     private Object parseFieldValue(int ev, String fieldName) throws IOException {
       switch (ev) {
         case JSONParser.STRING:
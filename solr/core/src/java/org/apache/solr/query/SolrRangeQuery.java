@@ -456,7 +456,7 @@ public final class SolrRangeQuery extends ExtendedQueryBase implements DocSetPro
       if (doCheck) {
         answer = createDocSet(solrSearcher, count);
         // This can be a naked put because the cache usually gets checked in SolrIndexSearcher
-        solrSearcher.getFilterCache().put(SolrRangeQuery.this, answer);
+        solrSearcher.getFilterCache().put(SolrRangeQuery.this, solrSearcher.toFilterCacheEntry(answer));
         return segStates[context.ord] = new SegState(new SegmentDocIdSet(answer, context));
       }
 
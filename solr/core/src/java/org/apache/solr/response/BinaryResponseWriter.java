@@ -210,7 +210,13 @@ public class BinaryResponseWriter implements BinaryQueryResponseWriter {
     }
   }
 
-  static class MaskCharSeqSolrDocument extends SolrDocument {
+  /**
+   * A {@link SolrDocument} whose values may be {@link org.apache.solr.common.util.Utf8CharSequence}s read as bytes
+   * from the index, that are written as is by the {@link JavaBinCodec} but exposed as Strings by the getters.
+   *
+   * @lucene.internal
+   */
+  public static class MaskCharSeqSolrDocument extends SolrDocument {
     /**
      * Get the value or collection of values for a given field.
      */
@@ -0,0 +1,280 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.apache.solr.schema;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+
+import org.apache.lucene.codecs.KnnVectorsFormat;
+import org.apache.lucene.codecs.lucene90.Lucene90HnswVectorsFormat;
+import org.apache.lucene.document.KnnVectorField;
+import org.apache.lucene.index.IndexableField;
+import org.apache.lucene.index.VectorSimilarityFunction;
+import org.apache.lucene.index.VectorValues;
+import org.apache.lucene.queries.function.ValueSource;
+import org.apache.lucene.search.Query;
+import org.apache.lucene.search.SortField;
+import org.apache.solr.common.SolrException;
+import org.apache.solr.search.QParser;
+import org.apache.solr.uninverting.UninvertingReader.Type;
+
+/**
+ * <p>
+ * {@code DenseVectorField} indexes a fixed length vector of floats in a Lucene HNSW graph, so that documents can be
+ * retrieved by approximate nearest neighbour search using the {@link org.apache.solr.search.neural.KnnQParserPlugin}.
+ * </p>
+ * <p>
+ * Define the {@code DenseVectorField} {@code fieldType} in your schema:
+ * </p>
+ * <pre class="prettyprint">
+ * &lt;fieldType name="knn_vector" class="solr.DenseVectorField" vectorDimension="4" similarityFunction="cosine"
+ *            hnswMaxConnections="16" hnswBeamWidth="100"/&gt;
+ * &lt;field name="vector" type="knn_vector" indexed="true" stored="true"/&gt;
+ * </pre>
+ * <p>
+ * Vectors are supplied as a list of numbers (e.g. a JSON array) or as a string such as {@code [1.0, 2.5, 3.0, 4.0]}.
+ * If the field is stored, each vector element is stored as a float, and the vector is returned as a list.
+ * </p>
+ *
+ * @see org.apache.solr.search.neural.KnnQParserPlugin
+ * @lucene.experimental
+ */
+public class DenseVectorField extends FloatPointField {
+
+  public static final String VECTOR_DIMENSION = "vectorDimension";
+  public static final String SIMILARITY_FUNCTION = "similarityFunction";
+  public static final String HNSW_MAX_CONNECTIONS = "hnswMaxConnections";
+  public static final String HNSW_BEAM_WIDTH = "hnswBeamWidth";
+
+  public static final VectorSimilarityFunction DEFAULT_SIMILARITY = VectorSimilarityFunction.EUCLIDEAN;
+  public static final int DEFAULT_MAX_CONNECTIONS = 16;
+  public static final int DEFAULT_BEAM_WIDTH = 100;
+
+  private int dimension;
+  private VectorSimilarityFunction similarityFunction;
+  private int hnswMaxConnections;
+  private int hnswBeamWidth;
+
+  @Override
+  protected void init(IndexSchema schema, Map<String, String> args) {
+    String dimensionStr = args.remove(VECTOR_DIMENSION);
+    if (dimensionStr == null) {
+      throw new SolrException(SolrException.ErrorCode.SERVER_ERROR,
+          "The \"" + VECTOR_DIMENSION + "\" attribute is required for fieldType " + typeName);
+    }
+    this.dimension = parsePositiveInt(VECTOR_DIMENSION, dimensionStr);
+    if (dimension > VectorValues.MAX_DIMENSIONS) {
+      throw new SolrException(SolrException.ErrorCode.SERVER_ERROR,
+          "\"" + VECTOR_DIMENSION + "\" can't be greater than " + VectorValues.MAX_DIMENSIONS
+              + " for fieldType " + typeName);
+    }
+
+    String similarityStr = args.remove(SIMILARITY_FUNCTION);
+    if (similarityStr == null) {
+      this.similarityFunction = DEFAULT_SIMILARITY;
+    } else {
+      try {
+        this.similarityFunction = VectorSimilarityFunction.valueOf(similarityStr.toUpperCase(Locale.ROOT));
+      } catch (IllegalArgumentException iae) {
+        throw new SolrException(SolrException.ErrorCode.SERVER_ERROR,
+            "Unknown \"" + SIMILARITY_FUNCTION + "\": \"" + similarityStr + "\" for fieldType " + typeName, iae);
+      }
+    }
+
+    String maxConnStr = args.remove(HNSW_MAX_CONNECTIONS);
+    this.hnswMaxConnections = maxConnStr == null ? DEFAULT_MAX_CONNECTIONS : parsePositiveInt(HNSW_MAX_CONNECTIONS, maxConnStr);
+    String beamWidthStr = args.remove(HNSW_BEAM_WIDTH);
+    this.hnswBeamWidth = beamWidthStr == null ? DEFAULT_BEAM_WIDTH : parsePositiveInt(HNSW_BEAM_WIDTH, beamWidthStr);
+
+    super.init(schema, args);
+
+    for (int prop : new int[] {MULTIVALUED, DOC_VALUES}) {
+      if ((trueProperties & prop) != 0) {
+        throw new SolrException(SolrException.ErrorCode.SERVER_ERROR,
+            "Property \"" + getPropertyName(prop) + "\" can't be set to true in DenseVectorFields");
+      }
+    }
+    properties &= ~(MULTIVALUED | DOC_VALUES | UNINVERTIBLE);
+  }
+
+  private int parsePositiveInt(String name, String value) {
+    final int parsed;
+    try {
+      parsed = Integer.parseInt(value);
+    } catch (NumberFormatException nfe) {
+      throw new SolrException(SolrException.ErrorCode.SERVER_ERROR,
+          "\"" + name + "\" must be an integer, got \"" + value + "\" for fieldType " + typeName, nfe);
+    }
+    if (parsed <= 0) {
+      throw new SolrException(SolrException.ErrorCode.SERVER_ERROR,
+          "\"" + name + "\" must be positive, got \"" + value + "\" for fieldType " + typeName);
+    }
+    return parsed;
+  }
+
+  public int getDimension() {
+    return dimension;
+  }
+
+  public VectorSimilarityFunction getSimilarityFunction() {
+    return similarityFunction;
+  }
+
+  public int getHnswMaxConnections() {
+    return hnswMaxConnections;
+  }
+
+  public int getHnswBeamWidth() {
+    return hnswBeamWidth;
+  }
+
+  /**
+   * The per-field format used by {@link org.apache.solr.core.SchemaCodecFactory} so that the HNSW graph is built
+   * with the parameters configured on this field type.
+   */
+  public KnnVectorsFormat getKnnVectorsFormat() {
+    return new Lucene90HnswVectorsFormat(hnswMaxConnections, hnswBeamWidth);
+  }
+
+  @Override
+  public void checkSchemaField(final SchemaField field) {
+    super.checkSchemaField(field);
+    if (field.multiValued()) {
+      throw new SolrException(SolrException.ErrorCode.SERVER_ERROR,
+          getClass().getSimpleName() + " fields can not be multiValued: " + field.getName());
+    }
+    if (field.hasDocValues()) {
+      throw new SolrException(SolrException.ErrorCode.SERVER_ERROR,
+          getClass().getSimpleName() + " fields can not have docValues: " + field.getName());
+    }
+  }
+
+  @Override
+  public List<IndexableField> createFields(SchemaField field, Object value) {
+    if (!isFieldUsed(field)) {
+      return Collections.emptyList();
+    }
+    float[] vector = parseVector(field, value);
+    List<IndexableField> fields = new ArrayList<>(field.stored() ? vector.length + 1 : 1);
+    if (field.indexed()) {
+      fields.add(new KnnVectorField(field.getName(), vector, similarityFunction));
+    }
+    if (field.stored()) {
+      for (float element : vector) {
+        fields.add(getStoredField(field, element));
+      }
+    }
+    return fields;
+  }
+
+  @Override
+  public IndexableField createField(SchemaField field, Object value) {
+    if (!field.indexed()) {
+      return null;
+    }
+    return new KnnVectorField(field.getName(), parseVector(field, value), similarityFunction);
+  }
+
+  /**
+   * Parses the vector of a document or a query. Accepts a {@code float[]}, a {@link Collection} of numbers (or of
+   * strings representing numbers), or a string of comma separated numbers optionally enclosed in square brackets.
+   *
+   * @throws SolrException if the value can not be parsed or doesn't match the configured dimension
+   */
+  public float[] parseVector(SchemaField field, Object value) {
+    final float[] vector;
+    if (value instanceof float[]) {
+      vector = (float[]) value;
+    } else if (value instanceof Collection) {
+      Collection<?> values = (Collection<?>) value;
+      vector = new float[values.size()];
+      int i = 0;
+      for (Object element : values) {
+        vector[i++] = parseVectorElement(field, element);
+      }
+    } else if (value != null) {
+      String str = value.toString().trim();
+      if (str.startsWith("[") && str.endsWith("]")) {
+        str = str.substring(1, str.length() - 1).trim();
+      }
+      String[] elements = str.isEmpty() ? new String[0] : str.split(",");
+      vector = new float[elements.length];
+      for (int i = 0; i < elements.length; i++) {
+        vector[i] = parseVectorElement(field, elements[i].trim());
+      }
+    } else {
+      throw new SolrException(SolrException.ErrorCode.BAD_REQUEST,
+          "Missing vector value for field '" + field.getName() + "'");
+    }
+    if (vector.length != dimension) {
+      throw new SolrException(SolrException.ErrorCode.BAD_REQUEST,
+          "Incorrect vector dimension for field '" + field.getName() + "'. The expected vector dimension is "
+              + dimension + ", got " + vector.length);
+    }
+    return vector;
+  }
+
+  private float parseVectorElement(SchemaField field, Object element) {
+    try {
+      return element instanceof Number ? ((Number) element).floatValue() : Float.parseFloat(element.toString());
+    } catch (NumberFormatException nfe) {
+      throw new SolrException(SolrException.ErrorCode.BAD_REQUEST,
+          "Error while parsing vector for field '" + field.getName() + "' from value '" + element
+              + "'. Expecting float.", nfe);
+    }
+  }
+
+  @Override
+  public Type getUninversionType(SchemaField sf) {
+    return null;
+  }
+
+  @Override
+  public ValueSource getValueSource(SchemaField field, QParser parser) {
+    throw new SolrException(SolrException.ErrorCode.BAD_REQUEST,
+        "Function queries are not supported on DenseVectorFields: " + field.getName());
+  }
+
+  @Override
+  public Query getFieldQuery(QParser parser, SchemaField field, String externalVal) {
+    throw new SolrException(SolrException.ErrorCode.BAD_REQUEST,
+        "Field queries are not supported on DenseVectorFields, use the knn query parser: " + field.getName());
+  }
+
+  @Override
+  public Query getExistenceQuery(QParser parser, SchemaField field) {
+    throw new SolrException(SolrException.ErrorCode.BAD_REQUEST,
+        "Existence queries are not supported on DenseVectorFields: " + field.getName());
+  }
+
+  @Override
+  protected Query getSpecializedRangeQuery(QParser parser, SchemaField field, String part1, String part2,
+      boolean minInclusive, boolean maxInclusive) {
+    throw new SolrException(SolrException.ErrorCode.BAD_REQUEST,
+        "Range queries are not supported on DenseVectorFields: " + field.getName());
+  }
+
+  @Override
+  public SortField getSortField(SchemaField field, boolean top) {
+    throw new SolrException(SolrException.ErrorCode.BAD_REQUEST,
+        "Can not sort on a DenseVectorField: " + field.getName());
+  }
+}
@@ -20,7 +20,10 @@ import java.io.IOException;
 import java.io.UncheckedIOException;
 import java.lang.invoke.MethodHandles;
 import java.time.Duration;
+import java.util.ArrayList;
 import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
 import java.util.Locale;
 import java.util.Map;
 import java.util.Map.Entry;
@@ -40,10 +43,12 @@ import com.github.benmanes.caffeine.cache.RemovalCause;
 import com.github.benmanes.caffeine.cache.RemovalListener;
 import org.apache.lucene.util.Accountable;
 import org.apache.lucene.util.RamUsageEstimator;
+import org.apache.solr.common.MapWriter;
 import org.apache.solr.common.SolrException;
 import org.apache.solr.metrics.MetricsMap;
 import org.apache.solr.metrics.SolrMetricsContext;
 import org.apache.solr.util.IOFunction;
+import org.apache.solr.util.TimeOut;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
@@ -92,6 +97,9 @@ public class CaffeineCache<K, V> extends SolrCacheBase implements SolrCache<K, V
   private Cache<K,V> cache;
   private AsyncCache<K, V> asyncCache;
   private long warmupTime;
+  private int warmupSkipped;
+  // regeneration cost (nanos) of the items warmed with a time budget, used to rank them when warming the next cache
+  private Map<K, Long> warmupCosts = Collections.emptyMap();
   private int maxSize;
   private long maxRamBytes;
   private int initialSize;
@@ -163,7 +171,7 @@ public class CaffeineCache<K, V> extends SolrCacheBase implements SolrCache<K, V
     }
     if (maxRamBytes != Long.MAX_VALUE) {
       builder.maximumWeight(maxRamBytes);
-      builder.weigher((k, v) -> (int) (RamUsageEstimator.sizeOfObject(k) + RamUsageEstimator.sizeOfObject(v)));
+      builder.weigher(this::weigh);
     } else {
       builder.maximumSize(maxSize);
     }
@@ -180,6 +188,14 @@ public class CaffeineCache<K, V> extends SolrCacheBase implements SolrCache<K, V
     return newCache;
   }
 
+  /**
+   * The weight of an entry when the cache is bounded by {@link #MAX_RAM_MB_PARAM}. Defaults to the estimated
+   * heap size of the key and the value.
+   */
+  protected int weigh(K key, V value) {
+    return (int) (RamUsageEstimator.sizeOfObject(key) + RamUsageEstimator.sizeOfObject(value));
+  }
+
   @Override
   public void onRemoval(K key, V value, RemovalCause cause) {
     ramBytes.add(
@@ -374,6 +390,18 @@ public class CaffeineCache<K, V> extends SolrCacheBase implements SolrCache<K, V
 
   @Override
   public void warm(SolrIndexSearcher searcher, SolrCache<K,V> old) {
+    warm(searcher, old, null);
+  }
+
+  /**
+   * {@inheritDoc}
+   * <p>
+   * Items are taken from the old cache in the order of {@link Eviction#hottest(int)}, which reflects the access
+   * frequency estimated by the eviction policy. With a budget, the items whose regeneration was measured while
+   * warming the old cache are re-ranked by frequency rank times cost, so cheap hot items are warmed first.
+   */
+  @Override
+  public void warm(SolrIndexSearcher searcher, SolrCache<K,V> old, TimeOut budget) {
     if (regenerator == null) {
       return;
     }
@@ -388,7 +416,19 @@ public class CaffeineCache<K, V> extends SolrCacheBase implements SolrCache<K, V
       hottest = other.cache.policy().eviction().map(p -> p.hottest(size)).orElse(Collections.emptyMap());
     }
 
-    for (Entry<K, V> entry : hottest.entrySet()) {
+    List<Entry<K, V>> entries = new ArrayList<>(hottest.entrySet());
+    Map<K, Long> costs = Collections.emptyMap();
+    if (budget != null) {
+      rankByCost(entries, other.warmupCosts);
+      costs = new HashMap<>();
+    }
+
+    int regenerated = 0;
+    for (Entry<K, V> entry : entries) {
+      if (budget != null && budget.hasTimedOut()) {
+        break;
+      }
+      long start = System.nanoTime();
       try {
         boolean continueRegen = regenerator.regenerateItem(
             searcher, this, old, entry.getKey(), entry.getValue());
@@ -398,6 +438,11 @@ public class CaffeineCache<K, V> extends SolrCacheBase implements SolrCache<K, V
       }
       catch (Exception e) {
         SolrException.log(log, "Error during auto-warming of key:" + entry.getKey(), e);
+      } finally {
+        regenerated++;
+        if (budget != null) {
+          costs.put(entry.getKey(), System.nanoTime() - start);
+        }
       }
     }
 
@@ -409,9 +454,32 @@ public class CaffeineCache<K, V> extends SolrCacheBase implements SolrCache<K, V
     priorHits = oldStats.hitCount() + other.hits.sum() + other.priorHits;
     priorInserts = other.inserts.sum() + other.priorInserts;
     priorLookups = oldStats.requestCount() + other.lookups.sum() + other.priorLookups;
+    warmupCosts = costs;
+    warmupSkipped = budget != null && budget.hasTimedOut() ? entries.size() - regenerated : 0;
     warmupTime = TimeUnit.MILLISECONDS.convert(System.nanoTime() - warmingStartTime, TimeUnit.NANOSECONDS);
   }
 
+  /**
+   * Stable sort of the entries, in frequency order, by (rank + 1) * cost: the frequency of the n-th hottest item is
+   * assumed to be proportional to 1/n. Items without a recorded cost are given the average one.
+   */
+  private static <K, V> void rankByCost(List<Entry<K, V>> entries, Map<K, Long> costs) {
+    if (costs.isEmpty()) {
+      return;
+    }
+    long total = 0;
+    for (long cost : costs.values()) {
+      total += cost;
+    }
+    long averageCost = Math.max(1, total / costs.size());
+    Map<K, Double> scores = new HashMap<>();
+    for (int i = 0; i < entries.size(); i++) {
+      K key = entries.get(i).getKey();
+      scores.put(key, (i + 1) * (double) costs.getOrDefault(key, averageCost));
+    }
+    entries.sort((a, b) -> Double.compare(scores.get(a.getKey()), scores.get(b.getKey())));
+  }
+
   /** Returns the description of this cache. */
   private String generateDescription(int limit, int initialSize) {
     return String.format(Locale.ROOT, "Caffeine Cache(maxSize=%d, initialSize=%d%s)",
@@ -468,6 +536,7 @@ public class CaffeineCache<K, V> extends SolrCacheBase implements SolrCache<K, V
         map.put(EVICTIONS_PARAM, stats.evictionCount());
         map.put(SIZE_PARAM, cache.asMap().size());
         map.put("warmupTime", warmupTime);
+        map.put("warmupSkipped", warmupSkipped);
         map.put(RAM_BYTES_USED_PARAM, ramBytesUsed());
         map.put(MAX_RAM_MB_PARAM, getMaxRamMB());
 
@@ -479,11 +548,16 @@ public class CaffeineCache<K, V> extends SolrCacheBase implements SolrCache<K, V
         map.put("cumulative_hitratio", hitRate(cumHits, cumLookups));
         map.put("cumulative_inserts", priorInserts + insertCount);
         map.put("cumulative_evictions", cumulativeStats.evictionCount());
+        writeAdditionalMetrics(map);
       }
     });
     solrMetricsContext.gauge(cacheMap, true, scope, getCategory().toString());
   }
 
+  /** Hook for subclasses to report implementation specific statistics along with the standard ones. */
+  protected void writeAdditionalMetrics(MapWriter.EntryWriter map) throws IOException {
+  }
+
   private static double hitRate(long hitCount, long lookupCount) {
     return lookupCount == 0 ? 1.0 : (double) hitCount / lookupCount;
   }
@@ -18,11 +18,14 @@ package org.apache.solr.search;
 
 import java.io.IOException;
 import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
 
 import org.apache.lucene.index.LeafReaderContext;
 import org.apache.lucene.search.Scorable;
 import org.apache.lucene.search.ScoreMode;
 import org.apache.lucene.search.SimpleCollector;
+import org.apache.lucene.util.ArrayUtil;
 import org.apache.lucene.util.FixedBitSet;
 
 /**
@@ -91,6 +94,139 @@ public class DocSetCollector extends SimpleCollector {
     }
   }
 
+  /**
+   * The collectors of the slices of a concurrent search, like that of an {@link org.apache.lucene.search.IndexSearcher}
+   * with an executor. Rather than a bit set of maxDoc bits each, the collectors set the bits of their segments in one
+   * bit set shared by all the slices: a word that lies entirely within a segment is only written by the collector of
+   * that segment, while the two words at the edges of a segment, which it may share with segments of other slices,
+   * are kept aside and merged by {@link #getDocSet()} once all the slices are done.
+   */
+  public static class Slices {
+    private final int maxDoc;
+    private final List<SliceCollector> collectors = new ArrayList<>();
+    private FixedBitSet bits;
+
+    public Slices(int maxDoc) {
+      this.maxDoc = maxDoc;
+    }
+
+    /** A collector for a new slice; the collectors must all be created before any of them is run */
+    public DocSetCollector newCollector() {
+      SliceCollector collector = new SliceCollector(this);
+      collectors.add(collector);
+      return collector;
+    }
+
+    private synchronized FixedBitSet bits() {
+      if (bits == null) {
+        bits = new FixedBitSet(maxDoc);
+      }
+      return bits;
+    }
+
+    /**
+     * Returns the union of the documents collected by all the slices, once they are all done. Unlike
+     * {@link DocSetCollector#getDocSet()}, this doesn't assume that the segments were collected in order.
+     */
+    public DocSet getDocSet() {
+      int size = 0;
+      boolean allInScratch = true;
+      for (SliceCollector collector : collectors) {
+        collector.flushEdges();
+        size += collector.pos;
+        allInScratch &= collector.pos <= collector.scratch.size();
+      }
+
+      if (allInScratch && size <= DocSetUtil.smallSetSize(maxDoc)) {
+        int[] docs = new int[size];
+        int upto = 0;
+        for (SliceCollector collector : collectors) {
+          int[] collected = collector.scratch.toArray();
+          System.arraycopy(collected, 0, docs, upto, collected.length);
+          upto += collected.length;
+        }
+        Arrays.sort(docs);
+        return new SortedIntDocSet(docs, size);
+      }
+
+      FixedBitSet result = bits();
+      long[] words = result.getBits();
+      for (SliceCollector collector : collectors) {
+        collector.scratch.copyTo(result);
+        for (int i = 0; i < collector.numEdges; i++) {
+          words[collector.edgeWords[i]] |= collector.edgeBits[i];
+        }
+      }
+      return new BitDocSet(result, size);
+    }
+  }
+
+  /** Collects a slice into the bit set shared by the {@link Slices} */
+  private static class SliceCollector extends DocSetCollector {
+    private final Slices slices;
+    // the words at the edges of the current segment, and their bits
+    private int firstWord = -1;
+    private int lastWord = -1;
+    private long firstBits;
+    private long lastBits;
+    // the edge words of the previous segments
+    private int[] edgeWords = new int[4];
+    private long[] edgeBits = new long[4];
+    private int numEdges;
+
+    SliceCollector(Slices slices) {
+      super(slices.maxDoc);
+      this.slices = slices;
+    }
+
+    @Override
+    public void collect(int doc) {
+      doc += base;
+      if (pos < smallSetSize) {
+        scratch.add(pos, doc);
+      } else {
+        final int word = doc >> 6;
+        if (word == firstWord) {
+          firstBits |= 1L << doc;
+        } else if (word == lastWord) {
+          lastBits |= 1L << doc;
+        } else {
+          if (bits == null) bits = slices.bits();
+          bits.set(doc);
+        }
+      }
+      pos++;
+    }
+
+    @Override
+    void startSegment(int docBase, int segmentMaxDoc) {
+      flushEdges();
+      base = docBase;
+      firstWord = docBase >> 6;
+      lastWord = (docBase + segmentMaxDoc - 1) >> 6;
+    }
+
+    private void flushEdges() {
+      if (firstBits != 0) {
+        addEdge(firstWord, firstBits);
+        firstBits = 0;
+      }
+      if (lastBits != 0) {
+        addEdge(lastWord, lastBits);
+        lastBits = 0;
+      }
+    }
+
+    private void addEdge(int word, long wordBits) {
+      if (numEdges == edgeWords.length) {
+        edgeWords = ArrayUtil.grow(edgeWords);
+        edgeBits = ArrayUtil.growExact(edgeBits, edgeWords.length);
+      }
+      edgeWords[numEdges] = word;
+      edgeBits[numEdges++] = wordBits;
+    }
+  }
+
   @Override
   public void setScorer(Scorable scorer) throws IOException {
   }
@@ -102,7 +238,12 @@ public class DocSetCollector extends SimpleCollector {
 
   @Override
   protected void doSetNextReader(LeafReaderContext context) throws IOException {
-    this.base = context.docBase;
+    startSegment(context.docBase, context.reader().maxDoc());
+  }
+
+  /** Prepares for collecting the segment of the given docBase and maxDoc */
+  void startSegment(int docBase, int segmentMaxDoc) {
+    this.base = docBase;
   }
 
   protected static class ExpandingIntArray {
@@ -46,6 +46,22 @@ public class DocSetUtil {
     return (maxDoc>>6)+5;  // The +5 is for better test coverage for small sets
   }
 
+  /**
+   * Returns a {@link RoaringDocSet} copy of a {@link BitDocSet} if it takes at most half the memory, which happens for
+   * medium density or clustered sets on large indexes.  Otherwise returns the given set.
+   */
+  public static DocSet compactDocSet(DocSet docs) {
+    if (!(docs instanceof BitDocSet)) {
+      return docs;
+    }
+    final FixedBitSet bits = ((BitDocSet) docs).getBits();
+    final long maxBytes = ((long) bits.getBits().length << 3) >>> 1;
+    if (RoaringDocSet.estimateRamBytesUsed(bits, maxBytes) <= maxBytes) {
+      return RoaringDocSet.fromBits(bits);
+    }
+    return docs;
+  }
+
   /**
    * Iterates DocSets to test for equality - slow and for testing purposes only.
    * @lucene.internal
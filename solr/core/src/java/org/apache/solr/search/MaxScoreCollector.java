@@ -17,6 +17,7 @@
 package org.apache.solr.search;
 
 import java.io.IOException;
+import java.util.Collection;
 
 import org.apache.lucene.search.Collector;
 import org.apache.lucene.search.Scorable;
@@ -35,6 +36,20 @@ public class MaxScoreCollector extends SimpleCollector {
     return collectedAnyHits ? maxScore : Float.NaN;
   }
 
+  /**
+   * Returns the maximum score of several collectors, like the collectors of the slices of an
+   * {@link org.apache.lucene.search.IndexSearcher} with an executor, or NaN if none of them collected any hits.
+   */
+  public static float getMaxScore(Collection<MaxScoreCollector> collectors) {
+    float maxScore = Float.NaN;
+    for (MaxScoreCollector collector : collectors) {
+      if (collector.collectedAnyHits && (Float.isNaN(maxScore) || Float.compare(collector.maxScore, maxScore) > 0)) {
+        maxScore = collector.maxScore;
+      }
+    }
+    return maxScore;
+  }
+
   @Override
   public ScoreMode scoreMode() {
     return ScoreMode.TOP_SCORES;
@@ -0,0 +1,427 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.apache.solr.search;
+
+import java.nio.ByteBuffer;
+import java.nio.LongBuffer;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.concurrent.atomic.AtomicLong;
+
+import org.apache.lucene.index.LeafReaderContext;
+import org.apache.lucene.search.DocIdSet;
+import org.apache.lucene.search.DocIdSetIterator;
+import org.apache.lucene.util.Accountable;
+import org.apache.lucene.util.Bits;
+import org.apache.lucene.util.FixedBitSet;
+import org.apache.lucene.util.RamUsageEstimator;
+
+/**
+ * A read-only bit set {@link DocSet} whose words live in a direct (off-heap) {@link LongBuffer}.  It has the same
+ * layout as a {@link BitDocSet} and is used by {@link OffHeapFilterCache} so that large filters don't occupy the
+ * Java heap.  Membership checks, iteration and the {@link #getBits()} view read the buffer directly; operations
+ * producing a new set return heap based {@link BitDocSet}s.
+ * <p>
+ * The memory is held by a reference counted {@link OffHeapBuffer}: {@link OffHeapFilterCache} frees it once the
+ * set is evicted and no request references it anymore. Sets created with {@link #copyOf(BitDocSet)} are freed by the
+ * garbage collector.
+ */
+public class OffHeapBitDocSet extends DocSet {
+  private static final long BASE_RAM_BYTES_USED = RamUsageEstimator.shallowSizeOfInstance(OffHeapBitDocSet.class)
+      + RamUsageEstimator.shallowSizeOfInstance(LongBuffer.class)
+      + RamUsageEstimator.shallowSizeOfInstance(ByteBuffer.class)
+      + RamUsageEstimator.shallowSizeOfInstance(OffHeapBuffer.class);
+
+  private final OffHeapBuffer buffer;
+  private final LongBuffer words; // only accessed with absolute gets, so it can be shared across threads
+  private final int numWords;
+  private final int numBits;
+  private final int size;
+
+  private OffHeapBitDocSet(OffHeapBuffer buffer, int numBits, int size) {
+    this.buffer = buffer;
+    this.words = buffer.buffer().asLongBuffer();
+    this.numWords = words.capacity();
+    this.numBits = numBits;
+    this.size = size;
+  }
+
+  /** Copies the bits of the given set to off-heap memory */
+  public static OffHeapBitDocSet copyOf(BitDocSet docs) {
+    FixedBitSet bits = docs.getBits();
+    OffHeapBuffer buffer = OffHeapBuffer.allocate(FixedBitSet.bits2words(bits.length()) << 3);
+    return copyOf(bits, docs.size(), buffer);
+  }
+
+  /**
+   * Copies the bits of the given set to off-heap memory accounted for in allocatedBytes
+   *
+   * @return the copy, or null if the allocation would take allocatedBytes over maxBytes
+   * @see OffHeapBuffer#allocate(long, AtomicLong, long)
+   */
+  static OffHeapBitDocSet copyOf(BitDocSet docs, AtomicLong allocatedBytes, long maxBytes) {
+    FixedBitSet bits = docs.getBits();
+    OffHeapBuffer buffer = OffHeapBuffer.allocate((long) FixedBitSet.bits2words(bits.length()) << 3, allocatedBytes, maxBytes);
+    return buffer == null ? null : copyOf(bits, docs.size(), buffer);
+  }
+
+  private static OffHeapBitDocSet copyOf(FixedBitSet bits, int size, OffHeapBuffer buffer) {
+    OffHeapBitDocSet copy = new OffHeapBitDocSet(buffer, bits.length(), size);
+    copy.words.put(bits.getBits(), 0, copy.numWords).rewind();
+    return copy;
+  }
+
+  /**
+   * Copies this set to new off-heap memory accounted for in allocatedBytes; the caller must hold a reference to
+   * {@link #buffer()}
+   *
+   * @return the copy, or null if the allocation would take allocatedBytes over maxBytes
+   */
+  OffHeapBitDocSet copy(AtomicLong allocatedBytes, long maxBytes) {
+    OffHeapBuffer copy = OffHeapBuffer.allocate(offHeapBytesUsed(), allocatedBytes, maxBytes);
+    if (copy == null) {
+      return null;
+    }
+    copy.buffer().put(buffer.buffer().duplicate()).rewind();
+    return new OffHeapBitDocSet(copy, numBits, size);
+  }
+
+  /** The buffer holding the bits */
+  OffHeapBuffer buffer() {
+    return buffer;
+  }
+
+  /** Number of bytes of off-heap memory held by this set */
+  public long offHeapBytesUsed() {
+    return (long) numWords << 3;
+  }
+
+  @Override
+  public int size() {
+    return size;
+  }
+
+  @Override
+  public boolean exists(int doc) {
+    return doc < numBits && (words.get(doc >> 6) & (1L << doc)) != 0;
+  }
+
+  /** Returns the index of the first set bit at or after index, or {@link DocIdSetIterator#NO_MORE_DOCS} */
+  private int nextSetBit(int index) {
+    if (index >= numBits) {
+      return DocIdSetIterator.NO_MORE_DOCS;
+    }
+    int i = index >> 6;
+    long word = words.get(i) >> index; // skip all the bits to the right of index
+    if (word != 0) {
+      return index + Long.numberOfTrailingZeros(word);
+    }
+    while (++i < numWords) {
+      word = words.get(i);
+      if (word != 0) {
+        return (i << 6) + Long.numberOfTrailingZeros(word);
+      }
+    }
+    return DocIdSetIterator.NO_MORE_DOCS;
+  }
+
+  @Override
+  public DocIterator iterator() {
+    return new DocIterator() {
+      private int pos = nextSetBit(0);
+
+      @Override
+      public boolean hasNext() {
+        return pos != DocIdSetIterator.NO_MORE_DOCS;
+      }
+
+      @Override
+      public Integer next() {
+        return nextDoc();
+      }
+
+      @Override
+      public int nextDoc() {
+        int old = pos;
+        pos = nextSetBit(old + 1);
+        return old;
+      }
+
+      @Override
+      public float score() {
+        return 0.0f;
+      }
+    };
+  }
+
+  @Override
+  public DocIdSetIterator iterator(LeafReaderContext context) {
+    if (size == 0) {
+      return null;
+    }
+    final int base = context.isTopLevel ? 0 : context.docBase;
+    final int maxDoc = context.isTopLevel ? numBits : context.reader().maxDoc();
+    if (maxDoc < 1) {
+      return null;
+    }
+    final int max = base + maxDoc; // one past the max doc in this segment.
+
+    return new DocIdSetIterator() {
+      int adjustedDoc = -1;
+
+      @Override
+      public int docID() {
+        return adjustedDoc;
+      }
+
+      @Override
+      public int nextDoc() {
+        return advance(adjustedDoc + 1);
+      }
+
+      @Override
+      public int advance(int target) {
+        if (target == NO_MORE_DOCS) return adjustedDoc = NO_MORE_DOCS;
+        int adjusted = target + base;
+        if (adjusted >= max) {
+          return adjustedDoc = NO_MORE_DOCS;
+        }
+        int pos = nextSetBit(adjusted);
+        return adjustedDoc = pos < max ? pos - base : NO_MORE_DOCS;
+      }
+
+      @Override
+      public long cost() {
+        // pro-rated for the segment
+        return (long) (size * (maxDoc / (float) Math.max(1, numBits)));
+      }
+    };
+  }
+
+  @Override
+  public DocSet intersection(DocSet other) {
+    if (other instanceof SortedIntDocSet || other instanceof OffHeapSortedIntDocSet || other instanceof RoaringDocSet) {
+      // the sparse and compressed sets probe exists() on us, and don't call us back
+      return other.intersection(this);
+    }
+    FixedBitSet newbits = other.getFixedBitSetClone();
+    andInto(newbits);
+    return new BitDocSet(newbits);
+  }
+
+  /** ANDs the bits of this set into target */
+  private void andInto(FixedBitSet target) {
+    final long[] targetWords = target.getBits();
+    final int common = Math.min(numWords, FixedBitSet.bits2words(target.length()));
+    for (int i = 0; i < common; i++) {
+      targetWords[i] &= words.get(i);
+    }
+    for (int i = common; i < targetWords.length; i++) {
+      targetWords[i] = 0;
+    }
+  }
+
+  @Override
+  public int intersectionSize(DocSet other) {
+    if (other instanceof BitDocSet) {
+      final long[] otherWords = ((BitDocSet) other).getBits().getBits();
+      final int common = Math.min(numWords, otherWords.length);
+      long count = 0;
+      for (int i = 0; i < common; i++) {
+        count += Long.bitCount(words.get(i) & otherWords[i]);
+      }
+      return (int) count;
+    } else if (other instanceof OffHeapBitDocSet) {
+      final OffHeapBitDocSet otherSet = (OffHeapBitDocSet) other;
+      final int common = Math.min(numWords, otherSet.numWords);
+      long count = 0;
+      for (int i = 0; i < common; i++) {
+        count += Long.bitCount(words.get(i) & otherSet.words.get(i));
+      }
+      return (int) count;
+    }
+    int count = 0;
+    DocIterator iter = other.iterator();
+    while (iter.hasNext()) {
+      if (exists(iter.nextDoc())) count++;
+    }
+    return count;
+  }
+
+  @Override
+  public boolean intersects(DocSet other) {
+    if (other instanceof BitDocSet) {
+      final long[] otherWords = ((BitDocSet) other).getBits().getBits();
+      final int common = Math.min(numWords, otherWords.length);
+      for (int i = 0; i < common; i++) {
+        if ((words.get(i) & otherWords[i]) != 0) return true;
+      }
+      return false;
+    }
+    DocIterator iter = other.iterator();
+    while (iter.hasNext()) {
+      if (exists(iter.nextDoc())) return true;
+    }
+    return false;
+  }
+
+  @Override
+  public DocSet union(DocSet other) {
+    FixedBitSet otherBits = other.getFixedBitSet();
+    FixedBitSet newbits = FixedBitSet.ensureCapacity(getFixedBitSetClone(), otherBits.length());
+    newbits.or(otherBits);
+    return new BitDocSet(newbits);
+  }
+
+  @Override
+  public DocSet andNot(DocSet other) {
+    FixedBitSet newbits = getFixedBitSetClone();
+    if (other instanceof BitDocSet) {
+      newbits.andNot(((BitDocSet) other).getBits());
+    } else {
+      DocIterator iter = other.iterator();
+      while (iter.hasNext()) {
+        int doc = iter.nextDoc();
+        if (doc < newbits.length()) {
+          newbits.clear(doc);
+        }
+      }
+    }
+    return new BitDocSet(newbits);
+  }
+
+  @Override
+  public void addAllTo(FixedBitSet target) {
+    final long[] targetWords = target.getBits();
+    final int common = Math.min(numWords, targetWords.length);
+    for (int i = 0; i < common; i++) {
+      targetWords[i] |= words.get(i);
+    }
+  }
+
+  @Override
+  public DocSet clone() {
+    return new BitDocSet(getFixedBitSetClone(), size);
+  }
+
+  @Override
+  public Bits getBits() {
+    return new Bits() {
+      @Override
+      public boolean get(int index) {
+        return (words.get(index >> 6) & (1L << index)) != 0;
+      }
+
+      @Override
+      public int length() {
+        return numBits;
+      }
+    };
+  }
+
+  /**
+   * Unlike the other bit sets, this isn't a view: the words have to be copied to the heap to back a
+   * {@link FixedBitSet}, so each call allocates as much heap as the set holds off-heap.
+   */
+  @Override
+  protected FixedBitSet getFixedBitSet() {
+    return getFixedBitSetClone();
+  }
+
+  @Override
+  protected FixedBitSet getFixedBitSetClone() {
+    long[] copy = new long[numWords];
+    words.duplicate().get(copy);
+    return new FixedBitSet(copy, numBits);
+  }
+
+  @Override
+  public Filter getTopFilter() {
+    return new Filter() {
+      final LongBuffer ws = words;
+
+      @Override
+      public DocIdSet getDocIdSet(final LeafReaderContext context, final Bits acceptDocs) {
+        // all Solr DocSets that are used as filters only include live docs
+        final Bits acceptDocs2 = acceptDocs == null ? null : (context.reader().getLiveDocs() == acceptDocs ? null : acceptDocs);
+
+        return BitsFilteredDocIdSet.wrap(new DocIdSet() {
+          @Override
+          public DocIdSetIterator iterator() {
+            return OffHeapBitDocSet.this.iterator(context);
+          }
+
+          @Override
+          public long ramBytesUsed() {
+            return OffHeapBitDocSet.this.ramBytesUsed();
+          }
+
+          @Override
+          public Bits bits() {
+            final int base = context.isTopLevel ? 0 : context.docBase;
+            final int length = context.isTopLevel ? numBits : context.reader().maxDoc();
+            return new Bits() {
+              @Override
+              public boolean get(int index) {
+                return exists(index + base);
+              }
+
+              @Override
+              public int length() {
+                return length;
+              }
+            };
+          }
+        }, acceptDocs2);
+      }
+
+      @Override
+      public String toString(String field) {
+        return "OffHeapBitSetDocTopFilter";
+      }
+
+      @Override
+      public boolean equals(Object other) {
+        return sameClassAs(other) && ws == getClass().cast(other).ws;
+      }
+
+      @Override
+      public int hashCode() {
+        return classHash() * 31 + System.identityHashCode(ws);
+      }
+    };
+  }
+
+  /** The heap used by this instance; see {@link #offHeapBytesUsed()} for the memory of the bits */
+  @Override
+  public long ramBytesUsed() {
+    return BASE_RAM_BYTES_USED;
+  }
+
+  @Override
+  public Collection<Accountable> getChildResources() {
+    return Collections.emptyList();
+  }
+
+  @Override
+  public String toString() {
+    return "OffHeapBitDocSet{" +
+        "size=" + size() +
+        ",offHeapUsed=" + RamUsageEstimator.humanReadableUnits(offHeapBytesUsed()) +
+        '}';
+  }
+}
@@ -0,0 +1,199 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.apache.solr.search;
+
+import java.io.Closeable;
+import java.lang.invoke.MethodHandle;
+import java.lang.invoke.MethodHandles;
+import java.lang.invoke.MethodType;
+import java.lang.ref.PhantomReference;
+import java.lang.ref.Reference;
+import java.lang.ref.ReferenceQueue;
+import java.lang.reflect.Field;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+
+import org.apache.lucene.util.SuppressForbidden;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * A reference counted direct {@link ByteBuffer} backing an {@link OffHeapBitDocSet} or an
+ * {@link OffHeapSortedIntDocSet}. It is created with one reference; {@link #tryRetain()} adds one and {@link #close()}
+ * releases one. When the last reference is released the memory is freed right away rather than whenever the garbage
+ * collector gets to the buffer, so the buffer must not be read anymore.
+ * <p>
+ * Allocations may be accounted for in a counter, which is decremented once their memory is actually freed: either
+ * explicitly, or by the garbage collector for the buffers that were never released (or if the JVM doesn't allow
+ * freeing them explicitly).
+ */
+final class OffHeapBuffer implements Closeable {
+  private static final Logger log = LoggerFactory.getLogger(MethodHandles.lookup().lookupClass());
+
+  private static final MethodHandle INVOKE_CLEANER = lookupInvokeCleaner();
+
+  private static final ReferenceQueue<ByteBuffer> COLLECTED = new ReferenceQueue<>();
+  // keeps the phantom references reachable until their buffer is freed
+  private static final Set<Allocation> ALLOCATIONS = ConcurrentHashMap.newKeySet();
+
+  /** Accounts for the memory of a buffer until it's freed, explicitly or by the garbage collector */
+  private static final class Allocation extends PhantomReference<ByteBuffer> {
+    private final long bytes;
+    private final AtomicLong allocatedBytes;
+    private final AtomicBoolean freed = new AtomicBoolean();
+
+    Allocation(ByteBuffer buffer, long bytes, AtomicLong allocatedBytes) {
+      super(buffer, COLLECTED);
+      this.bytes = bytes;
+      this.allocatedBytes = allocatedBytes;
+      ALLOCATIONS.add(this);
+    }
+
+    void freed() {
+      if (freed.compareAndSet(false, true)) {
+        ALLOCATIONS.remove(this);
+        clear();
+        allocatedBytes.addAndGet(-bytes);
+      }
+    }
+  }
+
+  private final ByteBuffer buffer;
+  private final Allocation allocation; // null if the allocation isn't accounted for
+  private final AtomicInteger refCount = new AtomicInteger(1);
+
+  private OffHeapBuffer(ByteBuffer buffer, Allocation allocation) {
+    this.buffer = buffer;
+    this.allocation = allocation;
+  }
+
+  /** Allocates a buffer that is only accounted for by the garbage collector */
+  static OffHeapBuffer allocate(int bytes) {
+    return new OffHeapBuffer(ByteBuffer.allocateDirect(bytes).order(ByteOrder.nativeOrder()), null);
+  }
+
+  /**
+   * Allocates a buffer and adds its size to allocatedBytes until it's freed, unless that would take allocatedBytes
+   * over maxBytes.
+   *
+   * @return the buffer, or null if the budget doesn't allow the allocation
+   */
+  static OffHeapBuffer allocate(long bytes, AtomicLong allocatedBytes, long maxBytes) {
+    accountForCollected();
+    if (bytes > Integer.MAX_VALUE) {
+      return null;
+    }
+    long allocated;
+    do {
+      allocated = allocatedBytes.get();
+      if (allocated + bytes > maxBytes) {
+        return null;
+      }
+    } while (!allocatedBytes.compareAndSet(allocated, allocated + bytes));
+
+    boolean success = false;
+    try {
+      ByteBuffer buffer = ByteBuffer.allocateDirect((int) bytes).order(ByteOrder.nativeOrder());
+      OffHeapBuffer offHeapBuffer = new OffHeapBuffer(buffer, new Allocation(buffer, bytes, allocatedBytes));
+      success = true;
+      return offHeapBuffer;
+    } finally {
+      if (!success) {
+        allocatedBytes.addAndGet(-bytes);
+      }
+    }
+  }
+
+  /** Updates the counters of the allocations whose buffers were garbage collected without being freed */
+  static void accountForCollected() {
+    Reference<? extends ByteBuffer> ref;
+    while ((ref = COLLECTED.poll()) != null) {
+      ((Allocation) ref).freed();
+    }
+  }
+
+  /** Whether buffers are freed when their last reference is released, rather than by the garbage collector */
+  static boolean canFreeExplicitly() {
+    return INVOKE_CLEANER != null;
+  }
+
+  @SuppressForbidden(reason = "Needs access to sun.misc.Unsafe to free direct buffers")
+  private static MethodHandle lookupInvokeCleaner() {
+    try {
+      Class<?> unsafeClass = Class.forName("sun.misc.Unsafe");
+      Field theUnsafe = unsafeClass.getDeclaredField("theUnsafe");
+      theUnsafe.setAccessible(true);
+      return MethodHandles.lookup()
+          .findVirtual(unsafeClass, "invokeCleaner", MethodType.methodType(void.class, ByteBuffer.class))
+          .bindTo(theUnsafe.get(null));
+    } catch (ReflectiveOperationException | RuntimeException e) {
+      log.warn("Off-heap filter sets can't be freed explicitly, their memory will be freed by the garbage collector", e);
+      return null;
+    }
+  }
+
+  /** The buffer; it is only valid while a reference is held */
+  ByteBuffer buffer() {
+    return buffer;
+  }
+
+  /**
+   * Adds a reference, unless the buffer was already freed
+   *
+   * @return whether a reference was added, which must then be released with {@link #close()}
+   */
+  boolean tryRetain() {
+    int count;
+    do {
+      count = refCount.get();
+      if (count <= 0) {
+        return false;
+      }
+    } while (!refCount.compareAndSet(count, count + 1));
+    return true;
+  }
+
+  /** Releases a reference, freeing the memory if it was the last one */
+  @Override
+  public void close() {
+    int count = refCount.decrementAndGet();
+    assert count >= 0 : "released more references than were taken";
+    if (count == 0) {
+      free();
+    }
+  }
+
+  private void free() {
+    if (INVOKE_CLEANER == null) {
+      return; // the garbage collector frees it, and Allocation accounts for it then
+    }
+    try {
+      INVOKE_CLEANER.invokeExact(buffer);
+    } catch (Throwable t) {
+      log.warn("Couldn't free an off-heap buffer, its memory will be freed by the garbage collector", t);
+      return;
+    }
+    if (allocation != null) {
+      allocation.freed();
+    }
+  }
+}
@@ -0,0 +1,241 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.apache.solr.search;
+
+import java.io.IOException;
+import java.util.concurrent.atomic.AtomicLong;
+
+import com.github.benmanes.caffeine.cache.RemovalCause;
+import org.apache.lucene.search.Query;
+import org.apache.lucene.util.RamUsageEstimator;
+import org.apache.solr.common.MapWriter;
+import org.apache.solr.request.SolrRequestInfo;
+import org.apache.solr.util.IOFunction;
+
+/**
+ * A filterCache implementation that keeps the {@link BitDocSet} and {@link SortedIntDocSet} payloads in off-heap
+ * (direct) memory, so that large indexes can use big filter caches without the associated old generation churn and
+ * GC pauses. Cached sets are returned as zero-copy {@link OffHeapBitDocSet} and {@link OffHeapSortedIntDocSet} views.
+ * <p>
+ * Eviction and autowarming are those of {@link CaffeineCache}. The off-heap memory of a set is reference counted:
+ * the cache holds a reference while the set is cached, and each request that looks the set up holds one until the
+ * request is closed. The memory is freed as soon as the last reference is released, so an evicted set is freed once
+ * no request uses it anymore rather than whenever the garbage collector gets to it. Lookups made outside of a request
+ * get a heap copy of the set, since nothing would release their reference. The values returned by
+ * {@link #put(Query, DocSet)} and {@link #remove(Query)} are already released, so off-heap ones are not returned.
+ * </p>
+ * <p>
+ * When <code>maxRamMB</code> is configured, the weight of an entry includes its off-heap memory, and
+ * <code>maxRamMB</code> also bounds the off-heap memory actually allocated by the cache and not freed yet, which
+ * includes evicted sets still in use: sets that don't fit are cached on the heap. The JVM limits direct memory with
+ * <code>-XX:MaxDirectMemorySize</code>, which must be large enough for the caches of all the cores (and of the
+ * searchers being warmed) of the node.
+ * </p>
+ * <pre class="prettyprint">
+ * &lt;filterCache class="solr.OffHeapFilterCache" maxRamMB="4096" autowarmCount="128"/&gt;
+ * </pre>
+ *
+ * @lucene.experimental
+ */
+public class OffHeapFilterCache extends CaffeineCache<Query, DocSet> {
+
+  public static final String OFF_HEAP_BYTES_USED_PARAM = "offHeapBytesUsed";
+
+  /** off-heap memory allocated by this cache and not freed yet */
+  private final AtomicLong offHeapBytes = new AtomicLong();
+
+  private long maxOffHeapBytes() {
+    return getMaxRamMB() < 0 ? Long.MAX_VALUE : getMaxRamMB() * 1024L * 1024L;
+  }
+
+  /**
+   * Copies the set to off-heap memory owned by this cache, with the one reference of the cache. Sets that are
+   * already off-heap (e.g. regenerated from the old cache while warming) are copied too, so that each cache accounts
+   * for the memory it holds. Sets that don't fit in the budget of the cache stay on the heap.
+   *
+   * @return the set to cache, or null for an off-heap set that the old cache freed in the meantime
+   */
+  DocSet toOffHeap(DocSet docs) {
+    DocSet offHeap = null;
+    if (docs instanceof BitDocSet) {
+      offHeap = OffHeapBitDocSet.copyOf((BitDocSet) docs, offHeapBytes, maxOffHeapBytes());
+    } else if (docs instanceof SortedIntDocSet) {
+      offHeap = OffHeapSortedIntDocSet.copyOf((SortedIntDocSet) docs, offHeapBytes, maxOffHeapBytes());
+    } else if (docs instanceof OffHeapBitDocSet || docs instanceof OffHeapSortedIntDocSet) {
+      OffHeapBuffer buffer = buffer(docs);
+      if (buffer.tryRetain()) {
+        try {
+          offHeap = docs instanceof OffHeapBitDocSet
+              ? ((OffHeapBitDocSet) docs).copy(offHeapBytes, maxOffHeapBytes())
+              : ((OffHeapSortedIntDocSet) docs).copy(offHeapBytes, maxOffHeapBytes());
+          if (offHeap == null) {
+            offHeap = docs.clone();
+          }
+        } finally {
+          buffer.close();
+        }
+      }
+      // else it was freed by the old cache: there is nothing left to copy
+      return offHeap;
+    }
+    return offHeap == null ? docs : offHeap;
+  }
+
+  /** The buffer of an off-heap set, or null for the other sets */
+  private static OffHeapBuffer buffer(DocSet docs) {
+    if (docs instanceof OffHeapBitDocSet) {
+      return ((OffHeapBitDocSet) docs).buffer();
+    } else if (docs instanceof OffHeapSortedIntDocSet) {
+      return ((OffHeapSortedIntDocSet) docs).buffer();
+    }
+    return null;
+  }
+
+  /**
+   * Takes a reference to a set returned by the cache, which is released when the current request is closed. Outside
+   * of a request, a heap copy is returned instead.
+   *
+   * @return the set, or null if it was evicted and freed in the meantime
+   */
+  private DocSet retain(DocSet docs) {
+    OffHeapBuffer buffer = buffer(docs);
+    if (buffer == null) {
+      return docs;
+    }
+    if (!buffer.tryRetain()) {
+      return null;
+    }
+    return holdForRequest(docs, buffer);
+  }
+
+  /** Hands the reference to the set over to the current request, or returns a heap copy of the set */
+  private static DocSet holdForRequest(DocSet docs, OffHeapBuffer buffer) {
+    SolrRequestInfo requestInfo = SolrRequestInfo.getRequestInfo();
+    if (requestInfo != null) {
+      try {
+        requestInfo.addCloseHook(buffer);
+        return docs;
+      } catch (IllegalStateException e) {
+        // the request is already closed
+      }
+    }
+    try {
+      return docs.clone();
+    } finally {
+      buffer.close();
+    }
+  }
+
+  static long offHeapBytesUsed(DocSet docs) {
+    if (docs instanceof OffHeapBitDocSet) {
+      return ((OffHeapBitDocSet) docs).offHeapBytesUsed();
+    } else if (docs instanceof OffHeapSortedIntDocSet) {
+      return ((OffHeapSortedIntDocSet) docs).offHeapBytesUsed();
+    }
+    return 0;
+  }
+
+  @Override
+  public DocSet get(Query key) {
+    DocSet docs = super.get(key);
+    return docs == null ? null : retain(docs);
+  }
+
+  @Override
+  public DocSet put(Query key, DocSet val) {
+    DocSet offHeap = toOffHeap(val);
+    if (offHeap == null) {
+      return null;
+    }
+    DocSet old = super.put(key, offHeap);
+    return buffer(old) == null ? old : null;
+  }
+
+  @Override
+  public DocSet remove(Query key) {
+    DocSet old = super.remove(key);
+    return buffer(old) == null ? old : null;
+  }
+
+  @Override
+  public DocSet computeIfAbsent(Query key, IOFunction<? super Query, ? extends DocSet> mappingFunction) throws IOException {
+    // the set computed by this thread comes with the reference of the caller, since the entry may be evicted
+    // (and freed) before it's returned
+    DocSet[] computed = new DocSet[1];
+    DocSet docs = super.computeIfAbsent(key, k -> {
+      DocSet offHeap = toOffHeap(mappingFunction.apply(k));
+      OffHeapBuffer buffer = buffer(offHeap);
+      if (buffer != null) {
+        buffer.tryRetain();
+      }
+      return computed[0] = offHeap;
+    });
+    if (docs == null) {
+      return null;
+    }
+    if (docs == computed[0]) {
+      OffHeapBuffer buffer = buffer(docs);
+      return buffer == null ? docs : holdForRequest(docs, buffer);
+    }
+    DocSet retained = retain(docs);
+    // evicted and freed since it was looked up: compute it without caching it
+    return retained != null ? retained : mappingFunction.apply(key);
+  }
+
+  @Override
+  protected int weigh(Query key, DocSet value) {
+    return (int) Math.min(Integer.MAX_VALUE, super.weigh(key, value) + offHeapBytesUsed(value));
+  }
+
+  @Override
+  public void onRemoval(Query key, DocSet value, RemovalCause cause) {
+    super.onRemoval(key, value, cause);
+    OffHeapBuffer buffer = buffer(value);
+    if (buffer != null) {
+      buffer.close();
+    }
+  }
+
+  /**
+   * Off-heap memory allocated by this cache and not freed yet: the memory of its entries, and of the evicted ones that
+   * are still used by requests
+   */
+  public long offHeapBytesUsed() {
+    OffHeapBuffer.accountForCollected();
+    return offHeapBytes.get();
+  }
+
+  @Override
+  protected void writeAdditionalMetrics(MapWriter.EntryWriter map) throws IOException {
+    map.put(OFF_HEAP_BYTES_USED_PARAM, offHeapBytesUsed());
+  }
+
+  @Override
+  public String getName() {
+    return OffHeapFilterCache.class.getName();
+  }
+
+  @Override
+  public String getDescription() {
+    return "Off-heap " + super.getDescription();
+  }
+
+  @Override
+  public String toString() {
+    return super.toString() + "{offHeapUsed=" + RamUsageEstimator.humanReadableUnits(offHeapBytesUsed()) + "}";
+  }
+}
@@ -0,0 +1,385 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.apache.solr.search;
+
+import java.nio.ByteBuffer;
+import java.nio.IntBuffer;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.concurrent.atomic.AtomicLong;
+
+import com.carrotsearch.hppc.IntHashSet;
+
+import org.apache.lucene.index.LeafReaderContext;
+import org.apache.lucene.search.DocIdSet;
+import org.apache.lucene.search.DocIdSetIterator;
+import org.apache.lucene.util.Accountable;
+import org.apache.lucene.util.Bits;
+import org.apache.lucene.util.FixedBitSet;
+import org.apache.lucene.util.RamUsageEstimator;
+
+/**
+ * A read-only sorted int {@link DocSet} whose ids live in a direct (off-heap) {@link IntBuffer}. It is the off-heap
+ * counterpart of {@link SortedIntDocSet} used by {@link OffHeapFilterCache}; operations producing a new set
+ * return heap based sets. Like those of {@link OffHeapBitDocSet}, the ids are held by a reference counted
+ * {@link OffHeapBuffer}.
+ *
+ * @see OffHeapBitDocSet
+ */
+public class OffHeapSortedIntDocSet extends DocSet {
+  private static final long BASE_RAM_BYTES_USED = RamUsageEstimator.shallowSizeOfInstance(OffHeapSortedIntDocSet.class)
+      + RamUsageEstimator.shallowSizeOfInstance(IntBuffer.class)
+      + RamUsageEstimator.shallowSizeOfInstance(ByteBuffer.class)
+      + RamUsageEstimator.shallowSizeOfInstance(OffHeapBuffer.class);
+
+  private final OffHeapBuffer buffer;
+  private final IntBuffer docs; // only accessed with absolute gets, so it can be shared across threads
+  private final int size;
+
+  private OffHeapSortedIntDocSet(OffHeapBuffer buffer) {
+    this.buffer = buffer;
+    this.docs = buffer.buffer().asIntBuffer();
+    this.size = docs.capacity();
+  }
+
+  /** Copies the ids of the given set to off-heap memory */
+  public static OffHeapSortedIntDocSet copyOf(SortedIntDocSet set) {
+    int[] ids = set.getDocs();
+    return copyOf(ids, OffHeapBuffer.allocate(ids.length << 2));
+  }
+
+  /**
+   * Copies the ids of the given set to off-heap memory accounted for in allocatedBytes
+   *
+   * @return the copy, or null if the allocation would take allocatedBytes over maxBytes
+   * @see OffHeapBuffer#allocate(long, AtomicLong, long)
+   */
+  static OffHeapSortedIntDocSet copyOf(SortedIntDocSet set, AtomicLong allocatedBytes, long maxBytes) {
+    int[] ids = set.getDocs();
+    OffHeapBuffer buffer = OffHeapBuffer.allocate((long) ids.length << 2, allocatedBytes, maxBytes);
+    return buffer == null ? null : copyOf(ids, buffer);
+  }
+
+  private static OffHeapSortedIntDocSet copyOf(int[] ids, OffHeapBuffer buffer) {
+    OffHeapSortedIntDocSet copy = new OffHeapSortedIntDocSet(buffer);
+    copy.docs.put(ids).rewind();
+    return copy;
+  }
+
+  /**
+   * Copies this set to new off-heap memory accounted for in allocatedBytes; the caller must hold a reference to
+   * {@link #buffer()}
+   *
+   * @return the copy, or null if the allocation would take allocatedBytes over maxBytes
+   */
+  OffHeapSortedIntDocSet copy(AtomicLong allocatedBytes, long maxBytes) {
+    OffHeapBuffer copy = OffHeapBuffer.allocate(offHeapBytesUsed(), allocatedBytes, maxBytes);
+    if (copy == null) {
+      return null;
+    }
+    copy.buffer().put(buffer.buffer().duplicate()).rewind();
+    return new OffHeapSortedIntDocSet(copy);
+  }
+
+  /** The buffer holding the ids */
+  OffHeapBuffer buffer() {
+    return buffer;
+  }
+
+  /** Number of bytes of off-heap memory held by this set */
+  public long offHeapBytesUsed() {
+    return (long) size << 2;
+  }
+
+  @Override
+  public int size() {
+    return size;
+  }
+
+  @Override
+  public boolean exists(int doc) {
+    return indexOf(doc, 0, size) >= 0;
+  }
+
+  /** Binary search of doc within [from, to); same contract as {@link java.util.Arrays#binarySearch(int[], int)} */
+  private int indexOf(int doc, int from, int to) {
+    int low = from;
+    int high = to - 1;
+    while (low <= high) {
+      int mid = (low + high) >>> 1;
+      int docb = docs.get(mid);
+      if (docb < doc) {
+        low = mid + 1;
+      } else if (docb > doc) {
+        high = mid - 1;
+      } else {
+        return mid;
+      }
+    }
+    return -(low + 1);
+  }
+
+  /** index of the first doc greater than or equal to doc, within [from, to) */
+  private int lowerBound(int doc, int from, int to) {
+    int idx = indexOf(doc, from, to);
+    return idx < 0 ? ~idx : idx;
+  }
+
+  @Override
+  public DocIterator iterator() {
+    return new DocIterator() {
+      int pos = 0;
+
+      @Override
+      public boolean hasNext() {
+        return pos < size;
+      }
+
+      @Override
+      public Integer next() {
+        return nextDoc();
+      }
+
+      @Override
+      public int nextDoc() {
+        return docs.get(pos++);
+      }
+
+      @Override
+      public float score() {
+        return 0.0f;
+      }
+    };
+  }
+
+  @Override
+  public DocIdSetIterator iterator(LeafReaderContext context) {
+    if (size == 0 || context.reader().maxDoc() < 1) {
+      return null;
+    }
+    final int base = context.docBase;
+    final int startIdx;
+    final int limitIdx;
+    if (context.isTopLevel) {
+      startIdx = 0;
+      limitIdx = size;
+    } else {
+      startIdx = lowerBound(base, 0, size);
+      limitIdx = lowerBound(base + context.reader().maxDoc(), startIdx, size);
+      if (startIdx >= limitIdx) {
+        return null;
+      }
+    }
+
+    return new DocIdSetIterator() {
+      int idx = startIdx - 1;
+      int adjustedDoc = -1;
+
+      @Override
+      public int docID() {
+        return adjustedDoc;
+      }
+
+      @Override
+      public int nextDoc() {
+        return adjustedDoc = (++idx >= limitIdx) ? NO_MORE_DOCS : (docs.get(idx) - base);
+      }
+
+      @Override
+      public int advance(int target) {
+        if (++idx >= limitIdx || target == NO_MORE_DOCS) return adjustedDoc = NO_MORE_DOCS;
+        target += base;
+
+        // probe next
+        int rawDoc = docs.get(idx);
+        if (rawDoc >= target) return adjustedDoc = rawDoc - base;
+
+        idx = lowerBound(target, idx + 1, limitIdx);
+        return adjustedDoc = idx < limitIdx ? docs.get(idx) - base : NO_MORE_DOCS;
+      }
+
+      @Override
+      public long cost() {
+        return limitIdx - startIdx;
+      }
+    };
+  }
+
+  @Override
+  public DocSet intersection(DocSet other) {
+    // we are the sparse set: probe the other one (which must not call us back)
+    int count = 0;
+    int[] arr = new int[size];
+    for (int i = 0; i < size; i++) {
+      int doc = docs.get(i);
+      if (other.exists(doc)) arr[count++] = doc;
+    }
+    return new SortedIntDocSet(arr, count);
+  }
+
+  @Override
+  public int intersectionSize(DocSet other) {
+    int count = 0;
+    for (int i = 0; i < size; i++) {
+      if (other.exists(docs.get(i))) count++;
+    }
+    return count;
+  }
+
+  @Override
+  public boolean intersects(DocSet other) {
+    for (int i = 0; i < size; i++) {
+      if (other.exists(docs.get(i))) return true;
+    }
+    return false;
+  }
+
+  @Override
+  public DocSet union(DocSet other) {
+    FixedBitSet otherBits = other.getFixedBitSet();
+    FixedBitSet newbits = FixedBitSet.ensureCapacity(getFixedBitSetClone(), otherBits.length());
+    newbits.or(otherBits);
+    return new BitDocSet(newbits);
+  }
+
+  @Override
+  public DocSet andNot(DocSet other) {
+    int count = 0;
+    int[] arr = new int[size];
+    for (int i = 0; i < size; i++) {
+      int doc = docs.get(i);
+      if (!other.exists(doc)) arr[count++] = doc;
+    }
+    return new SortedIntDocSet(arr, count);
+  }
+
+  @Override
+  public void addAllTo(FixedBitSet target) {
+    for (int i = 0; i < size; i++) {
+      target.set(docs.get(i));
+    }
+  }
+
+  @Override
+  public DocSet clone() {
+    int[] copy = new int[size];
+    docs.duplicate().get(copy);
+    return new SortedIntDocSet(copy);
+  }
+
+  @Override
+  public Bits getBits() {
+    IntHashSet hashSet = new IntHashSet(size);
+    for (int i = 0; i < size; i++) {
+      hashSet.add(docs.get(i));
+    }
+
+    return new Bits() {
+      @Override
+      public boolean get(int index) {
+        return hashSet.contains(index);
+      }
+
+      @Override
+      public int length() {
+        return getLength();
+      }
+    };
+  }
+
+  /** the {@link Bits#length()} or maxdoc (1 greater than largest possible doc number) */
+  private int getLength() {
+    return size == 0 ? 0 : docs.get(size - 1) + 1;
+  }
+
+  @Override
+  protected FixedBitSet getFixedBitSet() {
+    return getFixedBitSetClone();
+  }
+
+  @Override
+  protected FixedBitSet getFixedBitSetClone() {
+    FixedBitSet bitSet = new FixedBitSet(getLength());
+    addAllTo(bitSet);
+    return bitSet;
+  }
+
+  @Override
+  public Filter getTopFilter() {
+    return new Filter() {
+
+      @Override
+      public DocIdSet getDocIdSet(final LeafReaderContext context, final Bits acceptDocs) {
+        // all Solr DocSets that are used as filters only include live docs
+        final Bits acceptDocs2 = acceptDocs == null ? null : (context.reader().getLiveDocs() == acceptDocs ? null : acceptDocs);
+
+        return BitsFilteredDocIdSet.wrap(new DocIdSet() {
+          @Override
+          public DocIdSetIterator iterator() {
+            return OffHeapSortedIntDocSet.this.iterator(context);
+          }
+
+          @Override
+          public long ramBytesUsed() {
+            return OffHeapSortedIntDocSet.this.ramBytesUsed();
+          }
+
+          @Override
+          public Bits bits() {
+            // random access is expensive for this set
+            return null;
+          }
+
+        }, acceptDocs2);
+      }
+
+      @Override
+      public String toString(String field) {
+        return "OffHeapSortedIntDocSetTopFilter";
+      }
+
+      @Override
+      public boolean equals(Object other) {
+        return other == this;
+      }
+
+      @Override
+      public int hashCode() {
+        return System.identityHashCode(this);
+      }
+    };
+  }
+
+  /** The heap used by this instance; see {@link #offHeapBytesUsed()} for the memory of the ids */
+  @Override
+  public long ramBytesUsed() {
+    return BASE_RAM_BYTES_USED;
+  }
+
+  @Override
+  public Collection<Accountable> getChildResources() {
+    return Collections.emptyList();
+  }
+
+  @Override
+  public String toString() {
+    return "OffHeapSortedIntDocSet{" +
+        "size=" + size() +
+        ",offHeapUsed=" + RamUsageEstimator.humanReadableUnits(offHeapBytesUsed()) +
+        '}';
+  }
+}
@@ -31,6 +31,7 @@ public class QueryCommand {
   private Query query;
   private String queryID;
   private boolean isQueryCancellable;
+  private boolean multiThreaded;
   private List<Query> filterList;
   private DocSet filter;
   private Sort sort;
@@ -243,4 +244,17 @@ public class QueryCommand {
 
   public boolean isQueryCancellable() { return isQueryCancellable; }
 
+  /**
+   * Whether the searcher may collect the slices of the index concurrently with its executor, if it has one.
+   * @see org.apache.solr.common.params.CommonParams#MULTI_THREADED
+   */
+  public boolean getMultiThreaded() {
+    return multiThreaded;
+  }
+
+  public QueryCommand setMultiThreaded(boolean multiThreaded) {
+    this.multiThreaded = multiThreaded;
+    return this;
+  }
+
 }
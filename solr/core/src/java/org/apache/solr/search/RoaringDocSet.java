@@ -0,0 +1,1352 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.apache.solr.search;
+
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.Collections;
+
+import org.apache.lucene.index.LeafReaderContext;
+import org.apache.lucene.search.DocIdSet;
+import org.apache.lucene.search.DocIdSetIterator;
+import org.apache.lucene.util.Accountable;
+import org.apache.lucene.util.ArrayUtil;
+import org.apache.lucene.util.Bits;
+import org.apache.lucene.util.FixedBitSet;
+import org.apache.lucene.util.RamUsageEstimator;
+
+/**
+ * A compressed {@link DocSet} in the spirit of <a href="https://roaringbitmap.org/">Roaring bitmaps</a>.  The doc id
+ * space is split in blocks of 64K docs, and the docs of each non-empty block are held in the smallest of three
+ * container types: a sorted array of the low 16 bits (sparse blocks), a 64K bit set (dense blocks) or a list of runs
+ * (clustered blocks, e.g. range filters on an index sorted by time).  Good for medium density sets on large indexes,
+ * which would otherwise cost <code>maxDoc/8</code> bytes as a {@link BitDocSet}.
+ * <p>
+ * Instances are immutable, and containers are shared between the sets derived from one another.
+ * {@link DocSetUtil#compactDocSet(FixedBitSet, int)} decides between this class and {@link BitDocSet}.
+ * </p>
+ *
+ * @lucene.experimental
+ */
+public class RoaringDocSet extends DocSet {
+  private static final long BASE_RAM_BYTES_USED = RamUsageEstimator.shallowSizeOfInstance(RoaringDocSet.class);
+
+  static final int BLOCK_SHIFT = 16;
+  static final int BLOCK_SIZE = 1 << BLOCK_SHIFT;
+  static final int BLOCK_MASK = BLOCK_SIZE - 1;
+  static final int BLOCK_WORDS = BLOCK_SIZE >>> 6;
+  /** Above this cardinality, a bit set is smaller than an array of 16 bit values */
+  static final int MAX_ARRAY_SIZE = BLOCK_SIZE >>> 4;
+
+  private final int maxDoc;
+  private final char[] keys; // the high bits of the docs of each container, sorted
+  private final Container[] containers;
+  private final int size;
+
+  private RoaringDocSet(int maxDoc, char[] keys, Container[] containers, int size) {
+    assert keys.length == containers.length;
+    this.maxDoc = maxDoc;
+    this.keys = keys;
+    this.containers = containers;
+    this.size = size;
+  }
+
+  /** Builds a compressed set of the bits of the given bit set */
+  public static RoaringDocSet fromBits(FixedBitSet bits) {
+    final long[] words = bits.getBits();
+    final int numWords = FixedBitSet.bits2words(bits.length());
+    final Builder builder = new Builder(bits.length());
+    for (int offset = 0, key = 0; offset < numWords; offset += BLOCK_WORDS, key++) {
+      builder.append(key, Container.fromWords(words, offset, Math.min(BLOCK_WORDS, numWords - offset)));
+    }
+    return builder.build();
+  }
+
+  /** Builds a compressed set of the docs of the given set */
+  public static RoaringDocSet copyOf(DocSet docs, int maxDoc) {
+    if (docs instanceof RoaringDocSet) {
+      return (RoaringDocSet) docs;
+    }
+    final Builder builder = new Builder(maxDoc);
+    final DocIterator iter = docs.iterator();
+    while (iter.hasNext()) {
+      builder.add(iter.nextDoc());
+    }
+    return builder.build();
+  }
+
+  /**
+   * Estimates the memory a {@link RoaringDocSet} of the given bits would use.  Stops counting, and returns a value
+   * greater than <code>limit</code>, as soon as the estimate exceeds <code>limit</code>.
+   */
+  public static long estimateRamBytesUsed(FixedBitSet bits, long limit) {
+    final long[] words = bits.getBits();
+    final int numWords = FixedBitSet.bits2words(bits.length());
+    long estimate = BASE_RAM_BYTES_USED + 2 * RamUsageEstimator.NUM_BYTES_ARRAY_HEADER;
+    for (int offset = 0; offset < numWords && estimate <= limit; offset += BLOCK_WORDS) {
+      int cardinality = 0;
+      int runs = 0;
+      long carry = 0;
+      for (int i = offset, end = Math.min(numWords, offset + BLOCK_WORDS); i < end; i++) {
+        final long word = words[i];
+        cardinality += Long.bitCount(word);
+        runs += Long.bitCount(word & ~((word << 1) | carry));
+        carry = word >>> 63;
+      }
+      if (cardinality > 0) {
+        estimate += Container.ramBytesUsed(cardinality, runs)
+            + Character.BYTES + RamUsageEstimator.NUM_BYTES_OBJECT_REF;
+      }
+    }
+    return estimate;
+  }
+
+  @Override
+  public int size() {
+    return size;
+  }
+
+  @Override
+  public boolean exists(int doc) {
+    final int idx = Arrays.binarySearch(keys, (char) (doc >>> BLOCK_SHIFT));
+    return idx >= 0 && containers[idx].contains(doc & BLOCK_MASK);
+  }
+
+  /** Returns the index of the first container whose key is &gt;= key, starting at fromIndex */
+  private int lowerBound(int fromIndex, int key) {
+    final int idx = Arrays.binarySearch(keys, fromIndex, keys.length, (char) key);
+    return idx >= 0 ? idx : -idx - 1;
+  }
+
+  /** Iterates the docs of the set, remembering the current container to avoid searching the keys */
+  private final class Cursor {
+    private int idx;
+
+    /** Returns the first doc &gt;= target, or {@link DocIdSetIterator#NO_MORE_DOCS} */
+    int advance(int target) {
+      final int targetKey = target >>> BLOCK_SHIFT;
+      if (idx < keys.length && keys[idx] < targetKey) {
+        idx = lowerBound(idx + 1, targetKey);
+      }
+      while (idx < keys.length) {
+        final int key = keys[idx];
+        final int low = containers[idx].nextSetBit(key == targetKey ? target & BLOCK_MASK : 0);
+        if (low >= 0) {
+          return (key << BLOCK_SHIFT) | low;
+        }
+        idx++;
+      }
+      return DocIdSetIterator.NO_MORE_DOCS;
+    }
+  }
+
+  @Override
+  public DocIterator iterator() {
+    return new DocIterator() {
+      private final Cursor cursor = new Cursor();
+      private int pos = cursor.advance(0);
+
+      @Override
+      public boolean hasNext() {
+        return pos != DocIdSetIterator.NO_MORE_DOCS;
+      }
+
+      @Override
+      public Integer next() {
+        return nextDoc();
+      }
+
+      @Override
+      public void remove() {
+        throw new UnsupportedOperationException("The set is immutable");
+      }
+
+      @Override
+      public int nextDoc() {
+        final int old = pos;
+        pos = cursor.advance(old + 1);
+        return old;
+      }
+
+      @Override
+      public float score() {
+        return 0.0f;
+      }
+    };
+  }
+
+  @Override
+  public DocIdSetIterator iterator(LeafReaderContext context) {
+    if (size == 0) {
+      return null;
+    }
+    final int base = context.isTopLevel ? 0 : context.docBase;
+    final int maxDoc = context.isTopLevel ? this.maxDoc : context.reader().maxDoc();
+    if (maxDoc < 1) {
+      return null;
+    }
+    final int max = base + maxDoc; // one past the max doc in this segment.
+
+    return new DocIdSetIterator() {
+      final Cursor cursor = new Cursor();
+      int adjustedDoc = -1;
+
+      @Override
+      public int docID() {
+        return adjustedDoc;
+      }
+
+      @Override
+      public int nextDoc() {
+        return advance(adjustedDoc + 1);
+      }
+
+      @Override
+      public int advance(int target) {
+        if (target == NO_MORE_DOCS || target + base >= max) {
+          return adjustedDoc = NO_MORE_DOCS;
+        }
+        final int pos = cursor.advance(target + base);
+        return adjustedDoc = pos < max ? pos - base : NO_MORE_DOCS;
+      }
+
+      @Override
+      public long cost() {
+        // pro-rated for the segment
+        return RoaringDocSet.this.maxDoc == 0 ? 0 : (long) size * maxDoc / RoaringDocSet.this.maxDoc + 1;
+      }
+    };
+  }
+
+  @Override
+  public DocSet intersection(DocSet other) {
+    if (other instanceof RoaringDocSet) {
+      final RoaringDocSet o = (RoaringDocSet) other;
+      final Builder builder = new Builder(Math.min(maxDoc, o.maxDoc));
+      for (int i = 0, j = 0; i < keys.length && j < o.keys.length; ) {
+        if (keys[i] < o.keys[j]) {
+          i = lowerBound(i + 1, o.keys[j]);
+        } else if (keys[i] > o.keys[j]) {
+          j = o.lowerBound(j + 1, keys[i]);
+        } else {
+          builder.append(keys[i], Container.and(containers[i], o.containers[j]));
+          i++;
+          j++;
+        }
+      }
+      return builder.build();
+    } else if (other instanceof SortedIntDocSet || other instanceof OffHeapSortedIntDocSet) {
+      // the sparse sets probe exists() on us, and don't call us back
+      return other.intersection(this);
+    } else if (other instanceof BitDocSet) {
+      final long[] otherWords = ((BitDocSet) other).getBits().getBits();
+      final Builder builder = new Builder(maxDoc);
+      for (int i = 0; i < keys.length; i++) {
+        builder.append(keys[i], containers[i].and(otherWords, keys[i] * BLOCK_WORDS));
+      }
+      return builder.build();
+    }
+    final Builder builder = new Builder(maxDoc);
+    final DocIterator iter = iterator();
+    while (iter.hasNext()) {
+      final int doc = iter.nextDoc();
+      if (other.exists(doc)) {
+        builder.add(doc);
+      }
+    }
+    return builder.build();
+  }
+
+  @Override
+  public int intersectionSize(DocSet other) {
+    if (other instanceof RoaringDocSet) {
+      final RoaringDocSet o = (RoaringDocSet) other;
+      int count = 0;
+      for (int i = 0, j = 0; i < keys.length && j < o.keys.length; ) {
+        if (keys[i] < o.keys[j]) {
+          i = lowerBound(i + 1, o.keys[j]);
+        } else if (keys[i] > o.keys[j]) {
+          j = o.lowerBound(j + 1, keys[i]);
+        } else {
+          count += Container.andCardinality(containers[i], o.containers[j]);
+          i++;
+          j++;
+        }
+      }
+      return count;
+    } else if (other instanceof SortedIntDocSet || other instanceof OffHeapSortedIntDocSet) {
+      // the sparse sets probe exists() on us, and don't call us back
+      return other.intersectionSize(this);
+    } else if (other instanceof BitDocSet) {
+      final long[] otherWords = ((BitDocSet) other).getBits().getBits();
+      int count = 0;
+      for (int i = 0; i < keys.length; i++) {
+        count += containers[i].andCardinality(otherWords, keys[i] * BLOCK_WORDS);
+      }
+      return count;
+    }
+    int count = 0;
+    final DocIterator iter = iterator();
+    while (iter.hasNext()) {
+      if (other.exists(iter.nextDoc())) count++;
+    }
+    return count;
+  }
+
+  @Override
+  public boolean intersects(DocSet other) {
+    if (other instanceof RoaringDocSet) {
+      final RoaringDocSet o = (RoaringDocSet) other;
+      for (int i = 0, j = 0; i < keys.length && j < o.keys.length; ) {
+        if (keys[i] < o.keys[j]) {
+          i = lowerBound(i + 1, o.keys[j]);
+        } else if (keys[i] > o.keys[j]) {
+          j = o.lowerBound(j + 1, keys[i]);
+        } else {
+          if (Container.intersects(containers[i], o.containers[j])) return true;
+          i++;
+          j++;
+        }
+      }
+      return false;
+    } else if (other instanceof SortedIntDocSet || other instanceof OffHeapSortedIntDocSet) {
+      return other.intersects(this);
+    } else if (other instanceof BitDocSet) {
+      final long[] otherWords = ((BitDocSet) other).getBits().getBits();
+      for (int i = 0; i < keys.length; i++) {
+        if (containers[i].andCardinality(otherWords, keys[i] * BLOCK_WORDS) > 0) return true;
+      }
+      return false;
+    }
+    final DocIterator iter = iterator();
+    while (iter.hasNext()) {
+      if (other.exists(iter.nextDoc())) return true;
+    }
+    return false;
+  }
+
+  @Override
+  public DocSet union(DocSet other) {
+    if (other instanceof BitDocSet || other instanceof OffHeapBitDocSet) {
+      FixedBitSet newbits = FixedBitSet.ensureCapacity(other.getFixedBitSetClone(), maxDoc - 1);
+      addAllTo(newbits);
+      return new BitDocSet(newbits);
+    }
+    final RoaringDocSet o = copyOf(other, maxDoc);
+    final Builder builder = new Builder(Math.max(maxDoc, o.maxDoc));
+    int i = 0, j = 0;
+    while (i < keys.length && j < o.keys.length) {
+      if (keys[i] < o.keys[j]) {
+        builder.append(keys[i], containers[i]);
+        i++;
+      } else if (keys[i] > o.keys[j]) {
+        builder.append(o.keys[j], o.containers[j]);
+        j++;
+      } else {
+        builder.append(keys[i], Container.or(containers[i], o.containers[j]));
+        i++;
+        j++;
+      }
+    }
+    for (; i < keys.length; i++) {
+      builder.append(keys[i], containers[i]);
+    }
+    for (; j < o.keys.length; j++) {
+      builder.append(o.keys[j], o.containers[j]);
+    }
+    return builder.build();
+  }
+
+  @Override
+  public DocSet andNot(DocSet other) {
+    if (other.size() == 0) return this;
+
+    final Builder builder = new Builder(maxDoc);
+    if (other instanceof BitDocSet) {
+      final long[] otherWords = ((BitDocSet) other).getBits().getBits();
+      for (int i = 0; i < keys.length; i++) {
+        builder.append(keys[i], containers[i].andNot(otherWords, keys[i] * BLOCK_WORDS));
+      }
+    } else if (other instanceof OffHeapBitDocSet) {
+      final DocIterator iter = iterator();
+      while (iter.hasNext()) {
+        final int doc = iter.nextDoc();
+        if (!other.exists(doc)) {
+          builder.add(doc);
+        }
+      }
+    } else {
+      final RoaringDocSet o = copyOf(other, maxDoc);
+      for (int i = 0, j = 0; i < keys.length; i++) {
+        j = o.lowerBound(j, keys[i]);
+        if (j < o.keys.length && o.keys[j] == keys[i]) {
+          builder.append(keys[i], Container.andNot(containers[i], o.containers[j]));
+        } else {
+          builder.append(keys[i], containers[i]);
+        }
+      }
+    }
+    return builder.build();
+  }
+
+  @Override
+  public void addAllTo(FixedBitSet target) {
+    final long[] targetWords = target.getBits();
+    for (int i = 0; i < keys.length; i++) {
+      containers[i].orInto(targetWords, keys[i] * BLOCK_WORDS);
+    }
+  }
+
+  @Override
+  public Filter getTopFilter() {
+    return new Filter() {
+
+      @Override
+      public DocIdSet getDocIdSet(final LeafReaderContext context, final Bits acceptDocs) {
+        // all Solr DocSets that are used as filters only include live docs
+        final Bits acceptDocs2 = acceptDocs == null ? null : (context.reader().getLiveDocs() == acceptDocs ? null : acceptDocs);
+
+        return BitsFilteredDocIdSet.wrap(new DocIdSet() {
+          @Override
+          public DocIdSetIterator iterator() {
+            return RoaringDocSet.this.iterator(context);
+          }
+
+          @Override
+          public long ramBytesUsed() {
+            return RoaringDocSet.this.ramBytesUsed();
+          }
+
+          @Override
+          public Bits bits() {
+            final int base = context.isTopLevel ? 0 : context.docBase;
+            final int length = context.isTopLevel ? maxDoc : context.reader().maxDoc();
+            return new Bits() {
+              @Override
+              public boolean get(int index) {
+                return exists(index + base);
+              }
+
+              @Override
+              public int length() {
+                return length;
+              }
+            };
+          }
+
+        }, acceptDocs2);
+      }
+
+      @Override
+      public String toString(String field) {
+        return "RoaringDocSetTopFilter";
+      }
+
+      @Override
+      public boolean equals(Object other) {
+        return other == this;
+      }
+
+      @Override
+      public int hashCode() {
+        return System.identityHashCode(this);
+      }
+    };
+  }
+
+  @Override
+  public RoaringDocSet clone() {
+    // containers are immutable, so they can be shared
+    return new RoaringDocSet(maxDoc, keys.clone(), containers.clone(), size);
+  }
+
+  /**
+   * A {@link Bits} view of the set.  Random access needs a binary search of the container, so it is slower than
+   * the bits of a {@link BitDocSet}.
+   */
+  @Override
+  public Bits getBits() {
+    return new Bits() {
+      @Override
+      public boolean get(int index) {
+        return exists(index);
+      }
+
+      @Override
+      public int length() {
+        return maxDoc;
+      }
+    };
+  }
+
+  @Override
+  protected FixedBitSet getFixedBitSet() {
+    final FixedBitSet bits = new FixedBitSet(maxDoc);
+    addAllTo(bits);
+    return bits;
+  }
+
+  @Override
+  protected FixedBitSet getFixedBitSetClone() {
+    return getFixedBitSet();
+  }
+
+  /** The number of containers, for testing */
+  int numContainers() {
+    return containers.length;
+  }
+
+  @Override
+  public long ramBytesUsed() {
+    long bytes = BASE_RAM_BYTES_USED + RamUsageEstimator.sizeOf(keys)
+        + RamUsageEstimator.shallowSizeOf(containers);
+    for (Container container : containers) {
+      bytes += container.ramBytesUsed();
+    }
+    return bytes;
+  }
+
+  @Override
+  public Collection<Accountable> getChildResources() {
+    return Collections.emptyList();
+  }
+
+  @Override
+  public String toString() {
+    return "RoaringDocSet{" +
+        "size=" + size() +
+        ",containers=" + containers.length +
+        ",ramUsed=" + RamUsageEstimator.humanReadableUnits(ramBytesUsed()) +
+        '}';
+  }
+
+  /** Builds a set from containers or docs added in increasing order. */
+  static final class Builder {
+    private int maxDoc;
+    private char[] keys = new char[4];
+    private Container[] containers = new Container[4];
+    private int numContainers;
+    private int size;
+
+    // the block being filled by add(int)
+    private long[] scratch;
+    private int scratchKey = -1;
+
+    Builder(int maxDoc) {
+      this.maxDoc = maxDoc;
+    }
+
+    /** Adds a doc, which must be greater than the docs previously added */
+    void add(int doc) {
+      if (doc >= maxDoc) {
+        maxDoc = doc + 1;
+      }
+      final int key = doc >>> BLOCK_SHIFT;
+      if (key != scratchKey) {
+        flush();
+        if (scratch == null) {
+          scratch = new long[BLOCK_WORDS];
+        }
+        scratchKey = key;
+      }
+      scratch[(doc & BLOCK_MASK) >>> 6] |= 1L << doc;
+    }
+
+    /** Adds a container, possibly null, whose key must be greater than the previous ones */
+    void append(int key, Container container) {
+      flush();
+      if (container == null) {
+        return;
+      }
+      assert numContainers == 0 || keys[numContainers - 1] < key;
+      if (numContainers == keys.length) {
+        keys = ArrayUtil.grow(keys, numContainers + 1);
+        containers = ArrayUtil.grow(containers, numContainers + 1);
+      }
+      keys[numContainers] = (char) key;
+      containers[numContainers] = container;
+      numContainers++;
+      size += container.cardinality();
+    }
+
+    private void flush() {
+      if (scratchKey >= 0) {
+        final int key = scratchKey;
+        scratchKey = -1;
+        append(key, Container.fromWords(scratch, 0, BLOCK_WORDS));
+        Arrays.fill(scratch, 0L);
+      }
+    }
+
+    RoaringDocSet build() {
+      flush();
+      return new RoaringDocSet(maxDoc, ArrayUtil.copyOfSubArray(keys, 0, numContainers),
+          ArrayUtil.copyOfSubArray(containers, 0, numContainers), size);
+    }
+  }
+
+  /**
+   * The docs of one block, as 16 bit values.  Containers are immutable; operations return new containers, or
+   * null when the result is empty.
+   */
+  abstract static class Container implements Accountable {
+
+    abstract int cardinality();
+
+    abstract boolean contains(int value);
+
+    /** Returns the first value &gt;= value, or -1 */
+    abstract int nextSetBit(int value);
+
+    /** Sets the bits of this container in words, starting at the given word offset */
+    abstract void orInto(long[] words, int offset);
+
+    /** Returns the intersection with the bits of words, starting at the given word offset */
+    abstract Container and(long[] words, int offset);
+
+    /** Returns the cardinality of the intersection with the bits of words, starting at the given word offset */
+    abstract int andCardinality(long[] words, int offset);
+
+    /** Returns this container minus the bits of words, starting at the given word offset */
+    abstract Container andNot(long[] words, int offset);
+
+    static long ramBytesUsed(int cardinality, int runs) {
+      final long arrayBytes = (long) cardinality * Character.BYTES;
+      final long runBytes = (long) runs * 2 * Character.BYTES;
+      final long bitmapBytes = (long) BLOCK_WORDS * Long.BYTES;
+      return Math.min(Math.min(arrayBytes, runBytes), bitmapBytes)
+          + RamUsageEstimator.NUM_BYTES_OBJECT_HEADER + RamUsageEstimator.NUM_BYTES_ARRAY_HEADER + Integer.BYTES;
+    }
+
+    /**
+     * Builds the smallest container for the bits of words[offset:offset+numWords], or returns null if none of these
+     * bits are set.  The words aren't referenced by the returned container.
+     */
+    static Container fromWords(long[] words, int offset, int numWords) {
+      return fromWords(words, offset, numWords, false);
+    }
+
+    /** Like {@link #fromWords(long[], int, int)}, but a bitmap result takes the 1024 words rather than a copy */
+    static Container fromOwnedWords(long[] words) {
+      return fromWords(words, 0, BLOCK_WORDS, true);
+    }
+
+    private static Container fromWords(long[] words, int offset, int numWords, boolean owned) {
+      int cardinality = 0;
+      int runs = 0;
+      long carry = 0;
+      for (int i = offset, end = offset + numWords; i < end; i++) {
+        final long word = words[i];
+        cardinality += Long.bitCount(word);
+        runs += Long.bitCount(word & ~((word << 1) | carry));
+        carry = word >>> 63;
+      }
+      if (cardinality == 0) {
+        return null;
+      } else if ((long) runs * 2 < Math.min(cardinality, BLOCK_WORDS * 4L)) {
+        return RunContainer.fromWords(words, offset, numWords, runs, cardinality);
+      } else if (cardinality <= MAX_ARRAY_SIZE) {
+        return ArrayContainer.fromWords(words, offset, numWords, cardinality);
+      } else if (owned) {
+        return new BitmapContainer(words, cardinality);
+      } else {
+        final long[] copy = new long[BLOCK_WORDS];
+        System.arraycopy(words, offset, copy, 0, numWords);
+        return new BitmapContainer(copy, cardinality);
+      }
+    }
+
+    // The operations between two containers use the words of a bitmap container as they are, and only build a bit
+    // set for a result that is a bitmap container itself. Array containers are probed per value, or per run of a run
+    // container; run containers are merged run by run with other runs and array values, and masked word by word
+    // with bitmaps.
+
+    static Container and(Container a, Container b) {
+      if (a instanceof ArrayContainer) {
+        return ((ArrayContainer) a).filter(b, true);
+      } else if (b instanceof ArrayContainer) {
+        return ((ArrayContainer) b).filter(a, true);
+      } else if (a instanceof RunContainer && b instanceof RunContainer) {
+        return RunContainer.and((RunContainer) a, (RunContainer) b);
+      } else if (a instanceof BitmapContainer) {
+        return b.and(((BitmapContainer) a).words, 0);
+      }
+      return a.and(((BitmapContainer) b).words, 0);
+    }
+
+    static int andCardinality(Container a, Container b) {
+      if (a instanceof ArrayContainer) {
+        return ((ArrayContainer) a).count(b);
+      } else if (b instanceof ArrayContainer) {
+        return ((ArrayContainer) b).count(a);
+      } else if (a instanceof RunContainer && b instanceof RunContainer) {
+        return RunContainer.andCardinality((RunContainer) a, (RunContainer) b);
+      } else if (a instanceof BitmapContainer) {
+        return b.andCardinality(((BitmapContainer) a).words, 0);
+      }
+      return a.andCardinality(((BitmapContainer) b).words, 0);
+    }
+
+    static boolean intersects(Container a, Container b) {
+      if (a instanceof ArrayContainer) {
+        return ((ArrayContainer) a).intersects(b);
+      } else if (b instanceof ArrayContainer) {
+        return ((ArrayContainer) b).intersects(a);
+      }
+      return andCardinality(a, b) > 0;
+    }
+
+    static Container or(Container a, Container b) {
+      if (!(a instanceof BitmapContainer) && !(b instanceof BitmapContainer)) {
+        final RunsBuilder result = new RunsBuilder(numRuns(a) + numRuns(b));
+        final int na = numRuns(a);
+        final int nb = numRuns(b);
+        int i = 0;
+        int j = 0;
+        while (i < na || j < nb) {
+          if (j == nb || (i < na && runStart(a, i) <= runStart(b, j))) {
+            result.add(runStart(a, i), runEnd(a, i));
+            i++;
+          } else {
+            result.add(runStart(b, j), runEnd(b, j));
+            j++;
+          }
+        }
+        return result.build();
+      }
+      final long[] words = new long[BLOCK_WORDS];
+      a.orInto(words, 0);
+      b.orInto(words, 0);
+      return fromOwnedWords(words);
+    }
+
+    static Container andNot(Container a, Container b) {
+      if (a instanceof ArrayContainer) {
+        return ((ArrayContainer) a).filter(b, false);
+      } else if (b instanceof BitmapContainer) {
+        return a.andNot(((BitmapContainer) b).words, 0);
+      } else if (a instanceof RunContainer) {
+        return RunContainer.andNot((RunContainer) a, b);
+      }
+      // a bitmap minus runs or values
+      final long[] words = ((BitmapContainer) a).words.clone();
+      for (int i = 0, n = numRuns(b); i < n; i++) {
+        clearRange(words, runStart(b, i), runEnd(b, i));
+      }
+      return fromOwnedWords(words);
+    }
+
+    /** The number of runs of a run or array container, each value of an array container being a run */
+    static int numRuns(Container c) {
+      return c instanceof RunContainer ? ((RunContainer) c).runs.length >>> 1 : ((ArrayContainer) c).values.length;
+    }
+
+    /** The first value of a run of a run or array container */
+    static int runStart(Container c, int i) {
+      return c instanceof RunContainer ? ((RunContainer) c).runs[i << 1] : ((ArrayContainer) c).values[i];
+    }
+
+    /** One past the last value of a run of a run or array container */
+    static int runEnd(Container c, int i) {
+      if (c instanceof RunContainer) {
+        final char[] runs = ((RunContainer) c).runs;
+        return runs[i << 1] + runs[(i << 1) + 1] + 1;
+      }
+      return ((ArrayContainer) c).values[i] + 1;
+    }
+
+    /** Applies words[offset+i] &amp; (negate ? ~mask[i] : mask[i]) to a copy of the bits of this container */
+    Container and(long[] words, int offset, boolean negate) {
+      final long[] result = new long[BLOCK_WORDS];
+      orInto(result, 0);
+      final int numWords = Math.max(0, Math.min(BLOCK_WORDS, words.length - offset));
+      for (int i = 0; i < numWords; i++) {
+        result[i] &= negate ? ~words[offset + i] : words[offset + i];
+      }
+      if (!negate) {
+        Arrays.fill(result, numWords, BLOCK_WORDS, 0L);
+      }
+      return fromOwnedWords(result);
+    }
+
+    @Override
+    public Collection<Accountable> getChildResources() {
+      return Collections.emptyList();
+    }
+  }
+
+  static boolean get(long[] words, int offset, int value) {
+    final int idx = offset + (value >>> 6);
+    return idx < words.length && (words[idx] & (1L << value)) != 0;
+  }
+
+  /** Sets the bits [from, to) of words, starting at the given word offset */
+  static void setRange(long[] words, int offset, int from, int to) {
+    final int startWord = offset + (from >>> 6);
+    final int endWord = offset + ((to - 1) >>> 6);
+    final long startMask = -1L << from;
+    final long endMask = -1L >>> -to;
+    if (startWord == endWord) {
+      words[startWord] |= startMask & endMask;
+    } else {
+      words[startWord] |= startMask;
+      Arrays.fill(words, startWord + 1, endWord, -1L);
+      words[endWord] |= endMask;
+    }
+  }
+
+  /** Clears the bits [from, to) of the words of a block */
+  static void clearRange(long[] words, int from, int to) {
+    final int startWord = from >>> 6;
+    final int endWord = (to - 1) >>> 6;
+    final long startMask = -1L << from;
+    final long endMask = -1L >>> -to;
+    if (startWord == endWord) {
+      words[startWord] &= ~(startMask & endMask);
+    } else {
+      words[startWord] &= ~startMask;
+      Arrays.fill(words, startWord + 1, endWord, 0L);
+      words[endWord] &= ~endMask;
+    }
+  }
+
+  /**
+   * Builds the smallest container for runs that are added in the order of their first value; overlapping or adjacent
+   * runs are merged.
+   */
+  static final class RunsBuilder {
+    private char[] runs;
+    private int length;
+    private int end; // one past the last value of the last run
+    private int cardinality;
+
+    RunsBuilder(int expectedRuns) {
+      runs = new char[Math.max(2, expectedRuns * 2)];
+    }
+
+    /** Adds the values [from, to), if there are any; from must not be less than the first value of the last run */
+    void add(int from, int to) {
+      if (from >= to) {
+        return;
+      }
+      if (length > 0 && from <= end) {
+        if (to > end) {
+          cardinality += to - end;
+          end = to;
+          runs[length - 1] = (char) (end - runs[length - 2] - 1);
+        }
+        return;
+      }
+      if (length == runs.length) {
+        runs = ArrayUtil.grow(runs, length + 2);
+      }
+      runs[length++] = (char) from;
+      runs[length++] = (char) (to - from - 1);
+      cardinality += to - from;
+      end = to;
+    }
+
+    /** Returns the container, or null if no values were added */
+    Container build() {
+      final int numRuns = length >>> 1;
+      if (cardinality == 0) {
+        return null;
+      } else if ((long) numRuns * 2 < Math.min(cardinality, BLOCK_WORDS * 4L)) {
+        return new RunContainer(ArrayUtil.copyOfSubArray(runs, 0, length), cardinality);
+      } else if (cardinality <= MAX_ARRAY_SIZE) {
+        final char[] values = new char[cardinality];
+        int n = 0;
+        for (int i = 0; i < length; i += 2) {
+          for (int value = runs[i], last = runs[i] + runs[i + 1]; value <= last; value++) {
+            values[n++] = (char) value;
+          }
+        }
+        return new ArrayContainer(values);
+      }
+      final long[] words = new long[BLOCK_WORDS];
+      for (int i = 0; i < length; i += 2) {
+        setRange(words, 0, runs[i], runs[i] + runs[i + 1] + 1);
+      }
+      return new BitmapContainer(words, cardinality);
+    }
+  }
+
+  /** A sorted array of the values of a sparse block */
+  static final class ArrayContainer extends Container {
+    private static final long BASE_RAM_BYTES_USED = RamUsageEstimator.shallowSizeOfInstance(ArrayContainer.class);
+
+    final char[] values;
+
+    ArrayContainer(char[] values) {
+      this.values = values;
+    }
+
+    static ArrayContainer fromWords(long[] words, int offset, int numWords, int cardinality) {
+      final char[] values = new char[cardinality];
+      int n = 0;
+      for (int i = 0; i < numWords; i++) {
+        long word = words[offset + i];
+        while (word != 0) {
+          values[n++] = (char) ((i << 6) | Long.numberOfTrailingZeros(word));
+          word &= word - 1;
+        }
+      }
+      assert n == cardinality;
+      return new ArrayContainer(values);
+    }
+
+    @Override
+    int cardinality() {
+      return values.length;
+    }
+
+    @Override
+    boolean contains(int value) {
+      return Arrays.binarySearch(values, (char) value) >= 0;
+    }
+
+    @Override
+    int nextSetBit(int value) {
+      int idx = Arrays.binarySearch(values, (char) value);
+      if (idx < 0) {
+        idx = -idx - 1;
+      }
+      return idx < values.length ? values[idx] : -1;
+    }
+
+    @Override
+    void orInto(long[] words, int offset) {
+      for (char value : values) {
+        words[offset + (value >>> 6)] |= 1L << value;
+      }
+    }
+
+    /** Returns the index of the first value &gt;= value, searching from index from */
+    private int lowerBound(int from, int value) {
+      if (value > Character.MAX_VALUE) {
+        return values.length;
+      }
+      final int idx = Arrays.binarySearch(values, from, values.length, (char) value);
+      return idx < 0 ? -idx - 1 : idx;
+    }
+
+    /** Keeps the values which are (or are not, if keep is false) in other */
+    Container filter(Container other, boolean keep) {
+      if (other instanceof RunContainer) {
+        return filter((RunContainer) other, keep);
+      }
+      final char[] result = new char[values.length];
+      int n = 0;
+      for (char value : values) {
+        if (other.contains(value) == keep) result[n++] = value;
+      }
+      return filtered(result, n);
+    }
+
+    /** Keeps the values which are (or are not) in the runs of other, with a binary search per run */
+    private Container filter(RunContainer other, boolean keep) {
+      final char[] result = new char[values.length];
+      int n = 0;
+      int lo = 0;
+      for (int i = 0; i < other.runs.length && lo < values.length; i += 2) {
+        final int start = lowerBound(lo, other.runs[i]);
+        final int end = lowerBound(start, other.runs[i] + other.runs[i + 1] + 1);
+        if (keep) {
+          System.arraycopy(values, start, result, n, end - start);
+          n += end - start;
+        } else {
+          System.arraycopy(values, lo, result, n, start - lo);
+          n += start - lo;
+        }
+        lo = end;
+      }
+      if (!keep) {
+        System.arraycopy(values, lo, result, n, values.length - lo);
+        n += values.length - lo;
+      }
+      return filtered(result, n);
+    }
+
+    private Container filtered(char[] result, int n) {
+      if (n == 0) {
+        return null;
+      } else if (n == values.length) {
+        return this;
+      }
+      return new ArrayContainer(ArrayUtil.copyOfSubArray(result, 0, n));
+    }
+
+    int count(Container other) {
+      if (other instanceof RunContainer) {
+        final char[] runs = ((RunContainer) other).runs;
+        int count = 0;
+        int lo = 0;
+        for (int i = 0; i < runs.length && lo < values.length; i += 2) {
+          final int start = lowerBound(lo, runs[i]);
+          lo = lowerBound(start, runs[i] + runs[i + 1] + 1);
+          count += lo - start;
+        }
+        return count;
+      }
+      int count = 0;
+      for (char value : values) {
+        if (other.contains(value)) count++;
+      }
+      return count;
+    }
+
+    boolean intersects(Container other) {
+      if (other instanceof RunContainer) {
+        final char[] runs = ((RunContainer) other).runs;
+        int lo = 0;
+        for (int i = 0; i < runs.length && lo < values.length; i += 2) {
+          lo = lowerBound(lo, runs[i]);
+          if (lo < values.length && values[lo] <= runs[i] + runs[i + 1]) return true;
+        }
+        return false;
+      }
+      for (char value : values) {
+        if (other.contains(value)) return true;
+      }
+      return false;
+    }
+
+    @Override
+    Container and(long[] words, int offset) {
+      final char[] result = new char[values.length];
+      int n = 0;
+      for (char value : values) {
+        if (get(words, offset, value)) result[n++] = value;
+      }
+      return filtered(result, n);
+    }
+
+    @Override
+    int andCardinality(long[] words, int offset) {
+      int count = 0;
+      for (char value : values) {
+        if (get(words, offset, value)) count++;
+      }
+      return count;
+    }
+
+    @Override
+    Container andNot(long[] words, int offset) {
+      final char[] result = new char[values.length];
+      int n = 0;
+      for (char value : values) {
+        if (!get(words, offset, value)) result[n++] = value;
+      }
+      return filtered(result, n);
+    }
+
+    @Override
+    public long ramBytesUsed() {
+      return BASE_RAM_BYTES_USED + RamUsageEstimator.sizeOf(values);
+    }
+  }
+
+  /** The bits of a dense block */
+  static final class BitmapContainer extends Container {
+    private static final long BASE_RAM_BYTES_USED = RamUsageEstimator.shallowSizeOfInstance(BitmapContainer.class);
+
+    final long[] words;
+    final int cardinality;
+
+    BitmapContainer(long[] words, int cardinality) {
+      assert words.length == BLOCK_WORDS;
+      this.words = words;
+      this.cardinality = cardinality;
+    }
+
+    @Override
+    int cardinality() {
+      return cardinality;
+    }
+
+    @Override
+    boolean contains(int value) {
+      return (words[value >>> 6] & (1L << value)) != 0;
+    }
+
+    @Override
+    int nextSetBit(int value) {
+      int i = value >>> 6;
+      long word = words[i] >>> value; // shifts mod 64
+      if (word != 0) {
+        return value + Long.numberOfTrailingZeros(word);
+      }
+      while (++i < BLOCK_WORDS) {
+        word = words[i];
+        if (word != 0) {
+          return (i << 6) + Long.numberOfTrailingZeros(word);
+        }
+      }
+      return -1;
+    }
+
+    @Override
+    void orInto(long[] target, int offset) {
+      final int numWords = Math.min(BLOCK_WORDS, target.length - offset);
+      for (int i = 0; i < numWords; i++) {
+        target[offset + i] |= words[i];
+      }
+    }
+
+    @Override
+    Container and(long[] other, int offset) {
+      return and(other, offset, false);
+    }
+
+    @Override
+    int andCardinality(long[] other, int offset) {
+      final int numWords = Math.max(0, Math.min(BLOCK_WORDS, other.length - offset));
+      int count = 0;
+      for (int i = 0; i < numWords; i++) {
+        count += Long.bitCount(words[i] & other[offset + i]);
+      }
+      return count;
+    }
+
+    @Override
+    Container andNot(long[] other, int offset) {
+      return and(other, offset, true);
+    }
+
+    @Override
+    public long ramBytesUsed() {
+      return BASE_RAM_BYTES_USED + RamUsageEstimator.sizeOf(words);
+    }
+  }
+
+  /** Runs of consecutive values of a clustered block, as (start, length - 1) pairs */
+  static final class RunContainer extends Container {
+    private static final long BASE_RAM_BYTES_USED = RamUsageEstimator.shallowSizeOfInstance(RunContainer.class);
+
+    final char[] runs;
+    final int cardinality;
+
+    RunContainer(char[] runs, int cardinality) {
+      this.runs = runs;
+      this.cardinality = cardinality;
+    }
+
+    static RunContainer fromWords(long[] words, int offset, int numWords, int numRuns, int cardinality) {
+      final char[] runs = new char[numRuns * 2];
+      final int numBits = numWords << 6;
+      int n = 0;
+      int start = nextBit(words, offset, numWords, 0, true);
+      while (start < numBits) {
+        final int end = nextBit(words, offset, numWords, start + 1, false);
+        runs[n++] = (char) start;
+        runs[n++] = (char) (end - start - 1);
+        start = end < numBits ? nextBit(words, offset, numWords, end + 1, true) : numBits;
+      }
+      assert n == runs.length;
+      return new RunContainer(runs, cardinality);
+    }
+
+    /** Returns the index of the next set (or clear) bit at or after index, or numWords*64 */
+    private static int nextBit(long[] words, int offset, int numWords, int index, boolean set) {
+      int i = index >>> 6;
+      if (i >= numWords) {
+        return numWords << 6;
+      }
+      long word = (set ? words[offset + i] : ~words[offset + i]) >>> index;
+      if (word != 0) {
+        return index + Long.numberOfTrailingZeros(word);
+      }
+      while (++i < numWords) {
+        word = set ? words[offset + i] : ~words[offset + i];
+        if (word != 0) {
+          return (i << 6) + Long.numberOfTrailingZeros(word);
+        }
+      }
+      return numWords << 6;
+    }
+
+    private int numRuns() {
+      return runs.length >>> 1;
+    }
+
+    /** Returns the index of the last run starting at or before value, or -1 */
+    private int runIndex(int value) {
+      int lo = 0;
+      int hi = numRuns() - 1;
+      while (lo <= hi) {
+        final int mid = (lo + hi) >>> 1;
+        if (runs[mid << 1] <= value) {
+          lo = mid + 1;
+        } else {
+          hi = mid - 1;
+        }
+      }
+      return hi;
+    }
+
+    @Override
+    int cardinality() {
+      return cardinality;
+    }
+
+    @Override
+    boolean contains(int value) {
+      final int idx = runIndex(value);
+      return idx >= 0 && value <= runs[idx << 1] + runs[(idx << 1) + 1];
+    }
+
+    @Override
+    int nextSetBit(int value) {
+      final int idx = runIndex(value);
+      if (idx >= 0 && value <= runs[idx << 1] + runs[(idx << 1) + 1]) {
+        return value;
+      }
+      return idx + 1 < numRuns() ? runs[(idx + 1) << 1] : -1;
+    }
+
+    @Override
+    void orInto(long[] words, int offset) {
+      for (int i = 0; i < runs.length; i += 2) {
+        setRange(words, offset, runs[i], runs[i] + runs[i + 1] + 1);
+      }
+    }
+
+    @Override
+    Container and(long[] words, int offset) {
+      return and(words, offset, false);
+    }
+
+    @Override
+    int andCardinality(long[] words, int offset) {
+      final int numWords = Math.max(0, Math.min(BLOCK_WORDS, words.length - offset));
+      int count = 0;
+      for (int i = 0; i < runs.length; i += 2) {
+        final int from = runs[i];
+        final int to = from + runs[i + 1] + 1;
+        final int startWord = from >>> 6;
+        final int endWord = Math.min((to - 1) >>> 6, numWords - 1);
+        for (int w = startWord; w <= endWord; w++) {
+          long mask = -1L;
+          if (w == startWord) mask &= -1L << from;
+          if (w == (to - 1) >>> 6) mask &= -1L >>> -to;
+          count += Long.bitCount(words[offset + w] & mask);
+        }
+      }
+      return count;
+    }
+
+    @Override
+    Container andNot(long[] words, int offset) {
+      return and(words, offset, true);
+    }
+
+    /** Keeps the values of the runs whose bits are set (or clear, if negate) in words, starting at the given offset */
+    @Override
+    Container and(long[] words, int offset, boolean negate) {
+      final int numWords = Math.max(0, Math.min(BLOCK_WORDS, words.length - offset));
+      final boolean keep = !negate;
+      final RunsBuilder result = new RunsBuilder(numRuns());
+      for (int i = 0; i < runs.length; i += 2) {
+        final int from = runs[i];
+        final int to = from + runs[i + 1] + 1;
+        int start = next(words, offset, numWords, from, keep);
+        while (start < to) {
+          final int end = Math.min(to, next(words, offset, numWords, start + 1, !keep));
+          result.add(start, end);
+          start = end < to ? next(words, offset, numWords, end + 1, keep) : to;
+        }
+      }
+      return result.build();
+    }
+
+    /**
+     * Returns the index of the next set (or clear) bit at or after index, the bits after the first numWords words
+     * being clear; or {@link #BLOCK_SIZE} if there is none
+     */
+    private static int next(long[] words, int offset, int numWords, int index, boolean set) {
+      final int numBits = numWords << 6;
+      if (index >= numBits) {
+        return set ? BLOCK_SIZE : index;
+      }
+      final int next = nextBit(words, offset, numWords, index, set);
+      return next < numBits || !set ? next : BLOCK_SIZE;
+    }
+
+    static Container and(RunContainer a, RunContainer b) {
+      final RunsBuilder result = new RunsBuilder(Math.min(a.numRuns(), b.numRuns()));
+      int i = 0;
+      int j = 0;
+      while (i < a.runs.length && j < b.runs.length) {
+        final int aEnd = a.runs[i] + a.runs[i + 1] + 1;
+        final int bEnd = b.runs[j] + b.runs[j + 1] + 1;
+        result.add(Math.max(a.runs[i], b.runs[j]), Math.min(aEnd, bEnd));
+        if (aEnd < bEnd) {
+          i += 2;
+        } else {
+          j += 2;
+        }
+      }
+      return result.build();
+    }
+
+    static int andCardinality(RunContainer a, RunContainer b) {
+      int count = 0;
+      int i = 0;
+      int j = 0;
+      while (i < a.runs.length && j < b.runs.length) {
+        final int aEnd = a.runs[i] + a.runs[i + 1] + 1;
+        final int bEnd = b.runs[j] + b.runs[j + 1] + 1;
+        count += Math.max(0, Math.min(aEnd, bEnd) - Math.max(a.runs[i], b.runs[j]));
+        if (aEnd < bEnd) {
+          i += 2;
+        } else {
+          j += 2;
+        }
+      }
+      return count;
+    }
+
+    /** Returns a minus the runs or values of b, a run or array container */
+    static Container andNot(RunContainer a, Container b) {
+      final RunsBuilder result = new RunsBuilder(a.numRuns());
+      final int nb = numRuns(b);
+      int j = 0;
+      for (int i = 0; i < a.runs.length; i += 2) {
+        final int to = a.runs[i] + a.runs[i + 1] + 1;
+        int start = a.runs[i];
+        while (j < nb && runStart(b, j) < to) {
+          final int bEnd = runEnd(b, j);
+          if (bEnd > start) {
+            result.add(start, runStart(b, j));
+            start = bEnd;
+            if (bEnd > to) {
+              break; // this run of b also overlaps the next runs of a
+            }
+          }
+          j++;
+        }
+        result.add(start, to);
+      }
+      return result.build();
+    }
+
+    @Override
+    public long ramBytesUsed() {
+      return BASE_RAM_BYTES_USED + RamUsageEstimator.sizeOf(runs);
+    }
+  }
+}
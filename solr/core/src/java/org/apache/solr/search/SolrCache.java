@@ -18,6 +18,7 @@ package org.apache.solr.search;
 
 import org.apache.solr.core.SolrInfoBean;
 import org.apache.solr.util.IOFunction;
+import org.apache.solr.util.TimeOut;
 
 import java.io.IOException;
 import java.util.Map;
@@ -150,6 +151,15 @@ public interface SolrCache<K,V> extends SolrInfoBean {
    * cache object.  <code>this</code> and <code>old</code> will have the same concrete type.
    */
   void warm(SolrIndexSearcher searcher, SolrCache<K,V> old);
+
+  /**
+   * Warm this cache like {@link #warm(SolrIndexSearcher, SolrCache)}, but stop regenerating items from the
+   * <code>old</code> cache once <code>budget</code> has timed out. A null budget means no time limit.
+   * The default implementation ignores the budget.
+   */
+  default void warm(SolrIndexSearcher searcher, SolrCache<K,V> old, TimeOut budget) {
+    warm(searcher, old);
+  }
   // Q: an alternative to passing the searcher here would be to pass it in
   // init and have the cache implementation save it.
 
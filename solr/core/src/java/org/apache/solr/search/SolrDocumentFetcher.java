@@ -63,7 +63,9 @@ import org.apache.lucene.util.NumericUtils;
 import org.apache.solr.common.SolrDocument;
 import org.apache.solr.common.SolrDocumentBase;
 import org.apache.solr.common.SolrException;
+import org.apache.solr.common.util.ByteArrayUtf8CharSequence;
 import org.apache.solr.core.SolrConfig;
+import org.apache.solr.response.BinaryResponseWriter;
 import org.apache.solr.response.DocsStreamer;
 import org.apache.solr.response.ResultContext;
 import org.apache.solr.schema.AbstractEnumField;
@@ -505,12 +507,26 @@ public class SolrDocumentFetcher {
    */
   public void decorateDocValueFields(SolrDocumentBase<?,?> doc, int docid, Set<String> fields)
       throws IOException {
+    decorateDocValueFields(doc, docid, fields, null);
+  }
+
+  /**
+   * Same as {@link #decorateDocValueFields(SolrDocumentBase, int, Set)}, but the values of the fields accepted by
+   * <code>readAsBytes</code> are added as {@link ByteArrayUtf8CharSequence} copied from the docValues bytes instead
+   * of Strings, so that they can be written by the {@link org.apache.solr.response.BinaryResponseWriter} without
+   * being decoded and re-encoded.
+   *
+   * @see ResultContext#READASBYTES
+   */
+  private void decorateDocValueFields(SolrDocumentBase<?,?> doc, int docid, Set<String> fields,
+                                      Predicate<String> readAsBytes) throws IOException {
     final List<LeafReaderContext> leafContexts = searcher.getLeafContexts();
     final int subIndex = ReaderUtil.subIndex(docid, leafContexts);
     final int localId = docid - leafContexts.get(subIndex).docBase;
     final LeafReader leafReader = leafContexts.get(subIndex).reader();
     for (String fieldName : fields) {
-      Object fieldValue = decodeDVField(localId, leafReader, fieldName);
+      Object fieldValue = decodeDVField(localId, leafReader, fieldName,
+          readAsBytes != null && readAsBytes.test(fieldName));
       if (fieldValue != null) {
         doc.setField(fieldName, fieldValue);
       }
@@ -521,7 +537,8 @@ public class SolrDocumentFetcher {
    * Decode value from DV field for a document
    * @return null if DV field is not exist or can not decodable
    */
-  private Object decodeDVField(int localId, LeafReader leafReader, String fieldName) throws IOException {
+  private Object decodeDVField(int localId, LeafReader leafReader, String fieldName, boolean utf8Bytes)
+      throws IOException {
     final SchemaField schemaField = searcher.getSchema().getFieldOrNull(fieldName);
     FieldInfo fi = searcher.getFieldInfos().fieldInfo(fieldName);
     if (schemaField == null || !schemaField.hasDocValues() || fi == null) {
@@ -553,6 +570,8 @@ public class SolrDocumentFetcher {
           // Special handling for Boolean fields since they're stored as 'T' and 'F'.
           if (schemaField.getType() instanceof BoolField) {
             return schemaField.getType().toObject(schemaField, bRef);
+          } else if (utf8Bytes) {
+            return toUtf8CharSequence(bRef);
           } else {
             return bRef.utf8ToString();
           }
@@ -587,7 +606,7 @@ public class SolrDocumentFetcher {
           final List<Object> outValues = new LinkedList<>();
           for (long ord = values.nextOrd(); ord != SortedSetDocValues.NO_MORE_ORDS; ord = values.nextOrd()) {
             BytesRef value = values.lookupOrd(ord);
-            outValues.add(schemaField.getType().toObject(schemaField, value));
+            outValues.add(utf8Bytes ? toUtf8CharSequence(value) : schemaField.getType().toObject(schemaField, value));
           }
           assert outValues.size() > 0;
           return outValues;
@@ -598,6 +617,12 @@ public class SolrDocumentFetcher {
     }
   }
 
+  private static ByteArrayUtf8CharSequence toUtf8CharSequence(BytesRef bytesRef) {
+    // the BytesRef returned by lookupOrd may be reused, so its bytes must be copied
+    final byte[] bytes = Arrays.copyOfRange(bytesRef.bytes, bytesRef.offset, bytesRef.offset + bytesRef.length);
+    return new ByteArrayUtf8CharSequence(bytes, 0, bytes.length);
+  }
+
   private Object decodeNumberFromDV(SchemaField schemaField, long value, boolean sortableNumeric) {
     // note: This special-case is unfortunate; if we have to add any more than perhaps the fieldType should
     //  have this method so that specific field types can customize it.
@@ -799,13 +824,15 @@ public class SolrDocumentFetcher {
           }
         } else {
           // no need to get stored fields of the document, see SOLR-5968
-          sdoc = new SolrDocument();
+          // the values read as bytes must be masked as Strings to the transformers, like in convertLuceneDocToSolrDoc
+          sdoc = ResultContext.READASBYTES.get() == null ?
+              new SolrDocument() : new BinaryResponseWriter.MaskCharSeqSolrDocument();
           solrReturnFields.setFieldSources(SolrReturnFields.FIELD_SOURCES.ALL_FROM_DV);
         }
 
         // decorate the document with non-stored docValues fields
         if (returnDVFields()) {
-          decorateDocValueFields(sdoc, luceneDocId, getDvFields());
+          decorateDocValueFields(sdoc, luceneDocId, getDvFields(), ResultContext.READASBYTES.get());
         }
       } catch (IOException e) {
         throw new SolrException(SolrException.ErrorCode.SERVER_ERROR, "Error reading document with docId " + luceneDocId, e);
@@ -30,9 +30,14 @@ import java.util.List;
 import java.util.Map;
 import java.util.Set;
 import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Executor;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Future;
 import java.util.concurrent.TimeUnit;
 import java.util.concurrent.atomic.AtomicLong;
 import java.util.concurrent.atomic.AtomicReference;
+import java.util.concurrent.atomic.LongAdder;
 
 import com.codahale.metrics.Gauge;
 import com.google.common.collect.Iterables;
@@ -61,6 +66,7 @@ import org.apache.solr.common.SolrException;
 import org.apache.solr.common.SolrException.ErrorCode;
 import org.apache.solr.common.params.ModifiableSolrParams;
 import org.apache.solr.common.util.ObjectReleaseTracker;
+import org.apache.solr.common.util.TimeSource;
 import org.apache.solr.core.DirectoryFactory;
 import org.apache.solr.core.DirectoryFactory.DirContext;
 import org.apache.solr.core.SolrConfig;
@@ -83,6 +89,7 @@ import org.apache.solr.uninverting.UninvertingReader;
 import org.apache.solr.update.IndexFingerprint;
 import org.apache.solr.update.SolrIndexConfig;
 import org.apache.solr.util.IOFunction;
+import org.apache.solr.util.TimeOut;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
@@ -112,12 +119,14 @@ public class SolrIndexSearcher extends IndexSearcher implements Closeable, SolrI
   private final long openNanoTime = System.nanoTime();
   private Date registerTime;
   private long warmupTime = 0;
+  private final LongAdder numQueries = new LongAdder();
   private final DirectoryReader reader;
   private final boolean closeReader;
 
   private final int queryResultWindowSize;
   private final int queryResultMaxDocsCached;
   private final boolean useFilterForSortedQuery;
+  private final boolean compactFilterCacheEntries;
 
   private final boolean cachingEnabled;
   private final SolrCache<Query,DocSet> filterCache;
@@ -165,6 +174,32 @@ public class SolrIndexSearcher extends IndexSearcher implements Closeable, SolrI
         SolrQueryTimeoutImpl.getInstance());
   }
 
+  /**
+   * Whether the slices of the searches of the current thread may run on the collector executor, which is only the
+   * case in {@link #collectConcurrently} for the requests that opted in with
+   * {@link org.apache.solr.common.params.CommonParams#MULTI_THREADED}.
+   */
+  private static final ThreadLocal<Boolean> collectingConcurrently = ThreadLocal.withInitial(() -> Boolean.FALSE);
+
+  /**
+   * Returns the executor handed to the {@link IndexSearcher}, which divides the index in slices when it has one. As
+   * the IndexSearcher would then collect every search with a {@link CollectorManager} concurrently, the slices of the
+   * searches that didn't opt in are run one after the other on the calling thread instead.
+   */
+  private static Executor getCollectorExecutor(SolrCore core) {
+    final Executor executor = core.getCoreContainer() == null ? null : core.getCoreContainer().getCollectorExecutor();
+    if (executor == null) {
+      return null;
+    }
+    return task -> {
+      if (collectingConcurrently.get()) {
+        executor.execute(task);
+      } else {
+        task.run();
+      }
+    };
+  }
+
   /**
    * Builds the necessary collector chain (via delegate wrapping) and executes the query against it. This method takes
    * into consideration both the explicitly provided collector and postFilter as well as any needed collector wrappers
@@ -250,7 +285,7 @@ public class SolrIndexSearcher extends IndexSearcher implements Closeable, SolrI
   public SolrIndexSearcher(SolrCore core, String path, IndexSchema schema, String name, DirectoryReader r,
       boolean closeReader, boolean enableCache, boolean reserveDirectory, DirectoryFactory directoryFactory)
           throws IOException {
-    super(wrapReader(core, r));
+    super(wrapReader(core, r), getCollectorExecutor(core));
 
     this.path = path;
     this.directoryFactory = directoryFactory;
@@ -284,6 +319,7 @@ public class SolrIndexSearcher extends IndexSearcher implements Closeable, SolrI
     this.queryResultWindowSize = solrConfig.queryResultWindowSize;
     this.queryResultMaxDocsCached = solrConfig.queryResultMaxDocsCached;
     this.useFilterForSortedQuery = solrConfig.useFilterForSortedQuery;
+    this.compactFilterCacheEntries = solrConfig.compactFilterCacheEntries;
 
     this.docFetcher = new SolrDocumentFetcher(this, solrConfig, enableCache);
 
@@ -535,6 +571,15 @@ public class SolrIndexSearcher extends IndexSearcher implements Closeable, SolrI
     return filterCache;
   }
 
+  /**
+   * Returns the set to put in the filterCache for the given answer: with {@code compactFilterCacheEntries}, a
+   * {@link RoaringDocSet} if it takes at most half the memory, otherwise the answer itself.
+   * @lucene.internal
+   */
+  public DocSet toFilterCacheEntry(DocSet answer) {
+    return compactFilterCacheEntries ? DocSetUtil.compactDocSet(answer) : answer;
+  }
+
   //
   // Set default regenerators on filter and query caches if they don't have any
   //
@@ -605,6 +650,7 @@ public class SolrIndexSearcher extends IndexSearcher implements Closeable, SolrI
   }
 
   public QueryResult search(QueryResult qr, QueryCommand cmd) throws IOException {
+    numQueries.increment();
     getDocListC(qr, cmd);
     return qr;
   }
@@ -768,7 +814,7 @@ public class SolrIndexSearcher extends IndexSearcher implements Closeable, SolrI
     // or OS disk cache.
     if (optionalAnswer != null) {
       if (filterCache != null) {
-        filterCache.put(query, optionalAnswer);
+        filterCache.put(query, toFilterCacheEntry(optionalAnswer));
       }
       return;
     }
@@ -787,6 +833,10 @@ public class SolrIndexSearcher extends IndexSearcher implements Closeable, SolrI
     if (answer instanceof BitDocSet) {
       return (BitDocSet) answer;
     }
+    if (answer instanceof OffHeapBitDocSet) {
+      // a single bulk copy of the words rather than setting the bits one by one
+      return new BitDocSet(answer.getFixedBitSetClone(), answer.size());
+    }
     FixedBitSet bs = new FixedBitSet(maxDoc());
     DocIterator iter = answer.iterator();
     while (iter.hasNext()) {
@@ -799,7 +849,9 @@ public class SolrIndexSearcher extends IndexSearcher implements Closeable, SolrI
   public BitDocSet getDocSetBits(Query q) throws IOException {
     DocSet answer = getDocSet(q);
     BitDocSet answerBits = makeBitDocSet(answer);
-    if (answerBits != answer && filterCache != null) {
+    // an off-heap or compact set was cached that way to save heap; caching its heap copy would defeat that
+    if (answerBits != answer && !(answer instanceof OffHeapBitDocSet || answer instanceof RoaringDocSet)
+        && filterCache != null) {
       filterCache.put(q, answerBits);
     }
     return answerBits;
@@ -848,10 +900,10 @@ public class SolrIndexSearcher extends IndexSearcher implements Closeable, SolrI
         return answer;
       }
       answer = getDocSetNC(query, null);
-      filterCache.put(query, answer);
+      filterCache.put(query, toFilterCacheEntry(answer));
       return answer;
     }
-    return filterCache.computeIfAbsent(query, q -> getDocSetNC(q, null));
+    return filterCache.computeIfAbsent(query, q -> toFilterCacheEntry(getDocSetNC(q, null)));
   }
 
   private static Query matchAllDocsQuery = new MatchAllDocsQuery();
@@ -1097,7 +1149,8 @@ public class SolrIndexSearcher extends IndexSearcher implements Closeable, SolrI
     if (useCache) {
       TermQuery key = new TermQuery(new Term(deState.fieldName, deState.termsEnum.term()));
       return filterCache.computeIfAbsent(key,
-              (IOFunction<? super Query, ? extends DocSet>) k -> getResult(deState, largestPossible));
+              (IOFunction<? super Query, ? extends DocSet>) k ->
+                  toFilterCacheEntry(getResult(deState, largestPossible)));
     }
 
     return getResult(deState, largestPossible);
@@ -1419,7 +1472,9 @@ public class SolrIndexSearcher extends IndexSearcher implements Closeable, SolrI
         // the base query and all filters.
         DocSet qDocSet = getDocListAndSetNC(qr, cmd);
         // cache the docSet matching the query w/o filtering
-        if (qDocSet != null && filterCache != null && !qr.isPartialResults()) filterCache.put(cmd.getQuery(), qDocSet);
+        if (qDocSet != null && filterCache != null && !qr.isPartialResults()) {
+          filterCache.put(cmd.getQuery(), toFilterCacheEntry(qDocSet));
+        }
       } else {
         getDocListNC(qr, cmd);
       }
@@ -1526,6 +1581,98 @@ public class SolrIndexSearcher extends IndexSearcher implements Closeable, SolrI
     }
   }
 
+  /**
+   * Whether the query of the command can be collected concurrently over the slices of this searcher. The collectors
+   * added by {@link #buildAndRunCollectorChain} and the post filters expect to see the segments one after the other
+   * on a single thread, so the commands that need them are always collected sequentially.
+   */
+  private boolean canCollectConcurrently(QueryCommand cmd, ProcessedFilter pf) {
+    return cmd.getMultiThreaded() && getExecutor() != null && getSlices().length > 1
+        && pf.postFilter == null && cmd.getTimeAllowed() <= 0
+        && !cmd.getTerminateEarly() && !cmd.getSegmentTerminateEarly() && !cmd.isQueryCancellable()
+        && !(cmd.getQuery() instanceof RankQuery);
+  }
+
+  /** The results of {@link #collectConcurrently}. */
+  private static class ConcurrentCollectionResult {
+    TopDocs topDocs;
+    float maxScore = Float.NaN;
+    DocSet docSet;
+  }
+
+  /**
+   * Collects the top documents of the query, and optionally its max score and its DocSet, concurrently over the
+   * slices of this searcher using the executor of the {@link org.apache.solr.core.CoreContainer}.
+   * The top documents collectors of the slices share the minimum competitive score, like in
+   * {@link IndexSearcher#search(Query, int)}.
+   */
+  @SuppressWarnings({"unchecked", "rawtypes"})
+  private ConcurrentCollectionResult collectConcurrently(Query query, QueryCommand cmd, int len,
+      boolean needMaxScore, boolean needDocSet) throws IOException {
+    final int minNumFound = cmd.getMinExactCount();
+    final CollectorManager topDocsManager;
+    if (null == cmd.getSort()) {
+      assert null == cmd.getCursorMark() : "have cursor but no sort";
+      topDocsManager = TopScoreDocCollector.createSharedManager(len, null, minNumFound);
+    } else {
+      final CursorMark cursor = cmd.getCursorMark();
+      final FieldDoc searchAfter = (null != cursor ? cursor.getSearchAfterFieldDoc() : null);
+      topDocsManager = TopFieldCollector.createSharedManager(weightSort(cmd.getSort()), len, searchAfter, minNumFound);
+    }
+
+    // the collectors of the slices are created by the calling thread, before any of them is run
+    final List<Collector> topDocsCollectors = new ArrayList<>();
+    final List<MaxScoreCollector> maxScoreCollectors = new ArrayList<>();
+    final DocSetCollector.Slices docSetSlices = needDocSet ? new DocSetCollector.Slices(maxDoc()) : null;
+    final CollectorManager<Collector, Void> sliceManager = new CollectorManager<Collector, Void>() {
+      @Override
+      public Collector newCollector() throws IOException {
+        final List<Collector> collectors = new ArrayList<>(3);
+        final Collector topDocsCollector = topDocsManager.newCollector();
+        topDocsCollectors.add(topDocsCollector);
+        collectors.add(topDocsCollector);
+        if (needMaxScore) {
+          final MaxScoreCollector maxScoreCollector = new MaxScoreCollector();
+          maxScoreCollectors.add(maxScoreCollector);
+          collectors.add(maxScoreCollector);
+        }
+        if (needDocSet) {
+          collectors.add(docSetSlices.newCollector());
+        }
+        return MultiCollector.wrap(collectors);
+      }
+
+      @Override
+      public Void reduce(Collection<Collector> collectors) {
+        return null;
+      }
+    };
+
+    collectingConcurrently.set(Boolean.TRUE);
+    try {
+      super.search(query, sliceManager);
+    } catch (RuntimeException e) {
+      // the exceptions of the slices are wrapped by the IndexSearcher
+      Throwable cause = e.getCause();
+      if (cause instanceof ExecutionException && cause.getCause() instanceof IOException) {
+        throw (IOException) cause.getCause();
+      }
+      throw e;
+    } finally {
+      collectingConcurrently.set(Boolean.FALSE);
+    }
+
+    final ConcurrentCollectionResult result = new ConcurrentCollectionResult();
+    result.topDocs = (TopDocs) topDocsManager.reduce(topDocsCollectors);
+    if (needMaxScore) {
+      result.maxScore = MaxScoreCollector.getMaxScore(maxScoreCollectors);
+    }
+    if (needDocSet) {
+      result.docSet = DocSetUtil.getDocSet(docSetSlices.getDocSet(), this);
+    }
+    return result;
+  }
+
   private void getDocListNC(QueryResult qr, QueryCommand cmd) throws IOException {
     int len = cmd.getSupersetMaxDoc();
     int last = len;
@@ -1596,28 +1743,37 @@ public class SolrIndexSearcher extends IndexSearcher implements Closeable, SolrI
       qr.setNextCursorMark(cmd.getCursorMark());
       hitsRelation = Relation.EQUAL_TO;
     } else {
-      final TopDocsCollector<?> topCollector = buildTopDocsCollector(len, cmd);
-      MaxScoreCollector maxScoreCollector = null;
-      Collector collector = topCollector;
-      if ((cmd.getFlags() & GET_SCORES) != 0) {
-        maxScoreCollector = new MaxScoreCollector();
-        collector = MultiCollector.wrap(topCollector, maxScoreCollector);
-      }
-      ScoreMode scoreModeUsed = buildAndRunCollectorChain(qr, query, collector, cmd, pf.postFilter).scoreMode();
-
-      totalHits = topCollector.getTotalHits();
-      TopDocs topDocs = topCollector.topDocs(0, len);
-      if (scoreModeUsed == ScoreMode.COMPLETE || scoreModeUsed == ScoreMode.COMPLETE_NO_SCORES) {
-        hitsRelation = TotalHits.Relation.EQUAL_TO;
-      } else {
+      final TopDocs topDocs;
+      if (canCollectConcurrently(cmd, pf)) {
+        final ConcurrentCollectionResult result = collectConcurrently(query, cmd, len, needScores, false);
+        topDocs = result.topDocs;
+        totalHits = Math.toIntExact(topDocs.totalHits.value);
         hitsRelation = topDocs.totalHits.relation;
+        maxScore = totalHits > 0 ? result.maxScore : 0.0f;
+      } else {
+        final TopDocsCollector<?> topCollector = buildTopDocsCollector(len, cmd);
+        MaxScoreCollector maxScoreCollector = null;
+        Collector collector = topCollector;
+        if ((cmd.getFlags() & GET_SCORES) != 0) {
+          maxScoreCollector = new MaxScoreCollector();
+          collector = MultiCollector.wrap(topCollector, maxScoreCollector);
+        }
+        ScoreMode scoreModeUsed = buildAndRunCollectorChain(qr, query, collector, cmd, pf.postFilter).scoreMode();
+
+        totalHits = topCollector.getTotalHits();
+        topDocs = topCollector.topDocs(0, len);
+        if (scoreModeUsed == ScoreMode.COMPLETE || scoreModeUsed == ScoreMode.COMPLETE_NO_SCORES) {
+          hitsRelation = TotalHits.Relation.EQUAL_TO;
+        } else {
+          hitsRelation = topDocs.totalHits.relation;
+        }
+        maxScore = totalHits > 0 ? (maxScoreCollector == null ? Float.NaN : maxScoreCollector.getMaxScore()) : 0.0f;
       }
       if (cmd.getSort() != null && cmd.getQuery() instanceof RankQuery == false && (cmd.getFlags() & GET_SCORES) != 0) {
         TopFieldCollector.populateScores(topDocs.scoreDocs, this, query);
       }
       populateNextCursorMarkFromTopDocs(qr, cmd, topDocs);
 
-      maxScore = totalHits > 0 ? (maxScoreCollector == null ? Float.NaN : maxScoreCollector.getMaxScore()) : 0.0f;
       nDocsReturned = topDocs.scoreDocs.length;
       ids = new int[nDocsReturned];
       scores = (cmd.getFlags() & GET_SCORES) != 0 ? new float[nDocsReturned] : null;
@@ -1700,31 +1856,40 @@ public class SolrIndexSearcher extends IndexSearcher implements Closeable, SolrI
       // no docs on this page, so cursor doesn't change
       qr.setNextCursorMark(cmd.getCursorMark());
     } else {
-      final TopDocsCollector<? extends ScoreDoc> topCollector = buildTopDocsCollector(len, cmd);
-      DocSetCollector setCollector = new DocSetCollector(maxDoc);
-      MaxScoreCollector maxScoreCollector = null;
-      List<Collector> collectors = new ArrayList<>(Arrays.asList(topCollector, setCollector));
-
-      if ((cmd.getFlags() & GET_SCORES) != 0) {
-        maxScoreCollector = new MaxScoreCollector();
-        collectors.add(maxScoreCollector);
-      }
+      final TopDocs topDocs;
+      if (canCollectConcurrently(cmd, pf)) {
+        final ConcurrentCollectionResult result = collectConcurrently(query, cmd, len, needScores, true);
+        set = result.docSet;
+        topDocs = result.topDocs;
+        totalHits = Math.toIntExact(topDocs.totalHits.value);
+        maxScore = totalHits > 0 ? result.maxScore : 0.0f;
+      } else {
+        final TopDocsCollector<? extends ScoreDoc> topCollector = buildTopDocsCollector(len, cmd);
+        DocSetCollector setCollector = new DocSetCollector(maxDoc);
+        MaxScoreCollector maxScoreCollector = null;
+        List<Collector> collectors = new ArrayList<>(Arrays.asList(topCollector, setCollector));
+
+        if ((cmd.getFlags() & GET_SCORES) != 0) {
+          maxScoreCollector = new MaxScoreCollector();
+          collectors.add(maxScoreCollector);
+        }
 
-      Collector collector = MultiCollector.wrap(collectors);
+        Collector collector = MultiCollector.wrap(collectors);
 
-      buildAndRunCollectorChain(qr, query, collector, cmd, pf.postFilter);
+        buildAndRunCollectorChain(qr, query, collector, cmd, pf.postFilter);
 
-      set = DocSetUtil.getDocSet(setCollector, this);
+        set = DocSetUtil.getDocSet(setCollector, this);
 
-      totalHits = topCollector.getTotalHits();
+        totalHits = topCollector.getTotalHits();
+        topDocs = topCollector.topDocs(0, len);
+        maxScore = totalHits > 0 ? (maxScoreCollector == null ? Float.NaN : maxScoreCollector.getMaxScore()) : 0.0f;
+      }
       assert (totalHits == set.size()) || qr.isPartialResults();
 
-      TopDocs topDocs = topCollector.topDocs(0, len);
       if (cmd.getSort() != null && cmd.getQuery() instanceof RankQuery == false && (cmd.getFlags() & GET_SCORES) != 0) {
         TopFieldCollector.populateScores(topDocs.scoreDocs, this, query);
       }
       populateNextCursorMarkFromTopDocs(qr, cmd, topDocs);
-      maxScore = totalHits > 0 ? (maxScoreCollector == null ? Float.NaN : maxScoreCollector.getMaxScore()) : 0.0f;
       nDocsReturned = topDocs.scoreDocs.length;
 
       ids = new int[nDocsReturned];
@@ -2018,7 +2183,9 @@ public class SolrIndexSearcher extends IndexSearcher implements Closeable, SolrI
     }
 
     // bit of a hack to tell if a set is sorted - do it better in the future.
-    boolean inOrder = set instanceof BitDocSet || set instanceof SortedIntDocSet;
+    boolean inOrder = set instanceof BitDocSet || set instanceof SortedIntDocSet
+        || set instanceof OffHeapBitDocSet || set instanceof OffHeapSortedIntDocSet
+        || set instanceof RoaringDocSet;
 
     TopDocsCollector<? extends ScoreDoc> topCollector = buildTopDocsCollector(nDocs, cmd);
 
@@ -2141,46 +2308,93 @@ public class SolrIndexSearcher extends IndexSearcher implements Closeable, SolrI
 
   /**
    * Warm this searcher based on an old one (primarily for auto-cache warming).
+   * <p>
+   * The filterCache is warmed first, then the other caches are warmed by up to {@link SolrConfig#warmingThreads}
+   * threads of the core's {@link SolrCore#getAutowarmingExecutor() autowarming executor}. The caches stop regenerating
+   * items once {@link SolrConfig#maxWarmingTime} has elapsed so that a partially warmed searcher can be registered.
    */
-  @SuppressWarnings({"unchecked"})
   public void warm(SolrIndexSearcher old) {
     // Make sure this is first! filters can help queryResults execute!
     long warmingStartTime = System.nanoTime();
-    // warm the caches in order...
+    SolrConfig solrConfig = core.getSolrConfig();
+    final TimeOut budget = solrConfig.maxWarmingTime > 0
+        ? new TimeOut(solrConfig.maxWarmingTime, TimeUnit.MILLISECONDS, TimeSource.NANO_TIME) : null;
+    ExecutorService executor = core.getAutowarmingExecutor();
+    if (executor != null && cacheList.length > 1) {
+      int filterCacheIndex = Arrays.asList(cacheList).indexOf(filterCache);
+      if (filterCacheIndex >= 0) {
+        warmCache(old, filterCacheIndex, budget);
+      }
+      List<Future<?>> futures = new ArrayList<>(cacheList.length);
+      for (int i = 0; i < cacheList.length; i++) {
+        if (i != filterCacheIndex) {
+          final int cache = i;
+          futures.add(executor.submit(() -> warmCache(old, cache, budget)));
+        }
+      }
+      Throwable failure = null;
+      for (Future<?> future : futures) {
+        try {
+          future.get();
+        } catch (ExecutionException e) {
+          if (failure == null) failure = e.getCause();
+        } catch (InterruptedException e) {
+          Thread.currentThread().interrupt();
+          throw new SolrException(ErrorCode.SERVER_ERROR, "Interrupted while autowarming " + this, e);
+        }
+      }
+      if (failure instanceof Error) {
+        throw (Error) failure;
+      } else if (failure instanceof RuntimeException) {
+        throw (RuntimeException) failure;
+      } else if (failure != null) {
+        throw new SolrException(ErrorCode.SERVER_ERROR, failure);
+      }
+    } else {
+      // warm the caches in order...
+      for (int i = 0; i < cacheList.length; i++) {
+        warmCache(old, i, budget);
+      }
+    }
+    warmupTime = TimeUnit.MILLISECONDS.convert(System.nanoTime() - warmingStartTime, TimeUnit.NANOSECONDS);
+    if (budget != null && budget.hasTimedOut()) {
+      log.info("Autowarming of [{}] stopped after exceeding maxWarmingTime={}ms", this, solrConfig.maxWarmingTime);
+    }
+  }
+
+  @SuppressWarnings({"unchecked"})
+  private void warmCache(SolrIndexSearcher old, int i, TimeOut budget) {
+    if (log.isDebugEnabled()) {
+      log.debug("autowarming [{}] from [{}]\n\t{}", this, old, old.cacheList[i]);
+    }
+
     ModifiableSolrParams params = new ModifiableSolrParams();
     params.add("warming", "true");
-    for (int i = 0; i < cacheList.length; i++) {
-      if (log.isDebugEnabled()) {
-        log.debug("autowarming [{}] from [{}]\n\t{}", this, old, old.cacheList[i]);
+    final SolrQueryRequest req = new LocalSolrQueryRequest(core, params) {
+      @Override
+      public SolrIndexSearcher getSearcher() {
+        return SolrIndexSearcher.this;
       }
 
-      final SolrQueryRequest req = new LocalSolrQueryRequest(core, params) {
-        @Override
-        public SolrIndexSearcher getSearcher() {
-          return SolrIndexSearcher.this;
-        }
-
-        @Override
-        public void close() {}
-      };
+      @Override
+      public void close() {}
+    };
 
-      final SolrQueryResponse rsp = new SolrQueryResponse();
-      SolrRequestInfo.setRequestInfo(new SolrRequestInfo(req, rsp));
+    final SolrQueryResponse rsp = new SolrQueryResponse();
+    SolrRequestInfo.setRequestInfo(new SolrRequestInfo(req, rsp));
+    try {
+      cacheList[i].warm(this, old.cacheList[i], budget);
+    } finally {
       try {
-        cacheList[i].warm(this, old.cacheList[i]);
+        req.close();
       } finally {
-        try {
-          req.close();
-        } finally {
-          SolrRequestInfo.clearRequestInfo();
-        }
+        SolrRequestInfo.clearRequestInfo();
       }
+    }
 
-      if (log.isDebugEnabled()) {
-        log.debug("autowarming result for [{}]\n\t{}", this, cacheList[i]);
-      }
+    if (log.isDebugEnabled()) {
+      log.debug("autowarming result for [{}]\n\t{}", this, cacheList[i]);
     }
-    warmupTime = TimeUnit.MILLISECONDS.convert(System.nanoTime() - warmingStartTime, TimeUnit.NANOSECONDS);
   }
 
   /**
@@ -2327,4 +2541,9 @@ public class SolrIndexSearcher extends IndexSearcher implements Closeable, SolrI
     return warmupTime;
   }
 
+  /** The number of calls to {@link #search(QueryResult, QueryCommand)}, which doesn't include warming queries */
+  public long getNumQueries() {
+    return numQueries.sum();
+  }
+
 }
@@ -34,6 +34,7 @@ import java.util.function.IntFunction;
 import org.apache.lucene.index.LeafReaderContext;
 import org.apache.lucene.search.Query;
 import org.apache.lucene.util.ArrayUtil;
+import org.apache.lucene.util.FixedBitSet;
 import org.apache.lucene.util.PriorityQueue;
 import org.apache.solr.common.SolrException;
 import org.apache.solr.common.util.SimpleOrderedMap;
@@ -1002,7 +1003,11 @@ abstract class FacetFieldProcessor extends FacetProcessor<FacetField> {
     return bucket;
   }
 
-  /** Resizes to the specified size, remapping all existing slots to slot 0 */
+  /**
+   * Resizes to the specified size, remapping all existing slots to slot 0.
+   * This is only used on accs that were just reset, so arrays that are already big enough are cleared and reused
+   * rather than reallocated for every bucket of a parent facet.
+   */
   private static final class FlatteningResizer extends SlotAcc.Resizer {
     private final int slotCount;
     public FlatteningResizer(int slotCount) {
@@ -1017,5 +1022,50 @@ abstract class FacetFieldProcessor extends FacetProcessor<FacetField> {
     public int getNewSlot(int oldSlot) {
       return 0;
     }
+
+    @Override
+    public double[] resize(double[] old, double defaultValue) {
+      if (old.length < slotCount) {
+        return super.resize(old, defaultValue);
+      }
+      Arrays.fill(old, 0, slotCount, defaultValue);
+      return old;
+    }
+
+    @Override
+    public int[] resize(int[] old, int defaultValue) {
+      if (old.length < slotCount) {
+        return super.resize(old, defaultValue);
+      }
+      Arrays.fill(old, 0, slotCount, defaultValue);
+      return old;
+    }
+
+    @Override
+    public long[] resize(long[] old, long defaultValue) {
+      if (old.length < slotCount) {
+        return super.resize(old, defaultValue);
+      }
+      Arrays.fill(old, 0, slotCount, defaultValue);
+      return old;
+    }
+
+    @Override
+    public FixedBitSet resize(FixedBitSet old) {
+      if (old.length() < slotCount) {
+        return super.resize(old);
+      }
+      old.clear(0, slotCount);
+      return old;
+    }
+
+    @Override
+    public <T> T[] resize(T[] old, T defaultValue) {
+      if (old.length < slotCount) {
+        return super.resize(old, defaultValue);
+      }
+      Arrays.fill(old, 0, slotCount, defaultValue);
+      return old;
+    }
   }
 }
@@ -217,12 +217,14 @@ public abstract class SlotAcc implements Closeable {
       FixedBitSet values = new FixedBitSet(getNewSize());
       int oldSize = old.length();
 
-      for (int oldSlot = 0; ; ) {
-        oldSlot = values.nextSetBit(oldSlot);
+      for (int oldSlot = 0; oldSlot < oldSize; ) {
+        oldSlot = old.nextSetBit(oldSlot);
         if (oldSlot == DocIdSetIterator.NO_MORE_DOCS) break;
         int newSlot = getNewSlot(oldSlot);
-        values.set(newSlot);
-        if (++oldSlot >= oldSize) break;
+        if (newSlot >= 0) {
+          values.set(newSlot);
+        }
+        ++oldSlot;
       }
 
       return values;
@@ -24,8 +24,8 @@ import org.apache.lucene.index.LeafReaderContext;
 import org.apache.lucene.index.MultiDocValues;
 import org.apache.lucene.index.OrdinalMap;
 import org.apache.lucene.index.SortedSetDocValues;
+import org.apache.lucene.util.BitSet;
 import org.apache.lucene.util.BytesRef;
-import org.apache.lucene.util.FixedBitSet;
 import org.apache.lucene.util.LongValues;
 import org.apache.solr.schema.SchemaField;
 
@@ -77,11 +77,7 @@ class UniqueMultiDvSlotAcc extends UniqueSlotAcc {
       int segOrd = (int) subDv.nextOrd();
       assert segOrd >= 0;
       
-      FixedBitSet bits = arr[slotNum];
-      if (bits == null) {
-        bits = new FixedBitSet(nTerms);
-        arr[slotNum] = bits;
-      }
+      BitSet bits = getOrCreateBits(slotNum);
 
       do {
         int ord = toGlobal == null ? segOrd : (int) toGlobal.get(segOrd);
@@ -20,8 +20,8 @@ package org.apache.solr.search.facet;
 import java.io.IOException;
 import java.util.function.IntFunction;
 
+import org.apache.lucene.util.BitSet;
 import org.apache.lucene.util.BytesRef;
-import org.apache.lucene.util.FixedBitSet;
 import org.apache.solr.schema.SchemaField;
 import org.apache.solr.search.SolrIndexSearcher;
 
@@ -43,7 +43,7 @@ class UniqueMultivaluedSlotAcc extends UniqueSlotAcc implements UnInvertedField.
     return docToTerm.lookupOrd(ord);
   }
 
-  private FixedBitSet bits;  // bits for the current slot, only set for the callback
+  private BitSet bits;  // bits for the current slot, only set for the callback
 
   @Override
   public void call(int termNum) {
@@ -52,11 +52,7 @@ class UniqueMultivaluedSlotAcc extends UniqueSlotAcc implements UnInvertedField.
 
   @Override
   public void collect(int doc, int slotNum, IntFunction<SlotContext> slotContext) throws IOException {
-    bits = arr[slotNum];
-    if (bits == null) {
-      bits = new FixedBitSet(nTerms);
-      arr[slotNum] = bits;
-    }
+    bits = getOrCreateBits(slotNum);
     docToTerm.getBigTerms(doc + currentDocBase, this);  // this will call back to our Callback.call(int termNum)
     docToTerm.getSmallTerms(doc + currentDocBase, this);
   }
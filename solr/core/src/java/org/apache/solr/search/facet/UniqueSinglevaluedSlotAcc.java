@@ -25,7 +25,6 @@ import org.apache.lucene.index.MultiDocValues;
 import org.apache.lucene.index.OrdinalMap;
 import org.apache.lucene.index.SortedDocValues;
 import org.apache.lucene.util.BytesRef;
-import org.apache.lucene.util.FixedBitSet;
 import org.apache.lucene.util.LongValues;
 import org.apache.solr.schema.SchemaField;
 
@@ -84,11 +83,6 @@ class UniqueSinglevaluedSlotAcc extends UniqueSlotAcc {
   }
 
   protected void collectOrdToSlot(int slotNum, int ord) {
-    FixedBitSet bits = arr[slotNum];
-    if (bits == null) {
-      bits = new FixedBitSet(nTerms);
-      arr[slotNum] = bits;
-    }
-    bits.set(ord);
+    getOrCreateBits(slotNum).set(ord);
   }
 }
@@ -21,34 +21,68 @@ import java.util.ArrayList;
 import java.util.List;
 
 import org.apache.lucene.search.DocIdSetIterator;
+import org.apache.lucene.util.BitSet;
 import org.apache.lucene.util.BytesRef;
 import org.apache.lucene.util.FixedBitSet;
+import org.apache.lucene.util.SparseFixedBitSet;
 import org.apache.solr.common.util.Hash;
 import org.apache.solr.common.util.SimpleOrderedMap;
 import org.apache.solr.schema.SchemaField;
 import org.apache.solr.util.hll.HLL;
 
 abstract class UniqueSlotAcc extends SlotAcc {
+  /**
+   * Above this number of terms the ords of each slot are tracked in a {@link SparseFixedBitSet}, so that the memory
+   * used by a slot depends on the number of distinct ords it collected rather than on the number of terms.
+   */
+  static final int SPARSE_BITS_MIN_TERMS = 1 << 16;
+
   HLLAgg.HLLFactory factory;
   SchemaField field;
-  FixedBitSet[] arr;
+  BitSet[] arr;
   int[] counts;  // populated with the cardinality once
   int nTerms;
+  // cleared bit sets from previous uses of this acc, handed out again before allocating new ones
+  private final List<BitSet> freeBits = new ArrayList<>();
 
   public UniqueSlotAcc(FacetContext fcontext, SchemaField field, int numSlots, HLLAgg.HLLFactory factory) throws IOException {
     super(fcontext);
     this.factory = factory;
-    arr = new FixedBitSet[numSlots];
+    arr = new BitSet[numSlots];
     this.field = field;
   }
 
   @Override
   public void reset() throws IOException {
     counts = null;
-    for (FixedBitSet bits : arr) {
+    for (int i = 0; i < arr.length; i++) {
+      BitSet bits = arr[i];
       if (bits == null) continue;
       bits.clear(0, bits.length());
+      freeBits.add(bits);
+      arr[i] = null;
+    }
+  }
+
+  /** Returns the bits of the ords collected for the slot, creating (or reusing) them if needed */
+  protected BitSet getOrCreateBits(int slot) {
+    BitSet bits = arr[slot];
+    if (bits == null) {
+      bits = newBits();
+      arr[slot] = bits;
+    }
+    return bits;
+  }
+
+  private BitSet newBits() {
+    // the number of terms may have changed if the iterators were reset against another reader
+    while (!freeBits.isEmpty()) {
+      BitSet bits = freeBits.remove(freeBits.size() - 1);
+      if (bits.length() == nTerms) {
+        return bits;
+      }
     }
+    return nTerms >= SPARSE_BITS_MIN_TERMS ? new SparseFixedBitSet(nTerms) : new FixedBitSet(nTerms);
   }
 
   @Override
@@ -68,14 +102,14 @@ abstract class UniqueSlotAcc extends SlotAcc {
     if (counts != null) {  // will only be pre-populated if this was used for sorting.
       res = counts[slot];
     } else {
-      FixedBitSet bs = arr[slot];
+      BitSet bs = arr[slot];
       res = bs == null ? 0 : bs.cardinality();
     }
     return res;
   }
 
   private Object getShardHLL(int slot) throws IOException {
-    FixedBitSet ords = arr[slot];
+    BitSet ords = arr[slot];
     if (ords == null) return HLLAgg.NO_VALUES;
 
     HLL hll = factory.getHLL();
@@ -99,7 +133,7 @@ abstract class UniqueSlotAcc extends SlotAcc {
 
   private Object getShardValue(int slot) throws IOException {
     if (factory != null) return getShardHLL(slot);
-    FixedBitSet ords = arr[slot];
+    BitSet ords = arr[slot];
     int unique;
     if (counts != null) {
       unique = counts[slot];
@@ -142,7 +176,7 @@ abstract class UniqueSlotAcc extends SlotAcc {
   public void calcCounts() {
     counts = new int[arr.length];
     for (int i=0; i<arr.length; i++) {
-      FixedBitSet bs = arr[i];
+      BitSet bs = arr[i];
       counts[i] = bs == null ? 0 : bs.cardinality();
     }
   }
@@ -0,0 +1,309 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.apache.solr.search.neural;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Objects;
+
+import org.apache.lucene.index.IndexReaderContext;
+import org.apache.lucene.index.LeafReaderContext;
+import org.apache.lucene.search.DocIdSetIterator;
+import org.apache.lucene.search.Explanation;
+import org.apache.lucene.search.IndexSearcher;
+import org.apache.lucene.search.MatchNoDocsQuery;
+import org.apache.lucene.search.Query;
+import org.apache.lucene.search.QueryVisitor;
+import org.apache.lucene.search.ScoreDoc;
+import org.apache.lucene.search.ScoreMode;
+import org.apache.lucene.search.Scorer;
+import org.apache.lucene.search.TopDocs;
+import org.apache.lucene.search.Weight;
+import org.apache.lucene.util.Bits;
+import org.apache.solr.search.DocSet;
+import org.apache.solr.search.SolrIndexSearcher;
+
+/**
+ * Nearest neighbour query restricted to the documents matching filter queries, typically the filter queries of the
+ * request. The {@link DocSet} of the filters is passed as the accepted documents of the HNSW graph search of each
+ * segment, so the {@code k} best matching documents of the filter are returned rather than the subset of the
+ * {@code k} best documents that happen to match the filter.
+ * <p>
+ * The {@link DocSet} is resolved (through the filterCache) from the {@link SolrIndexSearcher} that executes the
+ * query, so the query only holds the filter queries and can be cached and autowarmed like any other query.
+ */
+public class FilteredKnnVectorQuery extends Query {
+
+  private final String field;
+  private final float[] target;
+  private final int k;
+  private final List<Query> filterQueries;
+
+  public FilteredKnnVectorQuery(String field, float[] target, int k, List<Query> filterQueries) {
+    this.field = Objects.requireNonNull(field);
+    this.target = Objects.requireNonNull(target);
+    this.k = k;
+    this.filterQueries = Objects.requireNonNull(filterQueries);
+  }
+
+  @Override
+  public Weight createWeight(IndexSearcher searcher, ScoreMode scoreMode, float boost) throws IOException {
+    if (!(searcher instanceof SolrIndexSearcher)) {
+      throw new IllegalStateException(getClass().getSimpleName() + " must be executed by a SolrIndexSearcher");
+    }
+    DocSet filter = ((SolrIndexSearcher) searcher).getDocSet(filterQueries);
+    Query docsAndScores = filter.size() == 0
+        ? new MatchNoDocsQuery("no document matches the filter queries")
+        : searchGraph(searcher, filter.getBits());
+    return docsAndScores.createWeight(searcher, scoreMode, boost);
+  }
+
+  private Query searchGraph(IndexSearcher searcher, Bits filterBits) throws IOException {
+    List<ScoreDoc> hits = new ArrayList<>();
+    for (LeafReaderContext ctx : searcher.getIndexReader().leaves()) {
+      TopDocs leafHits = ctx.reader().searchNearestVectors(field, target, k,
+          new LeafBits(filterBits, ctx.docBase, ctx.reader().maxDoc()));
+      if (leafHits == null) {
+        continue; // no vectors in this segment
+      }
+      for (ScoreDoc hit : leafHits.scoreDocs) {
+        hits.add(new ScoreDoc(hit.doc + ctx.docBase, hit.score));
+      }
+    }
+    if (hits.isEmpty()) {
+      return new MatchNoDocsQuery("no vector matches the filter queries");
+    }
+    hits.sort(Comparator.comparingDouble((ScoreDoc hit) -> -hit.score).thenComparingInt(hit -> hit.doc));
+    ScoreDoc[] topHits = hits.subList(0, Math.min(k, hits.size())).toArray(new ScoreDoc[0]);
+    Arrays.sort(topHits, Comparator.comparingInt(hit -> hit.doc));
+    int[] docs = new int[topHits.length];
+    float[] scores = new float[topHits.length];
+    for (int i = 0; i < topHits.length; i++) {
+      docs[i] = topHits[i].doc;
+      scores[i] = topHits[i].score;
+    }
+    return new DocAndScoreQuery(this, docs, scores, searcher.getTopReaderContext());
+  }
+
+  @Override
+  public void visit(QueryVisitor visitor) {
+    if (visitor.acceptField(field)) {
+      visitor.visitLeaf(this);
+    }
+  }
+
+  @Override
+  public String toString(String field) {
+    return getClass().getSimpleName() + ":" + this.field + "[" + target[0] + ",...][" + k + "]" + filterQueries;
+  }
+
+  @Override
+  public boolean equals(Object other) {
+    return sameClassAs(other) && equalsTo(getClass().cast(other));
+  }
+
+  private boolean equalsTo(FilteredKnnVectorQuery other) {
+    return k == other.k &&
+        field.equals(other.field) &&
+        Arrays.equals(target, other.target) &&
+        filterQueries.equals(other.filterQueries);
+  }
+
+  @Override
+  public int hashCode() {
+    int h = classHash();
+    h = 31 * h + field.hashCode();
+    h = 31 * h + Arrays.hashCode(target);
+    h = 31 * h + k;
+    h = 31 * h + filterQueries.hashCode();
+    return h;
+  }
+
+  /** Views the top level bits of the filter from a segment */
+  private static class LeafBits implements Bits {
+    private final Bits topLevelBits;
+    private final int docBase;
+    private final int maxDoc;
+
+    LeafBits(Bits topLevelBits, int docBase, int maxDoc) {
+      this.topLevelBits = topLevelBits;
+      this.docBase = docBase;
+      this.maxDoc = maxDoc;
+    }
+
+    @Override
+    public boolean get(int index) {
+      return topLevelBits.get(docBase + index);
+    }
+
+    @Override
+    public int length() {
+      return maxDoc;
+    }
+  }
+
+  /** The result of the graph search: matches the top level docs found by the graph search with their similarity scores */
+  static class DocAndScoreQuery extends Query {
+    private final FilteredKnnVectorQuery original;
+    private final int[] docs; // sorted
+    private final float[] scores;
+    private final IndexReaderContext readerContext;
+
+    DocAndScoreQuery(FilteredKnnVectorQuery original, int[] docs, float[] scores, IndexReaderContext readerContext) {
+      this.original = original;
+      this.docs = docs;
+      this.scores = scores;
+      this.readerContext = readerContext;
+    }
+
+    @Override
+    public Weight createWeight(IndexSearcher searcher, ScoreMode scoreMode, float boost) throws IOException {
+      if (searcher.getTopReaderContext() != readerContext) {
+        throw new IllegalStateException("This query was built using a different reader than the one of the searcher");
+      }
+      return new Weight(this) {
+        @Override
+        public Explanation explain(LeafReaderContext context, int doc) throws IOException {
+          int index = Arrays.binarySearch(docs, doc + context.docBase);
+          if (index < 0) {
+            return Explanation.noMatch("not in top " + original.k);
+          }
+          return Explanation.match(scores[index] * boost, "within top " + original.k);
+        }
+
+        @Override
+        public Scorer scorer(LeafReaderContext context) throws IOException {
+          int lower = lowerBound(context.docBase);
+          int upper = lowerBound(context.docBase + context.reader().maxDoc());
+          if (lower == upper) {
+            return null;
+          }
+          return new DocAndScoreScorer(this, context.docBase, lower, upper, boost);
+        }
+
+        @Override
+        public boolean isCacheable(LeafReaderContext ctx) {
+          return true;
+        }
+      };
+    }
+
+    /** index of the first doc greater than or equal to the given top level doc */
+    private int lowerBound(int doc) {
+      int index = Arrays.binarySearch(docs, doc);
+      return index < 0 ? -1 - index : index;
+    }
+
+    private class DocAndScoreScorer extends Scorer {
+      private final int docBase;
+      private final int lower;
+      private final int upper;
+      private final float boost;
+      private int index;
+
+      DocAndScoreScorer(Weight weight, int docBase, int lower, int upper, float boost) {
+        super(weight);
+        this.docBase = docBase;
+        this.lower = lower;
+        this.upper = upper;
+        this.boost = boost;
+        this.index = lower - 1;
+      }
+
+      @Override
+      public DocIdSetIterator iterator() {
+        return new DocIdSetIterator() {
+          @Override
+          public int docID() {
+            return DocAndScoreScorer.this.docID();
+          }
+
+          @Override
+          public int nextDoc() {
+            index++;
+            return docID();
+          }
+
+          @Override
+          public int advance(int target) {
+            index = Math.max(index + 1, lowerBound(target + docBase));
+            return docID();
+          }
+
+          @Override
+          public long cost() {
+            return upper - lower;
+          }
+        };
+      }
+
+      @Override
+      public int docID() {
+        if (index < lower) {
+          return -1;
+        }
+        if (index >= upper) {
+          return DocIdSetIterator.NO_MORE_DOCS;
+        }
+        return docs[index] - docBase;
+      }
+
+      @Override
+      public float getMaxScore(int upTo) {
+        float maxScore = 0;
+        for (int i = Math.max(index, lower); i < upper && docs[i] - docBase <= upTo; i++) {
+          maxScore = Math.max(maxScore, scores[i]);
+        }
+        return maxScore * boost;
+      }
+
+      @Override
+      public float score() {
+        return scores[index] * boost;
+      }
+    }
+
+    @Override
+    public void visit(QueryVisitor visitor) {
+      original.visit(visitor);
+    }
+
+    @Override
+    public String toString(String field) {
+      return original.toString(field);
+    }
+
+    @Override
+    public boolean equals(Object other) {
+      return sameClassAs(other) && equalsTo(getClass().cast(other));
+    }
+
+    private boolean equalsTo(DocAndScoreQuery other) {
+      return readerContext == other.readerContext &&
+          Arrays.equals(docs, other.docs) &&
+          Arrays.equals(scores, other.scores);
+    }
+
+    @Override
+    public int hashCode() {
+      return 31 * classHash() + Arrays.hashCode(docs);
+    }
+  }
+}
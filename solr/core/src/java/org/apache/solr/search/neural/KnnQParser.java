@@ -0,0 +1,110 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.apache.solr.search.neural;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+
+import org.apache.lucene.search.KnnVectorQuery;
+import org.apache.lucene.search.Query;
+import org.apache.solr.common.SolrException;
+import org.apache.solr.common.params.CommonParams;
+import org.apache.solr.common.params.SolrParams;
+import org.apache.solr.request.SolrQueryRequest;
+import org.apache.solr.schema.DenseVectorField;
+import org.apache.solr.schema.SchemaField;
+import org.apache.solr.search.QParser;
+import org.apache.solr.search.SyntaxError;
+
+/**
+ * Parses the query vector and builds a nearest neighbour query, see {@link KnnQParserPlugin}.
+ */
+public class KnnQParser extends QParser {
+
+  public static final String FIELD = "f";
+  public static final String TOP_K = "topK";
+  public static final int DEFAULT_TOP_K = 10;
+  /** Whether the filter queries of the request are applied during the search of the graph, defaults to true */
+  public static final String PRE_FILTER = "preFilter";
+
+  public KnnQParser(String qstr, SolrParams localParams, SolrParams params, SolrQueryRequest req) {
+    super(qstr, localParams, params, req);
+  }
+
+  @Override
+  public Query parse() throws SyntaxError {
+    String fieldName = localParams.get(FIELD);
+    if (fieldName == null || fieldName.isEmpty()) {
+      throw new SyntaxError("The field \"" + FIELD + "\" is required in knn queries");
+    }
+    SchemaField schemaField = req.getSchema().getFieldOrNull(fieldName);
+    if (schemaField == null) {
+      throw new SyntaxError("Field \"" + fieldName + "\" not found");
+    }
+    if (!(schemaField.getType() instanceof DenseVectorField)) {
+      throw new SyntaxError("Field \"" + fieldName + "\" is not a DenseVectorField");
+    }
+    if (qstr == null || qstr.isEmpty()) {
+      throw new SyntaxError("The query vector is required in knn queries");
+    }
+    int topK = localParams.getInt(TOP_K, DEFAULT_TOP_K);
+    if (topK <= 0) {
+      throw new SyntaxError("\"" + TOP_K + "\" must be positive, got " + topK);
+    }
+
+    final float[] vector;
+    try {
+      vector = ((DenseVectorField) schemaField.getType()).parseVector(schemaField, qstr);
+    } catch (SolrException e) {
+      throw new SyntaxError(e.getMessage(), e);
+    }
+
+    List<Query> filterQueries = getFilterQueries();
+    if (filterQueries.isEmpty()) {
+      return new KnnVectorQuery(fieldName, vector, topK);
+    }
+    return new FilteredKnnVectorQuery(fieldName, vector, topK, filterQueries);
+  }
+
+  /**
+   * The filter queries that should restrict the nearest neighbour search. A knn query that is itself used as a
+   * filter isn't pre-filtered, otherwise it would depend on itself.
+   */
+  private List<Query> getFilterQueries() throws SyntaxError {
+    if (isFilter() || !localParams.getBool(PRE_FILTER, true)) {
+      return Collections.emptyList();
+    }
+    String[] fqs = params.getParams(CommonParams.FQ);
+    if (fqs == null || fqs.length == 0) {
+      return Collections.emptyList();
+    }
+    List<Query> filterQueries = new ArrayList<>(fqs.length);
+    for (String fq : fqs) {
+      if (fq == null || fq.trim().isEmpty()) {
+        continue;
+      }
+      QParser fqp = QParser.getParser(fq, req);
+      fqp.setIsFilter(true);
+      Query filterQuery = fqp.getQuery();
+      if (filterQuery != null) {
+        filterQueries.add(filterQuery);
+      }
+    }
+    return filterQueries;
+  }
+}
@@ -0,0 +1,45 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.apache.solr.search.neural;
+
+import org.apache.solr.common.params.SolrParams;
+import org.apache.solr.request.SolrQueryRequest;
+import org.apache.solr.search.QParser;
+import org.apache.solr.search.QParserPlugin;
+
+/**
+ * {@code KnnQParserPlugin} retrieves the {@code topK} nearest neighbours of a query vector, using the HNSW graph
+ * of a {@link org.apache.solr.schema.DenseVectorField}. For example:
+ * <pre class="prettyprint">
+ * q={!knn f=vector topK=10}[1.0, 2.0, 3.0, 4.0]
+ * </pre>
+ * When used as the main query, the documents matching the request's filter queries ({@code fq}) are resolved
+ * through the filterCache first, and the nearest neighbour search only considers those documents. This
+ * ensures {@code topK} results are returned whenever enough documents match the filters.
+ *
+ * @see org.apache.solr.schema.DenseVectorField
+ * @lucene.experimental
+ */
+public class KnnQParserPlugin extends QParserPlugin {
+
+  public static final String NAME = "knn";
+
+  @Override
+  public QParser createParser(String qstr, SolrParams localParams, SolrParams params, SolrQueryRequest req) {
+    return new KnnQParser(qstr, localParams, params, req);
+  }
+}
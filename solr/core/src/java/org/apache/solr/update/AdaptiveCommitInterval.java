@@ -0,0 +1,89 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.apache.solr.update;
+
+/**
+ * Computes the interval of adaptive soft auto commits, between a configured minimum and the maximum time after which
+ * updates must be visible.
+ * <p>
+ * After each commit, the interval is moved half-way towards the longest of:
+ * <ul>
+ *   <li>the minimum time,</li>
+ *   <li>the interval that keeps the time spent warming new searchers below a share of the elapsed time, where the
+ *   share gets smaller as the query rate grows, since queries then suffer more from cold caches, and</li>
+ *   <li>the minimum time scaled with the logarithm of the indexing rate, so that ingestion spikes don't open a new
+ *   searcher for every few documents.</li>
+ * </ul>
+ * The result is capped by the maximum time. Not thread-safe: {@link CommitTracker} synchronizes access.
+ */
+class AdaptiveCommitInterval {
+
+  /** The share of time that may be spent warming searchers, when there are no queries */
+  static final double MAX_WARM_SHARE = 0.1;
+  /** The query rate (per second) at which the share of time spent warming is halved */
+  static final double QUERY_RATE_SCALE = 50;
+  /** The indexing rate (docs per second) that doubles the minimum time */
+  static final double INDEXING_RATE_SCALE = 1000;
+
+  private final long minTime;
+  private final long maxTime;
+
+  private long interval;
+  private long lastWarmTime;
+
+  AdaptiveCommitInterval(long minTime, long maxTime) {
+    assert 0 < minTime && minTime <= maxTime;
+    this.minTime = minTime;
+    this.maxTime = maxTime;
+    this.interval = minTime;
+  }
+
+  long getMinTime() {
+    return minTime;
+  }
+
+  /** The time (in ms) within which the next soft commit should happen after an update */
+  long getInterval() {
+    return interval;
+  }
+
+  /** The time (in ms) it took to warm the searcher opened by the last commit */
+  long getLastWarmTime() {
+    return lastWarmTime;
+  }
+
+  /**
+   * Adjusts the interval after a commit.
+   *
+   * @param elapsedMs the time since the previous commit
+   * @param docs the number of documents updated since the previous commit
+   * @param warmMs the time it took to warm the searcher opened by the commit
+   * @param queriesPerSecond the query rate of the previous searcher
+   */
+  void update(long elapsedMs, long docs, long warmMs, double queriesPerSecond) {
+    lastWarmTime = warmMs;
+
+    double warmShare = MAX_WARM_SHARE / (1 + queriesPerSecond / QUERY_RATE_SCALE);
+    double forWarming = warmMs / warmShare;
+
+    double docsPerSecond = elapsedMs > 0 ? docs * 1000.0 / elapsedMs : 0;
+    double forIndexing = minTime * (1 + Math.log(1 + docsPerSecond / INDEXING_RATE_SCALE) / Math.log(2));
+
+    double target = Math.min(maxTime, Math.max(minTime, Math.max(forWarming, forIndexing)));
+    interval = Math.min(maxTime, Math.max(minTime, Math.round((interval + target) / 2)));
+  }
+}
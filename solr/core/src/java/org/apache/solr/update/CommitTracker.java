@@ -16,6 +16,7 @@
  */
 package org.apache.solr.update;
 
+import java.io.IOException;
 import java.lang.invoke.MethodHandles;
 
 import java.util.Locale;
@@ -25,6 +26,7 @@ import java.util.concurrent.ScheduledFuture;
 import java.util.concurrent.TimeUnit;
 import java.util.concurrent.atomic.AtomicInteger;
 import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.LongAdder;
 
 import org.apache.solr.common.SolrException;
 import org.apache.solr.common.params.ModifiableSolrParams;
@@ -32,6 +34,7 @@ import org.apache.solr.core.SolrCore;
 import org.apache.solr.logging.MDCLoggingContext;
 import org.apache.solr.request.LocalSolrQueryRequest;
 import org.apache.solr.request.SolrQueryRequest;
+import org.apache.solr.search.SolrIndexSearcher;
 import org.apache.solr.common.util.SolrNamedThreadFactory;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
@@ -58,6 +61,8 @@ public final class CommitTracker implements Runnable {
   private int docsUpperBound;
   private long timeUpperBound;
   private long tLogFileSizeUpperBound;
+  // null unless the time within which to commit adapts to the load, between a lower bound and timeUpperBound
+  private final AdaptiveCommitInterval adaptiveInterval;
 
   // note: can't use ExecutorsUtil because it doesn't have a *scheduled* ExecutorService.
   //  Not a big deal but it means we must take care of MDC logging here.
@@ -68,6 +73,8 @@ public final class CommitTracker implements Runnable {
   // state
   private AtomicLong docsSinceCommit = new AtomicLong(0);
   private AtomicInteger autoCommitCount = new AtomicInteger(0);
+  private final LongAdder docsSinceAutoCommit = new LongAdder();
+  private long lastAutoCommitNanos = System.nanoTime();
 
   private final SolrCore core;
 
@@ -79,6 +86,15 @@ public final class CommitTracker implements Runnable {
   
   public CommitTracker(String name, SolrCore core, int docsUpperBound, int timeUpperBound, long tLogFileSizeUpperBound,
                        boolean openSearcher, boolean softCommit) {
+    this(name, core, docsUpperBound, timeUpperBound, tLogFileSizeUpperBound, openSearcher, softCommit, -1);
+  }
+
+  /**
+   * @param timeLowerBound if positive, the time within which soft commits happen adapts to the indexing rate,
+   *                       searcher warm time and query load, between this and timeUpperBound.
+   */
+  public CommitTracker(String name, SolrCore core, int docsUpperBound, int timeUpperBound, long tLogFileSizeUpperBound,
+                       boolean openSearcher, boolean softCommit, long timeLowerBound) {
     this.core = core;
     this.name = name;
     pending = null;
@@ -89,6 +105,8 @@ public final class CommitTracker implements Runnable {
     
     this.softCommit = softCommit;
     this.openSearcher = openSearcher;
+    this.adaptiveInterval = softCommit && timeLowerBound > 0 && timeUpperBound > 0
+        ? new AdaptiveCommitInterval(Math.min(timeLowerBound, timeUpperBound), timeUpperBound) : null;
 
     log.info("{} AutoCommit: {}", name, this);
   }
@@ -122,7 +140,7 @@ public final class CommitTracker implements Runnable {
   }
   
   private void _scheduleCommitWithinIfNeeded(long commitWithin) {
-    long ctime = (commitWithin > 0) ? commitWithin : timeUpperBound;
+    long ctime = (commitWithin > 0) ? commitWithin : getCurrentTimeUpperBound();
 
     if (ctime > 0) {
       _scheduleCommitWithin(ctime);
@@ -175,6 +193,10 @@ public final class CommitTracker implements Runnable {
    * @param currentTlogSize current tlog size (in bytes). Use -1 if we don't want to check for a max size triggered commit
    */
   public void addedDocument(int commitWithin, long currentTlogSize) {
+    if (adaptiveInterval != null) {
+      docsSinceAutoCommit.increment();
+    }
+
     // maxDocs-triggered autoCommit
     _scheduleMaxDocsTriggeredCommitIfNeeded();
 
@@ -269,7 +291,11 @@ public final class CommitTracker implements Runnable {
       // to check the commit count before we had incremented it.)
       autoCommitCount.incrementAndGet();
 
-      core.getUpdateHandler().commit(command);
+      if (adaptiveInterval != null) {
+        adaptiveCommit(command);
+      } else {
+        core.getUpdateHandler().commit(command);
+      }
     } catch (Exception e) {
       SolrException.log(log, "auto commit error...", e);
     } finally {
@@ -278,6 +304,30 @@ public final class CommitTracker implements Runnable {
     // log.info("###done committing");
   }
   
+  private void adaptiveCommit(CommitUpdateCommand command) throws IOException {
+    // the query rate over the lifetime of the searcher that is about to be replaced
+    double queriesPerSecond = core.withSearcher(searcher -> {
+      long lifetimeNanos = System.nanoTime() - searcher.getOpenNanoTime();
+      return lifetimeNanos > 0 ? searcher.getNumQueries() * 1e9 / lifetimeNanos : 0;
+    });
+
+    core.getUpdateHandler().commit(command);
+
+    // waitSearcher is set, so the new searcher has been warmed by now
+    long warmMs = core.withSearcher(SolrIndexSearcher::getWarmupTime);
+    long now = System.nanoTime();
+    long interval;
+    synchronized (this) {
+      long elapsedMs = TimeUnit.NANOSECONDS.toMillis(now - lastAutoCommitNanos);
+      lastAutoCommitNanos = now;
+      adaptiveInterval.update(elapsedMs, docsSinceAutoCommit.sumThenReset(), warmMs, queriesPerSecond);
+      interval = adaptiveInterval.getInterval();
+    }
+    if (log.isDebugEnabled()) {
+      log.debug("{} AutoCommit: warming took {}ms, next interval is {}ms", name, warmMs, interval);
+    }
+  }
+
   // to facilitate testing: blocks if called during commit
   public int getCommitCount() {
     return autoCommitCount.get();
@@ -286,7 +336,8 @@ public final class CommitTracker implements Runnable {
   @Override
   public String toString() {
     if (timeUpperBound > 0 || docsUpperBound > 0 || tLogFileSizeUpperBound > 0) {
-      return (timeUpperBound > 0 ? ("if uncommitted for " + timeUpperBound + "ms; ")
+      return (timeUpperBound > 0 ? ("if uncommitted for "
+          + (adaptiveInterval != null ? adaptiveInterval.getMinTime() + "ms to " : "") + timeUpperBound + "ms; ")
           : "")
           + (docsUpperBound > 0 ? ("if " + docsUpperBound + " uncommitted docs; ")
               : "")
@@ -302,6 +353,20 @@ public final class CommitTracker implements Runnable {
     return timeUpperBound;
   }
 
+  /** The time within which to commit after an update, which may be lower than the upper bound if it is adaptive */
+  public synchronized long getCurrentTimeUpperBound() {
+    return adaptiveInterval != null ? adaptiveInterval.getInterval() : timeUpperBound;
+  }
+
+  boolean isAdaptive() {
+    return adaptiveInterval != null;
+  }
+
+  /** The time it took to warm the searcher opened by the last adaptive auto commit, or -1 if not adaptive */
+  synchronized long getLastWarmTime() {
+    return adaptiveInterval != null ? adaptiveInterval.getLastWarmTime() : -1;
+  }
+
   int getDocsUpperBound() {
     return docsUpperBound;
   }
@@ -23,7 +23,9 @@ import java.util.ArrayList;
 import java.util.List;
 import java.util.Locale;
 import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
 import java.util.concurrent.Future;
+import java.util.concurrent.atomic.AtomicReference;
 import java.util.concurrent.atomic.LongAdder;
 
 import com.codahale.metrics.Meter;
@@ -49,7 +51,9 @@ import org.apache.solr.cloud.ZkController;
 import org.apache.solr.common.SolrException;
 import org.apache.solr.common.cloud.Replica;
 import org.apache.solr.common.params.ModifiableSolrParams;
+import org.apache.solr.common.util.ExecutorUtil;
 import org.apache.solr.common.util.NamedList;
+import org.apache.solr.common.util.SolrNamedThreadFactory;
 import org.apache.solr.core.SolrConfig.UpdateHandlerInfo;
 import org.apache.solr.core.SolrCore;
 import org.apache.solr.metrics.SolrMetricProducer;
@@ -66,6 +70,7 @@ import org.apache.solr.search.QueryUtils;
 import org.apache.solr.search.SolrIndexSearcher;
 import org.apache.solr.search.SyntaxError;
 import org.apache.solr.search.function.ValueSourceRangeFilter;
+import org.apache.solr.util.IOConsumer;
 import org.apache.solr.util.RefCounted;
 import org.apache.solr.util.TestInjection;
 import org.slf4j.Logger;
@@ -79,6 +84,9 @@ public class DirectUpdateHandler2 extends UpdateHandler implements SolrCoreState
 
   private static final int NO_FILE_SIZE_UPPER_BOUND_PLACEHOLDER = -1;
 
+  public static final String INDEXING_THREADS = "indexingThreads";
+  private static final String SYS_PROP_INDEXING_THREADS = "solr.update.indexingThreads";
+
   protected final SolrCoreState solrCoreState;
 
   // stats
@@ -103,6 +111,11 @@ public class DirectUpdateHandler2 extends UpdateHandler implements SolrCoreState
   protected final CommitTracker softCommitTracker;
   
   protected boolean commitWithinSoftCommit;
+
+  // the threads that the adds of a batch are spread over, null if batches are handled by the request thread
+  private final int indexingThreads;
+  private final ExecutorService indexingExecutor;
+
   /**
    * package access for testing
    * @lucene.internal
@@ -127,10 +140,14 @@ public class DirectUpdateHandler2 extends UpdateHandler implements SolrCoreState
     
     int softCommitDocsUpperBound = updateHandlerInfo.autoSoftCommmitMaxDocs;
     int softCommitTimeUpperBound = updateHandlerInfo.autoSoftCommmitMaxTime;
-    softCommitTracker = new CommitTracker("Soft", core, softCommitDocsUpperBound, softCommitTimeUpperBound, NO_FILE_SIZE_UPPER_BOUND_PLACEHOLDER, true, true);
+    softCommitTracker = new CommitTracker("Soft", core, softCommitDocsUpperBound, softCommitTimeUpperBound, NO_FILE_SIZE_UPPER_BOUND_PLACEHOLDER, true, true,
+        updateHandlerInfo.autoSoftCommitMinTime);
     
     commitWithinSoftCommit = updateHandlerInfo.commitWithinSoftCommit;
 
+    indexingThreads = getIndexingThreads(core);
+    indexingExecutor = createIndexingExecutor(indexingThreads);
+
     ZkController zkController = core.getCoreContainer().getZkController();
     if (zkController != null && core.getCoreDescriptor().getCloudDescriptor().getReplicaType() == Replica.Type.TLOG) {
       commitWithinSoftCommit = false;
@@ -152,10 +169,14 @@ public class DirectUpdateHandler2 extends UpdateHandler implements SolrCoreState
     
     int softCommitDocsUpperBound = updateHandlerInfo.autoSoftCommmitMaxDocs;
     int softCommitTimeUpperBound = updateHandlerInfo.autoSoftCommmitMaxTime;
-    softCommitTracker = new CommitTracker("Soft", core, softCommitDocsUpperBound, softCommitTimeUpperBound, NO_FILE_SIZE_UPPER_BOUND_PLACEHOLDER, updateHandlerInfo.openSearcher, true);
+    softCommitTracker = new CommitTracker("Soft", core, softCommitDocsUpperBound, softCommitTimeUpperBound, NO_FILE_SIZE_UPPER_BOUND_PLACEHOLDER, updateHandlerInfo.openSearcher, true,
+        updateHandlerInfo.autoSoftCommitMinTime);
     
     commitWithinSoftCommit = updateHandlerInfo.commitWithinSoftCommit;
 
+    indexingThreads = getIndexingThreads(core);
+    indexingExecutor = createIndexingExecutor(indexingThreads);
+
     UpdateLog existingLog = updateHandler.getUpdateLog();
     if (this.ulog != null && this.ulog == existingLog) {
       // If we are reusing the existing update log, inform the log that its update handler has changed.
@@ -164,6 +185,23 @@ public class DirectUpdateHandler2 extends UpdateHandler implements SolrCoreState
     }
   }
 
+  private static int getIndexingThreads(SolrCore core) {
+    int threads = core.getSolrConfig().get("updateHandler").get(INDEXING_THREADS)
+        .intVal(Integer.getInteger(SYS_PROP_INDEXING_THREADS, 1));
+    if (threads <= 0) {
+      throw new SolrException(SolrException.ErrorCode.SERVER_ERROR,
+          INDEXING_THREADS + " must be greater than 0, got " + threads);
+    }
+    return threads;
+  }
+
+  private static ExecutorService createIndexingExecutor(int threads) {
+    if (threads == 1) {
+      return null;
+    }
+    return ExecutorUtil.newMDCAwareFixedThreadPool(threads, new SolrNamedThreadFactory("indexing"));
+  }
+
   @Override
   public void initializeMetrics(SolrMetricsContext parentContext, String scope) {
     solrMetricsContext = parentContext.getChildContext(this);
@@ -190,6 +228,12 @@ public class DirectUpdateHandler2 extends UpdateHandler implements SolrCoreState
       solrMetricsContext.gauge(() -> "" + softCommitTracker.getTimeUpperBound() + "ms", true, "softAutoCommitMaxTime",
           getCategory().toString(), scope);
     }
+    if (softCommitTracker.isAdaptive()) {
+      solrMetricsContext.gauge(() -> softCommitTracker.getCurrentTimeUpperBound(), true, "softAutoCommitInterval",
+          getCategory().toString(), scope);
+      solrMetricsContext.gauge(() -> softCommitTracker.getLastWarmTime(), true, "softAutoCommitWarmTime",
+          getCategory().toString(), scope);
+    }
     optimizeCommands = solrMetricsContext.meter("optimizes", getCategory().toString(), scope);
     rollbackCommands = solrMetricsContext.meter("rollbacks", getCategory().toString(), scope);
     splitCommands = solrMetricsContext.meter("splits", getCategory().toString(), scope);
@@ -249,6 +293,100 @@ public class DirectUpdateHandler2 extends UpdateHandler implements SolrCoreState
     }
   }
 
+  /**
+   * Spreads the commands over the {@code indexingThreads} configured for this update handler (one of which is the
+   * calling thread), so that large batches are not limited by the speed of a single core for building and analyzing
+   * their documents. Commands with the same id are handled by the same thread, in the order of the batch, so that
+   * the versions of the updates of a document are still logged in order. A failure only skips the remaining commands
+   * of its own thread, since they may depend on the failed one, while the other threads go on with theirs: which
+   * documents are indexed doesn't depend on how the threads interleave. Once all threads are done, the first failure
+   * is thrown, with the failures of the other threads added as suppressed exceptions.
+   */
+  @Override
+  public void forEachAdd(List<AddUpdateCommand> cmds, IOConsumer<AddUpdateCommand> action) throws IOException {
+    int numLanes = Math.min(indexingThreads, cmds.size());
+    if (indexingExecutor == null || numLanes < 2) {
+      super.forEachAdd(cmds, action);
+      return;
+    }
+
+    List<List<AddUpdateCommand>> lanes = new ArrayList<>(numLanes);
+    for (int i = 0; i < numLanes; i++) {
+      lanes.add(new ArrayList<>(cmds.size() / numLanes + 1));
+    }
+    try {
+      for (AddUpdateCommand cmd : cmds) {
+        BytesRef indexedId = cmd.getIndexedId();
+        lanes.get(indexedId == null ? 0 : Math.floorMod(indexedId.hashCode(), numLanes)).add(cmd);
+      }
+    } catch (SolrException e) {
+      // e.g. a missing id: fail at the same document as if the batch was handled in order
+      super.forEachAdd(cmds, action);
+      return;
+    }
+
+    // the lanes index with the SolrRequestInfo of the request, so that they see the same NOW and TZ as the request
+    // thread; storing it through the provider keeps it open until the last lane clears it
+    ExecutorUtil.InheritableThreadLocalProvider requestInfoProvider =
+        SolrRequestInfo.getInheritableThreadLocalProvider();
+    List<Future<?>> futures = new ArrayList<>(numLanes - 1);
+    for (List<AddUpdateCommand> lane : lanes.subList(1, numLanes)) {
+      AtomicReference<Object> requestInfo = new AtomicReference<>();
+      requestInfoProvider.store(requestInfo);
+      futures.add(indexingExecutor.submit(() -> {
+        requestInfoProvider.set(requestInfo);
+        try {
+          for (AddUpdateCommand cmd : lane) {
+            action.accept(cmd);
+          }
+        } finally {
+          if (requestInfo.get() != null) {
+            SolrRequestInfo.clearRequestInfo();
+          }
+        }
+        return null;
+      }));
+    }
+
+    Throwable failure = null;
+    try {
+      for (AddUpdateCommand cmd : lanes.get(0)) {
+        action.accept(cmd);
+      }
+    } catch (Throwable t) {
+      failure = t;
+    }
+    for (Future<?> future : futures) {
+      Throwable laneFailure = null;
+      try {
+        future.get();
+      } catch (ExecutionException e) {
+        laneFailure = e.getCause();
+      } catch (InterruptedException e) {
+        Thread.currentThread().interrupt();
+        laneFailure = e;
+      }
+      if (laneFailure == null) {
+        continue;
+      }
+      if (failure == null) {
+        failure = laneFailure;
+      } else {
+        failure.addSuppressed(laneFailure);
+      }
+    }
+
+    if (failure instanceof IOException) {
+      throw (IOException) failure;
+    } else if (failure instanceof RuntimeException) {
+      throw (RuntimeException) failure;
+    } else if (failure instanceof Error) {
+      throw (Error) failure;
+    } else if (failure != null) {
+      throw new SolrException(SolrException.ErrorCode.SERVER_ERROR, "Interrupted while indexing a batch of documents", failure);
+    }
+  }
+
   /**
    * This is the implementation of {@link #addDoc(AddUpdateCommand)}. It is factored out to allow an exception
    * handler to decorate RuntimeExceptions with information about the document being handled.
@@ -400,7 +538,7 @@ public class DirectUpdateHandler2 extends UpdateHandler implements SolrCoreState
       
       if (softCommitTracker.getTimeUpperBound() > 0) {
         softCommitTracker.scheduleCommitWithin(softCommitTracker
-            .getTimeUpperBound());
+            .getCurrentTimeUpperBound());
       }
     }
   }
@@ -568,7 +706,7 @@ public class DirectUpdateHandler2 extends UpdateHandler implements SolrCoreState
     if (rc == 1 && commitTracker.getTimeUpperBound() > 0) {
       commitTracker.scheduleCommitWithin(commitTracker.getTimeUpperBound());
     } else if (rc == 1 && softCommitTracker.getTimeUpperBound() > 0) {
-      softCommitTracker.scheduleCommitWithin(softCommitTracker.getTimeUpperBound());
+      softCommitTracker.scheduleCommitWithin(softCommitTracker.getCurrentTimeUpperBound());
     }
 
     return rc;
@@ -742,6 +880,8 @@ public class DirectUpdateHandler2 extends UpdateHandler implements SolrCoreState
   @Override
   public void newIndexWriter(boolean rollback) throws IOException {
     solrCoreState.newIndexWriter(core, rollback);
+    // the index may have been replaced, e.g. by replication
+    if (ulog != null) ulog.clearInPlaceUpdateCache();
   }
   
   /**
@@ -762,6 +902,7 @@ public class DirectUpdateHandler2 extends UpdateHandler implements SolrCoreState
       log.info("start {}", cmd);
 
       rollbackWriter();
+      if (ulog != null) ulog.clearInPlaceUpdateCache();
 
       //callPostRollbackCallbacks();
 
@@ -795,6 +936,9 @@ public class DirectUpdateHandler2 extends UpdateHandler implements SolrCoreState
 
     commitTracker.close();
     softCommitTracker.close();
+    if (indexingExecutor != null) {
+      ExecutorUtil.shutdownAndAwaitTermination(indexingExecutor);
+    }
 
     numDocsPending.reset();
     try {
@@ -16,6 +16,7 @@
  */
 package org.apache.solr.update;
 
+import java.util.Collections;
 import java.util.Iterator;
 import java.util.LinkedList;
 import java.util.List;
@@ -31,6 +32,7 @@ import org.apache.solr.common.SolrException;
 import org.apache.solr.common.SolrInputDocument;
 import org.apache.solr.common.SolrInputField;
 import org.apache.solr.schema.CopyField;
+import org.apache.solr.schema.DenseVectorField;
 import org.apache.solr.schema.IndexSchema;
 import org.apache.solr.schema.SchemaField;
 
@@ -153,8 +155,11 @@ public class DocumentBuilder {
       SchemaField sfield = schema.getFieldOrNull(name);
       boolean used = false;
       
+      // a dense vector is a single value made of all the values of the input field
+      final boolean isDenseVector = sfield != null && sfield.getType() instanceof DenseVectorField;
+
       // Make sure it has the correct number
-      if( sfield!=null && !sfield.multiValued() && field.getValueCount() > 1 ) {
+      if( sfield!=null && !sfield.multiValued() && !isDenseVector && field.getValueCount() > 1 ) {
         throw new SolrException( SolrException.ErrorCode.BAD_REQUEST,
             "ERROR: "+getID(doc, schema)+"multiple values encountered for non multiValued field " + 
               sfield.getName() + ": " +field.getValue() );
@@ -166,7 +171,7 @@ public class DocumentBuilder {
       // load each field value
       boolean hasField = false;
       try {
-        Iterator<?> it = field.iterator();
+        Iterator<?> it = isDenseVector ? Collections.singleton(field.getValue()).iterator() : field.iterator();
         while (it.hasNext()) {
           Object v = it.next();
           if( v == null ) {
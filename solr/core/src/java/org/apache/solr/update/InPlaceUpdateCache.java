@@ -0,0 +1,141 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.apache.solr.update;
+
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.Objects;
+
+import com.codahale.metrics.Counter;
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import org.apache.lucene.util.BytesRef;
+import org.apache.solr.common.SolrInputDocument;
+import org.apache.solr.common.SolrInputField;
+import org.apache.solr.common.params.CommonParams;
+
+/**
+ * A bounded cache of the latest version and in-place updated docValues of recently in-place updated documents,
+ * maintained by the {@link UpdateLog} as updates are logged. It lets a subsequent in-place update of the same
+ * document resolve the values it depends on without a realtime get, which would otherwise have to open a new
+ * realtime searcher whenever the previous update is no longer in the transaction log maps.
+ * <p>
+ * An entry is only ever the result of an in-place update whose values were fully resolved, and it is invalidated
+ * by any other kind of update to the same document; anything that may affect documents wholesale (delete by
+ * query, rollback, recovery, ...) clears the cache.
+ *
+ * @lucene.internal
+ */
+class InPlaceUpdateCache {
+
+  private static class Entry {
+    final long version;
+    final Map<String, Object> values;
+
+    Entry(long version, Map<String, Object> values) {
+      this.version = version;
+      this.values = values;
+    }
+  }
+
+  private final Cache<BytesRef, Entry> entries;
+  Counter hits = new Counter();
+  Counter misses = new Counter();
+
+  InPlaceUpdateCache(int maxSize) {
+    this.entries = Caffeine.newBuilder().maximumSize(maxSize).build();
+  }
+
+  void setMetrics(Counter hits, Counter misses) {
+    this.hits = hits;
+    this.misses = misses;
+  }
+
+  /**
+   * Records the values of a logged update. The caller must hold the version bucket lock of the document, so that
+   * updates of the same document are recorded in order.
+   */
+  void update(AddUpdateCommand cmd) {
+    BytesRef indexedId = cmd.getIndexedId();
+    // the indexed id of a nested document is the id of its root: only cache updates of the root itself, so that the
+    // values of a child are never taken for the values of its root
+    if (!cmd.isInPlaceUpdate() || !Objects.equals(cmd.getChildDocIdStr(), cmd.getIndexedIdStr())) {
+      entries.invalidate(indexedId);
+      return;
+    }
+    Entry previous = entries.getIfPresent(indexedId);
+    Map<String, Object> values = new HashMap<>();
+    // the previous entry is still valid for the fields that aren't updated, as long as this update depends on it
+    if (previous != null && previous.version == cmd.prevVersion) {
+      values.putAll(previous.values);
+    }
+    String uniqueKey = cmd.getReq().getSchema().getUniqueKeyField().getName();
+    for (SolrInputField field : cmd.getSolrInputDocument()) {
+      String name = field.getName();
+      if (!name.equals(uniqueKey) && !name.equals(CommonParams.VERSION_FIELD)) {
+        values.put(name, field.getValue());
+      }
+    }
+    entries.put(new BytesRef(indexedId.bytes, indexedId.offset, indexedId.length), new Entry(cmd.getVersion(), values));
+  }
+
+  void invalidate(BytesRef indexedId) {
+    entries.invalidate(indexedId);
+  }
+
+  void clear() {
+    entries.invalidateAll();
+  }
+
+  /**
+   * Returns a document holding the latest {@code _version_} and values of the given fields of a document, or null if
+   * any of these aren't known.
+   */
+  SolrInputDocument get(BytesRef indexedId, Collection<String> fieldNames) {
+    Entry entry = entries.getIfPresent(indexedId);
+    if (entry == null) {
+      misses.inc();
+      return null;
+    }
+    SolrInputDocument doc = new SolrInputDocument();
+    for (String name : fieldNames) {
+      if (name.equals(CommonParams.VERSION_FIELD)) {
+        continue;
+      }
+      Object value = entry.values.get(name);
+      if (value == null) {
+        misses.inc();
+        return null;
+      }
+      doc.addField(name, value);
+    }
+    doc.addField(CommonParams.VERSION_FIELD, entry.version);
+    hits.inc();
+    return doc;
+  }
+
+  /** Returns the latest version of a recently in-place updated document, or null if it isn't cached. */
+  Long getVersion(BytesRef indexedId) {
+    Entry entry = entries.getIfPresent(indexedId);
+    return entry == null ? null : entry.version;
+  }
+
+  long size() {
+    return entries.estimatedSize();
+  }
+}
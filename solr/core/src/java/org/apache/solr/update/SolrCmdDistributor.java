@@ -27,7 +27,10 @@ import java.net.SocketTimeoutException;
 import java.util.ArrayList;
 import java.util.Collections;
 import java.util.HashSet;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
 import java.util.List;
+import java.util.Map;
 import java.util.Set;
 import java.util.concurrent.CompletionService;
 import java.util.concurrent.ExecutorCompletionService;
@@ -67,6 +70,17 @@ public class SolrCmdDistributor implements Closeable {
   private boolean finished = false; // see finish()
 
   private int retryPause = 500;
+
+  /**
+   * System property with the max number of docs forwarded to a node in a single UpdateRequest; 1, the default,
+   * disables batching. See the "Leaders and Replicas" section of the ref guide.
+   */
+  public static final String REPLICATION_BATCH_SIZE_PROP = "solr.cloud.replication.batchSize";
+
+  // the max number of docs forwarded to a node in a single UpdateRequest, 1 disables batching
+  private final int maxBatchSize;
+  // async adds waiting to be forwarded, by node
+  private final Map<Node, Req> batches = new LinkedHashMap<>();
   
   private final List<Error> allErrors = new ArrayList<>();
   private final List<Error> errors = Collections.synchronizedList(new ArrayList<Error>());
@@ -77,12 +91,19 @@ public class SolrCmdDistributor implements Closeable {
   public SolrCmdDistributor(UpdateShardHandler updateShardHandler) {
     this.clients = new StreamingSolrClients(updateShardHandler);
     this.completionService = new ExecutorCompletionService<>(updateShardHandler.getUpdateExecutor());
+    this.maxBatchSize = Integer.getInteger(REPLICATION_BATCH_SIZE_PROP, 1);
   }
   
   /* For tests only */
   SolrCmdDistributor(StreamingSolrClients clients, int retryPause) {
+    this(clients, retryPause, 1);
+  }
+
+  /* For tests only */
+  SolrCmdDistributor(StreamingSolrClients clients, int retryPause, int maxBatchSize) {
     this.clients = clients;
     this.retryPause = retryPause;
+    this.maxBatchSize = maxBatchSize;
     completionService = new ExecutorCompletionService<>(clients.getUpdateExecutor());
   }
   
@@ -204,6 +225,7 @@ public class SolrCmdDistributor implements Closeable {
     }
     
     for (Node node : nodes) {
+      flushBatch(node); // the delete must not overtake the batched adds
       UpdateRequest uReq = new UpdateRequest();
       uReq.setParams(params);
       uReq.setCommitWithin(cmd.commitWithin);
@@ -228,6 +250,11 @@ public class SolrCmdDistributor implements Closeable {
                          RollupRequestReplicationTracker rollupTracker,
                          LeaderRequestReplicationTracker leaderTracker) throws IOException {
     for (Node node : nodes) {
+      if (!synchronous && maxBatchSize > 1 && !cmd.isInPlaceUpdate()) {
+        batchAdd(cmd, node, params, rollupTracker, leaderTracker);
+        continue;
+      }
+      flushBatch(node); // an in-place update depends on the previous version of the doc, that may still be batched
       UpdateRequest uReq = new UpdateRequest();
       if (cmd.isLastDocInBatch)
         uReq.lastDocInBatch();
@@ -241,6 +268,50 @@ public class SolrCmdDistributor implements Closeable {
     
   }
 
+  /**
+   * Adds the document to the pending batch of the node, so that consecutive adds of a request are forwarded as a
+   * single {@link UpdateRequest} rather than one per document. This saves the replica from decoding the params and
+   * the client from comparing them for every document of the stream.
+   */
+  private void batchAdd(AddUpdateCommand cmd, Node node, ModifiableSolrParams params,
+                        RollupRequestReplicationTracker rollupTracker,
+                        LeaderRequestReplicationTracker leaderTracker) throws IOException {
+    Req batch = batches.get(node);
+    if (batch != null && (batch.rollupTracker != rollupTracker || batch.leaderTracker != leaderTracker
+        || !batch.uReq.getParams().toNamedList().equals(params.toNamedList()))) {
+      flushBatch(node);
+      batch = null;
+    }
+    if (batch == null) {
+      UpdateRequest uReq = new UpdateRequest();
+      uReq.setParams(params);
+      batch = new Req(cmd, node, uReq, false, rollupTracker, leaderTracker);
+      batches.put(node, batch);
+    }
+    batch.uReq.add(cmd.solrDoc, cmd.commitWithin, cmd.overwrite);
+    if (cmd.isLastDocInBatch) {
+      batch.uReq.lastDocInBatch();
+    }
+    if (batch.uReq.getDocumentsMap().size() >= maxBatchSize) {
+      flushBatch(node);
+    }
+  }
+
+  private void flushBatch(Node node) throws IOException {
+    Req batch = batches.remove(node);
+    if (batch != null) {
+      submit(batch, false);
+    }
+  }
+
+  private void flushBatches() throws IOException {
+    for (Iterator<Req> it = batches.values().iterator(); it.hasNext(); ) {
+      Req batch = it.next();
+      it.remove();
+      submit(batch, false);
+    }
+  }
+
   public void distribCommit(CommitUpdateCommand cmd, List<Node> nodes,
       ModifiableSolrParams params) throws IOException {
     
@@ -259,6 +330,7 @@ public class SolrCmdDistributor implements Closeable {
   }
 
   public void blockAndDoRetries() throws IOException {
+    flushBatches();
     clients.blockUntilFinished();
     
     // wait for any async commits to complete
@@ -34,8 +34,11 @@ import java.util.LinkedHashMap;
 import java.util.List;
 import java.util.Map;
 import java.util.TreeMap;
+import java.util.concurrent.TimeUnit;
 import java.util.concurrent.atomic.AtomicInteger;
 
+import com.codahale.metrics.Histogram;
+import com.codahale.metrics.Timer;
 import org.apache.lucene.util.BytesRef;
 import org.apache.solr.common.SolrException;
 import org.apache.solr.common.SolrInputDocument;
@@ -83,6 +86,18 @@ public class TransactionLog implements Closeable {
   protected volatile boolean deleteOnClose = true;  // we can delete old tlogs since they are currently only used for real-time-get (and in the future, recovery)
 
   AtomicInteger refcount = new AtomicInteger(1);
+
+  // group commit: concurrent FSYNC finish() calls share one fsync, see sync(long)
+  private final Object syncLock = new Object();
+  private int pendingSyncs; // callers not covered by a started fsync yet, guarded by this
+  private long startedSyncSize; // the size covered by the last started fsync, guarded by this
+  private volatile long syncedSize;
+  private volatile Timer fsyncTimer;
+  private volatile Histogram fsyncBatchSize;
+
+  // every record that starts before this position was completely written to the channel, so it can be read
+  // without synchronizing with the writer
+  private volatile long flushedSize;
   Map<String, Integer> globalStringMap = new HashMap<>();
   List<String> globalStringList = new ArrayList<>();
 
@@ -511,16 +526,12 @@ public class TransactionLog implements Closeable {
     if (pos < 0) return null;
 
     try {
-      // make sure any unflushed buffer has been flushed
-      synchronized (this) {
-        // TODO: optimize this by keeping track of what we have flushed up to
-        fos.flushBuffer();
-        /***
-         System.out.println("###flushBuffer to " + fos.size() + " raf.length()=" + raf.length() + " pos="+pos);
-         if (fos.size() != raf.length() || pos >= fos.size() ) {
-         throw new RuntimeException("ERROR" + "###flushBuffer to " + fos.size() + " raf.length()=" + raf.length() + " pos="+pos);
-         }
-         ***/
+      // make sure any unflushed buffer has been flushed, records that start before flushedSize were completely
+      // flushed already and can be read without locking out the writer
+      if (pos >= flushedSize) {
+        synchronized (this) {
+          flushBuffer();
+        }
       }
 
       ChannelFastInputStream fis = new ChannelFastInputStream(channel, pos);
@@ -532,6 +543,13 @@ public class TransactionLog implements Closeable {
     }
   }
 
+  /** Flushes the buffered output to the channel, must be called while synchronized on this */
+  private void flushBuffer() throws IOException {
+    assert Thread.holdsLock(this);
+    fos.flushBuffer();
+    flushedSize = fos.size();
+  }
+
   public void incref() {
     int result = refcount.incrementAndGet();
     if (result <= 1) {
@@ -564,15 +582,20 @@ public class TransactionLog implements Closeable {
   public void finish(UpdateLog.SyncLevel syncLevel) {
     if (syncLevel == UpdateLog.SyncLevel.NONE) return;
     try {
+      long size;
       synchronized (this) {
-        fos.flushBuffer();
+        flushBuffer();
+        size = fos.size();
+        if (syncLevel == UpdateLog.SyncLevel.FSYNC && size > startedSyncSize) {
+          pendingSyncs++; // counted by the next fsync to start, which is the first one to cover size
+        }
       }
 
       if (syncLevel == UpdateLog.SyncLevel.FSYNC) {
         // Since fsync is outside of synchronized block, we can end up with a partial
         // last record on power failure (which is OK, and does not represent an error...
         // we just need to be aware of it when reading).
-        raf.getFD().sync();
+        sync(size);
       }
 
     } catch (IOException e) {
@@ -580,6 +603,47 @@ public class TransactionLog implements Closeable {
     }
   }
 
+  /**
+   * Makes sure the first <code>size</code> bytes of the log are synced to disk. Callers that arrive while another
+   * fsync is in progress wait for it, and the first of them then syncs everything written so far, so that all the
+   * waiting callers whose records were flushed are covered by a single fsync instead of one each.
+   */
+  private void sync(long size) throws IOException {
+    if (syncedSize >= size) return;
+    synchronized (syncLock) {
+      if (syncedSize >= size) return; // covered by the fsync of a concurrent caller
+
+      long toSync;
+      int batchSize;
+      synchronized (this) {
+        flushBuffer();
+        toSync = fos.size();
+        startedSyncSize = toSync;
+        batchSize = pendingSyncs;
+        pendingSyncs = 0;
+      }
+
+      long start = System.nanoTime();
+      raf.getFD().sync();
+      syncedSize = toSync;
+
+      Timer timer = fsyncTimer;
+      if (timer != null) {
+        timer.update(System.nanoTime() - start, TimeUnit.NANOSECONDS);
+      }
+      Histogram histogram = fsyncBatchSize;
+      if (histogram != null) {
+        histogram.update(batchSize);
+      }
+    }
+  }
+
+  /** Sets the (optional) metrics updated by each fsync of this log */
+  void setSyncMetrics(Timer fsyncTimer, Histogram fsyncBatchSize) {
+    this.fsyncTimer = fsyncTimer;
+    this.fsyncBatchSize = fsyncBatchSize;
+  }
+
   public void close() {
     try {
       if (debug) {
@@ -670,16 +734,19 @@ public class TransactionLog implements Closeable {
     public Object next() throws IOException, InterruptedException {
       long pos = fis.position();
 
-      synchronized (TransactionLog.this) {
-        if (trace) {
-          log.trace("Reading log record.  pos={} currentSize={}", pos, fos.size());
-        }
+      // records that were already flushed can be read without locking out the writer
+      if (pos == 0 || pos >= flushedSize) {
+        synchronized (TransactionLog.this) {
+          if (trace) {
+            log.trace("Reading log record.  pos={} currentSize={}", pos, fos.size());
+          }
 
-        if (pos >= fos.size()) {
-          return null;
-        }
+          if (pos >= fos.size()) {
+            return null;
+          }
 
-        fos.flushBuffer();
+          flushBuffer();
+        }
       }
 
       if (pos == 0) {
@@ -810,7 +877,7 @@ public class TransactionLog implements Closeable {
 
       long sz;
       synchronized (TransactionLog.this) {
-        fos.flushBuffer();
+        flushBuffer();
         sz = fos.size();
         assert sz == channel.size();
       }
@@ -18,12 +18,14 @@ package org.apache.solr.update;
 
 import java.io.IOException;
 import java.lang.invoke.MethodHandles;
+import java.util.List;
 import java.util.Vector;
 
 import org.apache.solr.core.*;
 import org.apache.solr.metrics.SolrMetricsContext;
 import org.apache.solr.schema.FieldType;
 import org.apache.solr.schema.SchemaField;
+import org.apache.solr.util.IOConsumer;
 import org.apache.solr.util.plugin.SolrCoreAware;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
@@ -149,6 +151,18 @@ public abstract class UpdateHandler implements SolrInfoBean {
   public abstract SolrCoreState getSolrCoreState();
 
   public abstract int addDoc(AddUpdateCommand cmd) throws IOException;
+
+  /**
+   * Calls the given action with each of the commands of a batch of adds, in order. Implementations may instead spread
+   * the commands over several threads, as long as the commands for the same id are still handled in order, in which
+   * case the action must be thread-safe.
+   */
+  public void forEachAdd(List<AddUpdateCommand> cmds, IOConsumer<AddUpdateCommand> action) throws IOException {
+    for (AddUpdateCommand cmd : cmds) {
+      action.accept(cmd);
+    }
+  }
+
   public abstract void delete(DeleteUpdateCommand cmd) throws IOException;
   public abstract void deleteByQuery(DeleteUpdateCommand cmd) throws IOException;
   public abstract int mergeIndexes(MergeIndexesCommand cmd) throws IOException;
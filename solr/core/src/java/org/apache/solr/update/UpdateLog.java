@@ -48,7 +48,9 @@ import java.util.concurrent.atomic.AtomicInteger;
 import java.util.concurrent.atomic.AtomicReference;
 
 import com.codahale.metrics.Gauge;
+import com.codahale.metrics.Histogram;
 import com.codahale.metrics.Meter;
+import com.codahale.metrics.Timer;
 import org.apache.hadoop.fs.FileSystem;
 import org.apache.lucene.util.BytesRef;
 import org.apache.solr.common.SolrDocumentBase;
@@ -207,6 +209,8 @@ public class UpdateLog implements PluginInfoInitialized, SolrMetricProducer {
   protected int numRecordsToKeep;
   protected int maxNumLogsToKeep;
   protected int numVersionBuckets; // This should only be used to initialize VersionInfo... the actual number of buckets may be rounded up to a power of two.
+  protected int numInPlaceUpdatesToCache;
+  protected InPlaceUpdateCache inPlaceUpdateCache; // null if disabled
   protected Long maxVersionFromIndex = null;
   protected boolean existOldBufferLog = false;
 
@@ -253,6 +257,8 @@ public class UpdateLog implements PluginInfoInitialized, SolrMetricProducer {
   protected Meter applyingBufferedOpsMeter;
   protected Meter replayOpsMeter;
   protected Meter copyOverOldUpdatesMeter;
+  protected Timer fsyncTimer;
+  protected Histogram fsyncBatchSize;
   protected SolrMetricsContext solrMetricsContext;
 
   public static class LogPtr {
@@ -346,9 +352,11 @@ public class UpdateLog implements PluginInfoInitialized, SolrMetricProducer {
     if (numVersionBuckets <= 0)
       throw new SolrException(SolrException.ErrorCode.SERVER_ERROR,
           "Number of version buckets must be greater than 0!");
+    numInPlaceUpdatesToCache = objToInt(info.initArgs.get("numInPlaceUpdatesToCache"), 10000);
+    inPlaceUpdateCache = numInPlaceUpdatesToCache > 0 ? new InPlaceUpdateCache(numInPlaceUpdatesToCache) : null;
 
-    log.info("Initializing UpdateLog: dataDir={} defaultSyncLevel={} numRecordsToKeep={} maxNumLogsToKeep={} numVersionBuckets={}",
-        dataDir, defaultSyncLevel, numRecordsToKeep, maxNumLogsToKeep, numVersionBuckets);
+    log.info("Initializing UpdateLog: dataDir={} defaultSyncLevel={} numRecordsToKeep={} maxNumLogsToKeep={} numVersionBuckets={} numInPlaceUpdatesToCache={}",
+        dataDir, defaultSyncLevel, numRecordsToKeep, maxNumLogsToKeep, numVersionBuckets, numInPlaceUpdatesToCache);
   }
 
   /* Note, when this is called, uhandler is not completely constructed.
@@ -461,7 +469,14 @@ public class UpdateLog implements PluginInfoInitialized, SolrMetricProducer {
     applyingBufferedOpsMeter = solrMetricsContext.meter("ops", scope, "applyingBuffered");
     replayOpsMeter = solrMetricsContext.meter("ops", scope, "replay");
     copyOverOldUpdatesMeter = solrMetricsContext.meter("ops", scope, "copyOverOldUpdates");
+    fsyncTimer = solrMetricsContext.timer("fsync", scope);
+    fsyncBatchSize = solrMetricsContext.histogram("fsyncBatchSize", scope);
     solrMetricsContext.gauge(() -> state.getValue(), true, "state", scope);
+    if (inPlaceUpdateCache != null) {
+      inPlaceUpdateCache.setMetrics(solrMetricsContext.counter("hits", scope, "inPlaceUpdateCache"),
+          solrMetricsContext.counter("misses", scope, "inPlaceUpdateCache"));
+      solrMetricsContext.gauge(() -> inPlaceUpdateCache.size(), true, "size", scope, "inPlaceUpdateCache");
+    }
   }
 
   @Override
@@ -589,6 +604,10 @@ public class UpdateLog implements PluginInfoInitialized, SolrMetricProducer {
         pos = tlog.write(cmd, prevPointer);
       }
 
+      if (inPlaceUpdateCache != null) {
+        inPlaceUpdateCache.update(cmd);
+      }
+
       if (!clearCaches) {
         // TODO: in the future we could support a real position for a REPLAY update.
         // Only currently would be useful for RTG while in recovery mode though.
@@ -656,6 +675,7 @@ public class UpdateLog implements PluginInfoInitialized, SolrMetricProducer {
       LogPtr ptr = new LogPtr(pos, cmd.version);
       map.put(br, ptr);
       oldDeletes.put(br, ptr);
+      if (inPlaceUpdateCache != null) inPlaceUpdateCache.invalidate(br);
 
       if (trace) {
         log.trace("TLOG: added delete for id {} to {} {} map={}", cmd.id, tlog, ptr, System.identityHashCode(map));
@@ -677,6 +697,9 @@ public class UpdateLog implements PluginInfoInitialized, SolrMetricProducer {
         pos = tlog.writeDeleteByQuery(cmd);
       }
 
+      // we don't know which documents were affected, so forget about all in-place updates
+      clearInPlaceUpdateCache();
+
       // skip purge our caches in case of tlog replica
       if ((cmd.getFlags() & UpdateCommand.IGNORE_INDEXWRITER) == 0) {
         // given that we just did a delete-by-query, we don't know what documents were
@@ -712,6 +735,7 @@ public class UpdateLog implements PluginInfoInitialized, SolrMetricProducer {
       if (map != null) map.clear();
       if (prevMap != null) prevMap.clear();
       if (prevMap2 != null) prevMap2.clear();
+      clearInPlaceUpdateCache();
     }
   }
 
@@ -729,6 +753,7 @@ public class UpdateLog implements PluginInfoInitialized, SolrMetricProducer {
       if (map != null) map.clear();
       if (prevMap != null) prevMap.clear();
       if (prevMap2 != null) prevMap2.clear();
+      clearInPlaceUpdateCache();
 
       oldDeletes.clear();
       deleteByQueries.clear();
@@ -1044,6 +1069,26 @@ public class UpdateLog implements PluginInfoInitialized, SolrMetricProducer {
 
   }
 
+  /**
+   * Returns the latest {@code _version_} and values of the given in-place updatable fields of a document that was
+   * recently updated in-place, without looking at the index, or null if they aren't all known.
+   * The caller must hold the version bucket lock of the document.
+   */
+  public SolrInputDocument lookupInPlaceUpdatedFields(BytesRef indexedId, Collection<String> fieldNames) {
+    if (inPlaceUpdateCache == null) return null;
+    synchronized (this) {
+      return inPlaceUpdateCache.get(indexedId, fieldNames);
+    }
+  }
+
+  /** Forgets the values of recent in-place updates, e.g. because the index was changed behind our back. */
+  public void clearInPlaceUpdateCache() {
+    if (inPlaceUpdateCache == null) return;
+    synchronized (this) {
+      inPlaceUpdateCache.clear();
+    }
+  }
+
   // This method works like realtime-get... it only guarantees to return the latest
   // version of the *completed* update.  There can be updates in progress concurrently
   // that have already grabbed higher version numbers.  Higher level coordination or
@@ -1074,6 +1119,17 @@ public class UpdateLog implements PluginInfoInitialized, SolrMetricProducer {
       return entry.version;
     }
 
+    // then recent in-place updates that are no longer in the maps since a commit
+    if (inPlaceUpdateCache != null) {
+      Long version;
+      synchronized (this) {
+        version = inPlaceUpdateCache.getVersion(indexedId);
+      }
+      if (version != null) {
+        return version;
+      }
+    }
+
     // Now check real index
     Long version = versionInfo.getVersionFromIndex(indexedId);
 
@@ -1120,6 +1176,7 @@ public class UpdateLog implements PluginInfoInitialized, SolrMetricProducer {
 
   public Future<RecoveryInfo> recoverFromLog() {
     recoveryInfo = new RecoveryInfo();
+    clearInPlaceUpdateCache();
 
     List<TransactionLog> recoverLogs = new ArrayList<>(1);
     for (TransactionLog ll : newestLogsOnStartup) {
@@ -1347,6 +1404,7 @@ public class UpdateLog implements PluginInfoInitialized, SolrMetricProducer {
     if (tlog == null) {
       String newLogName = String.format(Locale.ROOT, LOG_FILENAME_PATTERN, TLOG_NAME, id);
       tlog = newTransactionLog(new File(tlogDir, newLogName), globalStrings, false);
+      tlog.setSyncMetrics(fsyncTimer, fsyncBatchSize);
     }
   }
 
@@ -1648,6 +1706,7 @@ public class UpdateLog implements PluginInfoInitialized, SolrMetricProducer {
       deleteBufferLogs();
 
       recoveryInfo = new RecoveryInfo();
+      clearInPlaceUpdateCache();
 
       if (log.isInfoEnabled()) {
         log.info("Starting to buffer updates. {}", this);
@@ -1711,6 +1770,7 @@ public class UpdateLog implements PluginInfoInitialized, SolrMetricProducer {
       }
 
       state = State.APPLYING_BUFFERED;
+      clearInPlaceUpdateCache();
     } finally {
       versionInfo.unblockUpdates();
     }
@@ -0,0 +1,178 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.apache.solr.update;
+
+import java.util.Locale;
+import java.util.concurrent.atomic.AtomicLong;
+
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import org.apache.lucene.util.BitUtil;
+import org.apache.solr.common.SolrException;
+
+/**
+ * Hands out the {@link VersionBucket} that serializes the updates of a document, given the hash of its id.
+ * <p>
+ * Two implementations are available, selected with the <code>versionBuckets</code> option of the
+ * <code>updateHandler</code> in solrconfig.xml:
+ * <ul>
+ *   <li><code>fixed</code> (the default): a fixed array of <code>numVersionBuckets</code> buckets, shared by all
+ *   the ids that hash to the same slot.</li>
+ *   <li><code>perId</code>: a bucket per id hash, created on demand and only weakly referenced once no update holds
+ *   it anymore, so that concurrent updates of different ids never contend and memory stays bounded by the number of
+ *   updates in flight.</li>
+ * </ul>
+ *
+ * @lucene.internal
+ */
+public abstract class VersionBuckets {
+
+  public static final String FIXED = "fixed";
+  public static final String PER_ID = "perId";
+
+  /**
+   * Creates the buckets of the given type.
+   *
+   * @param type {@link #FIXED} or {@link #PER_ID}
+   * @param nBuckets the number of buckets of the {@link #FIXED} implementation, rounded up to a power of two
+   * @param timed whether buckets should be {@link TimedVersionBucket}s
+   */
+  public static VersionBuckets create(String type, int nBuckets, boolean timed) {
+    if (type == null || FIXED.equalsIgnoreCase(type)) {
+      return new Fixed(nBuckets, timed);
+    } else if (PER_ID.equalsIgnoreCase(type)) {
+      return new PerId(timed);
+    }
+    throw new SolrException(SolrException.ErrorCode.SERVER_ERROR,
+        String.format(Locale.ROOT, "Unknown versionBuckets type '%s', expected '%s' or '%s'", type, FIXED, PER_ID));
+  }
+
+  /** Returns the bucket of the id with the given hash. */
+  public abstract VersionBucket bucket(int hash);
+
+  /**
+   * Raises the highest version of all buckets to at least <code>highestVersion</code>.
+   * Updates must be blocked while this is called.
+   */
+  public abstract void seedHighest(long highestVersion);
+
+  /** The number of buckets currently in use. */
+  public abstract int size();
+
+  static void seed(VersionBucket bucket, long highestVersion) {
+    // should not happen, but in case other threads are calling updateHighest on the version bucket
+    synchronized (bucket) {
+      if (bucket.highest < highestVersion)
+        bucket.highest = highestVersion;
+    }
+  }
+
+  static class Fixed extends VersionBuckets {
+    private final VersionBucket[] buckets;
+
+    Fixed(int nBuckets, boolean timed) {
+      buckets = new VersionBucket[ BitUtil.nextHighestPowerOfTwo(nBuckets) ];
+      for (int i=0; i<buckets.length; i++) {
+        buckets[i] = timed ? new TimedVersionBucket() : new VersionBucket();
+      }
+    }
+
+    @Override
+    public VersionBucket bucket(int hash) {
+      // If this is a user provided hash, it may be poor in the right-hand bits.
+      // Make sure high bits are moved down, since only the low bits will matter.
+      // int h = hash + (hash >>> 8) + (hash >>> 16) + (hash >>> 24);
+      // Assume good hash codes for now.
+
+      int slot = hash & (buckets.length-1);
+      return buckets[slot];
+    }
+
+    @Override
+    public void seedHighest(long highestVersion) {
+      for (VersionBucket bucket : buckets) {
+        seed(bucket, highestVersion);
+      }
+    }
+
+    @Override
+    public int size() {
+      return buckets.length;
+    }
+  }
+
+  static class PerId extends VersionBuckets {
+    private final boolean timed;
+    // weak values: a bucket can only be collected once no update references it anymore, so two concurrent
+    // updates of the same id always get the same bucket
+    private final Cache<Integer, VersionBucket> buckets = Caffeine.newBuilder().weakValues().build();
+    // The highest version of all the buckets, including the ones that were collected. A new bucket starts from it,
+    // so that a replica can still tell that an update is newer than anything it applied for that id.
+    // 0 until seeded, like the highest version of a bucket.
+    private final AtomicLong maxHighest = new AtomicLong();
+
+    PerId(boolean timed) {
+      this.timed = timed;
+    }
+
+    @Override
+    public VersionBucket bucket(int hash) {
+      return buckets.get(hash, h -> newBucket());
+    }
+
+    private VersionBucket newBucket() {
+      VersionBucket bucket = timed ? new TimedPerIdBucket() : new PerIdBucket();
+      bucket.highest = maxHighest.get();
+      return bucket;
+    }
+
+    @Override
+    public void seedHighest(long highestVersion) {
+      maxHighest.accumulateAndGet(highestVersion, Math::max);
+      for (VersionBucket bucket : buckets.asMap().values()) {
+        seed(bucket, highestVersion);
+      }
+    }
+
+    @Override
+    public int size() {
+      return (int) buckets.estimatedSize();
+    }
+
+    private void updateMaxHighest(long bucketHighest) {
+      if (bucketHighest != 0) {
+        maxHighest.accumulateAndGet(bucketHighest, Math::max);
+      }
+    }
+
+    private class PerIdBucket extends VersionBucket {
+      @Override
+      public void updateHighest(long val) {
+        super.updateHighest(val);
+        updateMaxHighest(highest);
+      }
+    }
+
+    private class TimedPerIdBucket extends TimedVersionBucket {
+      @Override
+      public void updateHighest(long val) {
+        super.updateHighest(val);
+        updateMaxHighest(highest);
+      }
+    }
+  }
+}
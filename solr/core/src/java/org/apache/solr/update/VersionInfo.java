@@ -30,7 +30,6 @@ import org.apache.solr.legacy.LegacyNumericUtils;
 import org.apache.lucene.queries.function.FunctionValues;
 import org.apache.lucene.queries.function.ValueSource;
 import org.apache.lucene.search.IndexSearcher;
-import org.apache.lucene.util.BitUtil;
 import org.apache.lucene.util.BytesRef;
 import org.apache.solr.common.SolrException;
 import org.apache.solr.common.util.SuppressForbidden;
@@ -47,9 +46,10 @@ import static org.apache.solr.common.params.CommonParams.VERSION_FIELD;
 public class VersionInfo {
   private static final Logger log = LoggerFactory.getLogger(MethodHandles.lookup().lookupClass());
   private static final String SYS_PROP_BUCKET_VERSION_LOCK_TIMEOUT_MS = "bucketVersionLockTimeoutMs";
+  private static final String SYS_PROP_VERSION_BUCKETS = "solr.versionBuckets";
 
   private final UpdateLog ulog;
-  private final VersionBucket[] buckets;
+  private final VersionBuckets buckets;
   private SchemaField versionField;
   final ReadWriteLock lock = new ReentrantReadWriteLock(true);
 
@@ -96,14 +96,9 @@ public class VersionInfo {
     versionField = getAndCheckVersionField(schema);
     versionBucketLockTimeoutMs = ulog.uhandler.core.getSolrConfig().get("updateHandler").get("versionBucketLockTimeoutMs")
         .intVal(Integer.parseInt(System.getProperty(SYS_PROP_BUCKET_VERSION_LOCK_TIMEOUT_MS, "0")));
-    buckets = new VersionBucket[ BitUtil.nextHighestPowerOfTwo(nBuckets) ];
-    for (int i=0; i<buckets.length; i++) {
-      if (versionBucketLockTimeoutMs > 0) {
-        buckets[i] = new TimedVersionBucket();
-      } else {
-        buckets[i] = new VersionBucket();
-      }
-    }
+    String bucketsType = ulog.uhandler.core.getSolrConfig().get("updateHandler").get("versionBuckets")
+        .txt(System.getProperty(SYS_PROP_VERSION_BUCKETS, VersionBuckets.FIXED));
+    buckets = VersionBuckets.create(bucketsType, nBuckets, versionBucketLockTimeoutMs > 0);
   }
   
   public int getVersionBucketLockTimeoutMs() {
@@ -191,13 +186,7 @@ public class VersionInfo {
 
 
   public VersionBucket bucket(int hash) {
-    // If this is a user provided hash, it may be poor in the right-hand bits.
-    // Make sure high bits are moved down, since only the low bits will matter.
-    // int h = hash + (hash >>> 8) + (hash >>> 16) + (hash >>> 24);
-    // Assume good hash codes for now.
-
-    int slot = hash & (buckets.length-1);
-    return buckets[slot];
+    return buckets.bucket(hash);
   }
 
   public Long lookupVersion(BytesRef idBytes) {
@@ -243,7 +232,7 @@ public class VersionInfo {
 
     final String versionFieldName = versionField.getName();
 
-    log.debug("Refreshing highest value of {} for {} version buckets from index", versionFieldName, buckets.length);
+    log.debug("Refreshing highest value of {} for {} version buckets from index", versionFieldName, buckets.size());
     // if indexed, then we have terms to get the max from
     if (versionField.indexed()) {
       if (versionField.getType().isPointField()) {
@@ -271,13 +260,7 @@ public class VersionInfo {
   }
 
   public void seedBucketsWithHighestVersion(long highestVersion) {
-    for (int i=0; i<buckets.length; i++) {
-      // should not happen, but in case other threads are calling updateHighest on the version bucket
-      synchronized (buckets[i]) {
-        if (buckets[i].highest < highestVersion)
-          buckets[i].highest = highestVersion;
-      }
-    }
+    buckets.seedHighest(highestVersion);
   }
 
   private long getMaxVersionFromIndexedTerms(IndexSearcher searcher) throws IOException {
@@ -56,6 +56,7 @@ import org.apache.solr.schema.IndexSchema;
 import org.apache.solr.schema.NumericValueFieldType;
 import org.apache.solr.schema.SchemaField;
 import org.apache.solr.update.AddUpdateCommand;
+import org.apache.solr.update.UpdateLog;
 import org.apache.solr.util.DateMathParser;
 import org.apache.solr.util.RefCounted;
 import org.slf4j.Logger;
@@ -373,10 +374,18 @@ public class AtomicUpdateDocumentMerger {
     BytesRef idBytes = schema.indexableUniqueKey(cmd.getChildDocIdStr());
 
     updatedFields.add(CommonParams.VERSION_FIELD); // add the version field so that it is fetched too
-    SolrInputDocument oldDocument = RealTimeGetComponent.getInputDocument
-      (cmd.getReq().getCore(), idBytes, rootIdBytes,
-          null, // don't want the version to be returned
-          updatedFields, RealTimeGetComponent.Resolution.DOC);
+    SolrInputDocument oldDocument = null;
+    UpdateLog ulog = cmd.getReq().getCore().getUpdateHandler().getUpdateLog();
+    if (ulog != null && idBytes.equals(rootIdBytes)) {
+      // a recent in-place update of this doc may already tell us the values, without opening a realtime searcher
+      oldDocument = ulog.lookupInPlaceUpdatedFields(idBytes, updatedFields);
+    }
+    if (oldDocument == null) {
+      oldDocument = RealTimeGetComponent.getInputDocument
+        (cmd.getReq().getCore(), idBytes, rootIdBytes,
+            null, // don't want the version to be returned
+            updatedFields, RealTimeGetComponent.Resolution.DOC);
+    }
 
     if (oldDocument == RealTimeGetComponent.DELETED || oldDocument == null) {
       // This doc was deleted recently. In-place update cannot work, hence a full atomic update should be tried.
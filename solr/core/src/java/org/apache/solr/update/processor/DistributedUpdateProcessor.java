@@ -20,6 +20,7 @@ import java.io.IOException;
 import java.lang.invoke.MethodHandles;
 import java.util.List;
 import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
 import java.util.concurrent.TimeUnit;
 
 import com.google.common.annotations.VisibleForTesting;
@@ -211,10 +212,52 @@ public class DistributedUpdateProcessor extends UpdateRequestProcessor {
 
   @Override
   public void processAdd(AddUpdateCommand cmd) throws IOException {
+    setupRequest(cmd);
+    if (versionAndDistribAdd(cmd)) {
+      addVersionToResponse(cmd);
+    }
+  }
 
-    assert TestInjection.injectFailUpdateRequests();
+  /**
+   * Without SolrCloud, the adds of a batch are only versioned and indexed locally, and each of them does so while
+   * holding the lock of its version bucket, just like concurrent requests do. Their documents are then indexed through
+   * {@link org.apache.solr.update.UpdateHandler#forEachAdd}, which may do so concurrently.
+   */
+  @Override
+  public void processAddBatch(List<AddUpdateCommand> cmds) throws IOException {
+    // in SolrCloud, adds are also distributed, which isn't thread-safe; the processors after this one have to be
+    // thread-safe too; and atomic updates are simply left to be handled in order
+    if (req.getCore().getCoreContainer().isZooKeeperAware()
+        || !(next instanceof RunUpdateProcessorFactory.RunUpdateProcessor)
+        || cmds.stream().anyMatch(AtomicUpdateDocumentMerger::isAtomicUpdate)) {
+      super.processAddBatch(cmds);
+      return;
+    }
 
-    setupRequest(cmd);
+    // the fields of this processor are only written here, before the adds may run concurrently: without SolrCloud,
+    // setupRequest leads to the same state for all the adds of the request, and isIndexChanged is only read in SolrCloud
+    setupRequest(cmds.get(0));
+    isIndexChanged = true;
+
+    Set<AddUpdateCommand> dropped = ConcurrentHashMap.newKeySet();
+    req.getCore().getUpdateHandler().forEachAdd(cmds, cmd -> {
+      if (!versionAndDistribAdd(cmd)) {
+        dropped.add(cmd);
+      }
+    });
+    for (AddUpdateCommand cmd : cmds) {
+      if (!dropped.contains(cmd)) {
+        addVersionToResponse(cmd);
+      }
+    }
+  }
+
+  /**
+   * @return false if the command was dropped
+   */
+  private boolean versionAndDistribAdd(AddUpdateCommand cmd) throws IOException {
+
+    assert TestInjection.injectFailUpdateRequests();
 
     // If we were sent a previous version, set this to the AddUpdateCommand (if not already set)
     if (!cmd.isInPlaceUpdate()) {
@@ -231,11 +274,14 @@ public class DistributedUpdateProcessor extends UpdateRequestProcessor {
 
     if (dropCmd) {
       // TODO: do we need to add anything to the response?
-      return;
+      return false;
     }
 
     doDistribAdd(cmd);
+    return true;
+  }
 
+  private void addVersionToResponse(AddUpdateCommand cmd) {
     // TODO: what to do when no idField?
     if (returnVersions && rsp != null && idField != null) {
       if (addsResponse == null) {
@@ -261,7 +307,9 @@ public class DistributedUpdateProcessor extends UpdateRequestProcessor {
   // must be synchronized by bucket
   private void doLocalAdd(AddUpdateCommand cmd) throws IOException {
     super.processAdd(cmd);
-    isIndexChanged = true;
+    if (!isIndexChanged) { // already set before the adds of a batch run concurrently
+      isIndexChanged = true;
+    }
   }
 
   // must be synchronized by bucket
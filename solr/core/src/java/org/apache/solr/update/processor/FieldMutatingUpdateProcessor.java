@@ -20,6 +20,7 @@ import java.io.IOException;
 import java.lang.invoke.MethodHandles;
 import java.util.ArrayList;
 import java.util.Collection;
+import java.util.List;
 import java.util.function.Function;
 import java.util.regex.Pattern;
 
@@ -81,8 +82,31 @@ public abstract class FieldMutatingUpdateProcessor
    */
   @Override
   public void processAdd(AddUpdateCommand cmd) throws IOException {
-    final SolrInputDocument doc = cmd.getSolrInputDocument();
+    mutateFields(cmd.getSolrInputDocument());
+    super.processAdd(cmd);
+  }
 
+  /**
+   * Mutates the documents of all the commands, then forwards the batch down the chain.  If a document can't be
+   * mutated, the documents before it are still forwarded, like they would be one at a time.
+   * Subclasses that override <code>processAdd</code> should override this method too.
+   */
+  @Override
+  public void processAddBatch(List<AddUpdateCommand> cmds) throws IOException {
+    for (int i = 0; i < cmds.size(); i++) {
+      try {
+        mutateFields(cmds.get(i).getSolrInputDocument());
+      } catch (RuntimeException e) {
+        if (i > 0 && next != null) {
+          next.processAddBatch(cmds.subList(0, i));
+        }
+        throw e;
+      }
+    }
+    if (next != null) next.processAddBatch(cmds);
+  }
+
+  private void mutateFields(final SolrInputDocument doc) {
     // make a copy we can iterate over while mutating the doc
     final Collection<String> fieldNames 
       = new ArrayList<>(doc.getFieldNames());
@@ -115,7 +139,6 @@ public abstract class FieldMutatingUpdateProcessor
         doc.put(dest.getName(), dest);
       }
     }
-    super.processAdd(cmd);
   }
   
   /**
@@ -105,6 +105,26 @@ public class LogUpdateProcessorFactory extends UpdateRequestProcessorFactory imp
       // call delegate first so we can log things like the version that get set later
       if (next != null) next.processAdd(cmd);
 
+      logAdd(cmd);
+    }
+
+    @Override
+    public void processAddBatch(List<AddUpdateCommand> cmds) throws IOException {
+      if (logDebug) {
+        for (AddUpdateCommand cmd : cmds) {
+          log.debug("PRE_UPDATE {} {}", cmd, req);
+        }
+      }
+
+      // pass the batch on as a whole, so that later processors may handle it at once
+      if (next != null) next.processAddBatch(cmds);
+
+      for (AddUpdateCommand cmd : cmds) {
+        logAdd(cmd);
+      }
+    }
+
+    private void logAdd(AddUpdateCommand cmd) {
       // Add a list of added id's to the response
       if (adds == null) {
         adds = new ArrayList<>();
@@ -17,6 +17,8 @@
 package org.apache.solr.update.processor;
 
 import java.io.IOException;
+import java.util.List;
+
 import org.apache.solr.common.SolrException;
 import org.apache.solr.request.SolrQueryRequest;
 import org.apache.solr.response.SolrQueryResponse;
@@ -75,6 +77,24 @@ public class RunUpdateProcessorFactory extends UpdateRequestProcessorFactory {
       changesSinceCommit = true;
     }
 
+    /**
+     * Adds the documents through {@link UpdateHandler#forEachAdd}, which may index them concurrently.
+     */
+    @Override
+    public void processAddBatch(List<AddUpdateCommand> cmds) throws IOException {
+      for (AddUpdateCommand cmd : cmds) {
+        if (AtomicUpdateDocumentMerger.isAtomicUpdate(cmd)) {
+          // let processAdd fail in order
+          super.processAddBatch(cmds);
+          return;
+        }
+      }
+
+      changesSinceCommit = true;
+      updateHandler.forEachAdd(cmds, updateHandler::addDoc);
+      if (next != null) next.processAddBatch(cmds);
+    }
+
     @Override
     public void processDelete(DeleteUpdateCommand cmd) throws IOException {
       if (cmd.isDeleteById()) {
@@ -19,6 +19,7 @@ package org.apache.solr.update.processor;
 import java.io.Closeable;
 import java.io.IOException;
 import java.lang.invoke.MethodHandles;
+import java.util.List;
 
 import org.apache.solr.common.SolrException;
 import org.apache.solr.update.AddUpdateCommand;
@@ -55,6 +56,20 @@ public abstract class UpdateRequestProcessor implements Closeable {
     if (next != null) next.processAdd(cmd);
   }
 
+  /**
+   * Processes several documents added by the same request, in order.
+   * <p>
+   * By default each command is passed to {@link #processAdd(AddUpdateCommand)}, so processors that only
+   * override processAdd still see every document. Processors that can handle the documents of a batch together
+   * may override this and pass the batch on with <code>next.processAddBatch(cmds)</code>. The list must not
+   * be retained after this method returns.
+   */
+  public void processAddBatch(List<AddUpdateCommand> cmds) throws IOException {
+    for (AddUpdateCommand cmd : cmds) {
+      processAdd(cmd);
+    }
+  }
+
   public void processDelete(DeleteUpdateCommand cmd) throws IOException {
     if (next != null) next.processDelete(cmd);
   }
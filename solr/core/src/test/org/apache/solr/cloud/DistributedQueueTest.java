@@ -17,6 +17,9 @@
 package org.apache.solr.cloud;
 
 import java.nio.charset.Charset;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
 import java.util.NoSuchElementException;
 import java.util.concurrent.ExecutorService;
 import java.util.concurrent.Future;
@@ -232,6 +235,49 @@ public class DistributedQueueTest extends SolrTestCaseJ4 {
   }
 
 
+  @Test
+  public void testOfferBatch() throws Exception {
+    String dqZNode = "/distqueue/test";
+    ZkDistributedQueue dq = makeDistributedQueue(dqZNode);
+    List<byte[]> batch = new ArrayList<>();
+    for (int i = 0; i < 1500; i++) {
+      batch.add(String.valueOf(i).getBytes(UTF8));
+    }
+    dq.offer(batch);
+    // elements come back in the order they were offered, across multi operations
+    for (int i = 0; i < 1500; i++) {
+      assertEquals(String.valueOf(i), new String(dq.remove(), UTF8));
+    }
+    assertNull(dq.poll());
+
+    ZkDistributedQueue bounded = new ZkDistributedQueue(zkClient, setupNewDistributedQueueZNode("/distqueue/bounded"), new Stats(), 5);
+    bounded.offer(batch.subList(0, 3));
+    expectThrows(IllegalStateException.class, () -> bounded.offer(batch.subList(0, 3)));
+    bounded.offer(batch.subList(0, 2));
+    assertEquals(5, bounded.peekElements(10, 0, s -> true).size());
+  }
+
+  @Test
+  public void testOfferBatchOfLargeMessages() throws Exception {
+    String dqZNode = "/distqueue/test";
+    ZkDistributedQueue dq = makeDistributedQueue(dqZNode);
+    // together, the messages are several times the 1MB jute.maxbuffer of the server, so they need several multis
+    List<byte[]> batch = new ArrayList<>();
+    for (int i = 0; i < 20; i++) {
+      byte[] message = new byte[200 * 1024];
+      Arrays.fill(message, (byte) i);
+      batch.add(message);
+    }
+    dq.offer(batch);
+    for (int i = 0; i < 20; i++) {
+      byte[] message = dq.remove();
+      assertEquals(200 * 1024, message.length);
+      assertEquals(i, message[0]);
+      assertEquals(i, message[message.length - 1]);
+    }
+    assertNull(dq.poll());
+  }
+
   @Test
   public void testPeekElements() throws Exception {
     String dqZNode = "/distqueue/test";
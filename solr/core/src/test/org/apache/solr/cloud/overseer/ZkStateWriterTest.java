@@ -18,9 +18,12 @@ package org.apache.solr.cloud.overseer;
 
 import java.lang.invoke.MethodHandles;
 import java.nio.file.Path;
+import java.util.ArrayList;
 import java.util.Collections;
 import java.util.HashMap;
+import java.util.List;
 import java.util.Map;
+import java.util.concurrent.ExecutorService;
 import java.util.concurrent.atomic.AtomicBoolean;
 
 import org.apache.lucene.util.IOUtils;
@@ -36,6 +39,8 @@ import org.apache.solr.common.cloud.DocRouter;
 import org.apache.solr.common.cloud.Slice;
 import org.apache.solr.common.cloud.SolrZkClient;
 import org.apache.solr.common.cloud.ZkStateReader;
+import org.apache.solr.common.util.ExecutorUtil;
+import org.apache.solr.common.util.SolrNamedThreadFactory;
 import org.apache.solr.common.util.Utils;
 import org.apache.solr.handler.admin.ConfigSetsHandler;
 import org.apache.zookeeper.KeeperException;
@@ -109,6 +114,56 @@ public class ZkStateWriterTest extends SolrTestCaseJ4 {
     }
   }
 
+  public void testConcurrentWrites() throws Exception {
+    Path zkDir = createTempDir("testConcurrentWrites");
+
+    ZkTestServer server = new ZkTestServer(zkDir);
+
+    SolrZkClient zkClient = null;
+    ExecutorService executor = ExecutorUtil.newMDCAwareFixedThreadPool(4, new SolrNamedThreadFactory("testConcurrentWrites"));
+
+    try {
+      server.run();
+
+      zkClient = new SolrZkClient(server.getZkAddress(), OverseerTest.DEFAULT_CONNECTION_TIMEOUT);
+      ZkController.createClusterZkNodes(zkClient);
+
+      try (ZkStateReader reader = new ZkStateReader(zkClient)) {
+        reader.createClusterStateWatchersAndUpdate();
+
+        Map<String, Object> props = Collections.singletonMap(ZkStateReader.CONFIGNAME_PROP, ConfigSetsHandler.DEFAULT_CONFIGSET_NAME);
+        List<ZkWriteCommand> cmds = new ArrayList<>();
+        for (int i = 1; i <= 4; i++) {
+          zkClient.makePath(ZkStateReader.COLLECTIONS_ZKNODE + "/c" + i, true);
+          cmds.add(new ZkWriteCommand("c" + i, new DocCollection("c" + i, new HashMap<>(), props, DocRouter.DEFAULT, 0)));
+        }
+        ZkStateWriter writer = new ZkStateWriter(reader, new Stats(), executor);
+
+        // First write is flushed immediately
+        ClusterState clusterState = writer.enqueueUpdate(reader.getClusterState(), cmds, null);
+        assertFalse(writer.hasPendingUpdates());
+        for (int i = 1; i <= 4; i++) {
+          Map<?, ?> map = (Map<?, ?>) Utils.fromJSON(zkClient.getData(ZkStateReader.COLLECTIONS_ZKNODE + "/c" + i + "/state.json", null, null, true));
+          assertNotNull(map.get("c" + i));
+          assertEquals(0, clusterState.getCollection("c" + i).getZNodeVersion());
+        }
+
+        // a bad version fails the flush, but the other collections are still written
+        Map<String, ZkWriteCommand> updates = new HashMap<>();
+        updates.put("c1", new ZkWriteCommand("c1", new DocCollection("c1", new HashMap<>(), props, DocRouter.DEFAULT, 0)));
+        updates.put("c2", new ZkWriteCommand("c2", new DocCollection("c2", new HashMap<>(), props, DocRouter.DEFAULT, 5)));
+        expectThrows(KeeperException.BadVersionException.class, () -> writer.writePendingUpdates(updates));
+        assertEquals(1, writer.getClusterState().getCollection("c1").getZNodeVersion());
+        assertEquals(0, writer.getClusterState().getCollection("c2").getZNodeVersion());
+        expectThrows(IllegalStateException.class, () -> writer.writePendingUpdates());
+      }
+    } finally {
+      ExecutorUtil.shutdownAndAwaitTermination(executor);
+      IOUtils.close(zkClient);
+      server.shutdown();
+    }
+  }
+
   public void testSingleExternalCollection() throws Exception {
     Path zkDir = createTempDir("testSingleExternalCollection");
 
@@ -16,6 +16,8 @@
  */
 package org.apache.solr.handler;
 
+import java.util.ArrayList;
+import java.util.Arrays;
 import java.util.Collections;
 import java.util.List;
 import java.util.Map;
@@ -165,6 +167,30 @@ public class JsonLoaderTest extends SolrTestCaseJ4 {
     req.close();
   }
 
+  public void testFieldNamesAreShared() throws Exception
+  {
+    String str = "[{'id':'1','foo_s':'a','x_y_z':1},{'id':'2','foo_s':'b','x_y_z':2,'n\\u0061me':'c'}]".replace('\'', '"');
+    SolrQueryRequest req = req();
+    SolrQueryResponse rsp = new SolrQueryResponse();
+    BufferingRequestProcessor p = new BufferingRequestProcessor(null);
+    JsonLoader loader = new JsonLoader();
+    loader.load(req, rsp, new ContentStreamBase.StringStream(str), p);
+
+    assertEquals( 2, p.addCommands.size() );
+    List<String> names1 = new ArrayList<>(p.addCommands.get(0).solrDoc.getFieldNames());
+    List<String> names2 = new ArrayList<>(p.addCommands.get(1).solrDoc.getFieldNames());
+    assertEquals(Arrays.asList("id", "foo_s", "x_y_z"), names1);
+    assertEquals(Arrays.asList("id", "foo_s", "x_y_z", "name"), names2);
+    // the names of schema fields are the ones of the schema
+    assertSame(req.getSchema().getUniqueKeyField().getName(), names1.get(0));
+    for (int i = 0; i < names1.size(); i++) {
+      assertSame(names1.get(i), names2.get(i));
+    }
+    assertEquals("c", p.addCommands.get(1).solrDoc.getFieldValue("name"));
+
+    req.close();
+  }
+
   @Test
   public void testInvalidJsonProducesBadRequestSolrException() throws Exception {
     SolrQueryResponse rsp = new SolrQueryResponse();
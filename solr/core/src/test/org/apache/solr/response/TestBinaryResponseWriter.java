@@ -118,6 +118,36 @@ public class TestBinaryResponseWriter extends SolrTestCaseJ4 {
     req.close();
   }
 
+  public void testDocValuesReadAsBytes() throws Exception {
+    String text = "Thailand (ประเทศไทย)";
+    assertU(adoc("id", "102", "uuid", UUID.randomUUID().toString(), "text_sdv", text, "flag_bdv", "true"));
+    assertU(commit());
+
+    // only docValues fields, and docValues fields mixed with stored ones
+    for (String fl : new String[] {"text_sdv,flag_bdv", "id,text_sdv,flag_bdv", "id,text_sdv,copy:text_sdv"}) {
+      LocalSolrQueryRequest req = lrf.makeRequest("q", "id:102", "fl", fl);
+      SolrQueryResponse rsp = h.queryAndResponse(req.getParams().get(CommonParams.QT), req);
+      BinaryQueryResponseWriter writer = (BinaryQueryResponseWriter) h.getCore().getQueryResponseWriter("javabin");
+      ByteArrayOutputStream baos = new ByteArrayOutputStream();
+      writer.write(baos, req, rsp);
+      NamedList<?> res;
+      try (JavaBinCodec jbc = new JavaBinCodec()) {
+        res = (NamedList<?>) jbc.unmarshal(new ByteArrayInputStream(baos.toByteArray()));
+      }
+      SolrDocumentList docs = (SolrDocumentList) res.get("response");
+      assertEquals(1, docs.size());
+      SolrDocument document = docs.get(0);
+      assertEquals(fl, text, document.getFieldValue("text_sdv"));
+      if (fl.contains("flag_bdv")) {
+        assertEquals(fl, Boolean.TRUE, document.getFieldValue("flag_bdv"));
+      }
+      if (fl.contains("copy")) {
+        assertEquals(fl, text, document.getFieldValue("copy"));
+      }
+      req.close();
+    }
+  }
+
   public void testOmitHeader() throws Exception {
     SolrQueryRequest req = req("q", "*:*", "omitHeader", "true");
     SolrQueryResponse rsp = h.queryAndResponse(null, req);
@@ -191,4 +191,8 @@ public class BadIndexSchemaTest extends AbstractBadConfigTestBase {
     doTest("bad-schema-daterangefield-type-options.xml", "FieldType DateRangeField is incompatible with omitNorms=false");
     doTest("bad-schema-daterangefield-instance-options.xml", "daterange_field of type DateRangeField is incompatible with omitNorms=false");
   }
+
+  public void testDenseVectorFieldWithoutDimension() throws Exception {
+    doTest("bad-schema-densevector-no-dimension.xml", "\"vectorDimension\" attribute is required");
+  }
 }
@@ -0,0 +1,116 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.apache.solr.schema;
+
+import java.util.Arrays;
+
+import org.apache.lucene.codecs.lucene90.Lucene90HnswVectorsFormat;
+import org.apache.lucene.index.FieldInfo;
+import org.apache.lucene.index.LeafReader;
+import org.apache.lucene.index.VectorSimilarityFunction;
+import org.apache.solr.SolrTestCaseJ4;
+import org.apache.solr.common.SolrInputDocument;
+import org.apache.solr.core.SolrCore;
+import org.apache.solr.util.ErrorLogMuter;
+import org.junit.BeforeClass;
+
+public class DenseVectorFieldTest extends SolrTestCaseJ4 {
+
+  @BeforeClass
+  public static void beforeClass() throws Exception {
+    initCore("solrconfig_codec.xml", "schema-densevector.xml");
+  }
+
+  @Override
+  public void setUp() throws Exception {
+    clearIndex();
+    assertU(commit());
+    super.setUp();
+  }
+
+  public void testFieldTypeConfiguration() {
+    IndexSchema schema = h.getCore().getLatestSchema();
+    DenseVectorField defaults = (DenseVectorField) schema.getField("vector").getType();
+    assertEquals(4, defaults.getDimension());
+    assertEquals(VectorSimilarityFunction.COSINE, defaults.getSimilarityFunction());
+    assertEquals(DenseVectorField.DEFAULT_MAX_CONNECTIONS, defaults.getHnswMaxConnections());
+    assertEquals(DenseVectorField.DEFAULT_BEAM_WIDTH, defaults.getHnswBeamWidth());
+
+    DenseVectorField custom = (DenseVectorField) schema.getField("vector_hnsw").getType();
+    assertEquals(VectorSimilarityFunction.DOT_PRODUCT, custom.getSimilarityFunction());
+    assertEquals(8, custom.getHnswMaxConnections());
+    assertEquals(50, custom.getHnswBeamWidth());
+    assertTrue(custom.getKnnVectorsFormat() instanceof Lucene90HnswVectorsFormat);
+  }
+
+  public void testParseVector() {
+    SchemaField field = h.getCore().getLatestSchema().getField("vector");
+    DenseVectorField type = (DenseVectorField) field.getType();
+    float[] expected = new float[] {1f, 2.5f, -3f, 4f};
+    assertArrayEquals(expected, type.parseVector(field, "[1, 2.5, -3, 4]"), 0f);
+    assertArrayEquals(expected, type.parseVector(field, "1,2.5,-3,4"), 0f);
+    assertArrayEquals(expected, type.parseVector(field, Arrays.asList(1, 2.5, -3f, "4")), 0f);
+    assertArrayEquals(expected, type.parseVector(field, expected), 0f);
+  }
+
+  public void testIndexAndRetrieveVector() throws Exception {
+    assertU(adoc("id", "0", "vector", "1.5", "vector", "2", "vector", "3", "vector", "4"));
+    assertU(adoc("id", "1", "vector", "[1.5, 2, 3, 4]"));
+    SolrInputDocument doc = sdoc("id", "2", "vector", Arrays.asList(1.5f, 2f, 3f, 4f));
+    assertU(adoc(doc));
+    assertU(commit());
+
+    assertQ(req("q", "*:*", "fl", "id,vector", "sort", "id asc"),
+        "//*[@numFound='3']",
+        "//result/doc[1]/arr[@name='vector']/float[1][.='1.5']",
+        "//result/doc[1]/arr[@name='vector']/float[4][.='4.0']",
+        "//result/doc[2]/arr[@name='vector']/float[1][.='1.5']",
+        "//result/doc[3]/arr[@name='vector']/float[3][.='3.0']");
+
+    SolrCore core = h.getCore();
+    core.withSearcher(searcher -> {
+      LeafReader reader = searcher.getSlowAtomicReader();
+      FieldInfo fieldInfo = reader.getFieldInfos().fieldInfo("vector");
+      assertEquals(4, fieldInfo.getVectorDimension());
+      assertEquals(VectorSimilarityFunction.COSINE, fieldInfo.getVectorSimilarityFunction());
+      return null;
+    });
+  }
+
+  public void testWrongDimension() {
+    try (ErrorLogMuter errors = ErrorLogMuter.substring("Incorrect vector dimension")) {
+      assertFailedU(adoc("id", "0", "vector", "[1, 2, 3]"));
+      assertFailedU(adoc("id", "0", "vector", "1", "vector", "2", "vector", "3", "vector", "4", "vector", "5"));
+      assertEquals(2, errors.getCount());
+    }
+  }
+
+  public void testBadFormat() {
+    try (ErrorLogMuter errors = ErrorLogMuter.substring("Expecting float")) {
+      assertFailedU(adoc("id", "0", "vector", "[1, 2, foo, 4]"));
+      assertEquals(1, errors.getCount());
+    }
+  }
+
+  public void testQueriesFail() {
+    assertU(adoc("id", "0", "vector", "[1, 2, 3, 4]"));
+    assertU(commit());
+    assertQEx("Can't sort on a vector field", req("q", "*:*", "sort", "vector desc"), 400);
+    assertQEx("Can't run a field query on a vector field", req("q", "vector:1"), 400);
+    assertQEx("Can't run a range query on a vector field", req("q", "vector:[1 TO 2]"), 400);
+  }
+}
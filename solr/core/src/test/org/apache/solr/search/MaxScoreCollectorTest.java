@@ -17,6 +17,8 @@
 package org.apache.solr.search;
 
 import java.io.IOException;
+import java.util.Arrays;
+import java.util.Collections;
 
 import org.apache.lucene.search.Scorable;
 import org.apache.solr.SolrTestCase;
@@ -66,6 +68,28 @@ public class MaxScoreCollectorTest extends SolrTestCase {
     assertEquals(Float.NaN, scorer.minCompetitiveScore, 0f);
   }
   
+  public void testMergeCollectors() throws IOException {
+    MaxScoreCollector empty = new MaxScoreCollector();
+    assertEquals(Float.NaN, MaxScoreCollector.getMaxScore(Collections.emptyList()), 0f);
+    assertEquals(Float.NaN, MaxScoreCollector.getMaxScore(Collections.singletonList(empty)), 0f);
+
+    MaxScoreCollector c1 = new MaxScoreCollector();
+    DummyScorer scorer1 = new DummyScorer();
+    c1.setScorer(scorer1);
+    scorer1.nextScore = 2f;
+    c1.collect(0);
+
+    MaxScoreCollector c2 = new MaxScoreCollector();
+    DummyScorer scorer2 = new DummyScorer();
+    c2.setScorer(scorer2);
+    scorer2.nextScore = 3f;
+    c2.collect(0);
+
+    assertEquals(3f, MaxScoreCollector.getMaxScore(Arrays.asList(c1, empty, c2)), 0f);
+    assertEquals(3f, MaxScoreCollector.getMaxScore(Arrays.asList(c2, c1)), 0f);
+    assertEquals(2f, MaxScoreCollector.getMaxScore(Arrays.asList(empty, c1)), 0f);
+  }
+  
   private final static class DummyScorer extends Scorable {
     
     float nextScore = 0f;
@@ -369,6 +369,18 @@ public class QueryEqualityTest extends SolrTestCaseJ4 {
     }
   }
 
+  public void testKnnQuery() throws Exception {
+    SolrQueryRequest req = req("df", "foo_s");
+    try {
+      assertQueryEquals("knn", req,
+                        "{!knn f=vector_f}[1.0, 2.0, 3.0, 4.0]",
+                        "{!knn f=vector_f topK=10}1,2,3,4",
+                        "{!knn f=vector_f topK=10 v='[1,2,3,4]'}");
+    } finally {
+      req.close();
+    }
+  }
+
   public void testQueryNested() throws Exception {
     SolrQueryRequest req = req("df", "foo_s");
     try {
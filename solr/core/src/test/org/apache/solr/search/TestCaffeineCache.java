@@ -31,8 +31,10 @@ import com.github.benmanes.caffeine.cache.RemovalCause;
 import org.apache.lucene.util.Accountable;
 import org.apache.lucene.util.TestUtil;
 import org.apache.solr.SolrTestCase;
+import org.apache.solr.common.util.TimeSource;
 import org.apache.solr.metrics.SolrMetricManager;
 import org.apache.solr.metrics.SolrMetricsContext;
+import org.apache.solr.util.TimeOut;
 import org.junit.Test;
 
 import com.github.benmanes.caffeine.cache.Cache;
@@ -97,6 +99,67 @@ public class TestCaffeineCache extends SolrTestCase {
     assertEquals(102L, nl.get("cumulative_inserts"));
   }
 
+  @Test
+  public void testWarmingBudget() {
+    List<Integer> regenerated = new ArrayList<>();
+    CacheRegenerator regenerator = new CacheRegenerator() {
+      @Override
+      public <K, V> boolean regenerateItem(SolrIndexSearcher newSearcher, SolrCache<K, V> newCache,
+                                           SolrCache<K, V> oldCache, K oldKey, V oldVal) {
+        int key = (Integer) oldKey;
+        regenerated.add(key);
+        if (key % 2 == 0) {
+          // even keys are expensive to regenerate
+          try {
+            Thread.sleep(20);
+          } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+          }
+        }
+        newCache.put(oldKey, oldVal);
+        return true;
+      }
+    };
+    SolrMetricsContext solrMetricsContext = new SolrMetricsContext(metricManager, registry, "foo");
+    Map<String, String> params = new HashMap<>();
+    params.put("size", "100");
+    params.put("autowarmCount", "6");
+
+    CaffeineCache<Integer, String> cache = new CaffeineCache<>();
+    Object initObj = cache.init(params, null, regenerator);
+    for (int i = 0; i < 6; i++) {
+      cache.put(i, Integer.toString(i));
+    }
+
+    // nothing is regenerated once the budget is exhausted
+    CaffeineCache<Integer, String> expired = new CaffeineCache<>();
+    expired.initializeMetrics(solrMetricsContext, scope + "-expired");
+    expired.init(params, initObj, regenerator);
+    expired.warm(null, cache, new TimeOut(-1, TimeUnit.MILLISECONDS, TimeSource.NANO_TIME));
+    assertTrue(regenerated.isEmpty());
+    assertEquals(0, expired.size());
+    assertEquals(6, expired.getMetricsMap().getValue().get("warmupSkipped"));
+
+    // warming with a budget records the cost of each entry...
+    CaffeineCache<Integer, String> first = new CaffeineCache<>();
+    first.init(params, initObj, regenerator);
+    first.warm(null, cache, new TimeOut(1, TimeUnit.MINUTES, TimeSource.NANO_TIME));
+    assertEquals(6, first.size());
+
+    // ...so that the next warming regenerates the cheap entries first
+    regenerated.clear();
+    CaffeineCache<Integer, String> second = new CaffeineCache<>();
+    second.initializeMetrics(solrMetricsContext, scope + "-second");
+    second.init(params, initObj, regenerator);
+    second.warm(null, first, new TimeOut(1, TimeUnit.MINUTES, TimeSource.NANO_TIME));
+    assertEquals(6, second.size());
+    assertEquals(6, regenerated.size());
+    for (int i = 0; i < 3; i++) {
+      assertEquals("unexpected warming order: " + regenerated, 1, regenerated.get(i) % 2);
+    }
+    assertEquals(0, second.getMetricsMap().getValue().get("warmupSkipped"));
+  }
+
   @Test
   public void testTimeDecay() {
     Cache<Integer, String> cacheDecay = Caffeine.newBuilder()
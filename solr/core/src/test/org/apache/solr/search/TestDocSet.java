@@ -17,7 +17,9 @@
 package org.apache.solr.search;
 
 import java.io.IOException;
+import java.util.ArrayList;
 import java.util.Arrays;
+import java.util.Collections;
 import java.util.List;
 import java.util.Random;
 import java.util.function.Supplier;
@@ -124,7 +126,7 @@ public class TestDocSet extends SolrTestCase {
 
 
   public DocSet getDocSet(FixedBitSet bs) {
-    switch(rand.nextInt(9)) {
+    switch(rand.nextInt(13)) {
       case 0: case 1: case 2: case 3: return getBitDocSet(bs);
 
       case 4: return getIntDocSet(bs);
@@ -132,6 +134,12 @@ public class TestDocSet extends SolrTestCase {
       case 6: return getIntDocSet(bs);
       case 7: return getIntDocSet(bs);
       case 8: return getIntDocSet(bs);
+
+      case 9: return OffHeapBitDocSet.copyOf(new BitDocSet(bs));
+      case 10: return OffHeapSortedIntDocSet.copyOf((SortedIntDocSet) getIntDocSet(bs));
+
+      case 11: return RoaringDocSet.fromBits(bs);
+      case 12: return RoaringDocSet.copyOf(getIntDocSet(bs), bs.length());
     }
     return null;
   }
@@ -208,6 +216,143 @@ public class TestDocSet extends SolrTestCase {
     // doMany(130, 1000000);
   }
 
+  public void testCollectSlices() throws IOException {
+    for (int iter = 0; iter < 100; iter++) {
+      int maxDoc = rand.nextInt(2000) + 1;
+      FixedBitSet bs = getRandomSet(maxDoc, rand.nextInt(rand.nextBoolean() ? 20 : maxDoc));
+
+      // split the docs in contiguous segments, which are spread over the slices and collected in any order
+      int numSlices = rand.nextInt(5) + 1;
+      DocSetCollector.Slices slices = new DocSetCollector.Slices(maxDoc);
+      List<DocSetCollector> collectors = new ArrayList<>();
+      for (int i = 0; i < numSlices; i++) {
+        collectors.add(slices.newCollector());
+      }
+      List<int[]> segments = new ArrayList<>();
+      for (int start = 0; start < maxDoc; ) {
+        int end = Math.min(maxDoc, start + 1 + rand.nextInt(rand.nextBoolean() ? 100 : maxDoc));
+        segments.add(new int[] {start, end});
+        start = end;
+      }
+      Collections.shuffle(segments, rand);
+      for (int[] segment : segments) {
+        DocSetCollector collector = collectors.get(rand.nextInt(numSlices));
+        collector.startSegment(segment[0], segment[1] - segment[0]);
+        for (int doc = segment[0]; doc < segment[1]; doc++) {
+          if (bs.get(doc)) {
+            collector.collect(doc - segment[0]);
+          }
+        }
+      }
+
+      checkEqualAll(bs, slices.getDocSet());
+    }
+  }
+
+  /** A set spanning several 64K blocks, each with a random density or a few runs, to hit all container types */
+  FixedBitSet getRandomBlockSet(int maxDoc) {
+    FixedBitSet bs = new FixedBitSet(maxDoc);
+    for (int start = 0; start < maxDoc; start += RoaringDocSet.BLOCK_SIZE) {
+      int end = Math.min(maxDoc, start + RoaringDocSet.BLOCK_SIZE);
+      switch (rand.nextInt(5)) {
+        case 0: // empty
+          break;
+        case 1: // sparse
+        case 2: // dense
+          int n = rand.nextInt(rand.nextBoolean() ? RoaringDocSet.MAX_ARRAY_SIZE + 1 : end - start);
+          for (int i = 0; i < n; i++) {
+            bs.set(start + rand.nextInt(end - start));
+          }
+          break;
+        default: // runs
+          for (int i = rand.nextInt(20); i >= 0; i--) {
+            int from = start + rand.nextInt(end - start);
+            bs.set(from, Math.min(end, from + rand.nextInt(5000) + 1));
+          }
+      }
+    }
+    return bs;
+  }
+
+  private void checkEqualAll(FixedBitSet bs, DocSet set) {
+    assertEquals(bs.cardinality(), set.size());
+    for (int i = 0; i < bs.length(); i++) {
+      assertEquals(bs.get(i), set.exists(i));
+    }
+    iter(new BitDocSet(bs), set);
+  }
+
+  public void testRoaringDocSet() {
+    for (int iter = 0; iter < 20; iter++) {
+      int maxDoc = rand.nextInt(4 * RoaringDocSet.BLOCK_SIZE) + 1;
+      FixedBitSet bs1 = getRandomBlockSet(maxDoc);
+      FixedBitSet bs2 = rand.nextBoolean() ? getRandomBlockSet(maxDoc) : getRandomSet(maxDoc, rand.nextInt(100));
+
+      RoaringDocSet r1 = RoaringDocSet.fromBits(bs1);
+      checkEqualAll(bs1, r1);
+      checkEqualAll(bs1, RoaringDocSet.copyOf(new BitDocSet(bs1), maxDoc));
+      assertEquals(bs1, r1.getFixedBitSet());
+      long estimate = RoaringDocSet.estimateRamBytesUsed(bs1, Long.MAX_VALUE);
+      assertTrue(RoaringDocSet.estimateRamBytesUsed(bs1, estimate / 2) > estimate / 2);
+
+      FixedBitSet and = bs1.clone(); and.and(bs2);
+      FixedBitSet or = bs1.clone(); or.or(bs2);
+      FixedBitSet andNot = bs1.clone(); andNot.andNot(bs2);
+      FixedBitSet notAnd = bs2.clone(); notAnd.andNot(bs1);
+
+      SortedIntDocSet ints2 = (SortedIntDocSet) getIntDocSet(bs2);
+      for (DocSet other : new DocSet[] {new BitDocSet(bs2), ints2, RoaringDocSet.fromBits(bs2),
+          OffHeapBitDocSet.copyOf(new BitDocSet(bs2)), OffHeapSortedIntDocSet.copyOf(ints2)}) {
+        checkEqualAll(and, r1.intersection(other));
+        checkEqualAll(and, other.intersection(r1));
+        checkEqualAll(or, r1.union(other));
+        checkEqualAll(or, other.union(r1));
+        checkEqualAll(andNot, r1.andNot(other));
+        checkEqualAll(notAnd, other.andNot(r1));
+        assertEquals(and.cardinality(), r1.intersectionSize(other));
+        assertEquals(and.cardinality(), other.intersectionSize(r1));
+        assertEquals(and.cardinality() > 0, r1.intersects(other));
+        assertEquals(and.cardinality() > 0, other.intersects(r1));
+        assertEquals(or.cardinality(), r1.unionSize(other));
+        assertEquals(or.cardinality(), other.unionSize(r1));
+        assertEquals(andNot.cardinality(), r1.andNotSize(other));
+      }
+
+      FixedBitSet target = new FixedBitSet(maxDoc);
+      r1.addAllTo(target);
+      assertEquals(bs1, target);
+    }
+  }
+
+  public void testCompactDocSet() {
+    int maxDoc = 8 * RoaringDocSet.BLOCK_SIZE;
+
+    // dense: a bit set is the most compact
+    FixedBitSet dense = getRandomSet(maxDoc, maxDoc / 2);
+    BitDocSet denseSet = new BitDocSet(dense);
+    assertSame(denseSet, DocSetUtil.compactDocSet(denseSet));
+
+    // medium density
+    FixedBitSet medium = getRandomSet(maxDoc, maxDoc / 40);
+    DocSet compact = DocSetUtil.compactDocSet(new BitDocSet(medium));
+    assertTrue(compact instanceof RoaringDocSet);
+    checkEqualAll(medium, compact);
+    assertTrue(compact.ramBytesUsed() * 2 < new BitDocSet(medium).ramBytesUsed());
+
+    // clustered
+    FixedBitSet clustered = new FixedBitSet(maxDoc);
+    clustered.set(1000, maxDoc / 2);
+    compact = DocSetUtil.compactDocSet(new BitDocSet(clustered));
+    assertTrue(compact instanceof RoaringDocSet);
+    assertEquals(4, ((RoaringDocSet) compact).numContainers());
+    checkEqualAll(clustered, compact);
+    assertTrue(compact.ramBytesUsed() < 1024);
+
+    // other sets are left as they are
+    DocSet ints = getIntDocSet(medium);
+    assertSame(ints, DocSetUtil.compactDocSet(ints));
+  }
+
   public DocSet getRandomDocSet(int n, int maxDoc) {
     FixedBitSet obs = new FixedBitSet(maxDoc);
     int[] a = new int[n];
@@ -545,9 +690,15 @@ public class TestDocSet extends SolrTestCase {
     FixedBitSet bs = getRandomSet(reader.maxDoc(), rand.nextInt(reader.maxDoc()+1));
     DocSet a = new BitDocSet(bs);
     DocSet b = getIntDocSet(bs);
+    DocSet c = OffHeapBitDocSet.copyOf(new BitDocSet(bs.clone()));
+    DocSet d = OffHeapSortedIntDocSet.copyOf((SortedIntDocSet) b);
+    DocSet e = RoaringDocSet.fromBits(bs);
 
     Filter fa = a.getTopFilter();
     Filter fb = b.getTopFilter();
+    Filter fc = c.getTopFilter();
+    Filter fd = d.getTopFilter();
+    Filter fe = e.getTopFilter();
 
     /* top level filters are no longer supported
     // test top-level
@@ -558,18 +709,30 @@ public class TestDocSet extends SolrTestCase {
 
     DocIdSet da;
     DocIdSet db;
+    DocIdSet dc;
+    DocIdSet dd;
+    DocIdSet de;
     List<LeafReaderContext> leaves = topLevelContext.leaves();
 
     // first test in-sequence sub readers
     for (LeafReaderContext readerContext : leaves) {
       da = fa.getDocIdSet(readerContext, null);
       db = fb.getDocIdSet(readerContext, null);
+      dc = fc.getDocIdSet(readerContext, null);
+      dd = fd.getDocIdSet(readerContext, null);
+      de = fe.getDocIdSet(readerContext, null);
 
       // there are various ways that disis can be retrieved for each leafReader; they should all be equivalent.
-      doTestIteratorEqual(da.bits(), disiSupplier(da), disiSupplier(db), () -> a.iterator(readerContext), () -> b.iterator(readerContext));
+      doTestIteratorEqual(da.bits(), disiSupplier(da), disiSupplier(db), () -> a.iterator(readerContext), () -> b.iterator(readerContext),
+          disiSupplier(dc), disiSupplier(dd), () -> c.iterator(readerContext), () -> d.iterator(readerContext),
+          disiSupplier(de), () -> e.iterator(readerContext));
+      // the off-heap bit set and the compressed set support random-access via Bits too
+      doTestIteratorEqual(dc.bits(), disiSupplier(da));
+      doTestIteratorEqual(de.bits(), disiSupplier(da));
 
       // set b is SortedIntDocSet, so derivatives should not support random-access via Bits
       assertNull(db.bits());
+      assertNull(dd.bits());
     }  
 
     int nReaders = leaves.size();
@@ -578,8 +741,14 @@ public class TestDocSet extends SolrTestCase {
       LeafReaderContext readerContext = leaves.get(rand.nextInt(nReaders));
       da = fa.getDocIdSet(readerContext, null);
       db = fb.getDocIdSet(readerContext, null);
-      doTestIteratorEqual(da.bits(), disiSupplier(da), disiSupplier(db), () -> a.iterator(readerContext), () -> b.iterator(readerContext));
+      dc = fc.getDocIdSet(readerContext, null);
+      dd = fd.getDocIdSet(readerContext, null);
+      de = fe.getDocIdSet(readerContext, null);
+      doTestIteratorEqual(da.bits(), disiSupplier(da), disiSupplier(db), () -> a.iterator(readerContext), () -> b.iterator(readerContext),
+          disiSupplier(dc), disiSupplier(dd), () -> c.iterator(readerContext), () -> d.iterator(readerContext),
+          disiSupplier(de), () -> e.iterator(readerContext));
       assertNull(db.bits());
+      assertNull(dd.bits());
     }
   }
 
@@ -0,0 +1,222 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.apache.solr.search;
+
+import java.io.IOException;
+import java.util.HashMap;
+import java.util.Map;
+
+import org.apache.lucene.index.Term;
+import org.apache.lucene.search.Query;
+import org.apache.lucene.search.TermQuery;
+import org.apache.lucene.util.FixedBitSet;
+import org.apache.lucene.util.TestUtil;
+import org.apache.solr.SolrTestCase;
+import org.apache.solr.common.params.ModifiableSolrParams;
+import org.apache.solr.metrics.SolrMetricManager;
+import org.apache.solr.metrics.SolrMetricsContext;
+import org.apache.solr.request.LocalSolrQueryRequest;
+import org.apache.solr.request.SolrRequestInfo;
+import org.apache.solr.response.SolrQueryResponse;
+
+/**
+ * Test for {@link OffHeapFilterCache}.
+ */
+public class TestOffHeapFilterCache extends SolrTestCase {
+
+  SolrMetricManager metricManager = new SolrMetricManager();
+  String registry = TestUtil.randomSimpleString(random(), 2, 10);
+  String scope = TestUtil.randomSimpleString(random(), 2, 10);
+
+  private OffHeapFilterCache newCache(Map<String, String> params) {
+    OffHeapFilterCache cache = new OffHeapFilterCache();
+    cache.initializeMetrics(new SolrMetricsContext(metricManager, registry, "foo"), scope);
+    cache.init(params, null, new NoOpRegenerator());
+    cache.setState(SolrCache.State.LIVE);
+    return cache;
+  }
+
+  private static void startRequest() {
+    SolrRequestInfo.setRequestInfo(new SolrRequestInfo(
+        new LocalSolrQueryRequest(null, new ModifiableSolrParams()), new SolrQueryResponse()));
+  }
+
+  private static Query query(int i) {
+    return new TermQuery(new Term("f", Integer.toString(i)));
+  }
+
+  private static FixedBitSet randomBits(int maxDoc, int bitsToSet) {
+    FixedBitSet bits = new FixedBitSet(maxDoc);
+    for (int i = 0; i < bitsToSet; i++) {
+      bits.set(random().nextInt(maxDoc));
+    }
+    return bits;
+  }
+
+  private static void assertSameDocs(DocSet expected, DocSet actual) {
+    assertEquals(expected.size(), actual.size());
+    DocIterator expectedIter = expected.iterator();
+    DocIterator actualIter = actual.iterator();
+    while (expectedIter.hasNext()) {
+      assertTrue(actualIter.hasNext());
+      assertEquals(expectedIter.nextDoc(), actualIter.nextDoc());
+    }
+    assertFalse(actualIter.hasNext());
+  }
+
+  public void testPutAndGet() throws IOException {
+    OffHeapFilterCache cache = newCache(new HashMap<>());
+    startRequest();
+    int maxDoc = TestUtil.nextInt(random(), 1001, 10000);
+    BitDocSet bitDocSet = new BitDocSet(randomBits(maxDoc, maxDoc / 2));
+    SortedIntDocSet sortedIntDocSet = new SortedIntDocSet(new int[] {1, 5, 64, 65, 1000});
+
+    cache.put(query(1), bitDocSet);
+    cache.put(query(2), sortedIntDocSet);
+
+    DocSet cachedBits = cache.get(query(1));
+    assertTrue(cachedBits instanceof OffHeapBitDocSet);
+    assertSameDocs(bitDocSet, cachedBits);
+    assertEquals(bitDocSet.intersectionSize(sortedIntDocSet), cachedBits.intersectionSize(sortedIntDocSet));
+
+    DocSet cachedInts = cache.get(query(2));
+    assertTrue(cachedInts instanceof OffHeapSortedIntDocSet);
+    assertSameDocs(sortedIntDocSet, cachedInts);
+
+    long expectedOffHeap = (FixedBitSet.bits2words(maxDoc) << 3) + (5 << 2);
+    assertEquals(expectedOffHeap, cache.offHeapBytesUsed());
+    assertEquals(expectedOffHeap, cache.getMetricsMap().getValue().get(OffHeapFilterCache.OFF_HEAP_BYTES_USED_PARAM));
+
+    assertNull("off-heap sets are freed when removed", cache.remove(query(1)));
+    // the request still references the set, so it stays valid
+    assertEquals(expectedOffHeap, cache.offHeapBytesUsed());
+    assertSameDocs(bitDocSet, cachedBits);
+
+    SolrRequestInfo.clearRequestInfo();
+    if (OffHeapBuffer.canFreeExplicitly()) {
+      assertEquals(5 << 2, cache.offHeapBytesUsed());
+    }
+
+    cache.clear();
+    assertEquals(0, cache.offHeapBytesUsed());
+    cache.close();
+  }
+
+  public void testGetOutsideOfRequest() throws IOException {
+    OffHeapFilterCache cache = newCache(new HashMap<>());
+    BitDocSet docs = new BitDocSet(randomBits(1000, 100));
+    cache.put(query(1), docs);
+    // nothing would release a reference to the off-heap set
+    DocSet cached = cache.get(query(1));
+    assertTrue(cached instanceof BitDocSet);
+    assertSameDocs(docs, cached);
+    cache.close();
+    if (OffHeapBuffer.canFreeExplicitly()) {
+      assertEquals(0, cache.offHeapBytesUsed());
+    }
+  }
+
+  public void testComputeIfAbsent() throws IOException {
+    OffHeapFilterCache cache = newCache(new HashMap<>());
+    startRequest();
+    BitDocSet docs = new BitDocSet(randomBits(1000, 100));
+    DocSet computed = cache.computeIfAbsent(query(1), q -> docs);
+    assertTrue(computed instanceof OffHeapBitDocSet);
+    assertSameDocs(docs, computed);
+    assertSame(computed, cache.computeIfAbsent(query(1), q -> {
+      throw new AssertionError("should have been cached");
+    }));
+    assertEquals(OffHeapFilterCache.offHeapBytesUsed(computed), cache.offHeapBytesUsed());
+    SolrRequestInfo.clearRequestInfo();
+    cache.close();
+  }
+
+  public void testMaxRamMB() throws IOException {
+    Map<String, String> params = new HashMap<>();
+    params.put(SolrCache.MAX_RAM_MB_PARAM, "1");
+    OffHeapFilterCache cache = newCache(params);
+    final int maxDoc = 1 << 20; // 128KB per set
+    for (int i = 0; i < 32; i++) {
+      cache.put(query(i), new BitDocSet(randomBits(maxDoc, 10)));
+    }
+    assertTrue("cache should have evicted entries: " + cache.size(), cache.size() < 32);
+    assertTrue("off-heap memory should be bounded: " + cache.offHeapBytesUsed(),
+        cache.offHeapBytesUsed() <= 1024 * 1024);
+    cache.close();
+    if (OffHeapBuffer.canFreeExplicitly()) {
+      assertEquals(0, cache.offHeapBytesUsed());
+    }
+  }
+
+  public void testAllocationBoundedWhileEvictedSetsAreInUse() throws IOException {
+    Map<String, String> params = new HashMap<>();
+    params.put(SolrCache.MAX_RAM_MB_PARAM, "1");
+    OffHeapFilterCache cache = newCache(params);
+    final int maxDoc = 1 << 20; // 128KB per set
+    startRequest();
+    int offHeap = 0;
+    for (int i = 0; i < 32; i++) {
+      BitDocSet docs = new BitDocSet(randomBits(maxDoc, 10));
+      // the request keeps each set it looked up, including the evicted ones
+      DocSet cached = cache.computeIfAbsent(query(i), q -> docs);
+      assertSameDocs(docs, cached);
+      if (cached instanceof OffHeapBitDocSet) {
+        offHeap++;
+      }
+      assertTrue("allocated off-heap memory should be bounded: " + cache.offHeapBytesUsed(),
+          cache.offHeapBytesUsed() <= 1024 * 1024);
+    }
+    assertTrue("sets that don't fit should be cached on the heap: " + offHeap, offHeap < 32);
+    SolrRequestInfo.clearRequestInfo();
+    if (OffHeapBuffer.canFreeExplicitly()) {
+      // the evicted sets were freed with the request, only the cached ones are left
+      startRequest();
+      long cachedOffHeap = 0;
+      for (int i = 0; i < 32; i++) {
+        cachedOffHeap += OffHeapFilterCache.offHeapBytesUsed(cache.get(query(i)));
+      }
+      SolrRequestInfo.clearRequestInfo();
+      assertEquals(cachedOffHeap, cache.offHeapBytesUsed());
+    }
+    cache.close();
+  }
+
+  public void testWarm() throws IOException {
+    Map<String, String> params = new HashMap<>();
+    params.put("autowarmCount", "100%");
+    OffHeapFilterCache cache = newCache(params);
+    for (int i = 0; i < 10; i++) {
+      cache.put(query(i), new BitDocSet(randomBits(100, 10)));
+    }
+    OffHeapFilterCache newCache = new OffHeapFilterCache();
+    newCache.initializeMetrics(new SolrMetricsContext(metricManager, registry, "foo"), scope + "-new");
+    newCache.init(params, null, new NoOpRegenerator());
+    newCache.warm(null, cache);
+    assertEquals(10, newCache.size());
+    startRequest();
+    for (int i = 0; i < 10; i++) {
+      assertTrue(newCache.get(query(i)) instanceof OffHeapBitDocSet);
+    }
+    SolrRequestInfo.clearRequestInfo();
+    // the warmed sets are copies owned by the new cache
+    assertEquals(cache.offHeapBytesUsed(), newCache.offHeapBytesUsed());
+    cache.close();
+    newCache.clear();
+    assertEquals(0, newCache.offHeapBytesUsed());
+    newCache.close();
+  }
+}
@@ -0,0 +1,69 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.apache.solr.search.facet;
+
+import java.util.Arrays;
+
+import org.apache.lucene.util.FixedBitSet;
+import org.apache.solr.SolrTestCase;
+
+public class TestSlotAccResizer extends SolrTestCase {
+
+  /** Maps old slot i to new slot i / 2, and drops every slot above 10 */
+  private static class HalvingResizer extends SlotAcc.Resizer {
+    @Override
+    public int getNewSize() {
+      return 6;
+    }
+
+    @Override
+    public int getNewSlot(int oldSlot) {
+      return oldSlot > 10 ? -1 : oldSlot / 2;
+    }
+  }
+
+  public void testResizePrimitives() {
+    SlotAcc.Resizer resizer = new HalvingResizer();
+
+    long[] longs = new long[12];
+    longs[3] = 7;
+    longs[11] = 9;
+    assertArrayEquals(new long[] {0, 7, 0, 0, 0, 0}, resizer.resize(longs, 0));
+
+    double[] doubles = new double[12];
+    Arrays.fill(doubles, -1);
+    doubles[4] = 2.5;
+    assertArrayEquals(new double[] {-1, -1, 2.5, -1, -1, -1}, resizer.resize(doubles, -1), 0d);
+  }
+
+  public void testResizeBitSet() {
+    SlotAcc.Resizer resizer = new HalvingResizer();
+
+    FixedBitSet bits = new FixedBitSet(12);
+    bits.set(0);
+    bits.set(5);
+    bits.set(9);
+    bits.set(11); // dropped
+
+    FixedBitSet resized = resizer.resize(bits);
+    assertEquals(6, resized.length());
+    assertEquals(3, resized.cardinality());
+    assertTrue(resized.get(0));
+    assertTrue(resized.get(2));
+    assertTrue(resized.get(4));
+  }
+}
@@ -0,0 +1,95 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.apache.solr.search.neural;
+
+import org.apache.solr.SolrTestCaseJ4;
+import org.junit.Before;
+import org.junit.BeforeClass;
+
+public class KnnQParserTest extends SolrTestCaseJ4 {
+
+  @BeforeClass
+  public static void beforeClass() throws Exception {
+    initCore("solrconfig_codec.xml", "schema-densevector.xml");
+  }
+
+  @Before
+  public void prepareIndex() {
+    clearIndex();
+    assertU(adoc("id", "1", "vector", "[1, 0, 0, 0]", "string_s", "a"));
+    assertU(adoc("id", "2", "vector", "[0.9, 0.1, 0, 0]", "string_s", "a"));
+    assertU(adoc("id", "3", "vector", "[0, 1, 0, 0]", "string_s", "b"));
+    assertU(adoc("id", "4", "vector", "[0, 0, 1, 0]", "string_s", "b"));
+    assertU(commit());
+  }
+
+  public void testTopK() {
+    assertQ(req("q", "{!knn f=vector topK=2}[1, 0.05, 0, 0]", "fl", "id"),
+        "//result[@numFound='2']",
+        "//result/doc[1]/str[@name='id'][.='1']",
+        "//result/doc[2]/str[@name='id'][.='2']");
+
+    assertQ(req("q", "{!knn f=vector}[1, 0.05, 0, 0]", "fl", "id"),
+        "//result[@numFound='4']");
+  }
+
+  public void testPreFilter() {
+    // without pre-filtering, the nearest neighbours don't match the filter
+    assertQ(req("q", "{!knn f=vector topK=1 preFilter=false}[1, 0.5, 0, 0]", "fq", "string_s:b", "fl", "id"),
+        "//result[@numFound='0']");
+
+    // with pre-filtering, the nearest neighbour among the filtered documents is returned
+    assertQ(req("q", "{!knn f=vector topK=1}[1, 0.5, 0, 0]", "fq", "string_s:b", "fl", "id"),
+        "//result[@numFound='1']",
+        "//result/doc[1]/str[@name='id'][.='3']");
+
+    assertQ(req("q", "{!knn f=vector topK=1}[1, 0.5, 0, 0]", "fq", "string_s:b", "fq", "-id:3", "fl", "id"),
+        "//result[@numFound='1']",
+        "//result/doc[1]/str[@name='id'][.='4']");
+
+    assertQ(req("q", "{!knn f=vector topK=1}[1, 0.5, 0, 0]", "fq", "string_s:c", "fl", "id"),
+        "//result[@numFound='0']");
+  }
+
+  public void testPreFilterAfterCommit() {
+    assertQ(req("q", "{!knn f=vector topK=1}[1, 0.5, 0, 0]", "fq", "string_s:b", "fl", "id"),
+        "//result/doc[1]/str[@name='id'][.='3']");
+
+    // the filter is resolved by the searcher executing the query, not the one that first parsed it
+    assertU(adoc("id", "5", "vector", "[1, 0.5, 0, 0]", "string_s", "b"));
+    assertU(adoc("id", "3", "vector", "[0, 1, 0, 0]", "string_s", "c"));
+    assertU(commit());
+    assertQ(req("q", "{!knn f=vector topK=2}[1, 0.5, 0, 0]", "fq", "string_s:b", "fl", "id"),
+        "//result[@numFound='2']",
+        "//result/doc[1]/str[@name='id'][.='5']",
+        "//result/doc[2]/str[@name='id'][.='4']");
+  }
+
+  public void testAsFilter() {
+    assertQ(req("q", "*:*", "fq", "{!knn f=vector topK=2}[0, 0.2, 1, 0]", "fl", "id", "sort", "id asc"),
+        "//result[@numFound='2']",
+        "//result/doc[1]/str[@name='id'][.='3']",
+        "//result/doc[2]/str[@name='id'][.='4']");
+  }
+
+  public void testInvalidRequests() {
+    assertQEx("Missing field", req("q", "{!knn topK=2}[1, 0, 0, 0]"), 400);
+    assertQEx("Not a vector field", req("q", "{!knn f=string_s}[1, 0, 0, 0]"), 400);
+    assertQEx("Wrong dimension", req("q", "{!knn f=vector}[1, 0, 0]"), 400);
+    assertQEx("Invalid topK", req("q", "{!knn f=vector topK=0}[1, 0, 0, 0]"), 400);
+  }
+}
@@ -0,0 +1,78 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.apache.solr.update;
+
+import org.apache.solr.SolrTestCase;
+import org.junit.Test;
+
+public class AdaptiveCommitIntervalTest extends SolrTestCase {
+
+  private static void update(AdaptiveCommitInterval interval, int times, long elapsedMs, long docs, long warmMs,
+                             double queriesPerSecond) {
+    for (int i = 0; i < times; i++) {
+      interval.update(elapsedMs, docs, warmMs, queriesPerSecond);
+    }
+  }
+
+  @Test
+  public void testQuiet() {
+    AdaptiveCommitInterval interval = new AdaptiveCommitInterval(1000, 60000);
+    assertEquals(1000, interval.getInterval());
+
+    update(interval, 20, 1000, 10, 0, 0);
+    assertTrue(interval.getInterval() >= 1000 && interval.getInterval() < 1100);
+    assertEquals(0, interval.getLastWarmTime());
+  }
+
+  @Test
+  public void testWarmTime() {
+    AdaptiveCommitInterval interval = new AdaptiveCommitInterval(1000, 60000);
+
+    // warming shouldn't take more than 10% of the time
+    update(interval, 30, 1000, 10, 2000, 0);
+    assertEquals(20000, interval.getInterval(), 10);
+    assertEquals(2000, interval.getLastWarmTime());
+
+    // and less when there are queries that suffer from cold caches
+    update(interval, 30, 1000, 10, 2000, AdaptiveCommitInterval.QUERY_RATE_SCALE);
+    assertEquals(40000, interval.getInterval(), 10);
+
+    // but updates must become visible within the max time
+    update(interval, 30, 1000, 10, 10000, 0);
+    assertEquals(60000, interval.getInterval());
+
+    // the interval goes back down once warming is cheap again
+    update(interval, 30, 1000, 10, 0, 0);
+    assertTrue(interval.getInterval() < 1100);
+  }
+
+  @Test
+  public void testIndexingRate() {
+    AdaptiveCommitInterval interval = new AdaptiveCommitInterval(1000, 60000);
+
+    // 1000 times INDEXING_RATE_SCALE -> log2(1001) ~ 10 times the min time more
+    long docs = (long) (1000 * AdaptiveCommitInterval.INDEXING_RATE_SCALE);
+    update(interval, 30, 1000, docs, 0, 0);
+    assertEquals(1000 * (1 + Math.log(1001) / Math.log(2)), interval.getInterval(), 10);
+
+    // the slower the indexing, the shorter the interval
+    long previous = interval.getInterval();
+    update(interval, 30, 1000, docs / 100, 0, 0);
+    assertTrue(interval.getInterval() < previous);
+    assertTrue(interval.getInterval() > 1000);
+  }
+}
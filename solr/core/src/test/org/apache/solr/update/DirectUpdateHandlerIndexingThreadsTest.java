@@ -0,0 +1,161 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.apache.solr.update;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+
+import org.apache.solr.SolrTestCaseJ4;
+import org.apache.solr.common.SolrException;
+import org.apache.solr.request.SolrQueryRequest;
+import org.junit.AfterClass;
+import org.junit.Before;
+import org.junit.BeforeClass;
+import org.junit.Test;
+
+/**
+ * Tests that batches of adds are spread over the {@code indexingThreads} of {@link DirectUpdateHandler2}.
+ */
+public class DirectUpdateHandlerIndexingThreadsTest extends SolrTestCaseJ4 {
+
+  @BeforeClass
+  public static void beforeClass() throws Exception {
+    System.setProperty("solr.update.indexingThreads", "4");
+    initCore("solrconfig-tlog.xml", "schema15.xml");
+  }
+
+  @AfterClass
+  public static void afterClass() {
+    System.clearProperty("solr.update.indexingThreads");
+  }
+
+  @Before
+  public void deleteAllAndCommit() throws Exception {
+    clearIndex();
+    assertU(commit());
+  }
+
+  @Test
+  public void testForEachAdd() throws Exception {
+    try (SolrQueryRequest req = req()) {
+      List<AddUpdateCommand> cmds = new ArrayList<>();
+      for (int i = 0; i < 200; i++) {
+        AddUpdateCommand cmd = new AddUpdateCommand(req);
+        cmd.solrDoc = sdoc("id", String.valueOf(i % 20), "val_i", i);
+        cmds.add(cmd);
+      }
+
+      Set<String> threads = ConcurrentHashMap.newKeySet();
+      Map<String, List<Integer>> valuesById = new ConcurrentHashMap<>();
+      h.getCore().getUpdateHandler().forEachAdd(cmds, cmd -> {
+        threads.add(Thread.currentThread().getName());
+        valuesById.computeIfAbsent(cmd.getPrintableId(), id -> Collections.synchronizedList(new ArrayList<>()))
+            .add((Integer) cmd.getSolrInputDocument().getFieldValue("val_i"));
+      });
+
+      assertTrue("expected the batch to be spread over several threads: " + threads, threads.size() > 1);
+      assertEquals(20, valuesById.size());
+      for (Map.Entry<String, List<Integer>> entry : valuesById.entrySet()) {
+        // the adds of a document are handled in order
+        List<Integer> values = entry.getValue();
+        assertEquals(10, values.size());
+        for (int i = 0; i < values.size(); i++) {
+          assertEquals(Integer.parseInt(entry.getKey()) + 20 * i, (int) values.get(i));
+        }
+      }
+    }
+  }
+
+  @Test
+  public void testForEachAddFailure() throws Exception {
+    try (SolrQueryRequest req = req()) {
+      List<AddUpdateCommand> cmds = new ArrayList<>();
+      for (int i = 0; i < 10; i++) {
+        AddUpdateCommand cmd = new AddUpdateCommand(req);
+        cmd.solrDoc = sdoc("id", String.valueOf(i));
+        cmds.add(cmd);
+      }
+
+      SolrException e = expectThrows(SolrException.class, () -> h.getCore().getUpdateHandler().forEachAdd(cmds, cmd -> {
+        if (cmd.getPrintableId().equals("5")) {
+          throw new SolrException(SolrException.ErrorCode.BAD_REQUEST, "bad doc " + cmd.getPrintableId());
+        }
+      }));
+      assertEquals("bad doc 5", e.getMessage());
+    }
+  }
+
+  @Test
+  public void testForEachAddFailureDoesNotSkipOtherThreads() throws Exception {
+    try (SolrQueryRequest req = req()) {
+      List<AddUpdateCommand> cmds = new ArrayList<>();
+      for (int i = 0; i < 10; i++) {
+        AddUpdateCommand cmd = new AddUpdateCommand(req);
+        cmd.solrDoc = sdoc("id", String.valueOf(i));
+        cmds.add(cmd);
+      }
+
+      // the failing add is the last of its thread, so no other add depends on it
+      Set<String> handled = ConcurrentHashMap.newKeySet();
+      SolrException e = expectThrows(SolrException.class, () -> h.getCore().getUpdateHandler().forEachAdd(cmds, cmd -> {
+        if (cmd.getPrintableId().equals("9")) {
+          throw new SolrException(SolrException.ErrorCode.BAD_REQUEST, "bad doc " + cmd.getPrintableId());
+        }
+        handled.add(cmd.getPrintableId());
+      }));
+      assertEquals("bad doc 9", e.getMessage());
+      assertEquals(9, handled.size());
+    }
+  }
+
+  @Test
+  public void testJsonBatchSharesRequestNow() throws Exception {
+    StringBuilder json = new StringBuilder("[");
+    for (int i = 0; i < 200; i++) {
+      if (i > 0) json.append(',');
+      json.append("{\"id\":\"").append(i).append("\"}");
+    }
+    json.append(']');
+    // the documents of all the indexing threads get the NOW of the request for their timestamp default
+    updateJ(json.toString(), params("NOW", "1234567890000"));
+    assertU(commit());
+
+    assertQ(req("q", "*:*"), "//*[@numFound='200']");
+    assertQ(req("q", "timestamp:\"2009-02-13T23:31:30Z\""), "//*[@numFound='200']");
+  }
+
+  @Test
+  public void testJsonBatch() throws Exception {
+    StringBuilder json = new StringBuilder("[");
+    for (int i = 0; i < 1000; i++) {
+      if (i > 0) json.append(',');
+      json.append("{\"id\":\"").append(i % 100).append("\",\"val_i\":").append(i).append('}');
+    }
+    json.append(']');
+    updateJ(json.toString(), params("versions", "true"));
+    assertU(commit());
+
+    assertQ(req("q", "*:*"), "//*[@numFound='100']");
+    // the last add of each document wins
+    assertQ(req("q", "val_i:[900 TO *]"), "//*[@numFound='100']");
+    assertQ(req("q", "id:42"), "//result/doc[1]/int[@name='val_i'][.='942']");
+  }
+}
@@ -355,6 +355,8 @@ public class SolrCmdDistributorTest extends BaseDistributedSearchTestCase {
     testDeletes(false, false);
     testDeletes(true, true);
     testDeletes(true, false);
+    testBatchedAdds();
+    testInPlaceUpdateAfterBatchedAdds();
     getRfFromResponseShouldNotCloseTheInputStream();
     testStuckUpdates();
   }
@@ -425,6 +427,76 @@ public class SolrCmdDistributorTest extends BaseDistributedSearchTestCase {
     }
   }
 
+  private void testBatchedAdds() throws Exception {
+    final HttpSolrClient solrclient = (HttpSolrClient) clients.get(0);
+    solrclient.commit(true, true);
+    long numFoundBefore = solrclient.query(new SolrQuery("*:*")).getResults()
+        .getNumFound();
+    final MockStreamingSolrClients streamingClients = new MockStreamingSolrClients(updateShardHandler);
+    try (SolrCmdDistributor cmdDistrib = new SolrCmdDistributor(streamingClients, 0, 3)) {
+      ZkNodeProps nodeProps = new ZkNodeProps(ZkStateReader.BASE_URL_PROP, solrclient.getBaseURL(), ZkStateReader.CORE_NAME_PROP, "");
+      List<Node> nodes = Collections.singletonList(new StdNode(new ZkCoreNodeProps(nodeProps), "collection1", "shard1", 5));
+
+      int lastId = -1;
+      for (int i = 0; i < 7; i++) {
+        AddUpdateCommand cmd = new AddUpdateCommand(null);
+        lastId = id.incrementAndGet();
+        cmd.solrDoc = sdoc("id", lastId);
+        cmdDistrib.distribAdd(cmd, nodes, new ModifiableSolrParams());
+      }
+      // the delete must be sent after the add of the same doc, that is still batched
+      DeleteUpdateCommand dcmd = new DeleteUpdateCommand(null);
+      dcmd.setId(String.valueOf(lastId));
+      cmdDistrib.distribDelete(dcmd, nodes, new ModifiableSolrParams());
+
+      CommitUpdateCommand ccmd = new CommitUpdateCommand(null, false);
+      cmdDistrib.distribCommit(ccmd, nodes, new ModifiableSolrParams());
+      cmdDistrib.finish();
+      assertEquals(cmdDistrib.getErrors().toString(), 0, cmdDistrib.getErrors().size());
+
+      long numFoundAfter = solrclient.query(new SolrQuery("*:*")).getResults()
+          .getNumFound();
+      assertEquals(numFoundBefore + 6, numFoundAfter);
+    }
+  }
+
+  private void testInPlaceUpdateAfterBatchedAdds() throws Exception {
+    final HttpSolrClient solrclient = (HttpSolrClient) clients.get(0);
+    final List<UpdateRequest> sent = Collections.synchronizedList(new ArrayList<>());
+    final MockStreamingSolrClients streamingClients = new MockStreamingSolrClients(updateShardHandler) {
+      @Override
+      public synchronized SolrClient getSolrClient(SolrCmdDistributor.Req req) {
+        sent.add(req.uReq);
+        return super.getSolrClient(req);
+      }
+    };
+    try (SolrCmdDistributor cmdDistrib = new SolrCmdDistributor(streamingClients, 0, 3)) {
+      ZkNodeProps nodeProps = new ZkNodeProps(ZkStateReader.BASE_URL_PROP, solrclient.getBaseURL(), ZkStateReader.CORE_NAME_PROP, "");
+      List<Node> nodes = Collections.singletonList(new StdNode(new ZkCoreNodeProps(nodeProps), "collection1", "shard1", 5));
+
+      int lastId = -1;
+      for (int i = 0; i < 2; i++) {
+        AddUpdateCommand cmd = new AddUpdateCommand(null);
+        lastId = id.incrementAndGet();
+        cmd.solrDoc = sdoc("id", lastId);
+        cmdDistrib.distribAdd(cmd, nodes, new ModifiableSolrParams());
+      }
+      assertEquals(0, sent.size());
+
+      // the in-place update isn't batched, but must not overtake the add of the same doc
+      AddUpdateCommand cmd = new AddUpdateCommand(null);
+      cmd.solrDoc = sdoc("id", lastId);
+      cmd.prevVersion = 1;
+      cmdDistrib.distribAdd(cmd, nodes, new ModifiableSolrParams());
+      cmdDistrib.finish();
+
+      assertEquals(2, sent.size());
+      assertEquals(2, sent.get(0).getDocuments().size());
+      assertEquals(1, sent.get(1).getDocuments().size());
+      assertEquals(String.valueOf(lastId), sent.get(1).getDocuments().get(0).getFieldValue("id").toString());
+    }
+  }
+
   private void testMinRfOnRetries(NodeType nodeType) throws Exception {
     final HttpSolrClient solrclient = (HttpSolrClient) clients.get(0);
     final MockStreamingSolrClients streamingClients = new MockStreamingSolrClients(updateShardHandler);
@@ -32,6 +32,7 @@ import java.util.Set;
 import org.apache.lucene.index.FieldInfo;
 import org.apache.lucene.index.IndexWriter;
 import org.apache.lucene.index.NoMergePolicy;
+import org.apache.lucene.util.BytesRef;
 import org.apache.lucene.util.TestUtil;
 import org.apache.solr.SolrTestCaseJ4;
 import org.apache.solr.client.solrj.SolrClient;
@@ -1303,6 +1304,82 @@ public class TestInPlaceUpdatesStandalone extends SolrTestCaseJ4 {
     assertTrue(inPlaceUpdatedFields.isEmpty());
   }
 
+  @Test
+  public void testInPlaceUpdateCache() throws Exception {
+    InPlaceUpdateCache cache = h.getCore().getUpdateHandler().getUpdateLog().inPlaceUpdateCache;
+    assertNotNull(cache);
+
+    long version1 = addAndGetVersion(sdoc("id", "1", "title_s", "first", "inplace_updatable_float", 42), null);
+    assertU(commit("softCommit", "false"));
+
+    // the first in-place update has to read the value from the index
+    long misses = cache.misses.getCount();
+    version1 = addAndAssertVersion(version1, "id", "1", "inplace_updatable_float", map("inc", 1));
+    assertEquals(misses + 1, cache.misses.getCount());
+
+    // the next ones get it from the cache, even once the update isn't in the tlog maps anymore
+    assertU(commit("softCommit", "false"));
+    assertU(commit("softCommit", "false"));
+    long hits = cache.hits.getCount();
+    version1 = addAndAssertVersion(version1, "id", "1", "inplace_updatable_float", map("inc", 1));
+    version1 = addAndAssertVersion(version1, "id", "1", "inplace_updatable_int", map("set", 10));
+    version1 = addAndAssertVersion(version1, "id", "1", "inplace_updatable_float", map("inc", 1),
+        "inplace_updatable_int", map("inc", 1));
+    assertEquals(hits + 2, cache.hits.getCount());
+    assertEquals(version1, (long) h.getCore().getUpdateHandler().getUpdateLog().lookupVersion(new BytesRef("1")));
+    assertJQ(req("qt","/get", "id","1", "fl","id,inplace_updatable_float,inplace_updatable_int"),
+        "=={'doc':{'id':'1', 'inplace_updatable_float':" + 45.0 + ",'inplace_updatable_int':" + 11 + "}}");
+
+    // a full update invalidates the entry
+    version1 = addAndAssertVersion(version1, "id", "1", "title_s", "second", "inplace_updatable_float", 1);
+    misses = cache.misses.getCount();
+    version1 = addAndAssertVersion(version1, "id", "1", "inplace_updatable_float", map("inc", 1));
+    assertEquals(misses + 1, cache.misses.getCount());
+
+    // as well as a delete by query
+    assertU(delQ("id:2"));
+    misses = cache.misses.getCount();
+    version1 = addAndAssertVersion(version1, "id", "1", "inplace_updatable_float", map("inc", 1));
+    assertEquals(misses + 1, cache.misses.getCount());
+
+    assertU(commit("softCommit", "false"));
+    assertQ(req("q", "*:*", "fl", "*"),
+        "//*[@numFound='1']",
+        "//result/doc[1]/float[@name='inplace_updatable_float'][.='3.0']",
+        "//result/doc[1]/str[@name='title_s'][.='second']",
+        "//result/doc[1]/long[@name='_version_'][.='"+version1+"']");
+
+    // a deleted doc can't be updated in-place anymore
+    assertU(delI("1"));
+    assertNull(cache.get(new BytesRef("1"), Collections.singleton("inplace_updatable_float")));
+  }
+
+  @Test
+  public void testInPlaceUpdateCacheWithChildDocuments() throws Exception {
+    InPlaceUpdateCache cache = h.getCore().getUpdateHandler().getUpdateLog().inPlaceUpdateCache;
+
+    SolrInputDocument doc = sdoc("id", "1", "title_s", "parent", "inplace_updatable_float", 10);
+    doc.addChildDocument(sdoc("id", "1_1", "title_s", "child", "inplace_updatable_float", 100));
+    long version = addAndGetVersion(doc, null);
+    assertU(commit("softCommit", "false"));
+
+    // cache the root
+    addAndAssertVersion(version, "id", "1", "inplace_updatable_float", map("inc", 1));
+    assertNotNull(cache.get(new BytesRef("1"), Collections.singleton("inplace_updatable_float")));
+
+    // the child shares the indexed id of its root, but must not end up in its cache entry
+    addAndGetVersion(sdoc("id", "1_1", "_root_", "1", "inplace_updatable_float", map("inc", 1)), null);
+    assertNull(cache.get(new BytesRef("1"), Collections.singleton("inplace_updatable_float")));
+
+    addAndGetVersion(sdoc("id", "1", "inplace_updatable_float", map("inc", 1)), null);
+    assertJQ(req("qt","/get", "id","1", "fl","id,inplace_updatable_float"),
+        "=={'doc':{'id':'1', 'inplace_updatable_float':" + 12.0 + "}}");
+    assertU(commit("softCommit", "false"));
+    assertQ(req("q", "id:1_1", "fl", "id,inplace_updatable_float"),
+        "//*[@numFound='1']",
+        "//result/doc[1]/float[@name='inplace_updatable_float'][.='101.0']");
+  }
+
   @Test
   /**
    *  Test the @see {@link AtomicUpdateDocumentMerger#doInPlaceUpdateMerge(AddUpdateCommand,Set<String>)} 
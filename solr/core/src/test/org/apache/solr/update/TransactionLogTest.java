@@ -21,10 +21,16 @@ import java.io.File;
 import java.io.IOException;
 import java.nio.file.Path;
 import java.util.ArrayList;
+import java.util.Arrays;
 import java.util.List;
 import java.util.Locale;
 import java.util.UUID;
+import java.util.concurrent.BrokenBarrierException;
+import java.util.concurrent.CyclicBarrier;
 
+import com.codahale.metrics.Histogram;
+import com.codahale.metrics.Timer;
+import com.codahale.metrics.UniformReservoir;
 import org.apache.solr.SolrTestCase;
 import org.apache.solr.common.SolrInputDocument;
 import org.apache.solr.update.TransactionLog.LogReader;
@@ -72,4 +78,92 @@ public class TransactionLogTest extends SolrTestCase {
       assertEquals(uuid, (UUID) doc.getFieldValue("uuid"));
     }
   }
+
+  @Test
+  public void testConcurrentFsync() throws Exception {
+    String tlogFileName = String.format(Locale.ROOT, UpdateLog.LOG_FILENAME_PATTERN, UpdateLog.TLOG_NAME,
+        Long.MAX_VALUE);
+    Path path = createTempDir();
+    File logFile = new File(path.toFile(), tlogFileName);
+    Timer fsyncTimer = new Timer();
+    Histogram fsyncBatchSize = new Histogram(new UniformReservoir());
+    int numThreads = 4;
+    int docsPerThread = 50;
+    try (TransactionLog tlog = new TransactionLog(logFile, new ArrayList<>())) {
+      tlog.deleteOnClose = false;
+      tlog.setSyncMetrics(fsyncTimer, fsyncBatchSize);
+
+      Thread[] threads = new Thread[numThreads];
+      CyclicBarrier start = new CyclicBarrier(numThreads);
+      for (int t = 0; t < numThreads; t++) {
+        threads[t] = new Thread(() -> {
+          try {
+            start.await();
+          } catch (InterruptedException | BrokenBarrierException e) {
+            throw new RuntimeException(e);
+          }
+          for (int i = 0; i < docsPerThread; i++) {
+            AddUpdateCommand updateCommand = new AddUpdateCommand(null);
+            updateCommand.solrDoc = new SolrInputDocument();
+            tlog.write(updateCommand);
+            tlog.finish(UpdateLog.SyncLevel.FSYNC);
+          }
+        });
+        threads[t].start();
+      }
+      for (Thread thread : threads) {
+        thread.join();
+      }
+
+      // concurrent finish() calls share fsyncs
+      long numFsyncs = fsyncTimer.getCount();
+      assertTrue(numFsyncs > 0);
+      assertTrue("expected fewer fsyncs than finish() calls: " + numFsyncs, numFsyncs < numThreads * docsPerThread);
+      assertEquals(numFsyncs, fsyncBatchSize.getCount());
+      // each fsync at least covers the call that did it, and no call is counted twice
+      long[] batchSizes = fsyncBatchSize.getSnapshot().getValues();
+      assertTrue(fsyncBatchSize.getSnapshot().getMin() >= 1);
+      assertTrue(Arrays.stream(batchSizes).sum() <= numThreads * docsPerThread);
+
+      // nothing more to sync
+      tlog.finish(UpdateLog.SyncLevel.FSYNC);
+      assertEquals(numFsyncs, fsyncTimer.getCount());
+    }
+
+    try (TransactionLog tlog = new TransactionLog(logFile, new ArrayList<>(), true)) {
+      LogReader reader = tlog.getReader(0);
+      int numEntries = 0;
+      while (reader.next() != null) {
+        numEntries++;
+      }
+      reader.close();
+      assertEquals(numThreads * docsPerThread, numEntries);
+    }
+  }
+
+  @Test
+  public void testLookupWhileWriting() throws Exception {
+    String tlogFileName = String.format(Locale.ROOT, UpdateLog.LOG_FILENAME_PATTERN, UpdateLog.TLOG_NAME,
+        Long.MAX_VALUE);
+    Path path = createTempDir();
+    File logFile = new File(path.toFile(), tlogFileName);
+    try (TransactionLog tlog = new TransactionLog(logFile, new ArrayList<>())) {
+      List<Long> positions = new ArrayList<>();
+      for (int i = 0; i < 100; i++) {
+        AddUpdateCommand updateCommand = new AddUpdateCommand(null);
+        updateCommand.solrDoc = new SolrInputDocument();
+        updateCommand.solrDoc.addField("id", Integer.toString(i));
+        positions.add(tlog.write(updateCommand));
+        if (random().nextInt(10) == 0) {
+          tlog.finish(UpdateLog.SyncLevel.FLUSH);
+        }
+
+        // both records that were flushed already and the ones that are still buffered can be looked up
+        int lookupIdx = random().nextInt(positions.size());
+        List<?> entry = (List<?>) tlog.lookup(positions.get(lookupIdx));
+        SolrInputDocument doc = (SolrInputDocument) entry.get(entry.size() - 1);
+        assertEquals(Integer.toString(lookupIdx), doc.getFieldValue("id"));
+      }
+    }
+  }
 }
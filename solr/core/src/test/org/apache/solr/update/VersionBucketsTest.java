@@ -0,0 +1,71 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.apache.solr.update;
+
+import org.apache.solr.SolrTestCase;
+import org.apache.solr.common.SolrException;
+import org.junit.Test;
+
+public class VersionBucketsTest extends SolrTestCase {
+
+  @Test
+  public void testFixed() {
+    VersionBuckets buckets = VersionBuckets.create(VersionBuckets.FIXED, 100, false);
+    assertEquals(128, buckets.size());
+    assertSame(buckets.bucket(3), buckets.bucket(3 + 128));
+    assertNotSame(buckets.bucket(3), buckets.bucket(4));
+    assertFalse(buckets.bucket(3) instanceof TimedVersionBucket);
+
+    buckets.seedHighest(42);
+    for (int i = 0; i < buckets.size(); i++) {
+      assertEquals(42, buckets.bucket(i).highest);
+    }
+
+    assertTrue(VersionBuckets.create(null, 16, true).bucket(1) instanceof TimedVersionBucket);
+  }
+
+  @Test
+  public void testPerId() {
+    VersionBuckets buckets = VersionBuckets.create(VersionBuckets.PER_ID, 100, false);
+    VersionBucket bucket = buckets.bucket(3);
+    assertSame(bucket, buckets.bucket(3));
+    assertNotSame(bucket, buckets.bucket(3 + 128));
+    assertFalse(bucket instanceof TimedVersionBucket);
+
+    // not seeded yet, the highest version is unknown
+    assertEquals(0, bucket.highest);
+    bucket.updateHighest(10);
+    assertEquals(0, bucket.highest);
+
+    buckets.seedHighest(42);
+    assertEquals(42, bucket.highest);
+    assertEquals(42, buckets.bucket(7).highest);
+
+    // new buckets start from the highest version of all the buckets
+    bucket.updateHighest(-50);
+    assertEquals(50, bucket.highest);
+    assertEquals(50, buckets.bucket(8).highest);
+
+    assertTrue(VersionBuckets.create(VersionBuckets.PER_ID, 16, true).bucket(1) instanceof TimedVersionBucket);
+  }
+
+  @Test
+  public void testUnknownType() {
+    SolrException e = expectThrows(SolrException.class, () -> VersionBuckets.create("foo", 16, false));
+    assertTrue(e.getMessage(), e.getMessage().contains("foo"));
+  }
+}
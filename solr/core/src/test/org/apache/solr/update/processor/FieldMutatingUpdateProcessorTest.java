@@ -16,7 +16,10 @@
  */
 package org.apache.solr.update.processor;
 
+import java.util.ArrayList;
+import java.util.Collections;
 import java.util.LinkedHashSet;
+import java.util.List;
 import java.util.TreeSet;
 import java.util.Arrays;
 
@@ -24,6 +27,7 @@ import org.apache.solr.common.SolrException;
 import org.apache.solr.common.SolrInputDocument;
 import org.apache.solr.common.SolrInputField;
 import org.apache.solr.schema.IndexSchema;
+import org.apache.solr.update.AddUpdateCommand;
 import org.junit.BeforeClass;
 
 /**
@@ -830,4 +834,43 @@ public class FieldMutatingUpdateProcessorTest extends UpdateProcessorTestBase {
                  42, d.getFieldValue("foo_d"));
   }
 
+  public void testProcessAddBatch() throws Exception {
+    final List<List<String>> batches = new ArrayList<>();
+    UpdateRequestProcessor last = new UpdateRequestProcessor(null) {
+      @Override
+      public void processAddBatch(List<AddUpdateCommand> cmds) {
+        List<String> values = new ArrayList<>();
+        for (AddUpdateCommand cmd : cmds) {
+          values.add((String) cmd.getSolrInputDocument().getFieldValue("foo_s"));
+        }
+        batches.add(values);
+      }
+    };
+    UpdateRequestProcessor trim = FieldMutatingUpdateProcessor.mutator
+      (fieldName -> fieldName.startsWith("foo"), last, src -> {
+        String value = src.getFirstValue().toString();
+        if (value.contains("fail")) {
+          throw new SolrException(SolrException.ErrorCode.BAD_REQUEST, "can't mutate " + value);
+        }
+        src.setValue(value.trim());
+        return src;
+      });
+
+    trim.processAddBatch(Arrays.asList(addCmd("1", " a "), addCmd("2", "b "), addCmd("3", " c")));
+    assertEquals(Collections.singletonList(Arrays.asList("a", "b", "c")), batches);
+
+    // the documents before the one that fails are still forwarded
+    batches.clear();
+    SolrException e = expectThrows(SolrException.class, () ->
+        trim.processAddBatch(Arrays.asList(addCmd("4", " d "), addCmd("5", " fail "), addCmd("6", " f "))));
+    assertEquals(SolrException.ErrorCode.BAD_REQUEST.code, e.code());
+    assertEquals(Collections.singletonList(Collections.singletonList("d")), batches);
+  }
+
+  private static AddUpdateCommand addCmd(String id, String foo) {
+    AddUpdateCommand cmd = new AddUpdateCommand(null);
+    cmd.solrDoc = new SolrInputDocument("id", id, "foo_s", foo);
+    return cmd;
+  }
+
 }
@@ -187,21 +187,31 @@ public abstract class BaseCloudSolrClient extends SolrClient {
 
   protected final StateCache collectionStateCache = new StateCache();
 
+  private volatile boolean watchCollectionStates = false;
+  private final Map<String, CachingCollectionStateWatcher> collectionStateWatchers = new ConcurrentHashMap<>();
+
   class ExpiringCachedDocCollection {
     final DocCollection cached;
     final long cachedAt;
+    // kept up to date by a watch, so it doesn't expire
+    final boolean watched;
     //This is the time at which the collection is retried and got the same old version
     volatile long retriedAt = -1;
     //flag that suggests that this is potentially to be rechecked
     volatile boolean maybeStale = false;
 
     ExpiringCachedDocCollection(DocCollection cached) {
+      this(cached, false);
+    }
+
+    ExpiringCachedDocCollection(DocCollection cached, boolean watched) {
       this.cached = cached;
       this.cachedAt = System.nanoTime();
+      this.watched = watched;
     }
 
     boolean isExpired(long timeToLiveMs) {
-      return (System.nanoTime() - cachedAt)
+      return !watched && (System.nanoTime() - cachedAt)
           > TimeUnit.NANOSECONDS.convert(timeToLiveMs, TimeUnit.MILLISECONDS);
     }
 
@@ -236,6 +246,100 @@ public abstract class BaseCloudSolrClient extends SolrClient {
     this.collectionStateCache.timeToLive = seconds * 1000L;
   }
 
+  /**
+   * When enabled and the cluster state is read from ZooKeeper, the client registers a watch on the state of each
+   * collection it routes requests to. Changes of the collection (leader elections, replicas added, removed or changing
+   * state) are then pushed to the collection state cache as they happen, instead of being discovered when cache
+   * entries expire or when a server reports that the client's state is stale.
+   * <p>
+   * Every watched collection costs a ZooKeeper watch, so this is meant for clients that send requests to a moderate
+   * number of collections. Has no effect when the cluster state is fetched over HTTP.
+   */
+  public void setWatchCollectionStates(boolean watchCollectionStates) {
+    this.watchCollectionStates = watchCollectionStates;
+    if (!watchCollectionStates) {
+      removeCollectionStateWatchers();
+    }
+  }
+
+  /**
+   * Keeps the cached state of a collection up to date with the changes notified by ZooKeeper.
+   */
+  private class CachingCollectionStateWatcher implements DocCollectionWatcher {
+    final String collection;
+    final ZkStateReader zkStateReader;
+
+    CachingCollectionStateWatcher(String collection, ZkStateReader zkStateReader) {
+      this.collection = collection;
+      this.zkStateReader = zkStateReader;
+    }
+
+    @Override
+    public boolean onStateChanged(DocCollection collectionState) {
+      if (collectionStateWatchers.get(collection) != this) {
+        // removed (client closed or watches disabled) while the notification was in flight
+        return true;
+      }
+      if (collectionState == null) {
+        // the collection was deleted, it will be watched again if it is recreated and used
+        collectionStateWatchers.remove(collection, this);
+        collectionStateCache.remove(collection);
+        return true;
+      }
+      ExpiringCachedDocCollection cacheEntry = collectionStateCache.get(collection);
+      if (cacheEntry == null || cacheEntry.cached != collectionState) {
+        cacheCollectionState(collection, collectionState);
+      }
+      return false;
+    }
+  }
+
+  /**
+   * Registers the watcher of a collection if watching collection states is enabled.
+   *
+   * @return true if the collection is watched, in which case the watcher put its current state in the cache
+   */
+  private boolean watchCollectionState(String collection) {
+    if (!watchCollectionStates || !(getClusterStateProvider() instanceof ZkClientClusterStateProvider)) {
+      return false;
+    }
+    if (collectionStateWatchers.containsKey(collection)) {
+      return true;
+    }
+    ZkStateReader zkStateReader = ((ZkClientClusterStateProvider) getClusterStateProvider()).getZkStateReader();
+    CachingCollectionStateWatcher watcher = new CachingCollectionStateWatcher(collection, zkStateReader);
+    if (collectionStateWatchers.putIfAbsent(collection, watcher) == null) {
+      zkStateReader.registerDocCollectionWatcher(collection, watcher);
+    }
+    return collectionStateWatchers.containsKey(collection);
+  }
+
+  /**
+   * Caches the state of a collection. The entries of watched collections don't expire, since the watch keeps them
+   * up to date.
+   */
+  private void cacheCollectionState(String collection, DocCollection collectionState) {
+    collectionStateCache.put(collection,
+        new ExpiringCachedDocCollection(collectionState, collectionStateWatchers.containsKey(collection)));
+  }
+
+  /**
+   * Removes the watchers registered by {@link #setWatchCollectionStates(boolean)}, and the entries they kept up to
+   * date. Called by the subclasses before they close their {@link ClusterStateProvider}.
+   */
+  protected void removeCollectionStateWatchers() {
+    for (CachingCollectionStateWatcher watcher : collectionStateWatchers.values()) {
+      collectionStateWatchers.remove(watcher.collection, watcher);
+      // without the watch, the entry would never expire
+      collectionStateCache.remove(watcher.collection);
+      try {
+        watcher.zkStateReader.removeDocCollectionWatcher(watcher.collection, watcher);
+      } catch (Exception e) {
+        log.debug("Could not remove the state watcher of collection {}", watcher.collection, e);
+      }
+    }
+  }
+
   protected abstract LBSolrClient getLbClient();
 
   public abstract ClusterStateProvider getClusterStateProvider();
@@ -994,7 +1098,7 @@ public abstract class BaseCloudSolrClient extends SolrClient {
             // looks like we couldn't reach the server because the state was stale == retry
             stateWasStale = true;
             // we just pulled state from ZK, so update the cache so that the retry uses it
-            collectionStateCache.put(ext.getName(), new ExpiringCachedDocCollection(latestStateFromZk));
+            cacheCollectionState(ext.getName(), latestStateFromZk);
           }
         }
       }
@@ -1203,6 +1307,13 @@ public abstract class BaseCloudSolrClient extends SolrClient {
         if (expectedVersion <= col.getZNodeVersion()
             && !cacheEntry.shouldRetry()) return col;
       }
+      if (watchCollectionState(collection)) {
+        // registering the watcher fetched the latest state, which is kept up to date from now on; but the watch may
+        // not have delivered the version the caller expects yet, in which case it's read from ZK below
+        cacheEntry = collectionStateCache.get(collection);
+        col = cacheEntry == null ? null : cacheEntry.cached;
+        if (col != null && expectedVersion <= col.getZNodeVersion()) return col;
+      }
       // We are going to fetch a new version
       // we MUST try to get a new version
       fetchedCol = ref.get();//this is a call to ZK
@@ -1210,8 +1321,9 @@ public abstract class BaseCloudSolrClient extends SolrClient {
       if (col != null && fetchedCol.getZNodeVersion() == col.getZNodeVersion()) {
         cacheEntry.setRetriedAt();//we retried and found that it is the same version
         cacheEntry.maybeStale = false;
-      } else {
-        collectionStateCache.put(collection, new ExpiringCachedDocCollection(fetchedCol));
+      } else if (col == null || !cacheEntry.watched || fetchedCol.getZNodeVersion() > col.getZNodeVersion()) {
+        // (unless the watch delivered a newer state in the meantime)
+        cacheCollectionState(collection, fetchedCol);
       }
       return fetchedCol;
     }
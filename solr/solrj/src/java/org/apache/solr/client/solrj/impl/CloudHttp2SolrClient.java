@@ -84,12 +84,14 @@ public class CloudHttp2SolrClient  extends BaseCloudSolrClient {
       this.stateProvider = builder.stateProvider;
     }
     this.lbClient = new LBHttp2SolrClient(myClient);
+    setWatchCollectionStates(builder.watchCollectionStates);
 
   }
 
 
   @Override
   public void close() throws IOException {
+    removeCollectionStateWatchers();
     stateProvider.close();
     lbClient.close();
 
@@ -129,6 +131,7 @@ public class CloudHttp2SolrClient  extends BaseCloudSolrClient {
     protected boolean shardLeadersOnly = true;
     protected boolean directUpdatesToLeadersOnly = false;
     protected boolean parallelUpdates = true;
+    protected boolean watchCollectionStates = false;
     protected ClusterStateProvider stateProvider;
     protected Http2SolrClient.Builder internalClientBuilder;
 
@@ -212,6 +215,18 @@ public class CloudHttp2SolrClient  extends BaseCloudSolrClient {
       return this;
     }
 
+    /**
+     * Tells {@link CloudHttp2SolrClient.Builder} whether created clients should watch the state of the collections
+     * they send requests to, see {@link BaseCloudSolrClient#setWatchCollectionStates(boolean)}.
+     * <p>
+     * If not set, this defaults to 'false' and cached collection states are refreshed when they expire or are
+     * reported stale.
+     */
+    public Builder withCollectionStateWatches(boolean watchCollectionStates) {
+      this.watchCollectionStates = watchCollectionStates;
+      return this;
+    }
+
     public Builder withHttpClient(Http2SolrClient httpClient) {
       if (this.internalClientBuilder != null) {
         throw new IllegalStateException("The builder can't accept an httpClient AND an internalClientBuilder, only one of those can be provided");
@@ -114,6 +114,7 @@ public class CloudSolrClient extends BaseCloudSolrClient {
 
   @Override
   public void close() throws IOException {
+    removeCollectionStateWatchers();
     stateProvider.close();
     
     if (shutdownLBHttpSolrServer) {
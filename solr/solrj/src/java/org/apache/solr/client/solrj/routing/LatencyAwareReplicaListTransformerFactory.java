@@ -0,0 +1,212 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.apache.solr.client.solrj.routing;
+
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+
+import org.apache.solr.common.cloud.Replica;
+import org.apache.solr.common.params.SolrParams;
+
+/**
+ * Factory of {@link ReplicaListTransformer}s that order replicas by how fast they have been responding.
+ * <p>
+ * The factory tracks, per replica URL, an exponentially weighted moving average (EWMA) of the response time and the
+ * number of outstanding requests. The owner of the factory reports requests with {@link #requestStarted(String)} and
+ * {@link #requestFinished(String, long, boolean)}. A replica's cost is its average response time multiplied by its
+ * outstanding requests plus one. Replicas are ordered with the "power of two choices": each position of the list
+ * goes to the cheaper of two randomly drawn remaining replicas, which spreads load while steering it away from slow
+ * replicas, without herding every request to the single fastest one.
+ * <p>
+ * Replicas without statistics cost nothing, so that they get measured. The statistics of a replica decay while it
+ * isn't used, so a replica that was slow once (e.g. during a GC pause) is tried again later, and they are dropped once
+ * they have decayed for {@link #EVICT_AFTER_NANOS} without outstanding requests, e.g. after the replica was moved.
+ */
+public class LatencyAwareReplicaListTransformerFactory implements ReplicaListTransformerFactory {
+
+  /** Weight of the latest response time in the moving average */
+  static final double EWMA_ALPHA = 0.3;
+  /** Time after which the average response time of an unused replica has halved */
+  static final long DECAY_HALF_LIFE_NANOS = TimeUnit.SECONDS.toNanos(10);
+  /** Time after which the statistics of a replica without outstanding requests are dropped */
+  static final long EVICT_AFTER_NANOS = 6 * DECAY_HALF_LIFE_NANOS;
+
+  private final Map<String, ReplicaStats> stats = new ConcurrentHashMap<>();
+  private final AtomicLong lastEviction = new AtomicLong(System.nanoTime());
+  private final Random r;
+  private final ReplicaListTransformer transformer = new ReplicaListTransformer() {
+    @Override
+    public <T> void transform(List<T> choices) {
+      orderByCost(choices);
+    }
+  };
+
+  public LatencyAwareReplicaListTransformerFactory() {
+    this(new Random());
+  }
+
+  public LatencyAwareReplicaListTransformerFactory(Random r) {
+    this.r = r;
+  }
+
+  static class ReplicaStats {
+    final AtomicInteger outstanding = new AtomicInteger();
+    volatile double ewmaNanos;
+    volatile long updatedAt;
+
+    synchronized void update(long elapsedNanos, long now) {
+      double previous = decayedEwma(now);
+      ewmaNanos = previous == 0 ? elapsedNanos : EWMA_ALPHA * elapsedNanos + (1 - EWMA_ALPHA) * previous;
+      updatedAt = now;
+    }
+
+    double decayedEwma(long now) {
+      double ewma = ewmaNanos;
+      long age = now - updatedAt;
+      return age <= 0 ? ewma : ewma * Math.pow(0.5, (double) age / DECAY_HALF_LIFE_NANOS);
+    }
+
+    double cost(long now) {
+      return decayedEwma(now) * (outstanding.get() + 1);
+    }
+
+    boolean isStale(long now) {
+      return outstanding.get() == 0 && now - updatedAt > EVICT_AFTER_NANOS;
+    }
+  }
+
+  @Override
+  public ReplicaListTransformer getInstance(String configSpec, SolrParams requestParams, ReplicaListTransformerFactory fallback) {
+    return transformer;
+  }
+
+  /** To be called when a request is sent to a replica */
+  public void requestStarted(String url) {
+    // incremented while the entry is locked, so that it can't be evicted in between
+    stats.compute(key(url), (k, replicaStats) -> {
+      if (replicaStats == null) {
+        replicaStats = new ReplicaStats();
+      }
+      replicaStats.outstanding.incrementAndGet();
+      return replicaStats;
+    });
+  }
+
+  /**
+   * To be called when a request started with {@link #requestStarted(String)} completes. A failed request counts as at
+   * least twice the average response time of the replica.
+   */
+  public void requestFinished(String url, long elapsedNanos, boolean failed) {
+    ReplicaStats replicaStats = stats.get(key(url));
+    if (replicaStats == null) {
+      return;
+    }
+    long now = System.nanoTime();
+    if (failed) {
+      elapsedNanos = Math.max(elapsedNanos, (long) (2 * replicaStats.decayedEwma(now)));
+    }
+    replicaStats.update(elapsedNanos, now);
+    // only once updated, since the entry may be evicted as soon as it has no outstanding requests
+    replicaStats.outstanding.decrementAndGet();
+  }
+
+  /** To be called instead of {@link #requestFinished(String, long, boolean)} when a request is abandoned */
+  public void requestCancelled(String url) {
+    ReplicaStats replicaStats = stats.get(key(url));
+    if (replicaStats != null) {
+      replicaStats.outstanding.decrementAndGet();
+    }
+  }
+
+  /** The statistics of each replica URL, with the average response time in milliseconds, for metrics */
+  public Map<String, Object> getStats() {
+    long now = System.nanoTime();
+    evictStale(now);
+    Map<String, Object> result = new LinkedHashMap<>();
+    stats.forEach((url, replicaStats) -> {
+      Map<String, Object> entry = new LinkedHashMap<>();
+      entry.put("latencyMs", replicaStats.decayedEwma(now) / TimeUnit.MILLISECONDS.toNanos(1));
+      entry.put("outstanding", replicaStats.outstanding.get());
+      result.put(url, entry);
+    });
+    return result;
+  }
+
+  double cost(Object choice, long now) {
+    String url;
+    if (choice instanceof String) {
+      url = (String) choice;
+    } else if (choice instanceof Replica) {
+      url = ((Replica) choice).getCoreUrl();
+    } else {
+      return 0;
+    }
+    ReplicaStats replicaStats = stats.get(key(url));
+    return replicaStats == null ? 0 : replicaStats.cost(now);
+  }
+
+  /**
+   * Drops the statistics that have decayed without outstanding requests, at most once per
+   * {@link #DECAY_HALF_LIFE_NANOS}, so that replicas that are gone don't accumulate.
+   */
+  void evictStale(long now) {
+    long last = lastEviction.get();
+    if (now - last < DECAY_HALF_LIFE_NANOS || !lastEviction.compareAndSet(last, now)) {
+      return;
+    }
+    for (String url : stats.keySet()) {
+      stats.computeIfPresent(url, (k, replicaStats) -> replicaStats.isStale(now) ? null : replicaStats);
+    }
+  }
+
+  <T> void orderByCost(List<T> choices) {
+    int size = choices.size();
+    if (size < 2) {
+      return;
+    }
+    long now = System.nanoTime();
+    evictStale(now);
+    double[] costs = new double[size];
+    for (int i = 0; i < size; i++) {
+      costs[i] = cost(choices.get(i), now);
+    }
+    for (int i = 0; i < size - 1; i++) {
+      // pick the cheaper of two random candidates among the remaining ones
+      int a = i + r.nextInt(size - i);
+      int b = i + r.nextInt(size - i);
+      int chosen = costs[b] < costs[a] ? b : a;
+      if (chosen != i) {
+        T choice = choices.get(chosen);
+        choices.set(chosen, choices.get(i));
+        choices.set(i, choice);
+        double cost = costs[chosen];
+        costs[chosen] = costs[i];
+        costs[i] = cost;
+      }
+    }
+  }
+
+  private static String key(String url) {
+    return url.endsWith("/") ? url.substring(0, url.length() - 1) : url;
+  }
+}
@@ -136,15 +136,17 @@ public class DocCollection extends ZkNodeProps implements Iterable<Slice> {
     if(getChildNodesVersion() == newPerReplicaStates.cversion) return this;
     Set<String> modifiedReplicas = PerReplicaStates.findModifiedReplicas(newPerReplicaStates, this.perReplicaStates);
     if(modifiedReplicas.isEmpty()) return this; //nothing is modified
-    Map<String, Slice> modifiedShards = new HashMap<>(getSlicesMap());
+    // copy each modified shard once, even when several of its replicas are modified
+    Map<String, List<Replica>> modifiedReplicasByShard = new HashMap<>();
     for (String s : modifiedReplicas) {
       Replica replica = getReplica(s);
       if(replica != null) {
         Replica newReplica = replica.copyWith(newPerReplicaStates.get(s));
-        Slice shard = modifiedShards.get(replica.shard);
-        modifiedShards.put(replica.shard, shard.copyWith(newReplica));
+        modifiedReplicasByShard.computeIfAbsent(replica.shard, k -> new ArrayList<>()).add(newReplica);
       }
     }
+    Map<String, Slice> modifiedShards = new HashMap<>(getSlicesMap());
+    modifiedReplicasByShard.forEach((shard, replicas) -> modifiedShards.put(shard, modifiedShards.get(shard).copyWith(replicas)));
     DocCollection result = new DocCollection(getName(), modifiedShards, propMap, router, znodeVersion);
     result.perReplicaStates = newPerReplicaStates;
     return result;
@@ -76,12 +76,25 @@ public class PerReplicaStates implements ReflectMapWriter {
    * @param states the per-replica states (the list of all child nodes)
    */
   public PerReplicaStates(String path, int cversion, List<String> states) {
+    this(path, cversion, states, null);
+  }
+
+  /**
+   * Construct with data read from ZK, reusing the parsed states of <code>previous</code> for the child nodes that
+   * are unchanged. A state change of a few replicas of a large collection then only parses these replicas again.
+   * @param path path from where this is loaded
+   * @param cversion the current child version of the znode
+   * @param states the per-replica states (the list of all child nodes)
+   * @param previous states previously loaded from the same znode, or null
+   */
+  public PerReplicaStates(String path, int cversion, List<String> states, PerReplicaStates previous) {
     this.path = path;
     this.cversion = cversion;
     Map<String, State> tmp = new LinkedHashMap<>();
 
     for (String state : states) {
-      State rs = State.parse(state);
+      State rs = previous == null ? null : previous.getUnchanged(state);
+      if (rs == null) rs = State.parse(state);
       if (rs == null) continue;
       State existing = tmp.get(rs.replica);
       if (existing == null) {
@@ -94,6 +107,16 @@ public class PerReplicaStates implements ReflectMapWriter {
 
   }
 
+  /**
+   * Returns the state parsed from the given child node if it is the only one of its replica, or null
+   */
+  private State getUnchanged(String serialized) {
+    String replica = getReplicaName(serialized);
+    if (replica == null) return null;
+    State existing = states.get(replica);
+    return existing != null && existing.duplicate == null && existing.asString.equals(serialized) ? existing : null;
+  }
+
   /** Check and return if all replicas are ACTIVE
    */
   public boolean allActive() {
@@ -125,7 +148,8 @@ public class PerReplicaStates implements ReflectMapWriter {
 
   /**
    * Fetch the latest {@link PerReplicaStates} . It fetches data after checking the {@link Stat#getCversion()} of state.json.
-   * If this is not modified, the same object is returned
+   * If this is not modified, the same object is returned, otherwise the unchanged states of <code>current</code> are
+   * reused
    */
   public static PerReplicaStates fetch(String path, SolrZkClient zkClient, PerReplicaStates current) {
     try {
@@ -136,7 +160,7 @@ public class PerReplicaStates implements ReflectMapWriter {
       }
       Stat stat = new Stat();
       List<String> children = zkClient.getChildren(path, null, stat, true);
-      return new PerReplicaStates(path, stat.getCversion(), Collections.unmodifiableList(children));
+      return new PerReplicaStates(path, stat.getCversion(), Collections.unmodifiableList(children), current);
     } catch (KeeperException e) {
       throw new SolrException(SolrException.ErrorCode.SERVER_ERROR, "Error fetching per-replica states", e);
     } catch (InterruptedException e) {
@@ -70,11 +70,19 @@ public class Slice extends ZkNodeProps implements Iterable<Replica> {
   /**Make a copy with a modified replica
    */
   public Slice copyWith(Replica modified) {
+    return copyWith(Collections.singletonList(modified));
+  }
+
+  /**Make a copy with several modified replicas
+   */
+  public Slice copyWith(Collection<Replica> modified) {
     if(log.isDebugEnabled()) {
-      log.debug("modified replica : {}", modified);
+      log.debug("modified replicas : {}", modified);
     }
     Map<String, Replica> replicasCopy = new LinkedHashMap<>(replicas);
-    replicasCopy.put(modified.getName(), modified);
+    for (Replica replica : modified) {
+      replicasCopy.put(replica.getName(), replica);
+    }
     return new Slice(name, replicasCopy, propMap, collection);
   }
   /** The slice's state. */
@@ -1223,8 +1223,9 @@ public class ZkStateReader implements SolrCloseable {
       List<String> replicaStates = null;
       try {
         replicaStates = zkClient.getChildren(collectionPath, this, stat, true);
-        PerReplicaStates newStates = new PerReplicaStates(collectionPath, stat.getCversion(), replicaStates);
         DocCollection oldState = watchedCollectionStates.get(coll);
+        PerReplicaStates newStates = new PerReplicaStates(collectionPath, stat.getCversion(), replicaStates,
+            oldState == null ? null : oldState.getPerReplicaStates());
         final DocCollection newState = oldState != null ?
                 oldState.copyWith(newStates) :
                 fetchCollectionState(coll, null);
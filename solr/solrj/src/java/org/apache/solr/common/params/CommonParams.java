@@ -155,6 +155,13 @@ public interface CommonParams {
   String SEGMENT_TERMINATE_EARLY = "segmentTerminateEarly";
   boolean SEGMENT_TERMINATE_EARLY_DEFAULT = false;
 
+  /**
+   * Whether the documents of a single core may be collected concurrently over slices of the index, using the
+   * executor configured with <code>indexSearcherExecutorThreads</code> in solr.xml.
+   */
+  String MULTI_THREADED = "multiThreaded";
+  boolean MULTI_THREADED_DEFAULT = false;
+
   /**
    * Timeout value in milliseconds.  If not set, or the value is &gt; 0, there is no timeout.
    */
@@ -844,6 +844,36 @@ public class CloudHttp2SolrClientTest extends SolrCloudTestCase {
     assertEquals("There must be 1 version", 1, deletes.size());
   }
   
+  @Test
+  public void testCollectionStateWatches() throws Exception {
+    CollectionAdminRequest.createCollection(COLLECTION, "conf", 1, 1).process(cluster.getSolrClient());
+    cluster.waitForActiveCollection(COLLECTION, 1, 1);
+    try (CloudHttp2SolrClient client = new CloudHttp2SolrClient.Builder(
+        Collections.singletonList(cluster.getZkServer().getZkAddress()), Optional.empty())
+        .withCollectionStateWatches(true).build()) {
+      client.setCollectionCacheTTl(1); // watched entries are kept up to date, and don't expire
+      assertEquals(0, client.query(COLLECTION, params("q", "*:*")).getResults().getNumFound());
+      assertEquals(1, client.getDocCollection(COLLECTION, null).getReplicas().size());
+      Thread.sleep(1500);
+      assertTrue(client.collectionStateCache.get(COLLECTION).watched);
+      DocCollection watchedState = client.collectionStateCache.get(COLLECTION).cached;
+      assertSame(watchedState, client.getDocCollection(COLLECTION, watchedState.getZNodeVersion()));
+
+      CollectionAdminRequest.addReplicaToShard(COLLECTION, "shard1").process(cluster.getSolrClient());
+      cluster.waitForActiveCollection(COLLECTION, 1, 2);
+      for (int i = 0; i < 100 && client.collectionStateCache.get(COLLECTION).cached.getReplicas().size() != 2; i++) {
+        Thread.sleep(100);
+      }
+      assertEquals(2, client.collectionStateCache.get(COLLECTION).cached.getReplicas().size());
+
+      CollectionAdminRequest.deleteCollection(COLLECTION).process(cluster.getSolrClient());
+      for (int i = 0; i < 100 && client.collectionStateCache.get(COLLECTION) != null; i++) {
+        Thread.sleep(100);
+      }
+      assertNull(client.collectionStateCache.get(COLLECTION));
+    }
+  }
+
   @Test
   public void testInitializationWithSolrUrls() throws Exception {
     CollectionAdminRequest.createCollection(COLLECTION, "conf", 2, 1).process(cluster.getSolrClient());
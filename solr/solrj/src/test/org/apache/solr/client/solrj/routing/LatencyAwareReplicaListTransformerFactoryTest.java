@@ -0,0 +1,123 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.apache.solr.client.solrj.routing;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+import org.apache.solr.SolrTestCase;
+import org.apache.solr.common.params.ModifiableSolrParams;
+import org.apache.solr.common.params.ShardParams;
+import org.junit.Test;
+
+public class LatencyAwareReplicaListTransformerFactoryTest extends SolrTestCase {
+
+  private static final String FAST = "http://host1:8983/solr/c1_shard1_replica_n1/";
+  private static final String SLOW = "http://host2:8983/solr/c1_shard1_replica_n2/";
+  private static final String OTHER = "http://host3:8983/solr/c1_shard1_replica_n3/";
+
+  @Test
+  public void testPrefersFastReplicas() {
+    LatencyAwareReplicaListTransformerFactory factory = new LatencyAwareReplicaListTransformerFactory(random());
+    record(factory, FAST, 5, false);
+    record(factory, SLOW, 500, false);
+    record(factory, OTHER, 50, false);
+
+    ReplicaListTransformer transformer = factory.getInstance(null, new ModifiableSolrParams(), null);
+    Map<String, Integer> firstCounts = new HashMap<>();
+    for (int i = 0; i < 1000; i++) {
+      List<String> urls = new ArrayList<>(Arrays.asList(SLOW, OTHER, FAST));
+      transformer.transform(urls);
+      assertEquals(new HashSet<>(Arrays.asList(SLOW, OTHER, FAST)), new HashSet<>(urls));
+      firstCounts.merge(urls.get(0), 1, Integer::sum);
+    }
+    // with two random choices, the slowest replica can only come first if it is drawn twice
+    assertTrue(firstCounts.toString(), firstCounts.getOrDefault(FAST, 0) > firstCounts.getOrDefault(OTHER, 0));
+    assertTrue(firstCounts.toString(), firstCounts.getOrDefault(OTHER, 0) > firstCounts.getOrDefault(SLOW, 0));
+  }
+
+  @Test
+  public void testOutstandingRequestsAndFailures() {
+    LatencyAwareReplicaListTransformerFactory factory = new LatencyAwareReplicaListTransformerFactory(random());
+    record(factory, FAST, 10, false);
+    record(factory, OTHER, 10, false);
+    long now = System.nanoTime();
+    assertEquals(factory.cost(FAST, now), factory.cost(OTHER, now), 0.05 * factory.cost(FAST, now));
+
+    factory.requestStarted(FAST);
+    factory.requestStarted(FAST);
+    now = System.nanoTime();
+    assertTrue(factory.cost(FAST, now) > 2 * factory.cost(OTHER, now));
+    factory.requestFinished(FAST, TimeUnit.MILLISECONDS.toNanos(10), false);
+    factory.requestFinished(FAST, TimeUnit.MILLISECONDS.toNanos(10), false);
+
+    record(factory, OTHER, 1, true);
+    now = System.nanoTime();
+    assertTrue(factory.cost(OTHER, now) > factory.cost(FAST, now));
+
+    Map<String, Object> stats = factory.getStats();
+    assertEquals(2, stats.size());
+    assertEquals(0, ((Map<?, ?>) stats.get(FAST.substring(0, FAST.length() - 1))).get("outstanding"));
+  }
+
+  @Test
+  public void testEvictsStaleStats() {
+    LatencyAwareReplicaListTransformerFactory factory = new LatencyAwareReplicaListTransformerFactory(random());
+    record(factory, FAST, 10, false);
+    record(factory, OTHER, 10, false);
+    factory.requestStarted(OTHER);
+
+    // too early: nothing is evicted
+    long now = System.nanoTime();
+    factory.evictStale(now + LatencyAwareReplicaListTransformerFactory.DECAY_HALF_LIFE_NANOS);
+    assertEquals(2, factory.getStats().size());
+
+    // only the replica without outstanding requests is evicted
+    factory.evictStale(now + 2 * LatencyAwareReplicaListTransformerFactory.EVICT_AFTER_NANOS);
+    Map<String, Object> stats = factory.getStats();
+    assertEquals(1, stats.size());
+    assertEquals(1, ((Map<?, ?>) stats.get(OTHER.substring(0, OTHER.length() - 1))).get("outstanding"));
+    assertEquals(0, factory.cost(FAST, System.nanoTime()), 0);
+
+    factory.requestFinished(OTHER, TimeUnit.MILLISECONDS.toNanos(10), false);
+    assertEquals(0, ((Map<?, ?>) factory.getStats().get(OTHER.substring(0, OTHER.length() - 1))).get("outstanding"));
+  }
+
+  @Test
+  public void testShardsPreference() {
+    LatencyAwareReplicaListTransformerFactory factory = new LatencyAwareReplicaListTransformerFactory(random());
+    RequestReplicaListTransformerGenerator generator =
+        new RequestReplicaListTransformerGenerator(null, null, factory, null, null, null, null);
+    ModifiableSolrParams params = new ModifiableSolrParams();
+    params.set(ShardParams.SHARDS_PREFERENCE, ShardParams.SHARDS_PREFERENCE_REPLICA_BASE + ":" + ShardParams.REPLICA_LATENCY);
+    assertSame(factory.getInstance(null, params, null), generator.getReplicaListTransformer(params));
+
+    // without response time tracking, the latency order falls back to random
+    assertSame(RequestReplicaListTransformerGenerator.RANDOM_RLTF.getInstance(null, params, null),
+        new RequestReplicaListTransformerGenerator().getReplicaListTransformer(params));
+  }
+
+  private static void record(LatencyAwareReplicaListTransformerFactory factory, String url, long millis, boolean failed) {
+    factory.requestStarted(url);
+    factory.requestFinished(url, TimeUnit.MILLISECONDS.toNanos(millis), failed);
+  }
+}
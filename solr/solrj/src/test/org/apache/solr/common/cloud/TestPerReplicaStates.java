@@ -75,6 +75,21 @@ public class TestPerReplicaStates extends SolrCloudTestCase {
 
   }
 
+  public void testIncrementalEntries() {
+    PerReplicaStates old = new PerReplicaStates("state.json", 0, ImmutableList.of("R1:1:A:L", "R2:0:D", "R3:0:A", "R3:1:A"));
+    PerReplicaStates fresh = new PerReplicaStates("state.json", 1,
+        ImmutableList.of("R1:1:A:L", "R2:1:A", "R3:0:A", "R3:1:A", "R4:0:D"), old);
+    // unchanged states are reused, unless they had duplicates
+    assertSame(old.get("R1"), fresh.get("R1"));
+    assertNotSame(old.get("R3"), fresh.get("R3"));
+    assertEquals(old.get("R3"), fresh.get("R3"));
+    assertEquals(1, fresh.get("R3").getDuplicates().size());
+    assertEquals(State.ACTIVE, fresh.get("R2").state);
+    assertEquals(1, fresh.get("R2").version);
+    assertEquals(State.DOWN, fresh.get("R4").state);
+    assertEquals(ImmutableSet.of("R2", "R4"), PerReplicaStates.findModifiedReplicas(old, fresh));
+  }
+
   public void testReplicaStateOperations() throws Exception {
     String root = "/testReplicaStateOperations";
     cluster.getZkClient().create(root, null, CreateMode.PERSISTENT, true);